@@ -0,0 +1,36 @@
+package com.vijay.petrosoft.controller;
+
+import com.vijay.petrosoft.service.DataArchiveService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/archive")
+@RequiredArgsConstructor
+public class ArchiveController {
+
+    private final DataArchiveService dataArchiveService;
+
+    @PostMapping("/financial-years/{id}")
+    public ResponseEntity<Map<String, Object>> archiveFinancialYear(@PathVariable Long id) {
+        Map<String, Object> result = dataArchiveService.archiveFinancialYear(id);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @GetMapping("/partitions")
+    public ResponseEntity<List<Map<String, Object>>> getPartitionStatus() {
+        List<Map<String, Object>> status = dataArchiveService.getPartitionStatus();
+        return new ResponseEntity<>(status, HttpStatus.OK);
+    }
+
+    @PostMapping("/partitions/maintain")
+    public ResponseEntity<List<Map<String, Object>>> maintainPartitions() {
+        dataArchiveService.ensureMonthlyPartitions();
+        return new ResponseEntity<>(dataArchiveService.getPartitionStatus(), HttpStatus.OK);
+    }
+}
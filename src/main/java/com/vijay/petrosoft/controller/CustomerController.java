@@ -1,13 +1,20 @@
 package com.vijay.petrosoft.controller;
 
+import com.vijay.petrosoft.dto.CreditExposureDTO;
+import com.vijay.petrosoft.dto.CustomerAgeingDTO;
 import com.vijay.petrosoft.dto.CustomerDTO;
+import com.vijay.petrosoft.dto.CustomerStatementRunDTO;
+import com.vijay.petrosoft.service.CreditExposureService;
+import com.vijay.petrosoft.service.CustomerAgeingService;
 import com.vijay.petrosoft.service.CustomerService;
+import com.vijay.petrosoft.service.CustomerStatementService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -16,6 +23,9 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CreditExposureService creditExposureService;
+    private final CustomerAgeingService customerAgeingService;
+    private final CustomerStatementService customerStatementService;
 
     @PostMapping
     public ResponseEntity<CustomerDTO> createCustomer(@RequestBody CustomerDTO customerDTO) {
@@ -66,6 +76,45 @@ public class CustomerController {
         return new ResponseEntity<>(customers, HttpStatus.OK);
     }
 
+    @GetMapping("/{customerId}/credit-exposure")
+    public ResponseEntity<CreditExposureDTO> getCreditExposure(@PathVariable Long customerId) {
+        CreditExposureDTO exposure = creditExposureService.getExposure(customerId);
+        return new ResponseEntity<>(exposure, HttpStatus.OK);
+    }
+
+    @GetMapping("/ageing")
+    public ResponseEntity<List<CustomerAgeingDTO>> getAgeingReport(@RequestParam(required = false) BigDecimal minOpen) {
+        List<CustomerAgeingDTO> report = customerAgeingService.getAgeingReport(minOpen);
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+
+    @GetMapping("/{customerId}/ageing")
+    public ResponseEntity<CustomerAgeingDTO> getCustomerAgeing(@PathVariable Long customerId) {
+        CustomerAgeingDTO ageing = customerAgeingService.getCustomerAgeing(customerId);
+        return new ResponseEntity<>(ageing, HttpStatus.OK);
+    }
+
+    @PostMapping("/{customerId}/ageing/rebuild")
+    public ResponseEntity<CustomerAgeingDTO> rebuildCustomerAgeing(@PathVariable Long customerId) {
+        CustomerAgeingDTO ageing = customerAgeingService.rebuildCustomer(customerId);
+        return new ResponseEntity<>(ageing, HttpStatus.OK);
+    }
+
+    @PostMapping("/ageing/rebuild")
+    public ResponseEntity<Integer> rebuildAgeing() {
+        return new ResponseEntity<>(customerAgeingService.rebuildAll(), HttpStatus.OK);
+    }
+
+    @PostMapping("/statements")
+    public ResponseEntity<CustomerStatementRunDTO> generateStatements(
+            @RequestParam Long pumpId,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            @RequestParam(defaultValue = "true") boolean notify) {
+        CustomerStatementRunDTO run = customerStatementService.generateStatements(pumpId, startDate, endDate, notify);
+        return new ResponseEntity<>(run, HttpStatus.OK);
+    }
+
     @PutMapping("/{customerId}/outstanding")
     public ResponseEntity<CustomerDTO> updateOutstanding(
             @PathVariable Long customerId,
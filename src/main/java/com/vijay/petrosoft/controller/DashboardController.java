@@ -1,11 +1,19 @@
 package com.vijay.petrosoft.controller;
 
 import com.vijay.petrosoft.dto.DashboardDTO;
+import com.vijay.petrosoft.dto.DashboardWidgetMetricsDTO;
+import com.vijay.petrosoft.dto.SalesTopKEntryDTO;
 import com.vijay.petrosoft.service.DashboardService;
+import com.vijay.petrosoft.service.DashboardSnapshotService;
+import com.vijay.petrosoft.service.DashboardWidgetService;
+import com.vijay.petrosoft.service.SalesRollupService;
+import com.vijay.petrosoft.service.SalesTopKService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -17,19 +25,38 @@ import java.util.Map;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final SalesRollupService salesRollupService;
+    private final DashboardWidgetService dashboardWidgetService;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final SalesTopKService salesTopKService;
 
     @GetMapping("/pump/{pumpId}")
     public ResponseEntity<DashboardDTO> getDashboard(@PathVariable Long pumpId) {
-        DashboardDTO dashboard = dashboardService.getDashboard(pumpId);
+        DashboardDTO dashboard = dashboardSnapshotService.getSnapshot(pumpId);
         return new ResponseEntity<>(dashboard, HttpStatus.OK);
     }
 
+    @GetMapping(value = "/pump/{pumpId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDashboard(@PathVariable Long pumpId) {
+        return dashboardSnapshotService.subscribe(pumpId);
+    }
+
     @GetMapping("/global")
     public ResponseEntity<DashboardDTO> getGlobalDashboard() {
-        DashboardDTO dashboard = dashboardService.getGlobalDashboard();
+        DashboardDTO dashboard = dashboardSnapshotService.getSnapshot(null);
         return new ResponseEntity<>(dashboard, HttpStatus.OK);
     }
 
+    @GetMapping(value = "/global/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamGlobalDashboard() {
+        return dashboardSnapshotService.subscribe(null);
+    }
+
+    @GetMapping("/widgets/metrics")
+    public ResponseEntity<List<DashboardWidgetMetricsDTO>> getWidgetMetrics() {
+        return new ResponseEntity<>(dashboardWidgetService.getWidgetMetrics(), HttpStatus.OK);
+    }
+
     @GetMapping("/pump/{pumpId}/date-range")
     public ResponseEntity<DashboardDTO> getDashboardByDateRange(
             @PathVariable Long pumpId,
@@ -136,6 +163,19 @@ public class DashboardController {
         return new ResponseEntity<>(topFuelTypes, HttpStatus.OK);
     }
 
+    @GetMapping("/top-k/{dimension}")
+    public ResponseEntity<List<SalesTopKEntryDTO>> getTopK(
+            @PathVariable SalesTopKService.Dimension dimension,
+            @RequestParam(required = false) Long pumpId,
+            @RequestParam(defaultValue = "MONTH") SalesTopKService.Window window,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean exact) {
+        List<SalesTopKEntryDTO> top = exact
+                ? salesTopKService.getExactTop(dimension, pumpId, window, limit)
+                : salesTopKService.getTop(dimension, pumpId, window, limit);
+        return new ResponseEntity<>(top, HttpStatus.OK);
+    }
+
     @GetMapping("/pump/{pumpId}/recent-sales/{limit}")
     public ResponseEntity<List<DashboardDTO.RecentSaleDTO>> getRecentSales(
             @PathVariable Long pumpId, @PathVariable Long limit) {
@@ -199,4 +239,12 @@ public class DashboardController {
         Map<String, Object> comparison = dashboardService.comparePumps(pumpIds, startDate, endDate);
         return new ResponseEntity<>(comparison, HttpStatus.OK);
     }
+
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Void> rebuildSalesRollups(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate) {
+        salesRollupService.rebuildRollups(startDate, endDate);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
 }
@@ -1,12 +1,17 @@
 package com.vijay.petrosoft.controller;
 
 import com.vijay.petrosoft.dto.NozzleDTO;
+import com.vijay.petrosoft.dto.NozzleMeterReconciliationDTO;
+import com.vijay.petrosoft.dto.NozzleReadingDTO;
+import com.vijay.petrosoft.dto.NozzleReadingIngestResultDTO;
+import com.vijay.petrosoft.service.NozzleMeterService;
 import com.vijay.petrosoft.service.NozzleService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -15,6 +20,7 @@ import java.util.List;
 public class NozzleController {
 
     private final NozzleService nozzleService;
+    private final NozzleMeterService nozzleMeterService;
 
     @PostMapping
     public ResponseEntity<NozzleDTO> createNozzle(@RequestBody NozzleDTO nozzleDTO) {
@@ -82,4 +88,22 @@ public class NozzleController {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
+
+    @PostMapping("/readings")
+    public ResponseEntity<NozzleReadingIngestResultDTO> recordReadings(@RequestBody List<NozzleReadingDTO> readings) {
+        return new ResponseEntity<>(nozzleMeterService.recordReadings(readings), HttpStatus.OK);
+    }
+
+    @GetMapping("/{nozzleId}/readings")
+    public ResponseEntity<List<NozzleReadingDTO>> getReadings(
+            @PathVariable Long nozzleId,
+            @RequestParam LocalDateTime from,
+            @RequestParam LocalDateTime to) {
+        return new ResponseEntity<>(nozzleMeterService.getReadings(nozzleId, from, to), HttpStatus.OK);
+    }
+
+    @GetMapping("/shift/{shiftId}/meter-reconciliation")
+    public ResponseEntity<NozzleMeterReconciliationDTO> reconcileShift(@PathVariable Long shiftId) {
+        return new ResponseEntity<>(nozzleMeterService.reconcileShift(shiftId), HttpStatus.OK);
+    }
 }
@@ -2,6 +2,8 @@ package com.vijay.petrosoft.controller;
 
 import com.vijay.petrosoft.dto.*;
 import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.service.SaleIdempotencyService;
+import com.vijay.petrosoft.service.SaleWriteBehindService;
 import com.vijay.petrosoft.service.SalesService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +22,8 @@ import java.util.Map;
 public class SalesController {
 
     private final SalesService salesService;
+    private final SaleWriteBehindService saleWriteBehindService;
+    private final SaleIdempotencyService saleIdempotencyService;
 
     // Sale Transaction Endpoints
     @PostMapping("/transactions")
@@ -28,6 +32,37 @@ public class SalesController {
         return new ResponseEntity<>(createdTransaction, HttpStatus.CREATED);
     }
 
+    @PostMapping("/transactions/batch")
+    public ResponseEntity<SaleBatchResultDTO> createSaleTransactionsBatch(@RequestBody List<SaleTransactionDTO> saleTransactionDTOs) {
+        SaleBatchResultDTO result = salesService.createSaleTransactionsBatch(saleTransactionDTOs);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/transactions/async")
+    public ResponseEntity<SaleTransactionDTO> acceptSaleTransaction(@Valid @RequestBody SaleTransactionDTO saleTransactionDTO) {
+        SaleTransactionDTO acceptedTransaction = saleWriteBehindService.acceptSale(saleTransactionDTO);
+        return new ResponseEntity<>(acceptedTransaction, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/transactions/async/status")
+    public ResponseEntity<Map<String, Object>> getWriteBehindStatus() {
+        Map<String, Object> status = saleWriteBehindService.getWriteBehindStatus();
+        return ResponseEntity.ok(status);
+    }
+
+    @GetMapping("/transactions/async/dead-letters")
+    public ResponseEntity<List<SaleDeadLetterDTO>> getDeadLetters(@RequestParam(required = false) Long pumpId,
+                                                                  @RequestParam(defaultValue = "100") int limit) {
+        List<SaleDeadLetterDTO> deadLetters = saleWriteBehindService.getDeadLetters(pumpId, limit);
+        return ResponseEntity.ok(deadLetters);
+    }
+
+    @GetMapping("/transactions/idempotency/status")
+    public ResponseEntity<Map<String, Object>> getIdempotencyStatus() {
+        Map<String, Object> status = saleIdempotencyService.getIdempotencyStatus();
+        return ResponseEntity.ok(status);
+    }
+
     @PutMapping("/transactions/{id}")
     public ResponseEntity<SaleTransactionDTO> updateSaleTransaction(@PathVariable Long id, @Valid @RequestBody SaleTransactionDTO saleTransactionDTO) {
         SaleTransactionDTO updatedTransaction = salesService.updateSaleTransaction(id, saleTransactionDTO);
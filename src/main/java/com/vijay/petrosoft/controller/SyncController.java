@@ -0,0 +1,32 @@
+package com.vijay.petrosoft.controller;
+
+import com.vijay.petrosoft.dto.MasterDataSyncDTO;
+import com.vijay.petrosoft.dto.SaleBatchResultDTO;
+import com.vijay.petrosoft.dto.SalesSyncPushDTO;
+import com.vijay.petrosoft.service.MasterDataSyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final MasterDataSyncService masterDataSyncService;
+
+    @GetMapping("/master-data")
+    public ResponseEntity<MasterDataSyncDTO> pullMasterData(
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) Long pumpId) {
+        MasterDataSyncDTO changes = masterDataSyncService.pullChanges(since, pumpId);
+        return new ResponseEntity<>(changes, HttpStatus.OK);
+    }
+
+    @PostMapping("/sales")
+    public ResponseEntity<SaleBatchResultDTO> pushSales(@RequestBody SalesSyncPushDTO salesSyncPushDTO) {
+        SaleBatchResultDTO result = masterDataSyncService.pushSales(salesSyncPushDTO);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+}
@@ -1,13 +1,24 @@
 package com.vijay.petrosoft.controller;
 
+import com.vijay.petrosoft.dto.DipConversionDTO;
+import com.vijay.petrosoft.dto.TankCalibrationChartDTO;
+import com.vijay.petrosoft.dto.TankCalibrationPointDTO;
 import com.vijay.petrosoft.dto.TankDTO;
+import com.vijay.petrosoft.dto.TankLevelDTO;
+import com.vijay.petrosoft.dto.TankStockBookDTO;
+import com.vijay.petrosoft.dto.TankStockPeriodDTO;
+import com.vijay.petrosoft.dto.TankVarianceDTO;
+import com.vijay.petrosoft.service.TankCalibrationService;
+import com.vijay.petrosoft.service.TankLevelAlertService;
 import com.vijay.petrosoft.service.TankService;
+import com.vijay.petrosoft.service.TankStockService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -16,6 +27,9 @@ import java.util.List;
 public class TankController {
 
     private final TankService tankService;
+    private final TankStockService tankStockService;
+    private final TankLevelAlertService tankLevelAlertService;
+    private final TankCalibrationService tankCalibrationService;
 
     @PostMapping
     public ResponseEntity<TankDTO> createTank(@RequestBody TankDTO tankDTO) {
@@ -84,6 +98,13 @@ public class TankController {
         }
     }
 
+    @PutMapping("/{tankId}/dip-reading")
+    public ResponseEntity<TankDTO> recordDipReading(
+            @PathVariable Long tankId,
+            @RequestParam BigDecimal dipMm) {
+        return new ResponseEntity<>(tankService.recordDipReading(tankId, dipMm), HttpStatus.OK);
+    }
+
     @GetMapping("/pump/{pumpId}/fuel-type/{fuelTypeId}")
     public ResponseEntity<TankDTO> getTankByPumpAndFuelType(
             @PathVariable Long pumpId,
@@ -107,4 +128,71 @@ public class TankController {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
+
+    @GetMapping("/{tankId}/stock-book")
+    public ResponseEntity<TankStockBookDTO> getStockBook(@PathVariable Long tankId) {
+        return new ResponseEntity<>(tankStockService.getStockBook(tankId), HttpStatus.OK);
+    }
+
+    @GetMapping("/pump/{pumpId}/stock-book")
+    public ResponseEntity<List<TankStockBookDTO>> getStockBooksByPump(@PathVariable Long pumpId) {
+        return new ResponseEntity<>(tankStockService.getStockBooksByPump(pumpId), HttpStatus.OK);
+    }
+
+    @GetMapping("/{tankId}/stock-book/periods")
+    public ResponseEntity<List<TankStockPeriodDTO>> getStockPeriods(
+            @PathVariable Long tankId,
+            @RequestParam(defaultValue = "DAY") String periodType,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate) {
+        return new ResponseEntity<>(tankStockService.getPeriods(tankId, periodType, startDate, endDate), HttpStatus.OK);
+    }
+
+    @GetMapping("/shift/{shiftId}/stock-variance")
+    public ResponseEntity<List<TankStockPeriodDTO>> getShiftStockVariance(@PathVariable Long shiftId) {
+        return new ResponseEntity<>(tankStockService.getShiftPeriods(shiftId), HttpStatus.OK);
+    }
+
+    @GetMapping("/stock-variance")
+    public ResponseEntity<List<TankVarianceDTO>> getStockVariance(
+            @RequestParam(required = false) Long pumpId,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate) {
+        return new ResponseEntity<>(tankStockService.getVariance(pumpId, startDate, endDate), HttpStatus.OK);
+    }
+
+    @GetMapping("/levels")
+    public ResponseEntity<List<TankLevelDTO>> getProjectedLevels(@RequestParam(required = false) Long pumpId) {
+        return new ResponseEntity<>(tankLevelAlertService.getLevels(pumpId), HttpStatus.OK);
+    }
+
+    @PutMapping("/{tankId}/calibration")
+    public ResponseEntity<TankCalibrationChartDTO> saveCalibrationChart(
+            @PathVariable Long tankId,
+            @RequestBody List<TankCalibrationPointDTO> points) {
+        return new ResponseEntity<>(tankCalibrationService.saveChart(tankId, points), HttpStatus.OK);
+    }
+
+    @GetMapping("/{tankId}/calibration")
+    public ResponseEntity<TankCalibrationChartDTO> getCalibrationChart(@PathVariable Long tankId) {
+        return new ResponseEntity<>(tankCalibrationService.getChart(tankId), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/{tankId}/calibration")
+    public ResponseEntity<Void> deleteCalibrationChart(@PathVariable Long tankId) {
+        tankCalibrationService.deleteChart(tankId);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @GetMapping("/{tankId}/calibration/volume")
+    public ResponseEntity<BigDecimal> getCalibratedVolume(
+            @PathVariable Long tankId,
+            @RequestParam BigDecimal dipMm) {
+        return new ResponseEntity<>(tankCalibrationService.toVolume(tankId, dipMm), HttpStatus.OK);
+    }
+
+    @PostMapping("/dip-conversions")
+    public ResponseEntity<List<DipConversionDTO>> convertDips(@RequestBody List<DipConversionDTO> readings) {
+        return new ResponseEntity<>(tankCalibrationService.convertDips(readings), HttpStatus.OK);
+    }
 }
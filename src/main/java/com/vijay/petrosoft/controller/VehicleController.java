@@ -0,0 +1,76 @@
+package com.vijay.petrosoft.controller;
+
+import com.vijay.petrosoft.dto.FleetStatementDTO;
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+import com.vijay.petrosoft.dto.VehicleDTO;
+import com.vijay.petrosoft.dto.VehicleMonthlySummaryDTO;
+import com.vijay.petrosoft.service.VehicleService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/vehicles")
+@RequiredArgsConstructor
+public class VehicleController {
+
+    private final VehicleService vehicleService;
+
+    @GetMapping("/registration/{vehicleNumber}")
+    public ResponseEntity<VehicleDTO> getVehicleByRegistration(@PathVariable String vehicleNumber) {
+        return new ResponseEntity<>(vehicleService.getVehicleByRegistration(vehicleNumber), HttpStatus.OK);
+    }
+
+    @GetMapping("/customer/{customerId}")
+    public ResponseEntity<List<VehicleDTO>> getVehiclesByCustomer(@PathVariable Long customerId) {
+        return new ResponseEntity<>(vehicleService.getVehiclesByCustomer(customerId), HttpStatus.OK);
+    }
+
+    @PutMapping("/{id}/customer/{customerId}")
+    public ResponseEntity<VehicleDTO> assignToCustomer(@PathVariable Long id, @PathVariable Long customerId) {
+        return new ResponseEntity<>(vehicleService.assignToCustomer(id, customerId), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/sales")
+    public ResponseEntity<List<SaleTransactionDTO>> getVehicleSales(
+            @PathVariable Long id,
+            @RequestParam LocalDateTime startDate,
+            @RequestParam LocalDateTime endDate) {
+        return new ResponseEntity<>(vehicleService.getVehicleSales(id, startDate, endDate), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/monthly-summary")
+    public ResponseEntity<List<VehicleMonthlySummaryDTO>> getVehicleMonthlySummary(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth startMonth,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth endMonth) {
+        return new ResponseEntity<>(vehicleService.getVehicleMonthlySummary(id, startMonth, endMonth), HttpStatus.OK);
+    }
+
+    @GetMapping("/fleet-statement/customer/{customerId}")
+    public ResponseEntity<FleetStatementDTO> getFleetStatement(
+            @PathVariable Long customerId,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return new ResponseEntity<>(vehicleService.getFleetStatement(customerId, month), HttpStatus.OK);
+    }
+
+    @PostMapping("/backfill")
+    public ResponseEntity<Map<String, Integer>> backfillVehicles() {
+        return new ResponseEntity<>(vehicleService.backfillVehicles(), HttpStatus.OK);
+    }
+
+    @PostMapping("/monthly-summaries/rebuild")
+    public ResponseEntity<Void> rebuildMonthlySummaries(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth startMonth,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth endMonth) {
+        vehicleService.rebuildMonthlySummaries(startMonth, endMonth);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
@@ -0,0 +1,31 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "credit_open_items",
+       indexes = @Index(name = "idx_credit_open_items_customer_date", columnList = "customer_id, invoice_date, id"))
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class CreditOpenItem {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "sale_id", nullable = false, unique = true)
+    private Long saleId;
+
+    @Column(name = "invoice_date", nullable = false)
+    private LocalDate invoiceDate;
+
+    @Column(name = "original_amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal originalAmount;
+
+    // Part of the sale not yet settled by receipts; kept at zero after settlement so a reversed receipt can reopen it
+    @Column(name = "open_amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal openAmount;
+}
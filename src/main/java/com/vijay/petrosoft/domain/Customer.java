@@ -2,10 +2,12 @@ package com.vijay.petrosoft.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 
 @Entity
 @Table(name = "customers")
+@DynamicUpdate // outstanding is moved by atomic SQL increments; a stale entity flush must not write it back
 @Data @NoArgsConstructor @AllArgsConstructor @Builder
 public class Customer extends Auditable {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -16,4 +18,8 @@ public class Customer extends Auditable {
     private String email;
     private String address;
     private BigDecimal outstanding = BigDecimal.ZERO;
+
+    // Null means no limit is enforced on credit sales
+    @Column(precision = 15, scale = 2)
+    private BigDecimal creditLimit;
 }
@@ -0,0 +1,51 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "customer_ageing")
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class CustomerAgeing {
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    // Open credit-sale balances bucketed by invoice age in days, as of rebucketedOn
+    @Column(name = "bucket_0_30", precision = 15, scale = 2, nullable = false)
+    @Builder.Default
+    private BigDecimal bucket0To30 = BigDecimal.ZERO;
+
+    @Column(name = "bucket_31_60", precision = 15, scale = 2, nullable = false)
+    @Builder.Default
+    private BigDecimal bucket31To60 = BigDecimal.ZERO;
+
+    @Column(name = "bucket_61_90", precision = 15, scale = 2, nullable = false)
+    @Builder.Default
+    private BigDecimal bucket61To90 = BigDecimal.ZERO;
+
+    @Column(name = "bucket_90_plus", precision = 15, scale = 2, nullable = false)
+    @Builder.Default
+    private BigDecimal bucket90Plus = BigDecimal.ZERO;
+
+    @Column(name = "total_open", precision = 15, scale = 2, nullable = false)
+    @Builder.Default
+    private BigDecimal totalOpen = BigDecimal.ZERO;
+
+    // Receipts in excess of open invoices; consumed by the next credit sale
+    @Column(name = "unapplied_credit", precision = 15, scale = 2, nullable = false)
+    @Builder.Default
+    private BigDecimal unappliedCredit = BigDecimal.ZERO;
+
+    @Column(name = "oldest_open_date")
+    private LocalDate oldestOpenDate;
+
+    @Column(name = "rebucketed_on")
+    private LocalDate rebucketedOn;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -3,6 +3,7 @@ package com.vijay.petrosoft.domain;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "financial_years")
@@ -27,6 +28,12 @@ public class FinancialYear extends Auditable {
     private String description;
     
     private Long pumpId; // Null means global financial year
+
+    // Set once the year's sales and ledger entries have been moved to the archive tables
+    @Builder.Default
+    private boolean archived = false;
+
+    private LocalDateTime archivedAt;
     
     // Business methods
     public boolean isCurrentYear() {
@@ -2,6 +2,7 @@ package com.vijay.petrosoft.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.math.BigDecimal;
 
 @Entity
 @Table(name = "fuel_types")
@@ -11,4 +12,8 @@ public class FuelType {
     private Long id;
     private String name;
     private String uom = "L";
+
+    // Selling price per unit; terminals receive it through the master data change feed
+    @Column(name = "current_rate", precision = 8, scale = 2)
+    private BigDecimal currentRate;
 }
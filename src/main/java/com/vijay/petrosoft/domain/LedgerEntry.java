@@ -15,11 +15,11 @@ public class LedgerEntry extends Auditable {
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "account_id", nullable = false)
+    @JoinColumn(name = "account_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Account account;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "voucher_id")
+    @JoinColumn(name = "voucher_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Voucher voucher;
     
     @Column(nullable = false)
@@ -0,0 +1,39 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// Append-only change log for master data pulled by offline terminals; the id doubles as the sync change token
+@Entity
+@Table(name = "master_data_changes")
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class MasterDataChange {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false, length = 10)
+    private Operation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    public enum EntityType {
+        FUEL_TYPE,
+        NOZZLE,
+        CUSTOMER
+    }
+
+    public enum Operation {
+        UPSERT,
+        DELETE
+    }
+}
@@ -39,6 +39,9 @@ public class Notification extends Auditable {
     
     @Column(length = 2000)
     private String templateData; // JSON data for template variables
+
+    @Column(length = 500)
+    private String attachmentPath; // File sent with an EMAIL notification, e.g. a generated customer statement
     
     private LocalDateTime scheduledAt;
     
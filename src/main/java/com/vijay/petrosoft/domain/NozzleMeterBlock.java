@@ -0,0 +1,47 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "nozzle_meter_blocks",
+       uniqueConstraints = @UniqueConstraint(name = "uk_nozzle_meter_blocks_day", columnNames = {"nozzle_id", "block_date"}),
+       indexes = @Index(name = "idx_nozzle_meter_blocks_pump_date", columnList = "pump_id, block_date"))
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class NozzleMeterBlock {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "nozzle_id", nullable = false)
+    private Long nozzleId;
+
+    @Column(name = "pump_id")
+    private Long pumpId;
+
+    @Column(name = "block_date", nullable = false)
+    private LocalDate blockDate;
+
+    @Column(name = "reading_count", nullable = false)
+    @Builder.Default
+    private Integer readingCount = 0;
+
+    // Latest reading in the block, kept outside the encoded data so appends and cross-day lookups need no decoding
+    @Column(name = "last_reading", precision = 15, scale = 3)
+    private BigDecimal lastReading;
+
+    @Column(name = "last_reading_at")
+    private LocalDateTime lastReadingAt;
+
+    // Per reading: varint seconds since the previous reading (the first since midnight), then a zigzag varint of the
+    // change in millilitres (the first from zero)
+    @Lob
+    @Column(name = "data", nullable = false, columnDefinition = "MEDIUMBLOB")
+    @Builder.Default
+    private byte[] data = new byte[0];
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,46 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// Journaled sales the database would not take; the acknowledged sale is kept as JSON so it can be corrected and re-entered
+@Entity
+@Table(name = "sale_dead_letters",
+       indexes = @Index(name = "idx_sale_dead_letters_failed", columnList = "failed_at"))
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SaleDeadLetter {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sale_number", nullable = false, length = 50)
+    private String saleNumber;
+
+    @Column(name = "pump_id")
+    private Long pumpId;
+
+    @Column(name = "terminal_id", length = 50)
+    private String terminalId;
+
+    @Column(name = "transaction_reference", length = 100)
+    private String transactionReference;
+
+    @Column(name = "journal_sequence", nullable = false)
+    private Long journalSequence;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    @Lob
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "accepted_at", nullable = false)
+    private LocalDateTime acceptedAt;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+}
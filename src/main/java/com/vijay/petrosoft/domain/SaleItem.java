@@ -18,7 +18,7 @@ public class SaleItem extends Auditable {
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "sale_transaction_id", nullable = false)
+    @JoinColumn(name = "sale_transaction_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private SaleTransaction saleTransaction;
 
     @ManyToOne(fetch = FetchType.LAZY)
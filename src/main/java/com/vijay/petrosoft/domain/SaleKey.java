@@ -0,0 +1,29 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Sale number and terminal reference of every hot sale. MySQL only enforces unique keys on the partitioned sales
+// table when they include transacted_at, so these two keys are kept unique here instead
+@Entity
+@Table(name = "sale_keys",
+       uniqueConstraints = {
+               @UniqueConstraint(name = "uk_sale_keys_sale_number", columnNames = "sale_number"),
+               @UniqueConstraint(name = "uk_sale_keys_terminal_reference", columnNames = {"terminal_id", "transaction_reference"})
+       })
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SaleKey {
+    @Id
+    @Column(name = "sale_id")
+    private Long saleId;
+
+    @Column(name = "sale_number", length = 50, nullable = false)
+    private String saleNumber;
+
+    // Empty rather than NULL for sales without a terminal, so their references are still unique
+    @Column(name = "terminal_id", length = 50, nullable = false)
+    private String terminalId;
+
+    @Column(name = "transaction_reference", length = 100)
+    private String transactionReference;
+}
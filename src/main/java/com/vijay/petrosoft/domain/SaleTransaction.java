@@ -6,7 +6,14 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sales")
+// sales is partitioned by month, which rules out foreign keys and unique keys without transacted_at; joins are
+// mapped without constraints and sale_keys keeps the sale number and terminal reference unique
+@Table(name = "sales",
+       indexes = {
+               @Index(name = "idx_sales_vehicle_transacted", columnList = "vehicle_id, transacted_at"),
+               @Index(name = "idx_sale_number", columnList = "sale_number"),
+               @Index(name = "idx_sales_terminal_reference", columnList = "terminal_id, transaction_reference")
+       })
 @Data 
 @NoArgsConstructor 
 @AllArgsConstructor 
@@ -22,22 +29,27 @@ public class SaleTransaction extends Auditable {
     private Long pumpId;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "shift_id")
+    @JoinColumn(name = "shift_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Shift shift;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "nozzle_id")
+    @JoinColumn(name = "nozzle_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Nozzle nozzle;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "fuel_type_id")
+    @JoinColumn(name = "fuel_type_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private FuelType fuelType;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "customer_id")
+    @JoinColumn(name = "customer_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Customer customer;
+
+    // Normalized registry entry for vehicleNumber; vehicleNumber keeps the text as entered
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vehicle_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Vehicle vehicle;
     
-    @Column(name = "sale_number", length = 50, nullable = false, unique = true)
+    @Column(name = "sale_number", length = 50, nullable = false)
     private String saleNumber;
     
     @Column(name = "quantity", precision = 10, scale = 3, nullable = false)
@@ -59,6 +71,11 @@ public class SaleTransaction extends Auditable {
     
     @Column(name = "total_amount", precision = 15, scale = 2, nullable = false)
     private BigDecimal totalAmount;
+
+    // Amount given back on a refund; totals for partially refunded sales count total_amount less this
+    @Column(name = "refunded_amount", precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal refundedAmount = BigDecimal.ZERO;
     
     @Enumerated(EnumType.STRING)
     @Column(name = "payment_method", nullable = false)
@@ -99,6 +116,9 @@ public class SaleTransaction extends Auditable {
     
     @Column(name = "transaction_reference", length = 100)
     private String transactionReference;
+
+    @Column(name = "terminal_id", length = 50)
+    private String terminalId;
     
     public enum PaymentMethod {
         CASH,
@@ -0,0 +1,40 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "sales_hourly_rollup",
+       uniqueConstraints = @UniqueConstraint(name = "uk_sales_hourly_rollup_bucket",
+               columnNames = {"pump_id", "fuel_type_id", "payment_method", "bucket_start"}),
+       indexes = @Index(name = "idx_sales_hourly_rollup_bucket_start", columnList = "bucket_start"))
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SalesHourlyRollup {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "pump_id", nullable = false)
+    private Long pumpId;
+
+    // 0 when the sale had no fuel type, so the unique key never contains NULL
+    @Column(name = "fuel_type_id", nullable = false)
+    private Long fuelTypeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", nullable = false, length = 20)
+    private SaleTransaction.PaymentMethod paymentMethod;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "total_amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    @Column(name = "total_quantity", precision = 15, scale = 3, nullable = false)
+    private BigDecimal totalQuantity;
+
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount;
+}
@@ -2,11 +2,13 @@ package com.vijay.petrosoft.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "shifts")
+@DynamicUpdate
 @Data 
 @NoArgsConstructor 
 @AllArgsConstructor 
@@ -63,6 +65,14 @@ public class Shift extends Auditable {
     @Builder.Default
     private BigDecimal creditSales = BigDecimal.ZERO;
     
+    @Column(name = "total_quantity", precision = 15, scale = 3)
+    @Builder.Default
+    private BigDecimal totalQuantity = BigDecimal.ZERO;
+    
+    @Column(name = "total_transactions")
+    @Builder.Default
+    private Long totalTransactions = 0L;
+    
     @Column(name = "cash_collected", precision = 15, scale = 2)
     private BigDecimal cashCollected;
     
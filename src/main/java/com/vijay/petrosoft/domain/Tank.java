@@ -17,4 +17,7 @@ public class Tank extends Auditable {
     private String name;
     private BigDecimal capacity;
     private BigDecimal currentDip;
+    // Dip stick reading behind current_dip when it was converted through the tank's calibration chart
+    @Column(name = "current_dip_mm", precision = 8, scale = 1)
+    private BigDecimal currentDipMm;
 }
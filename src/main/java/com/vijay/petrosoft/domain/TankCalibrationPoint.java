@@ -0,0 +1,24 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "tank_calibration_points",
+       uniqueConstraints = @UniqueConstraint(name = "uk_tank_calibration_points_depth", columnNames = {"tank_id", "depth_mm"}))
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class TankCalibrationPoint {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tank_id", nullable = false)
+    private Long tankId;
+
+    @Column(name = "depth_mm", nullable = false)
+    private Integer depthMm;
+
+    // Volume held when the dip stick reads depth_mm, from the tank's calibration certificate
+    @Column(name = "volume", precision = 15, scale = 3, nullable = false)
+    private BigDecimal volume;
+}
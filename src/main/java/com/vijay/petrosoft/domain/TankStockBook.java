@@ -0,0 +1,32 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "tank_stock_book")
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class TankStockBook {
+    @Id
+    @Column(name = "tank_id")
+    private Long tankId;
+
+    @Column(name = "pump_id")
+    private Long pumpId;
+
+    // Last dip plus receipts less sales since; reset to the dip on every dip reading
+    @Column(name = "book_stock", precision = 15, scale = 3, nullable = false)
+    @Builder.Default
+    private BigDecimal bookStock = BigDecimal.ZERO;
+
+    @Column(name = "last_dip", precision = 15, scale = 3)
+    private BigDecimal lastDip;
+
+    @Column(name = "last_dip_at")
+    private LocalDateTime lastDipAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
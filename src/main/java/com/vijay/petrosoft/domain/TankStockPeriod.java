@@ -0,0 +1,66 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "tank_stock_periods",
+       uniqueConstraints = @UniqueConstraint(name = "uk_tank_stock_periods_period",
+               columnNames = {"tank_id", "period_type", "period_date", "shift_id"}),
+       indexes = {
+               @Index(name = "idx_tank_stock_periods_date", columnList = "period_type, period_date"),
+               @Index(name = "idx_tank_stock_periods_shift", columnList = "shift_id")
+       })
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class TankStockPeriod {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tank_id", nullable = false)
+    private Long tankId;
+
+    @Column(name = "pump_id")
+    private Long pumpId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period_type", nullable = false, length = 10)
+    private PeriodType periodType;
+
+    // The calendar day for DAY rows, the day the shift opened for SHIFT rows
+    @Column(name = "period_date", nullable = false)
+    private LocalDate periodDate;
+
+    // 0 for DAY rows
+    @Column(name = "shift_id", nullable = false)
+    private Long shiftId;
+
+    @Column(name = "opening_stock", precision = 15, scale = 3, nullable = false)
+    private BigDecimal openingStock;
+
+    @Column(name = "sales_quantity", precision = 15, scale = 3, nullable = false)
+    private BigDecimal salesQuantity;
+
+    @Column(name = "receipts_quantity", precision = 15, scale = 3, nullable = false)
+    private BigDecimal receiptsQuantity;
+
+    // Sum over the period's dips of dip less book stock: positive is a gain, negative a loss
+    @Column(name = "dip_variance", precision = 15, scale = 3, nullable = false)
+    private BigDecimal dipVariance;
+
+    @Column(name = "dip_count", nullable = false)
+    private Integer dipCount;
+
+    @Column(name = "closing_stock", precision = 15, scale = 3, nullable = false)
+    private BigDecimal closingStock;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum PeriodType {
+        DAY,
+        SHIFT
+    }
+}
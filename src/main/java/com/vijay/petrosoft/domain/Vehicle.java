@@ -0,0 +1,26 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "vehicles",
+       indexes = @Index(name = "idx_vehicles_customer", columnList = "customer_id"))
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+@EqualsAndHashCode(callSuper = false)
+public class Vehicle extends Auditable {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Upper-case with spaces, dots, dashes and slashes removed, e.g. "MH12AB1234"
+    @Column(name = "registration_number", length = 20, nullable = false, unique = true)
+    private String registrationNumber;
+
+    // Fleet owner; taken from the first customer sale recorded for the vehicle
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id")
+    private Customer customer;
+
+    @Builder.Default
+    private boolean active = true;
+}
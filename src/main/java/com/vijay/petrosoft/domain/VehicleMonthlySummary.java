@@ -0,0 +1,40 @@
+package com.vijay.petrosoft.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "vehicle_monthly_summaries",
+       uniqueConstraints = @UniqueConstraint(name = "uk_vehicle_monthly_summary",
+               columnNames = {"vehicle_id", "customer_id", "fuel_type_id", "period_month"}),
+       indexes = @Index(name = "idx_vehicle_monthly_customer_month", columnList = "customer_id, period_month"))
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class VehicleMonthlySummary {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "vehicle_id", nullable = false)
+    private Long vehicleId;
+
+    // 0 for walk-in sales and sales without a fuel type, so the unique key never contains NULL
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "fuel_type_id", nullable = false)
+    private Long fuelTypeId;
+
+    // First day of the month
+    @Column(name = "period_month", nullable = false)
+    private LocalDate periodMonth;
+
+    @Column(name = "total_amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    @Column(name = "total_quantity", precision = 15, scale = 3, nullable = false)
+    private BigDecimal totalQuantity;
+
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount;
+}
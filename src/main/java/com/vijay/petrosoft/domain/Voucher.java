@@ -69,6 +69,8 @@ public class Voucher extends Auditable {
     
     @Column(length = 20)
     private String partyAccountCode;
+
+    private Long customerId; // Customer settled by a CUSTOMER_RECEIPT; falls back to partyAccountCode as customer code
     
     @Column(length = 50)
     private String chequeNumber;
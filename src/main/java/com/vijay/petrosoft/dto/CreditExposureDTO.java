@@ -0,0 +1,14 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class CreditExposureDTO {
+    private Long customerId;
+    private BigDecimal outstanding;
+    private BigDecimal creditLimit; // null when no limit is enforced
+    private BigDecimal availableCredit; // null when no limit is enforced
+    private BigDecimal utilizationPercentage;
+}
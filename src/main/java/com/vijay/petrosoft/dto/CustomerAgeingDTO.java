@@ -0,0 +1,21 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class CustomerAgeingDTO {
+    private Long customerId;
+    private String customerName;
+    private String customerCode;
+    private BigDecimal bucket0To30;
+    private BigDecimal bucket31To60;
+    private BigDecimal bucket61To90;
+    private BigDecimal bucket90Plus;
+    private BigDecimal totalOpen;
+    private BigDecimal unappliedCredit;
+    private LocalDate oldestOpenDate;
+    private LocalDate rebucketedOn; // buckets are exact as of this date
+}
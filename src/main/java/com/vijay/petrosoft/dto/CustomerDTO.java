@@ -26,5 +26,8 @@ public class CustomerDTO {
     
     @DecimalMin(value = "0.0", message = "Outstanding amount cannot be negative")
     private BigDecimal outstanding;
+
+    @DecimalMin(value = "0.0", message = "Credit limit cannot be negative")
+    private BigDecimal creditLimit;
 }
     
@@ -0,0 +1,36 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class CustomerStatementRunDTO {
+
+    private Long pumpId;
+    private LocalDate periodStart;
+    private LocalDate periodEnd;
+    private String outputDirectory;
+    private Integer customerCount;
+    private Long entryCount;
+    private Integer notificationsQueued;
+    private Integer withoutEmailCount;
+    private Long durationMs;
+    private List<StatementDTO> statements;
+
+    @Data @NoArgsConstructor @AllArgsConstructor @Builder
+    public static class StatementDTO {
+        private Long customerId;
+        private String customerCode;
+        private String customerName;
+        private String file;
+        private Integer entryCount;
+        private BigDecimal openingBalance;
+        private BigDecimal totalDebit;
+        private BigDecimal totalCredit;
+        private BigDecimal closingBalance;
+        private Long notificationId; // null when the customer has no email or notify was off
+    }
+}
@@ -0,0 +1,16 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class DashboardWidgetMetricsDTO {
+    private String widget;
+    private Long timeoutMs;
+    private Long invocations;
+    private Long failures;
+    private Long timeouts;
+    private Long fallbacks; // timeouts and failures answered from the last good value or an empty widget
+    private Long lastLatencyMs;
+    private Long averageLatencyMs;
+    private Long maxLatencyMs;
+}
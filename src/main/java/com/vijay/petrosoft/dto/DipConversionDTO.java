@@ -0,0 +1,15 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class DipConversionDTO {
+
+    private Long tankId;
+    private BigDecimal dipMm;
+    private BigDecimal volume;
+    private BigDecimal ullage;
+    private String error;
+}
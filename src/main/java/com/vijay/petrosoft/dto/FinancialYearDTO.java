@@ -3,6 +3,7 @@ package com.vijay.petrosoft.dto;
 import lombok.*;
 import jakarta.validation.constraints.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Data @NoArgsConstructor @AllArgsConstructor @Builder
 public class FinancialYearDTO {
@@ -25,6 +26,9 @@ public class FinancialYearDTO {
     private String description;
     
     private Long pumpId;
+
+    private boolean archived;
+    private LocalDateTime archivedAt;
     
     // Computed fields
     private boolean isCurrentYear;
@@ -0,0 +1,18 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class FleetStatementDTO {
+    private Long customerId;
+    private String customerName;
+    private String month; // yyyy-MM
+    private Integer vehicleCount;
+    private BigDecimal totalAmount;
+    private BigDecimal totalQuantity;
+    private Long transactionCount;
+    private List<VehicleMonthlySummaryDTO> vehicles;
+}
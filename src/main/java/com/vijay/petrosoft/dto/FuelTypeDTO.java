@@ -1,10 +1,13 @@
         package com.vijay.petrosoft.dto;
         import lombok.*;
         
+        import java.math.BigDecimal;
+        
         @Data @NoArgsConstructor @AllArgsConstructor @Builder
         public class FuelTypeDTO {
             private Long id;
             private String name;
             private String uom;
+            private BigDecimal currentRate;
         }
     
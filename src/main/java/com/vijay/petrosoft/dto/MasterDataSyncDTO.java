@@ -0,0 +1,23 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class MasterDataSyncDTO {
+    // Token to send on the next pull; pass nothing (or 0) to receive a full snapshot
+    private Long changeToken;
+    private boolean fullSnapshot;
+    private boolean hasMore;
+    private LocalDateTime serverTime;
+
+    private List<FuelTypeDTO> fuelTypes;
+    private List<NozzleDTO> nozzles;
+    private List<CustomerDTO> customers;
+
+    private List<Long> deletedFuelTypeIds;
+    private List<Long> deletedNozzleIds;
+    private List<Long> deletedCustomerIds;
+}
@@ -33,6 +33,7 @@ public class NotificationDTO {
     private Long userId;
     private String templateName;
     private Map<String, Object> templateData;
+    private String attachmentPath;
     private LocalDateTime scheduledAt;
     private LocalDateTime sentAt;
     private String errorMessage;
@@ -0,0 +1,39 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class NozzleMeterReconciliationDTO {
+
+    private Long shiftId;
+    private Long pumpId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private BigDecimal totalDispensed;
+    private BigDecimal totalSold;
+    private BigDecimal totalVariance;
+    private BigDecimal unattributedSalesQuantity;
+    private List<NozzleVarianceDTO> nozzles;
+
+    @Data @NoArgsConstructor @AllArgsConstructor @Builder
+    public static class NozzleVarianceDTO {
+        private Long nozzleId;
+        private String nozzleName;
+        private Long fuelTypeId;
+        private BigDecimal openingReading;
+        private LocalDateTime openingReadingAt;
+        private BigDecimal closingReading;
+        private LocalDateTime closingReadingAt;
+        private Integer readingCount;
+        private Integer meterResets;
+        private BigDecimal dispensedQuantity;
+        private BigDecimal soldQuantity;
+        private Long transactionCount;
+        private BigDecimal variance;
+        private BigDecimal variancePercentage;
+    }
+}
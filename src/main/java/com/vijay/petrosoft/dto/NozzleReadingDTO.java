@@ -0,0 +1,14 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class NozzleReadingDTO {
+
+    private Long nozzleId;
+    private LocalDateTime readAt;
+    private BigDecimal reading;
+}
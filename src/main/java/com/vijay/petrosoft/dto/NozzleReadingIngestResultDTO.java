@@ -0,0 +1,15 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class NozzleReadingIngestResultDTO {
+
+    private Integer received;
+    private Integer stored;
+    private Integer duplicates;
+    private Integer rejected;
+    private List<String> errors;
+}
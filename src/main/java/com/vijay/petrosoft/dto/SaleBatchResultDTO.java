@@ -0,0 +1,24 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SaleBatchResultDTO {
+
+    private Integer totalCount;
+    private Integer successCount;
+    private Integer failureCount;
+    private List<ItemResultDTO> results;
+
+    @Data @NoArgsConstructor @AllArgsConstructor @Builder
+    public static class ItemResultDTO {
+        private Integer index;
+        private boolean success;
+        private Long saleId;
+        private String saleNumber;
+        private String transactionReference;
+        private String error;
+    }
+}
@@ -0,0 +1,21 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SaleDeadLetterDTO {
+
+    private Long id;
+    private String saleNumber;
+    private Long pumpId;
+    private String terminalId;
+    private String transactionReference;
+    private Long journalSequence;
+    private Integer attempts;
+    private String error;
+    private LocalDateTime acceptedAt;
+    private LocalDateTime failedAt;
+    private SaleTransactionDTO sale;
+}
@@ -65,6 +65,8 @@ public class SaleTransactionDTO {
     private String cardLastFour;
     private String cardType;
     private String transactionReference;
+    private String terminalId;
+    private Long vehicleId;
 
     // Additional fields for UI
     private String pumpName;
@@ -78,6 +80,43 @@ public class SaleTransactionDTO {
     // Sale items
     private List<SaleItemDTO> saleItems;
 
+    // Used by JPQL constructor expressions so listings read columns and foreign-key ids without hydrating entities
+    public SaleTransactionDTO(Long id, Long pumpId, Long shiftId, Long nozzleId, Long fuelTypeId, Long customerId,
+                              String saleNumber, BigDecimal quantity, BigDecimal rate, BigDecimal amount,
+                              BigDecimal discountAmount, BigDecimal taxAmount, BigDecimal totalAmount,
+                              SaleTransaction.PaymentMethod paymentMethod, SaleTransaction.SaleType saleType,
+                              SaleTransaction.Status status, LocalDateTime transactedAt, Long operatorId, Long cashierId,
+                              String vehicleNumber, String driverName, String notes, String cardLastFour, String cardType,
+                              String transactionReference, String terminalId, Long vehicleId) {
+        this.id = id;
+        this.pumpId = pumpId;
+        this.shiftId = shiftId;
+        this.nozzleId = nozzleId;
+        this.fuelTypeId = fuelTypeId;
+        this.customerId = customerId;
+        this.saleNumber = saleNumber;
+        this.quantity = quantity;
+        this.rate = rate;
+        this.amount = amount;
+        this.discountAmount = discountAmount;
+        this.taxAmount = taxAmount;
+        this.totalAmount = totalAmount;
+        this.paymentMethod = paymentMethod;
+        this.saleType = saleType;
+        this.status = status;
+        this.transactedAt = transactedAt;
+        this.operatorId = operatorId;
+        this.cashierId = cashierId;
+        this.vehicleNumber = vehicleNumber;
+        this.driverName = driverName;
+        this.notes = notes;
+        this.cardLastFour = cardLastFour;
+        this.cardType = cardType;
+        this.transactionReference = transactionReference;
+        this.terminalId = terminalId;
+        this.vehicleId = vehicleId;
+    }
+
     // Helper methods for UI
     public boolean isCreditSale() {
         return SaleTransaction.PaymentMethod.CREDIT.equals(paymentMethod);
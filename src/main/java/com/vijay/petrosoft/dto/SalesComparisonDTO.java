@@ -0,0 +1,39 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SalesComparisonDTO {
+
+    private LocalDate period1Start;
+    private LocalDate period1End;
+    private LocalDate period2Start;
+    private LocalDate period2End;
+    private PeriodMetricsDTO period1Totals;
+    private PeriodMetricsDTO period2Totals;
+    private BigDecimal salesGrowthPercentage;
+    private List<PumpComparisonDTO> pumps;
+
+    @Data @NoArgsConstructor @AllArgsConstructor @Builder
+    public static class PeriodMetricsDTO {
+        private BigDecimal sales;
+        private BigDecimal volume;
+        private BigDecimal margin;
+        private Long transactions;
+        // True when some fuel had no purchase cost on record and its margin was estimated at the flat rate
+        private boolean marginEstimated;
+    }
+
+    @Data @NoArgsConstructor @AllArgsConstructor @Builder
+    public static class PumpComparisonDTO {
+        private Long pumpId;
+        private String pumpName;
+        private PeriodMetricsDTO period1;
+        private PeriodMetricsDTO period2;
+        private BigDecimal salesGrowthPercentage;
+    }
+}
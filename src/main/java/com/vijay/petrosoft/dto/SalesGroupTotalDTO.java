@@ -0,0 +1,24 @@
+package com.vijay.petrosoft.dto;
+
+import com.vijay.petrosoft.domain.SaleTransaction;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+// Compact aggregate row for grouped sales reports (by operator, cashier, payment method or fuel type)
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SalesGroupTotalDTO {
+    private Long groupId;
+    private String groupName;
+    private BigDecimal totalAmount;
+    private BigDecimal totalQuantity;
+    private Long transactionCount;
+
+    public SalesGroupTotalDTO(Long groupId, BigDecimal totalAmount, BigDecimal totalQuantity, Long transactionCount) {
+        this(groupId, null, totalAmount, totalQuantity, transactionCount);
+    }
+
+    public SalesGroupTotalDTO(SaleTransaction.PaymentMethod paymentMethod, BigDecimal totalAmount, BigDecimal totalQuantity, Long transactionCount) {
+        this(null, paymentMethod != null ? paymentMethod.name() : null, totalAmount, totalQuantity, transactionCount);
+    }
+}
@@ -0,0 +1,17 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SalesRangeTotalsDTO {
+
+    private Long pumpId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal totalAmount;
+    private BigDecimal totalQuantity;
+    private Long transactionCount;
+}
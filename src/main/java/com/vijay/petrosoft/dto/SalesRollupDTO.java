@@ -0,0 +1,15 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SalesRollupDTO {
+    private String period;
+    private LocalDateTime periodStart;
+    private BigDecimal totalAmount;
+    private BigDecimal totalQuantity;
+    private Long transactionCount;
+}
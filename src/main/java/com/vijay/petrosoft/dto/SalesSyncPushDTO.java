@@ -0,0 +1,12 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// Offline terminals put their client-generated sale id in transactionReference; it is the idempotency key with terminalId
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SalesSyncPushDTO {
+    private String terminalId;
+    private List<SaleTransactionDTO> sales;
+}
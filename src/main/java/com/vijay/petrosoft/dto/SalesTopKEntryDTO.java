@@ -0,0 +1,17 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SalesTopKEntryDTO {
+
+    private Long id;
+    private BigDecimal totalAmount;
+    private BigDecimal totalQuantity;
+    private Long transactionCount;
+    // How much totalAmount may overstate the true figure; zero when the answer came from SQL
+    private BigDecimal maxOverestimate;
+    private boolean exact;
+}
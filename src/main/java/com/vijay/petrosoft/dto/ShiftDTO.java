@@ -40,6 +40,8 @@ public class ShiftDTO {
     private BigDecimal cashSales;
     private BigDecimal cardSales;
     private BigDecimal creditSales;
+    private BigDecimal totalQuantity;
+    private Long totalTransactions;
     private BigDecimal cashCollected;
     private BigDecimal cashGivenToNextShift;
     private BigDecimal balanceWithShiftIncharge;
@@ -0,0 +1,17 @@
+package com.vijay.petrosoft.dto;
+
+import com.vijay.petrosoft.domain.SaleTransaction;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+// One row of the grouped shift scan: totals for a single payment method and fuel type combination
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class ShiftSalesBreakdownDTO {
+    private SaleTransaction.PaymentMethod paymentMethod;
+    private Long fuelTypeId;
+    private String fuelTypeName;
+    private BigDecimal totalAmount;
+    private BigDecimal totalQuantity;
+    private Long transactionCount;
+}
@@ -0,0 +1,15 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class TankCalibrationChartDTO {
+
+    private Long tankId;
+    private Integer maxDepthMm;
+    private BigDecimal calibratedCapacity;
+    private List<TankCalibrationPointDTO> points;
+}
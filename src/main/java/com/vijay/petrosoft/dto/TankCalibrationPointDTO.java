@@ -0,0 +1,12 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class TankCalibrationPointDTO {
+
+    private Integer depthMm;
+    private BigDecimal volume;
+}
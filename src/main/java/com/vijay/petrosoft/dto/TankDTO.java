@@ -10,5 +10,6 @@
             private String name;
             private BigDecimal capacity;
             private BigDecimal currentDip;
+    private BigDecimal currentDipMm;
         }
     
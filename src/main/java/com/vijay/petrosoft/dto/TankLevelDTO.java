@@ -0,0 +1,19 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class TankLevelDTO {
+
+    private Long tankId;
+    private Long pumpId;
+    private Long fuelTypeId;
+    private BigDecimal capacity;
+    private BigDecimal projectedLevel;
+    private BigDecimal alertLevel;
+    private BigDecimal rearmLevel;
+    private boolean low;
+    private long alertsFired;
+}
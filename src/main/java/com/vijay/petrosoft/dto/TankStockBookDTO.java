@@ -0,0 +1,21 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class TankStockBookDTO {
+
+    private Long tankId;
+    private String tankName;
+    private Long pumpId;
+    private Long fuelTypeId;
+    private BigDecimal capacity;
+    private BigDecimal bookStock;
+    private BigDecimal ullage;
+    private BigDecimal lastDip;
+    private LocalDateTime lastDipAt;
+    private LocalDateTime updatedAt;
+}
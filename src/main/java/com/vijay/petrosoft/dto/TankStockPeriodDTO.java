@@ -0,0 +1,22 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class TankStockPeriodDTO {
+
+    private Long tankId;
+    private String periodType;
+    private LocalDate periodDate;
+    private Long shiftId;
+    private BigDecimal openingStock;
+    private BigDecimal salesQuantity;
+    private BigDecimal receiptsQuantity;
+    private BigDecimal dipVariance;
+    private BigDecimal variancePercentage;
+    private Integer dipCount;
+    private BigDecimal closingStock;
+}
@@ -0,0 +1,27 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class TankVarianceDTO {
+
+    private Long tankId;
+    private String tankName;
+    private Long pumpId;
+    private Long fuelTypeId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal salesQuantity;
+    private BigDecimal receiptsQuantity;
+    // Positive is a gain, negative a loss
+    private BigDecimal variance;
+    private BigDecimal variancePercentage;
+    private Long dipCount;
+    private BigDecimal bookStock;
+    private BigDecimal lastDip;
+    private LocalDateTime lastDipAt;
+}
@@ -0,0 +1,12 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class VehicleDTO {
+    private Long id;
+    private String registrationNumber;
+    private Long customerId;
+    private String customerName;
+    private boolean active;
+}
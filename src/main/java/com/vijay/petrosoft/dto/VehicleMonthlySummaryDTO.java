@@ -0,0 +1,15 @@
+package com.vijay.petrosoft.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class VehicleMonthlySummaryDTO {
+    private Long vehicleId;
+    private String registrationNumber;
+    private String month; // yyyy-MM
+    private BigDecimal totalAmount;
+    private BigDecimal totalQuantity;
+    private Long transactionCount;
+}
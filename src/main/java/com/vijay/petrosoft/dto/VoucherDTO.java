@@ -62,6 +62,8 @@ public class VoucherDTO {
     
     @Size(max = 20, message = "Party account code must not exceed 20 characters")
     private String partyAccountCode;
+
+    private Long customerId;
     
     @Size(max = 50, message = "Cheque number must not exceed 50 characters")
     private String chequeNumber;
@@ -0,0 +1,36 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.CreditOpenItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface CreditOpenItemRepository extends JpaRepository<CreditOpenItem, Long> {
+
+    Optional<CreditOpenItem> findBySaleId(Long saleId);
+
+    // FIFO settlement order
+    @Query("SELECT i FROM CreditOpenItem i WHERE i.customerId = :customerId AND i.openAmount > 0 ORDER BY i.invoiceDate, i.id")
+    List<CreditOpenItem> findOpenByCustomer(@Param("customerId") Long customerId);
+
+    // Reverse FIFO order, for reopening items when a receipt is cancelled
+    @Query("SELECT i FROM CreditOpenItem i WHERE i.customerId = :customerId AND i.openAmount < i.originalAmount " +
+           "ORDER BY i.invoiceDate DESC, i.id DESC")
+    List<CreditOpenItem> findSettledByCustomer(@Param("customerId") Long customerId);
+
+    @Query("SELECT MIN(i.invoiceDate) FROM CreditOpenItem i WHERE i.customerId = :customerId AND i.openAmount > 0")
+    LocalDate findOldestOpenDate(@Param("customerId") Long customerId);
+
+    @Modifying
+    @Query("DELETE FROM CreditOpenItem i WHERE i.customerId = :customerId")
+    int deleteByCustomer(@Param("customerId") Long customerId);
+
+    @Modifying
+    @Query("DELETE FROM CreditOpenItem i WHERE i.openAmount = 0 AND i.invoiceDate < :before")
+    int deleteSettledBefore(@Param("before") LocalDate before);
+}
@@ -0,0 +1,59 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.CustomerAgeing;
+import com.vijay.petrosoft.dto.CustomerAgeingDTO;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface CustomerAgeingRepository extends JpaRepository<CustomerAgeing, Long> {
+
+    String AGEING_SELECT = "SELECT new com.vijay.petrosoft.dto.CustomerAgeingDTO(a.customerId, c.name, c.code, " +
+            "a.bucket0To30, a.bucket31To60, a.bucket61To90, a.bucket90Plus, a.totalOpen, a.unappliedCredit, " +
+            "a.oldestOpenDate, a.rebucketedOn) FROM CustomerAgeing a, Customer c WHERE c.id = a.customerId ";
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO customer_ageing (customer_id, bucket_0_30, bucket_31_60, bucket_61_90, bucket_90_plus, " +
+                   "total_open, unapplied_credit, rebucketed_on, updated_at) VALUES (:customerId, 0, 0, 0, 0, 0, 0, :today, NOW())",
+           nativeQuery = true)
+    void insertIfAbsent(@Param("customerId") Long customerId, @Param("today") LocalDate today);
+
+    // Serializes ageing updates per customer so FIFO settlement sees a stable set of open items
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM CustomerAgeing a WHERE a.customerId = :customerId")
+    Optional<CustomerAgeing> findForUpdate(@Param("customerId") Long customerId);
+
+    @Query(AGEING_SELECT + "AND (a.totalOpen >= :minOpen OR a.unappliedCredit > 0) ORDER BY a.totalOpen DESC")
+    List<CustomerAgeingDTO> findReport(@Param("minOpen") BigDecimal minOpen);
+
+    @Query(AGEING_SELECT + "AND a.customerId = :customerId")
+    Optional<CustomerAgeingDTO> findReportRow(@Param("customerId") Long customerId);
+
+    // Set-based daily re-bucket: every customer's buckets are recomputed from its open items in one statement
+    @Modifying
+    @Query(value = "UPDATE customer_ageing a LEFT JOIN (" +
+                   "SELECT customer_id, " +
+                   "SUM(CASE WHEN invoice_date >= :from30 THEN open_amount ELSE 0 END) AS b0, " +
+                   "SUM(CASE WHEN invoice_date < :from30 AND invoice_date >= :from60 THEN open_amount ELSE 0 END) AS b31, " +
+                   "SUM(CASE WHEN invoice_date < :from60 AND invoice_date >= :from90 THEN open_amount ELSE 0 END) AS b61, " +
+                   "SUM(CASE WHEN invoice_date < :from90 THEN open_amount ELSE 0 END) AS b90, " +
+                   "SUM(open_amount) AS total, MIN(invoice_date) AS oldest " +
+                   "FROM credit_open_items WHERE open_amount > 0 GROUP BY customer_id) o ON o.customer_id = a.customer_id " +
+                   "SET a.bucket_0_30 = COALESCE(o.b0, 0), a.bucket_31_60 = COALESCE(o.b31, 0), " +
+                   "a.bucket_61_90 = COALESCE(o.b61, 0), a.bucket_90_plus = COALESCE(o.b90, 0), " +
+                   "a.total_open = COALESCE(o.total, 0), a.oldest_open_date = o.oldest, " +
+                   "a.rebucketed_on = :asOf, a.updated_at = NOW()",
+           nativeQuery = true)
+    int rebucketAll(@Param("asOf") LocalDate asOf,
+                    @Param("from30") LocalDate from30,
+                    @Param("from60") LocalDate from60,
+                    @Param("from90") LocalDate from90);
+}
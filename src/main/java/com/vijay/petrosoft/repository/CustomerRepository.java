@@ -1,8 +1,12 @@
 package com.vijay.petrosoft.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.vijay.petrosoft.domain.Customer;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +14,40 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     List<Customer> findByOutstandingGreaterThan(BigDecimal amount);
     boolean existsByCode(String code);
     Optional<Customer> findByCode(String code);
+    long countByCreatedAtBefore(LocalDateTime createdAt);
+
+    @Query("SELECT c.id FROM Customer c ORDER BY c.id")
+    List<Long> findAllIds();
+
+    // Row: customers, withOutstanding, totalOutstanding, createdSince, overLimit,
+    // then customers owing under 1000, 1000-5000, 5000-10000 and 10000+
+    @Query("SELECT COUNT(c), SUM(CASE WHEN c.outstanding > 0 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN c.outstanding > 0 THEN c.outstanding ELSE 0 END), " +
+           "SUM(CASE WHEN c.createdAt >= :createdSince THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN c.creditLimit IS NOT NULL AND c.outstanding > c.creditLimit THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN c.outstanding > 0 AND c.outstanding < 1000 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN c.outstanding >= 1000 AND c.outstanding < 5000 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN c.outstanding >= 5000 AND c.outstanding < 10000 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN c.outstanding >= 10000 THEN 1 ELSE 0 END) FROM Customer c")
+    List<Object[]> summarize(@Param("createdSince") LocalDateTime createdSince);
+
+    // Rows: year, month, count
+    @Query("SELECT YEAR(c.createdAt), MONTH(c.createdAt), COUNT(c) FROM Customer c WHERE c.createdAt >= :since " +
+           "GROUP BY YEAR(c.createdAt), MONTH(c.createdAt)")
+    List<Object[]> countCreatedByMonth(@Param("since") LocalDateTime since);
+
+    // Conditional increment: the database re-checks the limit so a stale in-memory view can never over-extend credit
+    @Modifying
+    @Query(value = "UPDATE customers SET outstanding = COALESCE(outstanding, 0) + :amount WHERE id = :customerId " +
+                   "AND (credit_limit IS NULL OR COALESCE(outstanding, 0) + :amount <= credit_limit)",
+           nativeQuery = true)
+    int reserveCredit(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "UPDATE customers SET outstanding = COALESCE(outstanding, 0) + :amount WHERE id = :customerId", nativeQuery = true)
+    int adjustOutstanding(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
+
+    // Rows: outstanding, creditLimit
+    @Query("SELECT c.outstanding, c.creditLimit FROM Customer c WHERE c.id = :customerId")
+    List<Object[]> findCreditPosition(@Param("customerId") Long customerId);
 }
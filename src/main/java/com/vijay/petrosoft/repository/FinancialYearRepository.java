@@ -16,6 +16,19 @@ public interface FinancialYearRepository extends JpaRepository<FinancialYear, Lo
     List<FinancialYear> findByPumpId(Long pumpId);
     
     List<FinancialYear> findByActiveTrue();
+
+    // Last day whose rows live in the archive tables for this pump (global years apply to every pump)
+    @Query("SELECT MAX(fy.endDate) FROM FinancialYear fy WHERE fy.archived = true AND (fy.pumpId IS NULL OR fy.pumpId = :pumpId)")
+    LocalDate findArchivedThrough(@Param("pumpId") Long pumpId);
+
+    @Query("SELECT MAX(fy.endDate) FROM FinancialYear fy WHERE fy.archived = true")
+    LocalDate findLatestArchivedEndDate();
+
+    // Unarchived years before a year that cover some of its rows: every year for a global year, else global years and
+    // the pump's own. Archiving waits for these so findArchivedThrough never skips over rows still in the hot tables
+    @Query("SELECT COUNT(fy) > 0 FROM FinancialYear fy WHERE fy.archived = false AND fy.endDate < :startDate " +
+            "AND (:pumpId IS NULL OR fy.pumpId IS NULL OR fy.pumpId = :pumpId)")
+    boolean existsUnarchivedBefore(@Param("pumpId") Long pumpId, @Param("startDate") LocalDate startDate);
     
     Optional<FinancialYear> findByName(String name);
     
@@ -11,7 +11,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Repository
-public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long>, LedgerEntryRepositoryCustom {
     
     List<LedgerEntry> findByAccountId(Long accountId);
     
@@ -23,7 +23,8 @@ public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long>
     
     List<LedgerEntry> findByAccountIdOrderByTransactionDateAsc(Long accountId);
     
-    List<LedgerEntry> findByPumpIdOrderByTransactionDateDesc(Long pumpId);
+    // Bounded by a start date so partitioned tables only scan recent partitions
+    List<LedgerEntry> findByPumpIdAndTransactionDateGreaterThanEqualOrderByTransactionDateDesc(Long pumpId, LocalDate since);
     
     @Query("SELECT le FROM LedgerEntry le WHERE le.account.id = :accountId AND le.isReconciled = false ORDER BY le.transactionDate ASC")
     List<LedgerEntry> findUnreconciledEntriesByAccountId(@Param("accountId") Long accountId);
@@ -0,0 +1,13 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.LedgerEntry;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LedgerEntryRepositoryCustom {
+
+    // Date-range reads that also cover ledger_entries_archive for archived financial years; archived rows are detached
+    List<LedgerEntry> findHistoricalByPumpAndDateRange(Long pumpId, LocalDate startDate, LocalDate endDate);
+    List<LedgerEntry> findHistoricalByAccountAndDateRange(Long accountId, LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,116 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.Account;
+import com.vijay.petrosoft.domain.LedgerEntry;
+import com.vijay.petrosoft.domain.Voucher;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class LedgerEntryRepositoryCustomImpl implements LedgerEntryRepositoryCustom {
+
+    private static final String ARCHIVED_LEDGER_SELECT = "SELECT id, account_id, voucher_id, transaction_date, description, " +
+            "voucher_number, entry_type, debit_amount, credit_amount, running_balance, pump_id, party_name, party_id, reference, " +
+            "amount, narration, is_reconciled, reconciled_at FROM ledger_entries_archive ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FinancialYearRepository financialYearRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<LedgerEntry> findHistoricalByPumpAndDateRange(Long pumpId, LocalDate startDate, LocalDate endDate) {
+        return findHistorical("le.pumpId = :key", "pump_id = ?", pumpId,
+                financialYearRepository.findArchivedThrough(pumpId), startDate, endDate);
+    }
+
+    // An account's entries can carry several pumps, each archived through its own date, so no single date splits
+    // them. Both tables are read over the archived part of the range; an entry moved between the two reads is
+    // seen in both and kept once
+    @Override
+    public List<LedgerEntry> findHistoricalByAccountAndDateRange(Long accountId, LocalDate startDate, LocalDate endDate) {
+        List<LedgerEntry> entries = findHot("le.account.id = :key", accountId, startDate, endDate);
+        LocalDate archivedThrough = financialYearRepository.findLatestArchivedEndDate();
+        if (archivedThrough == null || startDate.isAfter(archivedThrough)) {
+            return entries;
+        }
+        Set<Long> hotIds = entries.stream().map(LedgerEntry::getId).collect(Collectors.toSet());
+        LocalDate archiveEnd = archivedThrough.isBefore(endDate) ? archivedThrough : endDate;
+        findArchived("account_id = ?", accountId, startDate, archiveEnd).stream()
+                .filter(entry -> !hotIds.contains(entry.getId()))
+                .forEach(entries::add);
+        entries.sort(Comparator.comparing(LedgerEntry::getTransactionDate).thenComparing(LedgerEntry::getId));
+        return entries;
+    }
+
+    private List<LedgerEntry> findHistorical(String jpqlFilter, String sqlFilter, Long key, LocalDate archivedThrough,
+                                             LocalDate startDate, LocalDate endDate) {
+        LocalDate hotStart = archivedThrough != null && !startDate.isAfter(archivedThrough)
+                ? archivedThrough.plusDays(1)
+                : startDate;
+
+        List<LedgerEntry> entries = new ArrayList<>();
+        if (!hotStart.isAfter(endDate)) {
+            entries.addAll(findHot(jpqlFilter, key, hotStart, endDate));
+        }
+        if (hotStart.isAfter(startDate)) {
+            LocalDate archiveEnd = archivedThrough.isBefore(endDate) ? archivedThrough : endDate;
+            entries.addAll(findArchived(sqlFilter, key, startDate, archiveEnd));
+            entries.sort(Comparator.comparing(LedgerEntry::getTransactionDate).thenComparing(LedgerEntry::getId));
+        }
+        return entries;
+    }
+
+    private List<LedgerEntry> findHot(String jpqlFilter, Long key, LocalDate startDate, LocalDate endDate) {
+        return new ArrayList<>(entityManager.createQuery("SELECT le FROM LedgerEntry le WHERE " + jpqlFilter +
+                        " AND le.transactionDate BETWEEN :startDate AND :endDate", LedgerEntry.class)
+                .setParameter("key", key)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getResultList());
+    }
+
+    private List<LedgerEntry> findArchived(String sqlFilter, Long key, LocalDate startDate, LocalDate endDate) {
+        return jdbcTemplate.query(ARCHIVED_LEDGER_SELECT + "WHERE " + sqlFilter + " AND transaction_date BETWEEN ? AND ?",
+                (rs, rowNum) -> mapArchivedEntry(rs), key, Date.valueOf(startDate), Date.valueOf(endDate));
+    }
+
+    private LedgerEntry mapArchivedEntry(ResultSet rs) throws SQLException {
+        Long voucherId = rs.getObject("voucher_id", Long.class);
+        Timestamp reconciledAt = rs.getTimestamp("reconciled_at");
+        return LedgerEntry.builder()
+                .id(rs.getLong("id"))
+                .account(entityManager.getReference(Account.class, rs.getLong("account_id")))
+                .voucher(voucherId != null ? entityManager.getReference(Voucher.class, voucherId) : null)
+                .transactionDate(rs.getDate("transaction_date").toLocalDate())
+                .description(rs.getString("description"))
+                .voucherNumber(rs.getString("voucher_number"))
+                .entryType(LedgerEntry.EntryType.valueOf(rs.getString("entry_type")))
+                .debitAmount(rs.getBigDecimal("debit_amount"))
+                .creditAmount(rs.getBigDecimal("credit_amount"))
+                .runningBalance(rs.getBigDecimal("running_balance"))
+                .pumpId(rs.getLong("pump_id"))
+                .partyName(rs.getString("party_name"))
+                .partyId(rs.getObject("party_id", Long.class))
+                .reference(rs.getString("reference"))
+                .amount(rs.getBigDecimal("amount"))
+                .narration(rs.getString("narration"))
+                .isReconciled(rs.getBoolean("is_reconciled"))
+                .reconciledAt(reconciledAt != null ? reconciledAt.toLocalDateTime() : null)
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.MasterDataChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface MasterDataChangeRepository extends JpaRepository<MasterDataChange, Long> {
+
+    @Query("SELECT c FROM MasterDataChange c WHERE c.id > :sinceToken ORDER BY c.id")
+    List<MasterDataChange> findChangesAfter(@Param("sinceToken") Long sinceToken, Pageable pageable);
+
+    @Query("SELECT MIN(c.id) FROM MasterDataChange c")
+    Long findOldestToken();
+
+    @Query("SELECT MAX(c.id) FROM MasterDataChange c WHERE c.changedAt <= :visibleBefore")
+    Long findLatestTokenBefore(@Param("visibleBefore") LocalDateTime visibleBefore);
+}
@@ -0,0 +1,35 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.NozzleMeterBlock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface NozzleMeterBlockRepository extends JpaRepository<NozzleMeterBlock, Long> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO nozzle_meter_blocks (nozzle_id, pump_id, block_date, reading_count, data, updated_at) " +
+                   "VALUES (:nozzleId, :pumpId, :blockDate, 0, X'', NOW())",
+           nativeQuery = true)
+    void insertIfAbsent(@Param("nozzleId") Long nozzleId, @Param("pumpId") Long pumpId, @Param("blockDate") LocalDate blockDate);
+
+    // Serializes appends to one nozzle's day so concurrent uploads never drop each other's readings
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM NozzleMeterBlock b WHERE b.nozzleId = :nozzleId AND b.blockDate = :blockDate")
+    Optional<NozzleMeterBlock> findForUpdate(@Param("nozzleId") Long nozzleId, @Param("blockDate") LocalDate blockDate);
+
+    List<NozzleMeterBlock> findByNozzleIdAndBlockDateBetweenOrderByBlockDateAsc(Long nozzleId, LocalDate startDate, LocalDate endDate);
+
+    List<NozzleMeterBlock> findByNozzleIdInAndBlockDateBetweenOrderByBlockDateAsc(Collection<Long> nozzleIds, LocalDate startDate, LocalDate endDate);
+
+    Optional<NozzleMeterBlock> findFirstByNozzleIdAndBlockDateLessThanAndReadingCountGreaterThanOrderByBlockDateDesc(
+            Long nozzleId, LocalDate blockDate, Integer readingCount);
+}
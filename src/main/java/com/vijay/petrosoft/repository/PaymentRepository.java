@@ -1,6 +1,7 @@
 package com.vijay.petrosoft.repository;
 
 import com.vijay.petrosoft.domain.Payment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -32,6 +33,21 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Double getTotalRevenueBetweenDates(@Param("startDate") LocalDateTime startDate, 
                                       @Param("endDate") LocalDateTime endDate);
     
+    // Row: payments, completedAmount, failedSince
+    @Query("SELECT COUNT(p), SUM(CASE WHEN p.status = 'COMPLETED' THEN p.amount ELSE 0 END), " +
+           "SUM(CASE WHEN p.status = 'FAILED' AND p.paymentDate >= :failedSince THEN 1 ELSE 0 END) FROM Payment p")
+    List<Object[]> summarize(@Param("failedSince") LocalDateTime failedSince);
+
+    // Row: payments, completedPayments, completedAmount, failedPayments
+    @Query("SELECT COUNT(p), SUM(CASE WHEN p.status = 'COMPLETED' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN p.status = 'COMPLETED' THEN p.amount ELSE 0 END), SUM(CASE WHEN p.status = 'FAILED' THEN 1 ELSE 0 END) " +
+           "FROM Payment p WHERE p.paymentDate >= :start AND p.paymentDate < :end")
+    List<Object[]> summarizeBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Rows: id, subscriptionId, amount, status, paymentDate
+    @Query("SELECT p.id, p.subscription.id, p.amount, p.status, p.paymentDate FROM Payment p ORDER BY p.paymentDate DESC, p.id DESC")
+    List<Object[]> findRecent(Pageable pageable);
+
     @Query("SELECT COUNT(p) FROM Payment p WHERE p.status = 'COMPLETED' AND p.paymentDate BETWEEN :startDate AND :endDate")
     Long countSuccessfulPaymentsBetweenDates(@Param("startDate") LocalDateTime startDate, 
                                            @Param("endDate") LocalDateTime endDate);
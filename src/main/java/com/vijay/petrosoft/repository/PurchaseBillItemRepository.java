@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -32,6 +33,13 @@ public interface PurchaseBillItemRepository extends JpaRepository<PurchaseBillIt
     // Find items by purchase bill and fuel type
     List<PurchaseBillItem> findByPurchaseBillIdAndFuelTypeId(Long purchaseBillId, Long fuelTypeId);
     
+    // Rows: pumpId, fuelTypeId, purchasedQuantity, purchasedCost
+    @Query("SELECT pb.pumpId, pbi.fuelType.id, SUM(pbi.quantity), SUM(pbi.quantity * pbi.unitPrice) FROM PurchaseBillItem pbi " +
+           "JOIN pbi.purchaseBill pb WHERE pb.pumpId IN :pumpIds AND pb.status NOT IN ('DRAFT', 'CANCELLED') " +
+           "AND pb.billDate <= :asOf AND pbi.fuelType IS NOT NULL GROUP BY pb.pumpId, pbi.fuelType.id")
+    List<Object[]> sumPurchaseCostByPumpAndFuelType(@Param("pumpIds") Collection<Long> pumpIds,
+                                                    @Param("asOf") java.time.LocalDate asOf);
+
     // Sum quantities by fuel type for a date range
     @Query("SELECT SUM(pbi.quantity) FROM PurchaseBillItem pbi " +
            "JOIN pbi.purchaseBill pb " +
@@ -0,0 +1,14 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.SaleDeadLetter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface SaleDeadLetterRepository extends JpaRepository<SaleDeadLetter, Long> {
+
+    List<SaleDeadLetter> findByPumpIdOrderByFailedAtDesc(Long pumpId, Pageable pageable);
+
+    List<SaleDeadLetter> findAllByOrderByFailedAtDesc(Pageable pageable);
+}
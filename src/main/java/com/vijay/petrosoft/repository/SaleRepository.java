@@ -1,19 +1,36 @@
 package com.vijay.petrosoft.repository;
 
 import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+import com.vijay.petrosoft.dto.SalesGroupTotalDTO;
+import com.vijay.petrosoft.dto.ShiftSalesBreakdownDTO;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface SaleRepository extends JpaRepository<SaleTransaction, Long> {
-
-    List<SaleTransaction> findByPumpIdOrderByTransactedAtDesc(Long pumpId);
+public interface SaleRepository extends JpaRepository<SaleTransaction, Long>, SaleRepositoryCustom {
+
+    // Listing projection: association ids resolve to the foreign-key columns, so no entity or proxy is created per row
+    String SALE_LISTING_SELECT = "SELECT new com.vijay.petrosoft.dto.SaleTransactionDTO(s.id, s.pumpId, s.shift.id, s.nozzle.id, " +
+            "s.fuelType.id, s.customer.id, s.saleNumber, s.quantity, s.rate, s.amount, s.discountAmount, s.taxAmount, " +
+            "s.totalAmount, s.paymentMethod, s.saleType, s.status, s.transactedAt, s.operatorId, s.cashierId, " +
+            "s.vehicleNumber, s.driverName, s.notes, s.cardLastFour, s.cardType, s.transactionReference, s.terminalId, " +
+            "s.vehicle.id) " +
+            "FROM SaleTransaction s ";
+
+    // Bounded by a start time so partitioned tables only scan recent partitions
+    List<SaleTransaction> findByPumpIdAndTransactedAtGreaterThanEqualOrderByTransactedAtDesc(Long pumpId, LocalDateTime since);
     List<SaleTransaction> findByShiftIdOrderByTransactedAtDesc(Long shiftId);
     List<SaleTransaction> findByTransactedAtBetweenOrderByTransactedAtDesc(LocalDateTime startDate, LocalDateTime endDate);
     List<SaleTransaction> findByCustomerIdOrderByTransactedAtDesc(Long customerId);
@@ -48,15 +65,27 @@ public interface SaleRepository extends JpaRepository<SaleTransaction, Long> {
     @Query("SELECT s FROM SaleTransaction s WHERE s.saleNumber = :saleNumber")
     Optional<SaleTransaction> findBySaleNumber(@Param("saleNumber") String saleNumber);
 
+    @Query("SELECT s.saleNumber, s.id FROM SaleTransaction s WHERE s.saleNumber IN :saleNumbers")
+    List<Object[]> findIdsBySaleNumbers(@Param("saleNumbers") Collection<String> saleNumbers);
+
+    // Locking read, so a sale committed by a concurrent transaction after this one's snapshot is still seen
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT s FROM SaleTransaction s WHERE s.id = :id")
+    Optional<SaleTransaction> findStoredById(@Param("id") Long id);
+
     @Query("SELECT s FROM SaleTransaction s WHERE s.transactionReference = :transactionReference")
     Optional<SaleTransaction> findByTransactionReference(@Param("transactionReference") String transactionReference);
 
-    @Query("SELECT s FROM SaleTransaction s WHERE s.vehicleNumber = :vehicleNumber ORDER BY s.transactedAt DESC")
-    List<SaleTransaction> findByVehicleNumber(@Param("vehicleNumber") String vehicleNumber);
 
     @Query("SELECT SUM(s.totalAmount) FROM SaleTransaction s WHERE s.shift.id = :shiftId")
     Double sumTotalAmountByShiftId(@Param("shiftId") Long shiftId);
 
+    @Query("SELECT COALESCE(SUM(s.amount), 0) FROM SaleTransaction s WHERE s.shift.id = :shiftId")
+    BigDecimal sumAmountByShiftId(@Param("shiftId") Long shiftId);
+
+    @Query("SELECT COALESCE(SUM(s.amount), 0) FROM SaleTransaction s WHERE s.transactedAt BETWEEN :startDate AND :endDate")
+    BigDecimal sumAmountByTransactedAtBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
     @Query("SELECT SUM(s.totalAmount) FROM SaleTransaction s WHERE s.shift.id = :shiftId AND s.paymentMethod = :paymentMethod")
     Double sumTotalAmountByShiftIdAndPaymentMethod(@Param("shiftId") Long shiftId, 
                                                    @Param("paymentMethod") SaleTransaction.PaymentMethod paymentMethod);
@@ -68,14 +97,29 @@ public interface SaleRepository extends JpaRepository<SaleTransaction, Long> {
     Long countByShiftIdAndPaymentMethod(@Param("shiftId") Long shiftId, 
                                         @Param("paymentMethod") SaleTransaction.PaymentMethod paymentMethod);
 
+    // Partially refunded sales count at their total less the refund
+    @Query("SELECT new com.vijay.petrosoft.dto.ShiftSalesBreakdownDTO(s.paymentMethod, f.id, f.name, " +
+           "SUM(s.totalAmount - COALESCE(s.refundedAmount, 0)), SUM(s.quantity), COUNT(s)) " +
+           "FROM SaleTransaction s LEFT JOIN s.fuelType f " +
+           "WHERE s.shift.id = :shiftId AND s.status IN :statuses " +
+           "GROUP BY s.paymentMethod, f.id, f.name")
+    List<ShiftSalesBreakdownDTO> summarizeShiftSales(@Param("shiftId") Long shiftId,
+                                                     @Param("statuses") Collection<SaleTransaction.Status> statuses);
+
+    // Rows: nozzleId (null for sales without a nozzle), quantity, transactions
+    @Query("SELECT n.id, SUM(s.quantity), COUNT(s) FROM SaleTransaction s LEFT JOIN s.nozzle n " +
+           "WHERE s.shift.id = :shiftId AND s.status IN :statuses GROUP BY n.id")
+    List<Object[]> sumQuantityByNozzleForShift(@Param("shiftId") Long shiftId,
+                                               @Param("statuses") Collection<SaleTransaction.Status> statuses);
+
     @Query("SELECT SUM(s.quantity) FROM SaleTransaction s WHERE s.shift.id = :shiftId")
     Double sumQuantityByShiftId(@Param("shiftId") Long shiftId);
 
-    @Query("SELECT s FROM SaleTransaction s WHERE s.status = :status ORDER BY s.transactedAt DESC")
-    List<SaleTransaction> findByStatus(@Param("status") SaleTransaction.Status status);
+    @Query("SELECT s FROM SaleTransaction s WHERE s.status = :status AND s.transactedAt >= :since ORDER BY s.transactedAt DESC")
+    List<SaleTransaction> findByStatus(@Param("status") SaleTransaction.Status status, @Param("since") LocalDateTime since);
 
-    @Query("SELECT s FROM SaleTransaction s WHERE s.saleType = :saleType ORDER BY s.transactedAt DESC")
-    List<SaleTransaction> findBySaleType(@Param("saleType") SaleTransaction.SaleType saleType);
+    @Query("SELECT s FROM SaleTransaction s WHERE s.saleType = :saleType AND s.transactedAt >= :since ORDER BY s.transactedAt DESC")
+    List<SaleTransaction> findBySaleType(@Param("saleType") SaleTransaction.SaleType saleType, @Param("since") LocalDateTime since);
 
     @Query("SELECT s FROM SaleTransaction s WHERE s.pumpId = :pumpId AND s.transactedAt >= :fromDate ORDER BY s.transactedAt DESC")
     List<SaleTransaction> findRecentSalesByPump(@Param("pumpId") Long pumpId, 
@@ -83,4 +127,118 @@ public interface SaleRepository extends JpaRepository<SaleTransaction, Long> {
 
     @Query("SELECT s FROM SaleTransaction s WHERE s.customer.id = :customerId AND s.paymentMethod = 'CREDIT' AND s.status = 'COMPLETED' ORDER BY s.transactedAt DESC")
     List<SaleTransaction> findCreditSalesByCustomer(@Param("customerId") Long customerId);
+
+    // Rows: customerId, totalAmount (net of refunds), totalQuantity, transactionCount
+    @Query("SELECT s.customer.id, SUM(s.totalAmount - COALESCE(s.refundedAmount, 0)), SUM(s.quantity), COUNT(s) " +
+           "FROM SaleTransaction s WHERE s.customer IS NOT NULL AND (:pumpId IS NULL OR s.pumpId = :pumpId) " +
+           "AND s.status IN ('COMPLETED', 'PARTIALLY_REFUNDED') AND s.transactedAt >= :since " +
+           "GROUP BY s.customer.id ORDER BY SUM(s.totalAmount - COALESCE(s.refundedAmount, 0)) DESC")
+    List<Object[]> sumByCustomerSince(@Param("pumpId") Long pumpId, @Param("since") LocalDateTime since, Pageable pageable);
+
+    @Query("SELECT COUNT(DISTINCT s.customer.id) FROM SaleTransaction s WHERE s.customer IS NOT NULL AND s.transactedAt >= :since")
+    long countCustomersWithSalesSince(@Param("since") LocalDateTime since);
+
+    // Rows: id, pumpId, customerName, fuelTypeName, totalAmount, transactedAt
+    @Query("SELECT s.id, s.pumpId, c.name, f.name, s.totalAmount, s.transactedAt FROM SaleTransaction s " +
+           "LEFT JOIN s.customer c LEFT JOIN s.fuelType f " +
+           "WHERE (:pumpId IS NULL OR s.pumpId = :pumpId) AND s.transactedAt >= :since ORDER BY s.transactedAt DESC, s.id DESC")
+    List<Object[]> findRecentSales(@Param("pumpId") Long pumpId, @Param("since") LocalDateTime since, Pageable pageable);
+
+    @Query("SELECT MAX(s.transactedAt) FROM SaleTransaction s WHERE (:pumpId IS NULL OR s.pumpId = :pumpId) AND s.transactedAt >= :since")
+    LocalDateTime findLastTransactedAt(@Param("pumpId") Long pumpId, @Param("since") LocalDateTime since);
+
+    // Rows: id, transactedAt, totalAmount less any refund; newest first, for rebuilding a customer's open credit items
+    @Query("SELECT s.id, s.transactedAt, s.totalAmount - COALESCE(s.refundedAmount, 0) FROM SaleTransaction s " +
+           "WHERE s.customer.id = :customerId " +
+           "AND s.paymentMethod = 'CREDIT' AND s.status IN ('COMPLETED', 'PARTIALLY_REFUNDED') ORDER BY s.transactedAt DESC, s.id DESC")
+    List<Object[]> findCreditInvoicesByCustomer(@Param("customerId") Long customerId);
+
+    // Grouped report aggregates: one row per group instead of one per sale. Partially refunded sales count at their total
+    // less the refund, as in the shift summary and the rollups
+    @Query("SELECT new com.vijay.petrosoft.dto.SalesGroupTotalDTO(s.operatorId, SUM(s.totalAmount - COALESCE(s.refundedAmount, 0)), SUM(s.quantity), COUNT(s)) " +
+           "FROM SaleTransaction s WHERE s.pumpId = :pumpId AND s.transactedAt BETWEEN :startDate AND :endDate " +
+           "AND s.status IN :statuses GROUP BY s.operatorId")
+    List<SalesGroupTotalDTO> sumSalesByOperator(@Param("pumpId") Long pumpId,
+                                                @Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate,
+                                                @Param("statuses") Collection<SaleTransaction.Status> statuses);
+
+    @Query("SELECT new com.vijay.petrosoft.dto.SalesGroupTotalDTO(s.cashierId, SUM(s.totalAmount - COALESCE(s.refundedAmount, 0)), SUM(s.quantity), COUNT(s)) " +
+           "FROM SaleTransaction s WHERE s.pumpId = :pumpId AND s.transactedAt BETWEEN :startDate AND :endDate " +
+           "AND s.status IN :statuses GROUP BY s.cashierId")
+    List<SalesGroupTotalDTO> sumSalesByCashier(@Param("pumpId") Long pumpId,
+                                               @Param("startDate") LocalDateTime startDate,
+                                               @Param("endDate") LocalDateTime endDate,
+                                               @Param("statuses") Collection<SaleTransaction.Status> statuses);
+
+    @Query("SELECT new com.vijay.petrosoft.dto.SalesGroupTotalDTO(s.paymentMethod, SUM(s.totalAmount - COALESCE(s.refundedAmount, 0)), SUM(s.quantity), COUNT(s)) " +
+           "FROM SaleTransaction s WHERE s.pumpId = :pumpId AND s.transactedAt BETWEEN :startDate AND :endDate " +
+           "AND s.status IN :statuses GROUP BY s.paymentMethod")
+    List<SalesGroupTotalDTO> sumSalesByPaymentMethod(@Param("pumpId") Long pumpId,
+                                                     @Param("startDate") LocalDateTime startDate,
+                                                     @Param("endDate") LocalDateTime endDate,
+                                                     @Param("statuses") Collection<SaleTransaction.Status> statuses);
+
+    @Query("SELECT new com.vijay.petrosoft.dto.SalesGroupTotalDTO(f.id, f.name, SUM(s.totalAmount - COALESCE(s.refundedAmount, 0)), SUM(s.quantity), COUNT(s)) " +
+           "FROM SaleTransaction s LEFT JOIN s.fuelType f WHERE s.pumpId = :pumpId AND s.transactedAt BETWEEN :startDate AND :endDate " +
+           "AND s.status IN :statuses GROUP BY f.id, f.name")
+    List<SalesGroupTotalDTO> sumSalesByFuelType(@Param("pumpId") Long pumpId,
+                                                @Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate,
+                                                @Param("statuses") Collection<SaleTransaction.Status> statuses);
+
+    // Idempotency keys: terminalId, transactionReference
+    @Query("SELECT s.terminalId, s.transactionReference FROM SaleTransaction s " +
+           "WHERE s.transactionReference IS NOT NULL AND s.transactedAt >= :since")
+    List<Object[]> findIdempotencyKeysSince(@Param("since") LocalDateTime since);
+
+    // Listing projections
+    @Query(SALE_LISTING_SELECT + "WHERE s.transactionReference = :transactionReference " +
+           "AND (s.terminalId = :terminalId OR (:terminalId IS NULL AND s.terminalId IS NULL)) ORDER BY s.id")
+    List<SaleTransactionDTO> findListingsByTerminalAndReference(@Param("terminalId") String terminalId,
+                                                                @Param("transactionReference") String transactionReference);
+
+    // Bounded by date so only the recent partitions are read
+    @Query(SALE_LISTING_SELECT + "WHERE s.pumpId = :pumpId AND s.transactedAt >= :since ORDER BY s.transactedAt DESC")
+    List<SaleTransactionDTO> findListingsByPumpSince(@Param("pumpId") Long pumpId, @Param("since") LocalDateTime since);
+
+    @Query(SALE_LISTING_SELECT + "WHERE s.shift.id = :shiftId ORDER BY s.transactedAt DESC")
+    List<SaleTransactionDTO> findListingsByShift(@Param("shiftId") Long shiftId);
+
+    @Query(SALE_LISTING_SELECT + "WHERE s.customer.id = :customerId ORDER BY s.transactedAt DESC")
+    List<SaleTransactionDTO> findListingsByCustomer(@Param("customerId") Long customerId);
+
+    @Query(SALE_LISTING_SELECT + "WHERE s.transactedAt BETWEEN :startDate AND :endDate ORDER BY s.transactedAt DESC")
+    List<SaleTransactionDTO> findListingsByDateRange(@Param("startDate") LocalDateTime startDate,
+                                                     @Param("endDate") LocalDateTime endDate);
+
+    @Query(SALE_LISTING_SELECT + "WHERE s.pumpId = :pumpId AND s.transactedAt BETWEEN :startDate AND :endDate ORDER BY s.transactedAt DESC")
+    List<SaleTransactionDTO> findListingsByPumpAndDateRange(@Param("pumpId") Long pumpId,
+                                                            @Param("startDate") LocalDateTime startDate,
+                                                            @Param("endDate") LocalDateTime endDate);
+
+    @Query(SALE_LISTING_SELECT + "WHERE s.vehicle.id = :vehicleId AND s.transactedAt BETWEEN :startDate AND :endDate ORDER BY s.transactedAt DESC")
+    List<SaleTransactionDTO> findListingsByVehicleAndDateRange(@Param("vehicleId") Long vehicleId,
+                                                               @Param("startDate") LocalDateTime startDate,
+                                                               @Param("endDate") LocalDateTime endDate);
+
+    @Query(SALE_LISTING_SELECT + "WHERE s.operatorId = :operatorId AND s.transactedAt BETWEEN :startDate AND :endDate ORDER BY s.transactedAt DESC")
+    List<SaleTransactionDTO> findListingsByOperatorAndDateRange(@Param("operatorId") Long operatorId,
+                                                                @Param("startDate") LocalDateTime startDate,
+                                                                @Param("endDate") LocalDateTime endDate);
+
+    @Query(SALE_LISTING_SELECT + "WHERE s.cashierId = :cashierId AND s.transactedAt BETWEEN :startDate AND :endDate ORDER BY s.transactedAt DESC")
+    List<SaleTransactionDTO> findListingsByCashierAndDateRange(@Param("cashierId") Long cashierId,
+                                                               @Param("startDate") LocalDateTime startDate,
+                                                               @Param("endDate") LocalDateTime endDate);
+
+    @Query(SALE_LISTING_SELECT + "WHERE s.paymentMethod = :paymentMethod ORDER BY s.transactedAt DESC")
+    List<SaleTransactionDTO> findListingsByPaymentMethod(@Param("paymentMethod") SaleTransaction.PaymentMethod paymentMethod);
+
+    @Query(SALE_LISTING_SELECT + "WHERE s.pumpId = :pumpId AND s.paymentMethod = :paymentMethod ORDER BY s.transactedAt DESC")
+    List<SaleTransactionDTO> findListingsByPumpAndPaymentMethod(@Param("pumpId") Long pumpId,
+                                                                @Param("paymentMethod") SaleTransaction.PaymentMethod paymentMethod);
+
+    @Query(SALE_LISTING_SELECT + "WHERE s.customer.id = :customerId AND s.paymentMethod = 'CREDIT' AND s.status = 'COMPLETED' ORDER BY s.transactedAt DESC")
+    List<SaleTransactionDTO> findCreditSaleListingsByCustomer(@Param("customerId") Long customerId);
 }
@@ -0,0 +1,33 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface SaleRepositoryCustom {
+
+    // Inserts the given sales with JDBC batching, assigns the generated ids back onto them and claims their sale_keys
+    // rows. A sale whose number or terminal reference is already held is removed again and reported by its position
+    Map<Integer, KeyConflict> batchInsert(List<SaleTransaction> sales);
+
+    // Claims the sale_keys rows of sales that are already stored; sales whose keys are held by another sale are reported
+    // by their position and keep their own rows, which the caller removes
+    Map<Integer, KeyConflict> claimKeys(List<SaleTransaction> sales);
+
+    // Writes the sale's sale_keys row; a number or terminal reference held by another sale fails with
+    // DataIntegrityViolationException
+    void saveKeys(SaleTransaction sale);
+
+    void deleteKeys(Long saleId);
+
+    // Date-range listing that reads sales_archive for the part of the range covered by archived financial years
+    List<SaleTransactionDTO> findHistoricalListingsByPumpAndDateRange(Long pumpId, LocalDateTime startDate, LocalDateTime endDate);
+
+    // The sale holding a claimed key; sameReference is set when it holds the claimant's terminal reference rather than
+    // only its sale number
+    record KeyConflict(Long holderId, boolean sameReference) {
+    }
+}
@@ -0,0 +1,239 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class SaleRepositoryCustomImpl implements SaleRepositoryCustom {
+
+    private static final String INSERT_SALE_SQL = "INSERT INTO sales (pump_id, shift_id, nozzle_id, fuel_type_id, customer_id, " +
+            "sale_number, quantity, rate, amount, discount_amount, tax_amount, total_amount, payment_method, sale_type, status, " +
+            "transacted_at, operator_id, cashier_id, vehicle_number, driver_name, notes, card_last_four, card_type, " +
+            "transaction_reference, terminal_id, vehicle_id, created_by, created_at, refunded_amount) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_KEYS_SQL = "INSERT INTO sale_keys (sale_id, sale_number, terminal_id, transaction_reference) " +
+            "VALUES (?, ?, ?, ?)";
+
+    // A key already held by another sale turns the claim into a no-op instead of failing the statement
+    private static final String CLAIM_KEYS_SQL = INSERT_KEYS_SQL + " ON DUPLICATE KEY UPDATE sale_id = sale_id";
+
+    // Locking read, so a holder committed by a concurrent transaction after this one's snapshot is still seen
+    private static final String KEY_HOLDER_SQL = "SELECT sale_id, terminal_id = ? AND transaction_reference = ? AS same_reference " +
+            "FROM sale_keys WHERE sale_id <> ? AND (sale_number = ? OR (terminal_id = ? AND transaction_reference = ?)) " +
+            "ORDER BY same_reference DESC LIMIT 1 FOR SHARE";
+
+    private static final String UPDATE_KEYS_SQL = "UPDATE sale_keys SET sale_number = ?, terminal_id = ?, transaction_reference = ? " +
+            "WHERE sale_id = ?";
+
+    private static final String ARCHIVED_SALE_LISTING_SQL = "SELECT id, pump_id, shift_id, nozzle_id, fuel_type_id, customer_id, " +
+            "sale_number, quantity, rate, amount, discount_amount, tax_amount, total_amount, payment_method, sale_type, status, " +
+            "transacted_at, operator_id, cashier_id, vehicle_number, driver_name, notes, card_last_four, card_type, " +
+            "transaction_reference, terminal_id, vehicle_id FROM sales_archive " +
+            "WHERE pump_id = ? AND transacted_at BETWEEN ? AND ? ORDER BY transacted_at DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FinancialYearRepository financialYearRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Map<Integer, KeyConflict> batchInsert(List<SaleTransaction> sales) {
+        if (sales.isEmpty()) {
+            return Map.of();
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SALE_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bindSale(ps, sales.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return sales.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < sales.size() && i < keys.size(); i++) {
+            Object key = keys.get(i).values().stream().findFirst().orElse(null);
+            if (key instanceof Number number) {
+                sales.get(i).setId(number.longValue());
+            }
+        }
+
+        // Unique keys cannot be enforced on the partitioned sales table, so a sale that loses its keys is removed again
+        Map<Integer, KeyConflict> conflicts = claimKeys(sales);
+        List<SaleTransaction> losers = conflicts.keySet().stream().map(sales::get).toList();
+        jdbcTemplate.batchUpdate("DELETE FROM sales WHERE id = ? AND transacted_at = ?", losers, losers.size(), (ps, sale) -> {
+            ps.setLong(1, sale.getId());
+            ps.setTimestamp(2, Timestamp.valueOf(sale.getTransactedAt()));
+        });
+        return conflicts;
+    }
+
+    @Override
+    public Map<Integer, KeyConflict> claimKeys(List<SaleTransaction> sales) {
+        if (sales.isEmpty()) {
+            return Map.of();
+        }
+        jdbcTemplate.batchUpdate(CLAIM_KEYS_SQL, sales, sales.size(), this::bindKeys);
+        // Batched statements do not reliably report per-row counts, so the claimed rows are read back
+        Set<Long> claimed = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT sale_id FROM sale_keys WHERE sale_id IN (" + String.join(", ", Collections.nCopies(sales.size(), "?")) + ")",
+                Long.class, sales.stream().map(SaleTransaction::getId).toArray()));
+
+        Map<Integer, KeyConflict> conflicts = new HashMap<>();
+        for (int i = 0; i < sales.size(); i++) {
+            SaleTransaction sale = sales.get(i);
+            if (claimed.contains(sale.getId())) {
+                continue;
+            }
+            List<KeyConflict> holders = jdbcTemplate.query(KEY_HOLDER_SQL,
+                    (rs, rowNum) -> new KeyConflict(rs.getLong("sale_id"), rs.getBoolean("same_reference")),
+                    keyTerminalOf(sale), sale.getTransactionReference(), sale.getId(), sale.getSaleNumber(),
+                    keyTerminalOf(sale), sale.getTransactionReference());
+            // A holder that vanished between the claim and the read is reported as a plain number conflict
+            conflicts.put(i, holders.isEmpty() ? new KeyConflict(null, false) : holders.get(0));
+        }
+        return conflicts;
+    }
+
+    @Override
+    public void saveKeys(SaleTransaction sale) {
+        if (jdbcTemplate.update(UPDATE_KEYS_SQL, sale.getSaleNumber(), keyTerminalOf(sale), sale.getTransactionReference(),
+                sale.getId()) == 0) {
+            jdbcTemplate.update(INSERT_KEYS_SQL, ps -> bindKeys(ps, sale));
+        }
+    }
+
+    @Override
+    public void deleteKeys(Long saleId) {
+        jdbcTemplate.update("DELETE FROM sale_keys WHERE sale_id = ?", saleId);
+    }
+
+    @Override
+    public List<SaleTransactionDTO> findHistoricalListingsByPumpAndDateRange(Long pumpId, LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDate archivedThrough = financialYearRepository.findArchivedThrough(pumpId);
+        LocalDateTime hotStart = archivedThrough != null && !startDate.isAfter(archivedThrough.plusDays(1).atStartOfDay())
+                ? archivedThrough.plusDays(1).atStartOfDay()
+                : startDate;
+
+        List<SaleTransactionDTO> sales = new ArrayList<>();
+        if (!hotStart.isAfter(endDate)) {
+            sales.addAll(entityManager.createQuery(SaleRepository.SALE_LISTING_SELECT +
+                            "WHERE s.pumpId = :pumpId AND s.transactedAt BETWEEN :startDate AND :endDate ORDER BY s.transactedAt DESC",
+                            SaleTransactionDTO.class)
+                    .setParameter("pumpId", pumpId)
+                    .setParameter("startDate", hotStart)
+                    .setParameter("endDate", endDate)
+                    .getResultList());
+        }
+        if (hotStart.isAfter(startDate)) {
+            LocalDateTime archiveEnd = hotStart.minusNanos(1).isBefore(endDate) ? hotStart.minusNanos(1) : endDate;
+            sales.addAll(jdbcTemplate.query(ARCHIVED_SALE_LISTING_SQL, (rs, rowNum) -> mapArchivedSale(rs),
+                    pumpId, Timestamp.valueOf(startDate), Timestamp.valueOf(archiveEnd)));
+            sales.sort(Comparator.comparing(SaleTransactionDTO::getTransactedAt).reversed());
+        }
+        return sales;
+    }
+
+    private SaleTransactionDTO mapArchivedSale(ResultSet rs) throws SQLException {
+        return new SaleTransactionDTO(rs.getLong("id"), rs.getLong("pump_id"),
+                rs.getObject("shift_id", Long.class), rs.getObject("nozzle_id", Long.class),
+                rs.getObject("fuel_type_id", Long.class), rs.getObject("customer_id", Long.class),
+                rs.getString("sale_number"), rs.getBigDecimal("quantity"), rs.getBigDecimal("rate"), rs.getBigDecimal("amount"),
+                rs.getBigDecimal("discount_amount"), rs.getBigDecimal("tax_amount"), rs.getBigDecimal("total_amount"),
+                SaleTransaction.PaymentMethod.valueOf(rs.getString("payment_method")),
+                SaleTransaction.SaleType.valueOf(rs.getString("sale_type")),
+                SaleTransaction.Status.valueOf(rs.getString("status")),
+                rs.getTimestamp("transacted_at").toLocalDateTime(),
+                rs.getObject("operator_id", Long.class), rs.getObject("cashier_id", Long.class),
+                rs.getString("vehicle_number"), rs.getString("driver_name"), rs.getString("notes"),
+                rs.getString("card_last_four"), rs.getString("card_type"), rs.getString("transaction_reference"),
+                rs.getString("terminal_id"), rs.getObject("vehicle_id", Long.class));
+    }
+
+    private void bindSale(PreparedStatement ps, SaleTransaction sale) throws SQLException {
+        ps.setLong(1, sale.getPumpId());
+        setNullableLong(ps, 2, sale.getShift() != null ? sale.getShift().getId() : null);
+        setNullableLong(ps, 3, sale.getNozzle() != null ? sale.getNozzle().getId() : null);
+        setNullableLong(ps, 4, sale.getFuelType() != null ? sale.getFuelType().getId() : null);
+        setNullableLong(ps, 5, sale.getCustomer() != null ? sale.getCustomer().getId() : null);
+        ps.setString(6, sale.getSaleNumber());
+        ps.setBigDecimal(7, sale.getQuantity());
+        ps.setBigDecimal(8, sale.getRate());
+        ps.setBigDecimal(9, sale.getAmount());
+        ps.setBigDecimal(10, sale.getDiscountAmount());
+        ps.setBigDecimal(11, sale.getTaxAmount());
+        ps.setBigDecimal(12, sale.getTotalAmount());
+        ps.setString(13, sale.getPaymentMethod().name());
+        ps.setString(14, sale.getSaleType().name());
+        ps.setString(15, sale.getStatus().name());
+        ps.setTimestamp(16, Timestamp.valueOf(sale.getTransactedAt()));
+        setNullableLong(ps, 17, sale.getOperatorId());
+        setNullableLong(ps, 18, sale.getCashierId());
+        ps.setString(19, sale.getVehicleNumber());
+        ps.setString(20, sale.getDriverName());
+        ps.setString(21, sale.getNotes());
+        ps.setString(22, sale.getCardLastFour());
+        ps.setString(23, sale.getCardType());
+        ps.setString(24, sale.getTransactionReference());
+        ps.setString(25, sale.getTerminalId());
+        setNullableLong(ps, 26, sale.getVehicle() != null ? sale.getVehicle().getId() : null);
+        ps.setString(27, sale.getCreatedBy());
+        ps.setTimestamp(28, sale.getCreatedAt() != null ? Timestamp.valueOf(sale.getCreatedAt()) : null);
+        ps.setBigDecimal(29, sale.getRefundedAmount() != null ? sale.getRefundedAmount() : BigDecimal.ZERO);
+    }
+
+    private void bindKeys(PreparedStatement ps, SaleTransaction sale) throws SQLException {
+        ps.setLong(1, sale.getId());
+        ps.setString(2, sale.getSaleNumber());
+        ps.setString(3, keyTerminalOf(sale));
+        ps.setString(4, sale.getTransactionReference());
+    }
+
+    // A unique key treats NULLs as distinct, so a reference sent without a terminal is keyed under the empty terminal
+    private static String keyTerminalOf(SaleTransaction sale) {
+        return sale.getTerminalId() != null ? sale.getTerminalId() : "";
+    }
+
+    private void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.SalesDailyRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface SalesDailyRollupRepository extends JpaRepository<SalesDailyRollup, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO sales_daily_rollup (pump_id, fuel_type_id, payment_method, bucket_date, total_amount, total_quantity, transaction_count) " +
+                   "VALUES (:pumpId, :fuelTypeId, :paymentMethod, :bucketDate, :amount, :quantity, :transactions) " +
+                   "ON DUPLICATE KEY UPDATE total_amount = total_amount + VALUES(total_amount), " +
+                   "total_quantity = total_quantity + VALUES(total_quantity), " +
+                   "transaction_count = transaction_count + VALUES(transaction_count)",
+           nativeQuery = true)
+    void upsert(@Param("pumpId") Long pumpId,
+                @Param("fuelTypeId") Long fuelTypeId,
+                @Param("paymentMethod") String paymentMethod,
+                @Param("bucketDate") LocalDate bucketDate,
+                @Param("amount") BigDecimal amount,
+                @Param("quantity") BigDecimal quantity,
+                @Param("transactions") Long transactions);
+
+    // Rows: bucketDate, totalAmount, totalQuantity, transactionCount
+    @Query("SELECT r.bucketDate, SUM(r.totalAmount), SUM(r.totalQuantity), SUM(r.transactionCount) FROM SalesDailyRollup r " +
+           "WHERE (:pumpId IS NULL OR r.pumpId = :pumpId) AND r.bucketDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.bucketDate ORDER BY r.bucketDate")
+    List<Object[]> sumByDay(@Param("pumpId") Long pumpId,
+                            @Param("startDate") LocalDate startDate,
+                            @Param("endDate") LocalDate endDate);
+
+    // Rows: pumpId, bucketDate, totalAmount, totalQuantity, transactionCount; ordered so each pump's days arrive in sequence
+    @Query("SELECT r.pumpId, r.bucketDate, SUM(r.totalAmount), SUM(r.totalQuantity), SUM(r.transactionCount) " +
+           "FROM SalesDailyRollup r GROUP BY r.pumpId, r.bucketDate ORDER BY r.pumpId, r.bucketDate")
+    List<Object[]> sumByPumpAndDay();
+
+    // Rows: pumpId, fuelTypeId, then amount, quantity and count for period one, then the same for period two
+    @Query("SELECT r.pumpId, r.fuelTypeId, " +
+           "SUM(CASE WHEN r.bucketDate BETWEEN :period1Start AND :period1End THEN r.totalAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.bucketDate BETWEEN :period1Start AND :period1End THEN r.totalQuantity ELSE 0 END), " +
+           "SUM(CASE WHEN r.bucketDate BETWEEN :period1Start AND :period1End THEN r.transactionCount ELSE 0 END), " +
+           "SUM(CASE WHEN r.bucketDate BETWEEN :period2Start AND :period2End THEN r.totalAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.bucketDate BETWEEN :period2Start AND :period2End THEN r.totalQuantity ELSE 0 END), " +
+           "SUM(CASE WHEN r.bucketDate BETWEEN :period2Start AND :period2End THEN r.transactionCount ELSE 0 END) " +
+           "FROM SalesDailyRollup r WHERE r.pumpId IN :pumpIds " +
+           "AND (r.bucketDate BETWEEN :period1Start AND :period1End OR r.bucketDate BETWEEN :period2Start AND :period2End) " +
+           "GROUP BY r.pumpId, r.fuelTypeId")
+    List<Object[]> sumByPumpAndFuelTypeForPeriods(@Param("pumpIds") Collection<Long> pumpIds,
+                                                  @Param("period1Start") LocalDate period1Start,
+                                                  @Param("period1End") LocalDate period1End,
+                                                  @Param("period2Start") LocalDate period2Start,
+                                                  @Param("period2End") LocalDate period2End);
+
+    // Rows: year, month, totalAmount, totalQuantity, transactionCount
+    @Query("SELECT YEAR(r.bucketDate), MONTH(r.bucketDate), SUM(r.totalAmount), SUM(r.totalQuantity), SUM(r.transactionCount) " +
+           "FROM SalesDailyRollup r WHERE (:pumpId IS NULL OR r.pumpId = :pumpId) AND r.bucketDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY YEAR(r.bucketDate), MONTH(r.bucketDate) ORDER BY YEAR(r.bucketDate), MONTH(r.bucketDate)")
+    List<Object[]> sumByMonth(@Param("pumpId") Long pumpId,
+                              @Param("startDate") LocalDate startDate,
+                              @Param("endDate") LocalDate endDate);
+
+    // Rows: fuelTypeId, totalAmount, totalQuantity, transactionCount, then amount and count since monthStart, weekStart and today
+    @Query("SELECT r.fuelTypeId, SUM(r.totalAmount), SUM(r.totalQuantity), SUM(r.transactionCount), " +
+           "SUM(CASE WHEN r.bucketDate >= :monthStart THEN r.totalAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.bucketDate >= :monthStart THEN r.transactionCount ELSE 0 END), " +
+           "SUM(CASE WHEN r.bucketDate >= :weekStart THEN r.totalAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.bucketDate >= :weekStart THEN r.transactionCount ELSE 0 END), " +
+           "SUM(CASE WHEN r.bucketDate = :today THEN r.totalAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.bucketDate = :today THEN r.transactionCount ELSE 0 END) " +
+           "FROM SalesDailyRollup r WHERE (:pumpId IS NULL OR r.pumpId = :pumpId) GROUP BY r.fuelTypeId")
+    List<Object[]> sumByFuelTypeWithPeriods(@Param("pumpId") Long pumpId,
+                                            @Param("monthStart") LocalDate monthStart,
+                                            @Param("weekStart") LocalDate weekStart,
+                                            @Param("today") LocalDate today);
+
+    // Rows: pumpId, totalAmount, totalQuantity, transactionCount
+    @Query("SELECT r.pumpId, SUM(r.totalAmount), SUM(r.totalQuantity), SUM(r.transactionCount) FROM SalesDailyRollup r " +
+           "WHERE r.bucketDate >= :since GROUP BY r.pumpId ORDER BY SUM(r.totalAmount) DESC")
+    List<Object[]> sumByPumpSince(@Param("since") LocalDate since, Pageable pageable);
+
+    // Rows: fuelTypeId, totalAmount, totalQuantity, transactionCount
+    @Query("SELECT r.fuelTypeId, SUM(r.totalAmount), SUM(r.totalQuantity), SUM(r.transactionCount) FROM SalesDailyRollup r " +
+           "WHERE (:pumpId IS NULL OR r.pumpId = :pumpId) AND r.bucketDate >= :since " +
+           "GROUP BY r.fuelTypeId ORDER BY SUM(r.totalAmount) DESC")
+    List<Object[]> sumByFuelTypeSince(@Param("pumpId") Long pumpId, @Param("since") LocalDate since, Pageable pageable);
+
+    @Modifying
+    @Query(value = "DELETE FROM sales_daily_rollup WHERE bucket_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    int deleteRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = "INSERT INTO sales_daily_rollup (pump_id, fuel_type_id, payment_method, bucket_date, total_amount, total_quantity, transaction_count) " +
+                   "SELECT h.pump_id, h.fuel_type_id, h.payment_method, DATE(h.bucket_start) AS bucket, " +
+                   "SUM(h.total_amount), SUM(h.total_quantity), SUM(h.transaction_count) FROM sales_hourly_rollup h " +
+                   "WHERE h.bucket_start >= :start AND h.bucket_start < :end " +
+                   "GROUP BY h.pump_id, h.fuel_type_id, h.payment_method, bucket",
+           nativeQuery = true)
+    int rebuildFromHourly(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
@@ -0,0 +1,51 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.SalesHourlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SalesHourlyRollupRepository extends JpaRepository<SalesHourlyRollup, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO sales_hourly_rollup (pump_id, fuel_type_id, payment_method, bucket_start, total_amount, total_quantity, transaction_count) " +
+                   "VALUES (:pumpId, :fuelTypeId, :paymentMethod, :bucketStart, :amount, :quantity, :transactions) " +
+                   "ON DUPLICATE KEY UPDATE total_amount = total_amount + VALUES(total_amount), " +
+                   "total_quantity = total_quantity + VALUES(total_quantity), " +
+                   "transaction_count = transaction_count + VALUES(transaction_count)",
+           nativeQuery = true)
+    void upsert(@Param("pumpId") Long pumpId,
+                @Param("fuelTypeId") Long fuelTypeId,
+                @Param("paymentMethod") String paymentMethod,
+                @Param("bucketStart") LocalDateTime bucketStart,
+                @Param("amount") BigDecimal amount,
+                @Param("quantity") BigDecimal quantity,
+                @Param("transactions") Long transactions);
+
+    // Rows: bucketStart, totalAmount, totalQuantity, transactionCount
+    @Query("SELECT r.bucketStart, SUM(r.totalAmount), SUM(r.totalQuantity), SUM(r.transactionCount) FROM SalesHourlyRollup r " +
+           "WHERE (:pumpId IS NULL OR r.pumpId = :pumpId) AND r.bucketStart >= :start AND r.bucketStart < :end " +
+           "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<Object[]> sumByHour(@Param("pumpId") Long pumpId,
+                             @Param("start") LocalDateTime start,
+                             @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query(value = "DELETE FROM sales_hourly_rollup WHERE bucket_start >= :start AND bucket_start < :end", nativeQuery = true)
+    int deleteRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query(value = "INSERT INTO sales_hourly_rollup (pump_id, fuel_type_id, payment_method, bucket_start, total_amount, total_quantity, transaction_count) " +
+                   "SELECT s.pump_id, COALESCE(s.fuel_type_id, 0), s.payment_method, " +
+                   "TIMESTAMP(DATE(s.transacted_at), MAKETIME(HOUR(s.transacted_at), 0, 0)) AS bucket, " +
+                   "SUM(s.total_amount - COALESCE(s.refunded_amount, 0)), SUM(s.quantity), COUNT(*) FROM sales s " +
+                   "WHERE s.status IN ('COMPLETED', 'PARTIALLY_REFUNDED') AND s.transacted_at >= :start AND s.transacted_at < :end " +
+                   "GROUP BY s.pump_id, COALESCE(s.fuel_type_id, 0), s.payment_method, bucket",
+           nativeQuery = true)
+    int rebuildFromSales(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
@@ -1,7 +1,11 @@
 package com.vijay.petrosoft.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.vijay.petrosoft.domain.Shift;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -11,4 +15,24 @@ public interface ShiftRepository extends JpaRepository<Shift, Long> {
     List<Shift> findByStatus(String status);
     List<Shift> findByPumpIdAndStatus(Long pumpId, String status);
     List<Shift> findByOpenedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
+
+    @Query("SELECT s FROM Shift s WHERE s.status = :status")
+    List<Shift> findAllByStatus(@Param("status") Shift.Status status);
+
+    // Relative update so concurrent sales on the same shift never overwrite each other's totals
+    @Modifying
+    @Query("UPDATE Shift s SET s.totalSales = COALESCE(s.totalSales, 0) + :totalAmount, " +
+           "s.cashSales = COALESCE(s.cashSales, 0) + :cashAmount, " +
+           "s.cardSales = COALESCE(s.cardSales, 0) + :cardAmount, " +
+           "s.creditSales = COALESCE(s.creditSales, 0) + :creditAmount, " +
+           "s.totalQuantity = COALESCE(s.totalQuantity, 0) + :quantity, " +
+           "s.totalTransactions = COALESCE(s.totalTransactions, 0) + :transactions " +
+           "WHERE s.id = :shiftId")
+    int incrementSalesTotals(@Param("shiftId") Long shiftId,
+                             @Param("totalAmount") BigDecimal totalAmount,
+                             @Param("cashAmount") BigDecimal cashAmount,
+                             @Param("cardAmount") BigDecimal cardAmount,
+                             @Param("creditAmount") BigDecimal creditAmount,
+                             @Param("quantity") BigDecimal quantity,
+                             @Param("transactions") Long transactions);
 }
@@ -1,6 +1,7 @@
 package com.vijay.petrosoft.repository;
 
 import com.vijay.petrosoft.domain.Subscription;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -35,6 +36,22 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     @Query("SELECT COUNT(s) FROM Subscription s WHERE s.active = true")
     Long countActiveSubscriptions();
     
+    // Row: active, activePumps, dueForPayment, expiringSoon, monthlyRecurringRevenue
+    @Query("SELECT SUM(CASE WHEN s.active = true THEN 1 ELSE 0 END), COUNT(DISTINCT CASE WHEN s.active = true THEN s.pumpId END), " +
+           "SUM(CASE WHEN s.active = true AND s.nextPaymentDate <= :today THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN s.active = true AND s.endsAt BETWEEN :today AND :expiringBy THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN s.active = false THEN 0 WHEN s.billingCycle = 'QUARTERLY' THEN s.amount / 3 " +
+           "WHEN s.billingCycle = 'ANNUAL' THEN s.amount / 12 ELSE s.amount END) FROM Subscription s")
+    List<Object[]> summarize(@Param("today") LocalDate today, @Param("expiringBy") LocalDate expiringBy);
+
+    // Row: started, startedAmount
+    @Query("SELECT COUNT(s), SUM(s.amount) FROM Subscription s WHERE s.startsAt BETWEEN :startDate AND :endDate")
+    List<Object[]> summarizeStartedBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Rows: id, pumpId, planName, active, startsAt
+    @Query("SELECT s.id, s.pumpId, s.planName, s.active, s.startsAt FROM Subscription s ORDER BY s.startsAt DESC, s.id DESC")
+    List<Object[]> findRecent(Pageable pageable);
+
     @Query("SELECT s FROM Subscription s WHERE s.paymentStatus = :status")
     List<Subscription> findByPaymentStatus(@Param("status") Subscription.PaymentStatus status);
 }
@@ -0,0 +1,20 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.TankCalibrationPoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TankCalibrationPointRepository extends JpaRepository<TankCalibrationPoint, Long> {
+
+    List<TankCalibrationPoint> findByTankIdOrderByDepthMmAsc(Long tankId);
+
+    List<TankCalibrationPoint> findAllByOrderByTankIdAscDepthMmAsc();
+
+    @Modifying
+    @Query("DELETE FROM TankCalibrationPoint p WHERE p.tankId = :tankId")
+    int deleteByTankId(@Param("tankId") Long tankId);
+}
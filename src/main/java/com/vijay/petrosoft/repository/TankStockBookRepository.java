@@ -0,0 +1,42 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.TankStockBook;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface TankStockBookRepository extends JpaRepository<TankStockBook, Long> {
+
+    // A new book opens at the tank's last recorded dip
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO tank_stock_book (tank_id, pump_id, book_stock, last_dip, updated_at) " +
+                   "SELECT t.id, t.pump_id, COALESCE(t.current_dip, 0), t.current_dip, NOW() FROM tanks t WHERE t.id = :tankId",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("tankId") Long tankId);
+
+    // Movements adjust the book in place, so concurrent sales on one tank never read-modify-write it
+    @Modifying
+    @Query(value = "UPDATE tank_stock_book SET book_stock = book_stock + :netChange, updated_at = NOW() WHERE tank_id = :tankId",
+           nativeQuery = true)
+    int adjust(@Param("tankId") Long tankId, @Param("netChange") BigDecimal netChange);
+
+    // Serializes a dip against in-flight movements so its variance is measured against a settled book
+    @Query(value = "SELECT book_stock FROM tank_stock_book WHERE tank_id = :tankId FOR UPDATE", nativeQuery = true)
+    Optional<BigDecimal> lockBookStock(@Param("tankId") Long tankId);
+
+    @Modifying
+    @Query(value = "UPDATE tank_stock_book SET last_dip = :dip, last_dip_at = :dipAt WHERE tank_id = :tankId", nativeQuery = true)
+    void markDip(@Param("tankId") Long tankId, @Param("dip") BigDecimal dip, @Param("dipAt") LocalDateTime dipAt);
+
+    @Modifying
+    @Query(value = "UPDATE tank_stock_book SET pump_id = :pumpId, updated_at = NOW() WHERE tank_id = :tankId", nativeQuery = true)
+    int updatePumpId(@Param("tankId") Long tankId, @Param("pumpId") Long pumpId);
+
+    List<TankStockBook> findByPumpId(Long pumpId);
+}
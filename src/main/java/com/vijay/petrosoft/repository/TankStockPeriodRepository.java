@@ -0,0 +1,49 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.TankStockPeriod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TankStockPeriodRepository extends JpaRepository<TankStockPeriod, Long> {
+
+    // Runs after the book was adjusted by netChange: the first movement of a period opens it at the book before that
+    // movement, and every movement leaves closing_stock at the book after it
+    @Modifying
+    @Query(value = "INSERT INTO tank_stock_periods (tank_id, pump_id, period_type, period_date, shift_id, opening_stock, " +
+                   "sales_quantity, receipts_quantity, dip_variance, dip_count, closing_stock, updated_at) " +
+                   "SELECT b.tank_id, b.pump_id, :periodType, :periodDate, :shiftId, b.book_stock - :netChange, " +
+                   ":sales, :receipts, :variance, :dips, b.book_stock, NOW() FROM tank_stock_book b WHERE b.tank_id = :tankId " +
+                   "ON DUPLICATE KEY UPDATE sales_quantity = sales_quantity + VALUES(sales_quantity), " +
+                   "receipts_quantity = receipts_quantity + VALUES(receipts_quantity), " +
+                   "dip_variance = dip_variance + VALUES(dip_variance), dip_count = dip_count + VALUES(dip_count), " +
+                   "closing_stock = VALUES(closing_stock), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    void upsert(@Param("tankId") Long tankId,
+                @Param("periodType") String periodType,
+                @Param("periodDate") LocalDate periodDate,
+                @Param("shiftId") Long shiftId,
+                @Param("netChange") BigDecimal netChange,
+                @Param("sales") BigDecimal sales,
+                @Param("receipts") BigDecimal receipts,
+                @Param("variance") BigDecimal variance,
+                @Param("dips") int dips);
+
+    List<TankStockPeriod> findByTankIdAndPeriodTypeAndPeriodDateBetweenOrderByPeriodDateAscShiftIdAsc(
+            Long tankId, TankStockPeriod.PeriodType periodType, LocalDate startDate, LocalDate endDate);
+
+    List<TankStockPeriod> findByPeriodTypeAndShiftIdOrderByTankId(TankStockPeriod.PeriodType periodType, Long shiftId);
+
+    // Rows: tankId, salesQuantity, receiptsQuantity, dipVariance, dipCount
+    @Query("SELECT p.tankId, SUM(p.salesQuantity), SUM(p.receiptsQuantity), SUM(p.dipVariance), SUM(p.dipCount) " +
+           "FROM TankStockPeriod p WHERE p.periodType = 'DAY' " +
+           "AND (:pumpId IS NULL OR p.pumpId = :pumpId) AND p.periodDate BETWEEN :startDate AND :endDate GROUP BY p.tankId")
+    List<Object[]> sumDailyByTank(@Param("pumpId") Long pumpId,
+                                  @Param("startDate") LocalDate startDate,
+                                  @Param("endDate") LocalDate endDate);
+}
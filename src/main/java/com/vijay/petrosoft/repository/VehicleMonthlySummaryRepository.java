@@ -0,0 +1,60 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.VehicleMonthlySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface VehicleMonthlySummaryRepository extends JpaRepository<VehicleMonthlySummary, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO vehicle_monthly_summaries (vehicle_id, customer_id, fuel_type_id, period_month, total_amount, total_quantity, transaction_count) " +
+                   "VALUES (:vehicleId, :customerId, :fuelTypeId, :periodMonth, :amount, :quantity, :transactions) " +
+                   "ON DUPLICATE KEY UPDATE total_amount = total_amount + VALUES(total_amount), " +
+                   "total_quantity = total_quantity + VALUES(total_quantity), " +
+                   "transaction_count = transaction_count + VALUES(transaction_count)",
+           nativeQuery = true)
+    void upsert(@Param("vehicleId") Long vehicleId,
+                @Param("customerId") Long customerId,
+                @Param("fuelTypeId") Long fuelTypeId,
+                @Param("periodMonth") LocalDate periodMonth,
+                @Param("amount") BigDecimal amount,
+                @Param("quantity") BigDecimal quantity,
+                @Param("transactions") Long transactions);
+
+    // Rows: periodMonth, totalAmount, totalQuantity, transactionCount
+    @Query("SELECT v.periodMonth, SUM(v.totalAmount), SUM(v.totalQuantity), SUM(v.transactionCount) FROM VehicleMonthlySummary v " +
+           "WHERE v.vehicleId = :vehicleId AND v.periodMonth BETWEEN :startMonth AND :endMonth " +
+           "GROUP BY v.periodMonth ORDER BY v.periodMonth")
+    List<Object[]> sumByVehicleAndMonth(@Param("vehicleId") Long vehicleId,
+                                        @Param("startMonth") LocalDate startMonth,
+                                        @Param("endMonth") LocalDate endMonth);
+
+    // Rows: vehicleId, registrationNumber, totalAmount, totalQuantity, transactionCount
+    @Query("SELECT s.vehicleId, v.registrationNumber, SUM(s.totalAmount), SUM(s.totalQuantity), SUM(s.transactionCount) " +
+           "FROM VehicleMonthlySummary s, Vehicle v WHERE v.id = s.vehicleId " +
+           "AND s.customerId = :customerId AND s.periodMonth = :periodMonth " +
+           "GROUP BY s.vehicleId, v.registrationNumber ORDER BY v.registrationNumber")
+    List<Object[]> sumByCustomerAndMonth(@Param("customerId") Long customerId, @Param("periodMonth") LocalDate periodMonth);
+
+    @Modifying
+    @Query(value = "DELETE FROM vehicle_monthly_summaries WHERE period_month BETWEEN :startMonth AND :endMonth", nativeQuery = true)
+    int deleteRange(@Param("startMonth") LocalDate startMonth, @Param("endMonth") LocalDate endMonth);
+
+    @Modifying
+    @Query(value = "INSERT INTO vehicle_monthly_summaries (vehicle_id, customer_id, fuel_type_id, period_month, total_amount, total_quantity, transaction_count) " +
+                   "SELECT s.vehicle_id, COALESCE(s.customer_id, 0), COALESCE(s.fuel_type_id, 0), " +
+                   "DATE_FORMAT(s.transacted_at, '%Y-%m-01') AS bucket, " +
+                   "SUM(s.total_amount - COALESCE(s.refunded_amount, 0)), SUM(s.quantity), COUNT(*) FROM sales s " +
+                   "WHERE s.vehicle_id IS NOT NULL AND s.status IN ('COMPLETED', 'PARTIALLY_REFUNDED') " +
+                   "AND s.transacted_at >= :start AND s.transacted_at < :end " +
+                   "GROUP BY s.vehicle_id, COALESCE(s.customer_id, 0), COALESCE(s.fuel_type_id, 0), bucket",
+           nativeQuery = true)
+    int rebuildFromSales(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
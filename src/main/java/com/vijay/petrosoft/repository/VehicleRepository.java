@@ -0,0 +1,42 @@
+package com.vijay.petrosoft.repository;
+
+import com.vijay.petrosoft.domain.Vehicle;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
+
+    Optional<Vehicle> findByRegistrationNumber(String registrationNumber);
+    List<Vehicle> findByRegistrationNumberIn(Collection<String> registrationNumbers);
+    List<Vehicle> findByCustomerIdOrderByRegistrationNumber(Long customerId);
+
+    // Concurrent first sightings of the same vehicle race on the unique key; the loser's insert is ignored
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO vehicles (registration_number, customer_id, active, created_at) " +
+                   "VALUES (:registrationNumber, :customerId, true, NOW())",
+           nativeQuery = true)
+    void insertIfAbsent(@Param("registrationNumber") String registrationNumber, @Param("customerId") Long customerId);
+
+    // Backfill for sales recorded before the registry existed; the expression mirrors VehicleService.normalizeRegistration
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO vehicles (registration_number, customer_id, active, created_at) " +
+                   "SELECT n.registration, MIN(n.customer_id), true, NOW() FROM (" +
+                   "SELECT UPPER(REPLACE(REPLACE(REPLACE(REPLACE(s.vehicle_number, ' ', ''), '.', ''), '-', ''), '/', '')) AS registration, " +
+                   "s.customer_id FROM sales s WHERE s.vehicle_id IS NULL AND s.vehicle_number IS NOT NULL) n " +
+                   "WHERE n.registration <> '' GROUP BY n.registration",
+           nativeQuery = true)
+    int insertMissingFromSales();
+
+    @Modifying
+    @Query(value = "UPDATE sales s JOIN vehicles v " +
+                   "ON v.registration_number = UPPER(REPLACE(REPLACE(REPLACE(REPLACE(s.vehicle_number, ' ', ''), '.', ''), '-', ''), '/', '')) " +
+                   "SET s.vehicle_id = v.id WHERE s.vehicle_id IS NULL AND s.vehicle_number IS NOT NULL",
+           nativeQuery = true)
+    int linkSales();
+}
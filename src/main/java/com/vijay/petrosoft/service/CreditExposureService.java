@@ -0,0 +1,27 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.dto.CreditExposureDTO;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public interface CreditExposureService {
+
+    // Credit sale path: in-memory compare-and-add against the limit, undone if the transaction rolls back
+    boolean tryReserve(Long customerId, BigDecimal amount);
+    void reserve(Long customerId, BigDecimal amount);
+    void persistReservations(Map<Long, BigDecimal> amountsByCustomer);
+
+    // Unconditional increase for credit sales that were already dispensed and acknowledged (journaled sales)
+    void charge(Long customerId, BigDecimal amount);
+
+    // Reductions (cancelled or refunded credit sales, receipts) take effect in memory after commit
+    void release(Long customerId, BigDecimal amount);
+    void settle(Long customerId, BigDecimal amount);
+    void reverseSettlement(Long customerId, BigDecimal amount);
+
+    // Manual corrections and limit changes; the cached position is reloaded after commit
+    void evict(Long customerId);
+
+    CreditExposureDTO getExposure(Long customerId);
+}
@@ -0,0 +1,25 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.CustomerAgeingDTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface CustomerAgeingService {
+
+    // Positive amounts open (or grow) the sale's invoice; negative amounts reduce it for cancellations, refunds and edits
+    void recordCreditSale(SaleTransaction sale, BigDecimal amount);
+    void recordCreditSales(List<SaleTransaction> sales);
+
+    // Receipts settle open invoices oldest first; a cancelled receipt reopens them newest first
+    void applyReceipt(Long customerId, BigDecimal amount);
+    void reverseReceipt(Long customerId, BigDecimal amount);
+
+    int rebucketAll();
+    CustomerAgeingDTO rebuildCustomer(Long customerId);
+    int rebuildAll();
+
+    List<CustomerAgeingDTO> getAgeingReport(BigDecimal minOpen);
+    CustomerAgeingDTO getCustomerAgeing(Long customerId);
+}
@@ -0,0 +1,12 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.dto.CustomerStatementRunDTO;
+
+import java.time.LocalDate;
+
+public interface CustomerStatementService {
+
+    CustomerStatementRunDTO generateStatements(Long pumpId, LocalDate periodStart, LocalDate periodEnd, boolean notify);
+
+    void generateMonthlyStatements();
+}
@@ -0,0 +1,15 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.dto.DashboardDTO;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface DashboardSnapshotService {
+
+    // Shared per-pump dashboard, recomputed at most once per time bucket however many viewers ask (null pumpId = global)
+    DashboardDTO getSnapshot(Long pumpId);
+
+    // Sends the full snapshot once, then only the fields that changed each bucket
+    SseEmitter subscribe(Long pumpId);
+
+    void publishSnapshots();
+}
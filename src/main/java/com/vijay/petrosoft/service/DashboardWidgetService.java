@@ -0,0 +1,19 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.dto.DashboardWidgetMetricsDTO;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+public interface DashboardWidgetService {
+
+    // Starts the widget's query on a virtual thread; the caller collects it with Widget.await
+    <T> Widget<T> submit(String widget, Long pumpId, Supplier<T> loader);
+
+    List<DashboardWidgetMetricsDTO> getWidgetMetrics();
+
+    interface Widget<T> {
+        // Waits until the widget's timeout at most, then falls back to its last good value or to emptyValue
+        T await(T emptyValue);
+    }
+}
@@ -0,0 +1,14 @@
+package com.vijay.petrosoft.service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface DataArchiveService {
+
+    // Monthly range partitions on sales and ledger_entries
+    void ensureMonthlyPartitions();
+    List<Map<String, Object>> getPartitionStatus();
+
+    // Moves a closed financial year's sales and ledger entries into the *_archive tables
+    Map<String, Object> archiveFinancialYear(Long financialYearId);
+}
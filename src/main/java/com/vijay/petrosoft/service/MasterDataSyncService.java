@@ -0,0 +1,16 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.domain.MasterDataChange;
+import com.vijay.petrosoft.dto.MasterDataSyncDTO;
+import com.vijay.petrosoft.dto.SaleBatchResultDTO;
+import com.vijay.petrosoft.dto.SalesSyncPushDTO;
+
+public interface MasterDataSyncService {
+
+    // Change capture, called by the master-data services on every write
+    void recordChange(MasterDataChange.EntityType entityType, Long entityId, MasterDataChange.Operation operation);
+
+    // Terminal protocol
+    MasterDataSyncDTO pullChanges(Long sinceToken, Long pumpId);
+    SaleBatchResultDTO pushSales(SalesSyncPushDTO salesSyncPushDTO);
+}
@@ -0,0 +1,17 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.dto.NozzleMeterReconciliationDTO;
+import com.vijay.petrosoft.dto.NozzleReadingDTO;
+import com.vijay.petrosoft.dto.NozzleReadingIngestResultDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NozzleMeterService {
+
+    NozzleReadingIngestResultDTO recordReadings(List<NozzleReadingDTO> readings);
+
+    List<NozzleReadingDTO> getReadings(Long nozzleId, LocalDateTime from, LocalDateTime to);
+
+    NozzleMeterReconciliationDTO reconcileShift(Long shiftId);
+}
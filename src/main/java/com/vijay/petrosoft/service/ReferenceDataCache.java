@@ -0,0 +1,38 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.domain.FuelType;
+import com.vijay.petrosoft.domain.Nozzle;
+import com.vijay.petrosoft.domain.Pump;
+import com.vijay.petrosoft.domain.Shift;
+import com.vijay.petrosoft.domain.Tank;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ReferenceDataCache {
+
+    enum ReferenceType {
+        FUEL_TYPE,
+        NOZZLE,
+        TANK,
+        PUMP,
+        SHIFT
+    }
+
+    Optional<FuelType> getFuelType(Long id);
+    Optional<Nozzle> getNozzle(Long id);
+    List<Nozzle> getNozzlesByPump(Long pumpId);
+    List<Nozzle> getNozzlesByFuelType(Long fuelTypeId);
+    Optional<Tank> getTank(Long id);
+    List<Tank> getTanksByPump(Long pumpId);
+    List<Tank> getTanksByFuelType(Long fuelTypeId);
+    Optional<Pump> getPump(Long id);
+    Optional<Shift> getShift(Long id);
+    Optional<Shift> getOpenShiftByPump(Long pumpId);
+
+    // Reloads the given reference type once the surrounding transaction commits
+    void invalidate(ReferenceType type);
+    // Reloads one row of the given type once the surrounding transaction commits, dropping it if it is gone
+    void invalidate(ReferenceType type, Long id);
+    void refreshAll();
+}
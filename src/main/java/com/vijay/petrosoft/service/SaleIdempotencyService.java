@@ -0,0 +1,17 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+
+import java.util.Map;
+import java.util.Optional;
+
+public interface SaleIdempotencyService {
+
+    // Returns the response originally produced for this terminal/reference pair, if the sale was already taken
+    Optional<SaleTransactionDTO> findOriginal(String terminalId, String transactionReference);
+
+    // Records a created sale; deferred until commit when called inside a transaction
+    void remember(SaleTransactionDTO saleTransactionDTO);
+
+    Map<String, Object> getIdempotencyStatus();
+}
@@ -0,0 +1,20 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.dto.SaleDeadLetterDTO;
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+
+import java.util.List;
+import java.util.Map;
+
+public interface SaleWriteBehindService {
+
+    // Appends the sale to the local journal and returns once it is durable; the row is written to the database later
+    SaleTransactionDTO acceptSale(SaleTransactionDTO saleTransactionDTO);
+
+    void flushPendingSales();
+
+    Map<String, Object> getWriteBehindStatus();
+
+    // Acknowledged sales that could not be committed, newest first
+    List<SaleDeadLetterDTO> getDeadLetters(Long pumpId, int limit);
+}
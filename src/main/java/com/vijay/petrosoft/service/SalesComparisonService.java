@@ -0,0 +1,13 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.dto.SalesComparisonDTO;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface SalesComparisonService {
+
+    // Sales, volume, margin and transactions for every pump in both periods; growth is period 2 against period 1
+    SalesComparisonDTO compare(Collection<Long> pumpIds, LocalDate period1Start, LocalDate period1End,
+                               LocalDate period2Start, LocalDate period2End);
+}
@@ -0,0 +1,19 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.dto.SalesRangeTotalsDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface SalesPrefixIndexService {
+
+    // Write path (the daily rollup delta, applied after commit)
+    void recordDelta(Long pumpId, LocalDate day, BigDecimal amount, BigDecimal quantity, long transactionCount);
+
+    // Read path (null pumpId = all pumps; both dates inclusive)
+    SalesRangeTotalsDTO getRangeTotals(Long pumpId, LocalDate startDate, LocalDate endDate);
+
+    // Maintenance
+    void rebuild();
+    void rebuildAfterCommit();
+}
@@ -0,0 +1,27 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.SalesRollupDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+
+public interface SalesRollupService {
+
+    // Write path
+    void recordSale(SaleTransaction saleTransaction, BigDecimal amount, BigDecimal quantity, long transactionCount);
+    void recordSales(Collection<SaleTransaction> saleTransactions);
+
+    // Read path (buckets without sales are returned zero-filled)
+    List<SalesRollupDTO> getHourlySales(Long pumpId, LocalDateTime start, LocalDateTime end);
+    List<SalesRollupDTO> getDailySales(Long pumpId, LocalDate startDate, LocalDate endDate);
+    List<SalesRollupDTO> getWeeklySales(Long pumpId, LocalDate startDate, LocalDate endDate);
+    List<SalesRollupDTO> getMonthlySales(Long pumpId, YearMonth startMonth, YearMonth endMonth);
+
+    // Maintenance
+    void rebuildRollups(LocalDate startDate, LocalDate endDate);
+}
@@ -13,6 +13,10 @@ public interface SalesService {
 
     // Sale Transaction Operations
     SaleTransactionDTO createSaleTransaction(SaleTransactionDTO saleTransactionDTO);
+    SaleBatchResultDTO createSaleTransactionsBatch(List<SaleTransactionDTO> saleTransactionDTOs);
+    SaleBatchResultDTO commitJournaledSales(List<SaleTransactionDTO> saleTransactionDTOs);
+    // Applies the checks a journaled sale meets at commit, so it can be refused before it is acknowledged
+    void validateJournaledSale(SaleTransactionDTO saleTransactionDTO);
     SaleTransactionDTO updateSaleTransaction(Long id, SaleTransactionDTO saleTransactionDTO);
     SaleTransactionDTO getSaleTransaction(Long id);
     SaleTransactionDTO getSaleTransactionBySaleNumber(String saleNumber);
@@ -0,0 +1,39 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.SalesTopKEntryDTO;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface SalesTopKService {
+
+    enum Dimension { PUMP, CUSTOMER, FUEL_TYPE }
+
+    enum Window {
+        TODAY, WEEK, MONTH, ALL_TIME;
+
+        public LocalDate startOf(LocalDate day) {
+            return switch (this) {
+                case TODAY -> day;
+                case WEEK -> day.with(DayOfWeek.MONDAY);
+                case MONTH -> day.withDayOfMonth(1);
+                case ALL_TIME -> LocalDate.EPOCH;
+            };
+        }
+    }
+
+    // Write path (same signed deltas as the sales rollups, applied after commit)
+    void recordSale(SaleTransaction saleTransaction, BigDecimal amount, BigDecimal quantity, long transactionCount);
+    void recordSales(Collection<SaleTransaction> saleTransactions);
+
+    // Read path (pumpId is ignored for the PUMP dimension, null means all pumps otherwise)
+    List<SalesTopKEntryDTO> getTop(Dimension dimension, Long pumpId, Window window, int limit);
+    List<SalesTopKEntryDTO> getExactTop(Dimension dimension, Long pumpId, Window window, int limit);
+
+    // Maintenance
+    void reconcile();
+}
@@ -0,0 +1,26 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.dto.DipConversionDTO;
+import com.vijay.petrosoft.dto.TankCalibrationChartDTO;
+import com.vijay.petrosoft.dto.TankCalibrationPointDTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+public interface TankCalibrationService {
+
+    TankCalibrationChartDTO saveChart(Long tankId, List<TankCalibrationPointDTO> points);
+
+    TankCalibrationChartDTO getChart(Long tankId);
+
+    void deleteChart(Long tankId);
+
+    BigDecimal toVolume(Long tankId, BigDecimal dipMm);
+
+    List<DipConversionDTO> convertDips(List<DipConversionDTO> readings);
+
+    Optional<BigDecimal> getCalibratedCapacity(Long tankId);
+
+    void reload();
+}
@@ -0,0 +1,17 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.dto.TankLevelDTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface TankLevelAlertService {
+
+    void recordMovement(Long tankId, BigDecimal netChange);
+
+    void recordDip(Long tankId, BigDecimal dip);
+
+    List<TankLevelDTO> getLevels(Long pumpId);
+
+    void resync();
+}
@@ -15,6 +15,7 @@ public interface TankService {
     List<TankDTO> getTanksByPumpId(Long pumpId);
     List<TankDTO> getTanksByFuelType(Long fuelTypeId);
     TankDTO updateTankDip(Long tankId, BigDecimal newDip);
+    TankDTO recordDipReading(Long tankId, BigDecimal dipMm);
     TankDTO getTankByPumpAndFuelType(Long pumpId, Long fuelTypeId);
     boolean isTankCapacityExceeded(Long tankId, BigDecimal additionalQuantity);
 }
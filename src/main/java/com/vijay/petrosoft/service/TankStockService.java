@@ -0,0 +1,29 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.domain.PurchaseBill;
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.TankStockBookDTO;
+import com.vijay.petrosoft.dto.TankStockPeriodDTO;
+import com.vijay.petrosoft.dto.TankVarianceDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface TankStockService {
+
+    // Movements (quantity is signed: a positive sale quantity draws stock out of the tank)
+    void recordSale(SaleTransaction saleTransaction, BigDecimal quantity);
+    void recordSales(Collection<SaleTransaction> saleTransactions);
+    void recordReceipt(PurchaseBill purchaseBill);
+    BigDecimal recordDip(Long tankId, BigDecimal dip);
+    void moveTank(Long tankId, Long pumpId);
+
+    // Reads
+    TankStockBookDTO getStockBook(Long tankId);
+    List<TankStockBookDTO> getStockBooksByPump(Long pumpId);
+    List<TankStockPeriodDTO> getPeriods(Long tankId, String periodType, LocalDate startDate, LocalDate endDate);
+    List<TankStockPeriodDTO> getShiftPeriods(Long shiftId);
+    List<TankVarianceDTO> getVariance(Long pumpId, LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,40 @@
+package com.vijay.petrosoft.service;
+
+import com.vijay.petrosoft.domain.Customer;
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.domain.Vehicle;
+import com.vijay.petrosoft.dto.FleetStatementDTO;
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+import com.vijay.petrosoft.dto.VehicleDTO;
+import com.vijay.petrosoft.dto.VehicleMonthlySummaryDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface VehicleService {
+
+    // Registry (find-or-create by normalized registration number)
+    String normalizeRegistration(String vehicleNumber);
+    Vehicle resolveVehicle(String vehicleNumber, Customer customer);
+    Map<String, Vehicle> resolveVehicles(Map<String, Customer> ownersByVehicleNumber);
+
+    // Monthly aggregates, maintained on the sale write path
+    void recordSale(SaleTransaction saleTransaction, BigDecimal amount, BigDecimal quantity, long transactionCount);
+    void recordSales(Collection<SaleTransaction> saleTransactions);
+
+    // Read path
+    VehicleDTO getVehicleByRegistration(String vehicleNumber);
+    List<VehicleDTO> getVehiclesByCustomer(Long customerId);
+    VehicleDTO assignToCustomer(Long vehicleId, Long customerId);
+    List<SaleTransactionDTO> getVehicleSales(Long vehicleId, LocalDateTime startDate, LocalDateTime endDate);
+    List<VehicleMonthlySummaryDTO> getVehicleMonthlySummary(Long vehicleId, YearMonth startMonth, YearMonth endMonth);
+    FleetStatementDTO getFleetStatement(Long customerId, YearMonth month);
+
+    // Maintenance
+    Map<String, Integer> backfillVehicles();
+    void rebuildMonthlySummaries(YearMonth startMonth, YearMonth endMonth);
+}
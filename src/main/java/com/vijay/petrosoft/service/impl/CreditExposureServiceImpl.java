@@ -0,0 +1,221 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.dto.CreditExposureDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.exception.ResourceNotFoundException;
+import com.vijay.petrosoft.repository.CustomerRepository;
+import com.vijay.petrosoft.service.CreditExposureService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Each customer's outstanding balance is held in paise in an AtomicLong so concurrent credit sales check the limit
+// without a database round trip. customers.outstanding stays the system of record: reservations are also applied
+// with a conditional UPDATE that re-checks the limit, which covers other application instances.
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class CreditExposureServiceImpl implements CreditExposureService {
+
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private final CustomerRepository customerRepository;
+
+    private final Map<Long, CreditPosition> positions = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean tryReserve(Long customerId, BigDecimal amount) {
+        long paise = toPaise(amount);
+        if (paise <= 0) {
+            return true;
+        }
+        CreditPosition position = position(customerId);
+        if (!position.tryAdd(paise)) {
+            return false;
+        }
+        afterRollback(() -> position.add(-paise));
+        return true;
+    }
+
+    @Override
+    public void reserve(Long customerId, BigDecimal amount) {
+        if (!tryReserve(customerId, amount)) {
+            throw new BusinessLogicException(limitExceededMessage(customerId, amount));
+        }
+        persistReservations(Map.of(customerId, amount));
+    }
+
+    @Override
+    public void persistReservations(Map<Long, BigDecimal> amountsByCustomer) {
+        // Sorted so concurrent batches lock customer rows in the same order
+        new TreeMap<>(amountsByCustomer).forEach((customerId, amount) -> {
+            if (amount.signum() > 0 && customerRepository.reserveCredit(customerId, amount) == 0) {
+                // The cached position disagreed with the database (limit changed or another instance sold on credit)
+                positions.remove(customerId);
+                throw new BusinessLogicException("Credit limit exceeded for customer " + customerId + ", requested " + amount);
+            }
+        });
+    }
+
+    @Override
+    public void charge(Long customerId, BigDecimal amount) {
+        increase(customerId, amount);
+    }
+
+    @Override
+    public void release(Long customerId, BigDecimal amount) {
+        reduce(customerId, amount);
+    }
+
+    @Override
+    public void settle(Long customerId, BigDecimal amount) {
+        reduce(customerId, amount);
+        log.info("Settled {} against outstanding of customer {}", amount, customerId);
+    }
+
+    @Override
+    public void reverseSettlement(Long customerId, BigDecimal amount) {
+        // A reversed receipt restores the debt even when that takes the customer over the limit
+        increase(customerId, amount);
+    }
+
+    @Override
+    public void evict(Long customerId) {
+        afterCommit(() -> positions.remove(customerId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CreditExposureDTO getExposure(Long customerId) {
+        CreditPosition position = position(customerId);
+        BigDecimal outstanding = BigDecimal.valueOf(position.outstanding.get(), 2);
+        if (position.limit == NO_LIMIT) {
+            return CreditExposureDTO.builder()
+                    .customerId(customerId)
+                    .outstanding(outstanding)
+                    .build();
+        }
+        BigDecimal creditLimit = BigDecimal.valueOf(position.limit, 2);
+        return CreditExposureDTO.builder()
+                .customerId(customerId)
+                .outstanding(outstanding)
+                .creditLimit(creditLimit)
+                .availableCredit(creditLimit.subtract(outstanding).max(BigDecimal.ZERO))
+                .utilizationPercentage(creditLimit.signum() > 0
+                        ? outstanding.multiply(BigDecimal.valueOf(100)).divide(creditLimit, 2, RoundingMode.HALF_UP)
+                        : null)
+                .build();
+    }
+
+    private void increase(Long customerId, BigDecimal amount) {
+        long paise = toPaise(amount);
+        if (paise <= 0) {
+            return;
+        }
+        customerRepository.adjustOutstanding(customerId, amount);
+        CreditPosition cached = positions.get(customerId);
+        if (cached != null) {
+            afterCommit(() -> cached.add(paise));
+        }
+    }
+
+    private void reduce(Long customerId, BigDecimal amount) {
+        long paise = toPaise(amount);
+        if (paise <= 0) {
+            return;
+        }
+        customerRepository.adjustOutstanding(customerId, amount.negate());
+        // Freed credit becomes usable only once the reduction has committed; a position loaded after this
+        // point already reads the new balance, so only the one cached now is adjusted
+        CreditPosition cached = positions.get(customerId);
+        if (cached != null) {
+            afterCommit(() -> cached.add(-paise));
+        }
+    }
+
+    private CreditPosition position(Long customerId) {
+        return positions.computeIfAbsent(customerId, id -> {
+            List<Object[]> rows = customerRepository.findCreditPosition(id);
+            if (rows.isEmpty()) {
+                throw new ResourceNotFoundException("Customer not found with id: " + id);
+            }
+            BigDecimal outstanding = (BigDecimal) rows.get(0)[0];
+            BigDecimal creditLimit = (BigDecimal) rows.get(0)[1];
+            return new CreditPosition(toPaise(outstanding), creditLimit != null ? toPaise(creditLimit) : NO_LIMIT);
+        });
+    }
+
+    private String limitExceededMessage(Long customerId, BigDecimal amount) {
+        CreditPosition position = position(customerId);
+        return "Credit limit exceeded for customer " + customerId + ": outstanding " +
+                BigDecimal.valueOf(position.outstanding.get(), 2) + ", limit " + BigDecimal.valueOf(position.limit, 2) +
+                ", requested " + amount;
+    }
+
+    private static long toPaise(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0L;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private static final class CreditPosition {
+        private final AtomicLong outstanding;
+        private final long limit;
+
+        CreditPosition(long outstanding, long limit) {
+            this.outstanding = new AtomicLong(outstanding);
+            this.limit = limit;
+        }
+
+        boolean tryAdd(long paise) {
+            long current;
+            do {
+                current = outstanding.get();
+                if (limit != NO_LIMIT && current + paise > limit) {
+                    return false;
+                }
+            } while (!outstanding.compareAndSet(current, current + paise));
+            return true;
+        }
+
+        void add(long paise) {
+            outstanding.addAndGet(paise);
+        }
+    }
+}
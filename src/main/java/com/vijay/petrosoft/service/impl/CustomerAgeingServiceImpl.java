@@ -0,0 +1,305 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.CreditOpenItem;
+import com.vijay.petrosoft.domain.CustomerAgeing;
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.CustomerAgeingDTO;
+import com.vijay.petrosoft.exception.ResourceNotFoundException;
+import com.vijay.petrosoft.repository.CreditOpenItemRepository;
+import com.vijay.petrosoft.repository.CustomerAgeingRepository;
+import com.vijay.petrosoft.repository.CustomerRepository;
+import com.vijay.petrosoft.repository.SaleRepository;
+import com.vijay.petrosoft.service.CustomerAgeingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+// Open credit-sale balances are kept per invoice in credit_open_items and summed into one customer_ageing row per
+// customer. Every credit sale and receipt adjusts only the buckets its invoices fall into, so the ageing report is a
+// single table read; the daily job moves balances between buckets as invoices age.
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class CustomerAgeingServiceImpl implements CustomerAgeingService {
+
+    private final CustomerAgeingRepository customerAgeingRepository;
+    private final CreditOpenItemRepository creditOpenItemRepository;
+    private final CustomerRepository customerRepository;
+    private final SaleRepository saleRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ageing.settled-retention-days:400}")
+    private int settledRetentionDays;
+
+    @Override
+    public void recordCreditSale(SaleTransaction sale, BigDecimal amount) {
+        if (!isAgeable(sale) || amount == null || amount.signum() == 0) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        CustomerAgeing ageing = lockAgeing(sale.getCustomer().getId(), today);
+        applySale(ageing, sale, amount, today);
+        finish(ageing);
+    }
+
+    @Override
+    public void recordCreditSales(List<SaleTransaction> sales) {
+        // Grouped and sorted so each customer's ageing row is locked once, in the same order across concurrent batches
+        Map<Long, List<SaleTransaction>> salesByCustomer = new TreeMap<>();
+        for (SaleTransaction sale : sales) {
+            if (isAgeable(sale) && sale.getTotalAmount() != null && sale.getTotalAmount().signum() > 0) {
+                salesByCustomer.computeIfAbsent(sale.getCustomer().getId(), customerId -> new ArrayList<>()).add(sale);
+            }
+        }
+        LocalDate today = LocalDate.now();
+        salesByCustomer.forEach((customerId, customerSales) -> {
+            CustomerAgeing ageing = lockAgeing(customerId, today);
+            for (SaleTransaction sale : customerSales) {
+                applySale(ageing, sale, sale.getTotalAmount(), today);
+            }
+            finish(ageing);
+        });
+    }
+
+    @Override
+    public void applyReceipt(Long customerId, BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        CustomerAgeing ageing = lockAgeing(customerId, today);
+        BigDecimal remaining = amount;
+        List<CreditOpenItem> settled = new ArrayList<>();
+        for (CreditOpenItem item : creditOpenItemRepository.findOpenByCustomer(customerId)) {
+            if (remaining.signum() <= 0) {
+                break;
+            }
+            BigDecimal applied = item.getOpenAmount().min(remaining);
+            item.setOpenAmount(item.getOpenAmount().subtract(applied));
+            addToBucket(ageing, item.getInvoiceDate(), applied.negate(), today);
+            remaining = remaining.subtract(applied);
+            settled.add(item);
+        }
+        creditOpenItemRepository.saveAll(settled);
+        ageing.setUnappliedCredit(ageing.getUnappliedCredit().add(remaining));
+        finish(ageing);
+    }
+
+    @Override
+    public void reverseReceipt(Long customerId, BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        CustomerAgeing ageing = lockAgeing(customerId, today);
+        BigDecimal fromCredit = ageing.getUnappliedCredit().min(amount);
+        ageing.setUnappliedCredit(ageing.getUnappliedCredit().subtract(fromCredit));
+        BigDecimal remaining = amount.subtract(fromCredit);
+        List<CreditOpenItem> reopened = new ArrayList<>();
+        for (CreditOpenItem item : creditOpenItemRepository.findSettledByCustomer(customerId)) {
+            if (remaining.signum() <= 0) {
+                break;
+            }
+            BigDecimal reopen = item.getOriginalAmount().subtract(item.getOpenAmount()).min(remaining);
+            item.setOpenAmount(item.getOpenAmount().add(reopen));
+            addToBucket(ageing, item.getInvoiceDate(), reopen, today);
+            remaining = remaining.subtract(reopen);
+            reopened.add(item);
+        }
+        creditOpenItemRepository.saveAll(reopened);
+        if (remaining.signum() > 0) {
+            // The settled invoices were purged after the retention period
+            log.warn("Reversed receipt for customer {} left {} unallocated; rebuild the customer's ageing", customerId, remaining);
+        }
+        finish(ageing);
+    }
+
+    @Override
+    @Scheduled(cron = "${ageing.rebucket.cron:0 15 0 * * *}")
+    public int rebucketAll() {
+        LocalDate today = LocalDate.now();
+        int customers = customerAgeingRepository.rebucketAll(today, today.minusDays(30), today.minusDays(60), today.minusDays(90));
+        int purged = creditOpenItemRepository.deleteSettledBefore(today.minusDays(settledRetentionDays));
+        log.info("Re-bucketed ageing for {} customers as of {}; purged {} settled invoices", customers, today, purged);
+        return customers;
+    }
+
+    @Override
+    public CustomerAgeingDTO rebuildCustomer(Long customerId) {
+        if (!customerRepository.existsById(customerId)) {
+            throw new ResourceNotFoundException("Customer not found with id: " + customerId);
+        }
+        rebuild(customerId, LocalDate.now());
+        return getCustomerAgeing(customerId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int rebuildAll() {
+        LocalDate today = LocalDate.now();
+        List<Long> customerIds = customerRepository.findAllIds();
+        // One transaction per customer so the rebuild never holds more than one ageing row lock
+        for (Long customerId : customerIds) {
+            transactionTemplate.executeWithoutResult(status -> rebuild(customerId, today));
+        }
+        log.info("Rebuilt ageing for {} customers", customerIds.size());
+        return customerIds.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerAgeingDTO> getAgeingReport(BigDecimal minOpen) {
+        return customerAgeingRepository.findReport(minOpen != null ? minOpen : BigDecimal.ZERO);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CustomerAgeingDTO getCustomerAgeing(Long customerId) {
+        return customerAgeingRepository.findReportRow(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer ageing not found for customer: " + customerId));
+    }
+
+    // Open items are rebuilt from the outstanding balance: it is allocated to credit invoices newest first,
+    // which is what FIFO settlement of every past receipt would have left open
+    private void rebuild(Long customerId, LocalDate today) {
+        CustomerAgeing ageing = lockAgeing(customerId, today);
+        creditOpenItemRepository.deleteByCustomer(customerId);
+
+        List<Object[]> position = customerRepository.findCreditPosition(customerId);
+        BigDecimal outstanding = position.isEmpty() || position.get(0)[0] == null ? BigDecimal.ZERO : (BigDecimal) position.get(0)[0];
+        BigDecimal remaining = outstanding.max(BigDecimal.ZERO);
+
+        List<CreditOpenItem> items = new ArrayList<>();
+        for (Object[] row : saleRepository.findCreditInvoicesByCustomer(customerId)) {
+            if (remaining.signum() <= 0) {
+                break;
+            }
+            BigDecimal total = (BigDecimal) row[2];
+            BigDecimal open = total.min(remaining);
+            items.add(CreditOpenItem.builder()
+                    .customerId(customerId)
+                    .saleId((Long) row[0])
+                    .invoiceDate(invoiceDate((LocalDateTime) row[1]))
+                    .originalAmount(total)
+                    .openAmount(open)
+                    .build());
+            remaining = remaining.subtract(open);
+        }
+        if (remaining.signum() > 0) {
+            log.warn("Customer {} has {} outstanding not covered by credit sales (opening balance or manual adjustment)",
+                    customerId, remaining);
+        }
+        creditOpenItemRepository.saveAll(items);
+
+        ageing.setUnappliedCredit(outstanding.signum() < 0 ? outstanding.negate() : BigDecimal.ZERO);
+        rebucket(ageing, items, today);
+        finish(ageing);
+    }
+
+    private CustomerAgeing lockAgeing(Long customerId, LocalDate today) {
+        customerAgeingRepository.insertIfAbsent(customerId, today);
+        CustomerAgeing ageing = customerAgeingRepository.findForUpdate(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer ageing not found for customer: " + customerId));
+        // Buckets from an earlier day are stale; bring this customer up to date before applying today's change
+        if (!today.equals(ageing.getRebucketedOn())) {
+            rebucket(ageing, creditOpenItemRepository.findOpenByCustomer(customerId), today);
+        }
+        return ageing;
+    }
+
+    private void applySale(CustomerAgeing ageing, SaleTransaction sale, BigDecimal amount, LocalDate today) {
+        CreditOpenItem item = creditOpenItemRepository.findBySaleId(sale.getId()).orElse(null);
+        if (amount.signum() > 0) {
+            // Advance receipts are consumed before the invoice is left open
+            BigDecimal prepaid = ageing.getUnappliedCredit().min(amount);
+            ageing.setUnappliedCredit(ageing.getUnappliedCredit().subtract(prepaid));
+            BigDecimal open = amount.subtract(prepaid);
+            if (item == null) {
+                item = CreditOpenItem.builder()
+                        .customerId(ageing.getCustomerId())
+                        .saleId(sale.getId())
+                        .invoiceDate(invoiceDate(sale.getTransactedAt()))
+                        .originalAmount(amount)
+                        .openAmount(open)
+                        .build();
+            } else {
+                item.setOriginalAmount(item.getOriginalAmount().add(amount));
+                item.setOpenAmount(item.getOpenAmount().add(open));
+            }
+            creditOpenItemRepository.save(item);
+            addToBucket(ageing, item.getInvoiceDate(), open, today);
+            return;
+        }
+
+        BigDecimal reduction = amount.negate();
+        BigDecimal fromOpen = BigDecimal.ZERO;
+        if (item != null) {
+            fromOpen = item.getOpenAmount().min(reduction);
+            item.setOpenAmount(item.getOpenAmount().subtract(fromOpen));
+            item.setOriginalAmount(item.getOriginalAmount().subtract(reduction).max(BigDecimal.ZERO));
+            addToBucket(ageing, item.getInvoiceDate(), fromOpen.negate(), today);
+            if (item.getOriginalAmount().signum() == 0) {
+                creditOpenItemRepository.delete(item);
+            } else {
+                creditOpenItemRepository.save(item);
+            }
+        }
+        // The part of the reduction that receipts had already settled is owed back to the customer
+        ageing.setUnappliedCredit(ageing.getUnappliedCredit().add(reduction.subtract(fromOpen)));
+    }
+
+    private void rebucket(CustomerAgeing ageing, List<CreditOpenItem> openItems, LocalDate today) {
+        ageing.setBucket0To30(BigDecimal.ZERO);
+        ageing.setBucket31To60(BigDecimal.ZERO);
+        ageing.setBucket61To90(BigDecimal.ZERO);
+        ageing.setBucket90Plus(BigDecimal.ZERO);
+        ageing.setTotalOpen(BigDecimal.ZERO);
+        for (CreditOpenItem item : openItems) {
+            addToBucket(ageing, item.getInvoiceDate(), item.getOpenAmount(), today);
+        }
+        ageing.setRebucketedOn(today);
+    }
+
+    private void addToBucket(CustomerAgeing ageing, LocalDate invoiceDate, BigDecimal delta, LocalDate today) {
+        if (delta.signum() == 0) {
+            return;
+        }
+        long ageDays = ChronoUnit.DAYS.between(invoiceDate, today);
+        if (ageDays <= 30) {
+            ageing.setBucket0To30(ageing.getBucket0To30().add(delta));
+        } else if (ageDays <= 60) {
+            ageing.setBucket31To60(ageing.getBucket31To60().add(delta));
+        } else if (ageDays <= 90) {
+            ageing.setBucket61To90(ageing.getBucket61To90().add(delta));
+        } else {
+            ageing.setBucket90Plus(ageing.getBucket90Plus().add(delta));
+        }
+        ageing.setTotalOpen(ageing.getTotalOpen().add(delta));
+    }
+
+    private void finish(CustomerAgeing ageing) {
+        ageing.setOldestOpenDate(creditOpenItemRepository.findOldestOpenDate(ageing.getCustomerId()));
+        ageing.setUpdatedAt(LocalDateTime.now());
+        customerAgeingRepository.save(ageing);
+    }
+
+    private boolean isAgeable(SaleTransaction sale) {
+        return sale.getPaymentMethod() == SaleTransaction.PaymentMethod.CREDIT && sale.getCustomer() != null && sale.getId() != null;
+    }
+
+    private LocalDate invoiceDate(LocalDateTime transactedAt) {
+        return transactedAt != null ? transactedAt.toLocalDate() : LocalDate.now();
+    }
+}
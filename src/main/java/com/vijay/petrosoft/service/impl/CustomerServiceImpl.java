@@ -1,9 +1,12 @@
 package com.vijay.petrosoft.service.impl;
 
 import com.vijay.petrosoft.domain.Customer;
+import com.vijay.petrosoft.domain.MasterDataChange;
 import com.vijay.petrosoft.dto.CustomerDTO;
 import com.vijay.petrosoft.repository.CustomerRepository;
+import com.vijay.petrosoft.service.CreditExposureService;
 import com.vijay.petrosoft.service.CustomerService;
+import com.vijay.petrosoft.service.MasterDataSyncService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,6 +22,8 @@ import java.util.stream.Collectors;
 public class CustomerServiceImpl implements CustomerService {
 
     private final CustomerRepository customerRepository;
+    private final MasterDataSyncService masterDataSyncService;
+    private final CreditExposureService creditExposureService;
 
     @Override
     public CustomerDTO createCustomer(CustomerDTO customerDTO) {
@@ -33,9 +38,11 @@ public class CustomerServiceImpl implements CustomerService {
                 .email(customerDTO.getEmail())
                 .address(customerDTO.getAddress())
                 .outstanding(customerDTO.getOutstanding() != null ? customerDTO.getOutstanding() : BigDecimal.ZERO)
+                .creditLimit(customerDTO.getCreditLimit())
                 .build();
 
         Customer savedCustomer = customerRepository.save(customer);
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.CUSTOMER, savedCustomer.getId(), MasterDataChange.Operation.UPSERT);
         return convertToDTO(savedCustomer);
     }
 
@@ -49,9 +56,12 @@ public class CustomerServiceImpl implements CustomerService {
         customer.setPhone(customerDTO.getPhone());
         customer.setEmail(customerDTO.getEmail());
         customer.setAddress(customerDTO.getAddress());
-        customer.setOutstanding(customerDTO.getOutstanding());
+        // outstanding is maintained by credit sales and receipts; use updateOutstanding for manual corrections
+        customer.setCreditLimit(customerDTO.getCreditLimit());
 
         Customer updatedCustomer = customerRepository.save(customer);
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.CUSTOMER, updatedCustomer.getId(), MasterDataChange.Operation.UPSERT);
+        creditExposureService.evict(updatedCustomer.getId());
         return convertToDTO(updatedCustomer);
     }
 
@@ -75,6 +85,7 @@ public class CustomerServiceImpl implements CustomerService {
             throw new RuntimeException("Customer not found with id: " + id);
         }
         customerRepository.deleteById(id);
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.CUSTOMER, id, MasterDataChange.Operation.DELETE);
     }
 
     @Override
@@ -92,6 +103,8 @@ public class CustomerServiceImpl implements CustomerService {
 
         customer.setOutstanding(amount);
         Customer updatedCustomer = customerRepository.save(customer);
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.CUSTOMER, updatedCustomer.getId(), MasterDataChange.Operation.UPSERT);
+        creditExposureService.evict(customerId);
         return convertToDTO(updatedCustomer);
     }
 
@@ -100,10 +113,12 @@ public class CustomerServiceImpl implements CustomerService {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new RuntimeException("Customer not found with id: " + customerId));
 
-        BigDecimal newOutstanding = customer.getOutstanding().add(amount);
-        customer.setOutstanding(newOutstanding);
-        Customer updatedCustomer = customerRepository.save(customer);
-        return convertToDTO(updatedCustomer);
+        // Applied as an increment through the exposure engine so concurrent credit sales are not overwritten
+        creditExposureService.charge(customerId, amount);
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.CUSTOMER, customerId, MasterDataChange.Operation.UPSERT);
+        CustomerDTO updatedCustomer = convertToDTO(customer);
+        updatedCustomer.setOutstanding(customer.getOutstanding().add(amount));
+        return updatedCustomer;
     }
 
     @Override
@@ -111,10 +126,11 @@ public class CustomerServiceImpl implements CustomerService {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new RuntimeException("Customer not found with id: " + customerId));
 
-        BigDecimal newOutstanding = customer.getOutstanding().subtract(amount);
-        customer.setOutstanding(newOutstanding);
-        Customer updatedCustomer = customerRepository.save(customer);
-        return convertToDTO(updatedCustomer);
+        creditExposureService.release(customerId, amount);
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.CUSTOMER, customerId, MasterDataChange.Operation.UPSERT);
+        CustomerDTO updatedCustomer = convertToDTO(customer);
+        updatedCustomer.setOutstanding(customer.getOutstanding().subtract(amount));
+        return updatedCustomer;
     }
 
     @Override
@@ -140,6 +156,7 @@ public class CustomerServiceImpl implements CustomerService {
                 .email(customer.getEmail())
                 .address(customer.getAddress())
                 .outstanding(customer.getOutstanding())
+                .creditLimit(customer.getCreditLimit())
                 .build();
     }
 }
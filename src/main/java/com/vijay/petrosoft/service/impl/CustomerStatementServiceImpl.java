@@ -0,0 +1,326 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.Pump;
+import com.vijay.petrosoft.dto.CustomerStatementRunDTO;
+import com.vijay.petrosoft.dto.NotificationDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.repository.PumpRepository;
+import com.vijay.petrosoft.service.CustomerStatementService;
+import com.vijay.petrosoft.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Not @Transactional at class level: the statement cursor streams on its own connection while files are written,
+// and each notification hand-off commits on its own afterwards
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerStatementServiceImpl implements CustomerStatementService {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter DIRECTORY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String RECEIPT_CUSTOMER = "COALESCE(v.customer_id, pc.id)";
+    private static final String RECEIPT_FROM = "FROM vouchers v LEFT JOIN customers pc ON v.customer_id IS NULL AND pc.code = v.party_account_code " +
+            "WHERE v.voucher_type = 'CUSTOMER_RECEIPT' AND v.is_posted = TRUE AND v.is_cancelled = FALSE ";
+    private static final String CREDIT_SALE_FILTER = "s.payment_method = 'CREDIT' AND s.status IN ('COMPLETED', 'PARTIALLY_REFUNDED') " +
+            "AND s.customer_id IS NOT NULL ";
+
+    // One ordered pass over the pump's credit sales and receipts for the period, grouped by customer
+    private static final String STATEMENT_ENTRIES_SQL =
+            "SELECT e.customer_id, c.code, c.name, c.email, e.entry_date, e.reference, e.description, e.debit, e.credit FROM (" +
+            "SELECT s.customer_id, s.transacted_at AS entry_date, 0 AS entry_kind, s.id AS entry_id, s.sale_number AS reference, " +
+            "CONCAT(COALESCE(f.name, 'Fuel'), ' ', s.quantity, COALESCE(CONCAT(' - ', s.vehicle_number), '')) AS description, " +
+            "s.total_amount - COALESCE(s.refunded_amount, 0) AS debit, 0 AS credit " +
+            "FROM sales s LEFT JOIN fuel_types f ON f.id = s.fuel_type_id " +
+            "WHERE s.pump_id = ? AND " + CREDIT_SALE_FILTER + "AND s.transacted_at >= ? AND s.transacted_at < ? " +
+            "UNION ALL " +
+            "SELECT " + RECEIPT_CUSTOMER + ", v.voucher_date, 1, v.id, v.voucher_number, " +
+            "CONCAT('Receipt', COALESCE(CONCAT(' - ', v.payment_mode), '')), 0, v.total_amount " +
+            RECEIPT_FROM + "AND v.pump_id = ? AND v.voucher_date >= ? AND v.voucher_date <= ? AND " + RECEIPT_CUSTOMER + " IS NOT NULL" +
+            ") e JOIN customers c ON c.id = e.customer_id " +
+            "ORDER BY e.customer_id, e.entry_date, e.entry_kind, e.entry_id";
+
+    // Opening balance = current outstanding less all credit activity since the period start, in one grouped pass
+    private static final String OPENING_BALANCES_SQL =
+            "SELECT c.id, COALESCE(c.outstanding, 0) - COALESCE(a.net, 0) FROM customers c JOIN (" +
+            "SELECT customer_id, SUM(net) AS net FROM (" +
+            "SELECT s.customer_id, SUM(s.total_amount - COALESCE(s.refunded_amount, 0)) AS net FROM sales s WHERE " + CREDIT_SALE_FILTER + "AND s.transacted_at >= ? " +
+            "GROUP BY s.customer_id " +
+            "UNION ALL " +
+            "SELECT " + RECEIPT_CUSTOMER + ", -SUM(v.total_amount) " + RECEIPT_FROM + "AND v.voucher_date >= ? " +
+            "GROUP BY " + RECEIPT_CUSTOMER +
+            ") x WHERE customer_id IS NOT NULL GROUP BY customer_id) a ON a.customer_id = c.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationService notificationService;
+    private final PumpRepository pumpRepository;
+
+    private final AtomicBoolean runInProgress = new AtomicBoolean(false);
+
+    @Value("${statements.output-dir:data/statements}")
+    private String outputDir;
+
+    @Value("${statements.monthly.enabled:false}")
+    private boolean monthlyEnabled;
+
+    @Override
+    public CustomerStatementRunDTO generateStatements(Long pumpId, LocalDate periodStart, LocalDate periodEnd, boolean notify) {
+        if (periodEnd.isBefore(periodStart)) {
+            throw new BusinessLogicException("Statement period end must not be before its start");
+        }
+        if (!runInProgress.compareAndSet(false, true)) {
+            throw new BusinessLogicException("Another statement run is already in progress");
+        }
+        try {
+            long startedAt = System.currentTimeMillis();
+            Path directory = Paths.get(outputDir, "pump-" + pumpId,
+                    periodStart.format(DIRECTORY_FORMAT) + "-" + periodEnd.format(DIRECTORY_FORMAT));
+            Files.createDirectories(directory);
+
+            Map<Long, BigDecimal> openingBalances = loadOpeningBalances(periodStart);
+            StatementWriter writer = new StatementWriter(directory, periodStart, periodEnd, openingBalances);
+            try {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(STATEMENT_ENTRIES_SQL,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    // Row-by-row streaming in MySQL Connector/J, so memory stays flat however many entries the period has
+                    statement.setFetchSize(Integer.MIN_VALUE);
+                    statement.setLong(1, pumpId);
+                    statement.setTimestamp(2, Timestamp.valueOf(periodStart.atStartOfDay()));
+                    statement.setTimestamp(3, Timestamp.valueOf(periodEnd.plusDays(1).atStartOfDay()));
+                    statement.setLong(4, pumpId);
+                    statement.setDate(5, Date.valueOf(periodStart));
+                    statement.setDate(6, Date.valueOf(periodEnd));
+                    return statement;
+                }, writer::accept);
+                writer.finish();
+            } catch (UncheckedIOException e) {
+                throw new BusinessLogicException("Failed to write customer statements: " + e.getMessage(), e);
+            } finally {
+                writer.close();
+            }
+
+            int queued = 0;
+            int withoutEmail = 0;
+            for (PendingStatement pending : writer.statements) {
+                if (pending.email == null || pending.email.isBlank()) {
+                    withoutEmail++;
+                } else if (notify) {
+                    pending.result.setNotificationId(queueNotification(pumpId, pending, periodStart, periodEnd));
+                    queued++;
+                }
+            }
+
+            long durationMs = System.currentTimeMillis() - startedAt;
+            log.info("Generated {} customer statements ({} entries) for pump {} {} to {} in {} ms; {} queued for email",
+                    writer.statements.size(), writer.entryCount, pumpId, periodStart, periodEnd, durationMs, queued);
+            return CustomerStatementRunDTO.builder()
+                    .pumpId(pumpId)
+                    .periodStart(periodStart)
+                    .periodEnd(periodEnd)
+                    .outputDirectory(directory.toAbsolutePath().toString())
+                    .customerCount(writer.statements.size())
+                    .entryCount(writer.entryCount)
+                    .notificationsQueued(queued)
+                    .withoutEmailCount(withoutEmail)
+                    .durationMs(durationMs)
+                    .statements(writer.statements.stream().map(pending -> pending.result).toList())
+                    .build();
+        } catch (IOException e) {
+            throw new BusinessLogicException("Failed to create statement directory: " + e.getMessage(), e);
+        } finally {
+            runInProgress.set(false);
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${statements.monthly.cron:0 0 6 1 * *}")
+    public void generateMonthlyStatements() {
+        if (!monthlyEnabled) {
+            return;
+        }
+        LocalDate periodStart = LocalDate.now().minusMonths(1).withDayOfMonth(1);
+        LocalDate periodEnd = periodStart.withDayOfMonth(periodStart.lengthOfMonth());
+        for (Pump pump : pumpRepository.findAll()) {
+            try {
+                generateStatements(pump.getId(), periodStart, periodEnd, true);
+            } catch (RuntimeException e) {
+                log.error("Monthly statement run failed for pump {}", pump.getId(), e);
+            }
+        }
+    }
+
+    private Map<Long, BigDecimal> loadOpeningBalances(LocalDate periodStart) {
+        Map<Long, BigDecimal> openingBalances = new HashMap<>();
+        jdbcTemplate.query(OPENING_BALANCES_SQL, rs -> {
+            openingBalances.put(rs.getLong(1), rs.getBigDecimal(2));
+        }, Timestamp.valueOf(periodStart.atStartOfDay()), Date.valueOf(periodStart));
+        return openingBalances;
+    }
+
+    private Long queueNotification(Long pumpId, PendingStatement pending, LocalDate periodStart, LocalDate periodEnd) {
+        CustomerStatementRunDTO.StatementDTO statement = pending.result;
+        String period = periodStart.format(DATE_FORMAT) + " to " + periodEnd.format(DATE_FORMAT);
+        NotificationDTO notification = NotificationDTO.builder()
+                .title("Account statement " + period)
+                .message("Dear " + statement.getCustomerName() + ",\n\nPlease find attached your account statement for " + period +
+                        ".\nClosing balance: " + money(statement.getClosingBalance()) + "\n\nPetrosoft Team")
+                .type("EMAIL")
+                .recipientEmail(pending.email)
+                .pumpId(pumpId)
+                .templateName("customer-statement")
+                .attachmentPath(statement.getFile())
+                .build();
+        return notificationService.createNotification(notification).getId();
+    }
+
+    private static String money(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private record PendingStatement(String email, CustomerStatementRunDTO.StatementDTO result) {
+    }
+
+    // Holds only the current customer's file and running balance; the cursor's customer ordering means each
+    // statement is complete as soon as the next customer's first row arrives
+    private static class StatementWriter {
+        private final Path directory;
+        private final LocalDate periodStart;
+        private final LocalDate periodEnd;
+        private final Map<Long, BigDecimal> openingBalances;
+        private final List<PendingStatement> statements = new ArrayList<>();
+        private long entryCount;
+
+        private Long customerId;
+        private BufferedWriter out;
+        private PendingStatement current;
+        private BigDecimal balance;
+        private BigDecimal totalDebit;
+        private BigDecimal totalCredit;
+        private int customerEntries;
+
+        StatementWriter(Path directory, LocalDate periodStart, LocalDate periodEnd, Map<Long, BigDecimal> openingBalances) {
+            this.directory = directory;
+            this.periodStart = periodStart;
+            this.periodEnd = periodEnd;
+            this.openingBalances = openingBalances;
+        }
+
+        void accept(ResultSet rs) throws SQLException {
+            try {
+                long rowCustomerId = rs.getLong("customer_id");
+                if (customerId == null || customerId != rowCustomerId) {
+                    finish();
+                    start(rowCustomerId, rs.getString("code"), rs.getString("name"), rs.getString("email"));
+                }
+                BigDecimal debit = rs.getBigDecimal("debit");
+                BigDecimal credit = rs.getBigDecimal("credit");
+                balance = balance.add(debit).subtract(credit);
+                totalDebit = totalDebit.add(debit);
+                totalCredit = totalCredit.add(credit);
+                customerEntries++;
+                entryCount++;
+                out.write(String.join(",", rs.getTimestamp("entry_date").toLocalDateTime().toLocalDate().format(DATE_FORMAT),
+                        csv(rs.getString("reference")), csv(rs.getString("description")),
+                        debit.signum() != 0 ? money(debit) : "", credit.signum() != 0 ? money(credit) : "", money(balance)));
+                out.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void start(long newCustomerId, String code, String name, String email) throws IOException {
+            customerId = newCustomerId;
+            BigDecimal opening = openingBalances.getOrDefault(newCustomerId, BigDecimal.ZERO);
+            balance = opening;
+            totalDebit = BigDecimal.ZERO;
+            totalCredit = BigDecimal.ZERO;
+            customerEntries = 0;
+
+            String fileName = (code != null && !code.isBlank() ? code.replaceAll("[^A-Za-z0-9_-]", "_") : "customer-" + newCustomerId) + ".csv";
+            Path file = directory.resolve(fileName);
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            out.write("Statement of account," + csv(name) + "," + csv(code));
+            out.newLine();
+            out.write("Period," + periodStart.format(DATE_FORMAT) + "," + periodEnd.format(DATE_FORMAT));
+            out.newLine();
+            out.write("Date,Reference,Description,Debit,Credit,Balance");
+            out.newLine();
+            out.write(",,Opening balance,,," + money(opening));
+            out.newLine();
+
+            current = new PendingStatement(email, CustomerStatementRunDTO.StatementDTO.builder()
+                    .customerId(newCustomerId)
+                    .customerCode(code)
+                    .customerName(name)
+                    .file(file.toAbsolutePath().toString())
+                    .openingBalance(opening)
+                    .build());
+        }
+
+        void finish() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.write(",,Closing balance," + money(totalDebit) + "," + money(totalCredit) + "," + money(balance));
+                out.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                close();
+            }
+            CustomerStatementRunDTO.StatementDTO result = current.result();
+            result.setEntryCount(customerEntries);
+            result.setTotalDebit(totalDebit);
+            result.setTotalCredit(totalCredit);
+            result.setClosingBalance(balance);
+            statements.add(current);
+        }
+
+        void close() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.warn("Failed to close statement file for customer {}", customerId, e);
+            }
+            out = null;
+        }
+    }
+}
@@ -1,22 +1,46 @@
 package com.vijay.petrosoft.service.impl;
 
+import com.vijay.petrosoft.domain.Customer;
+import com.vijay.petrosoft.domain.FuelType;
+import com.vijay.petrosoft.domain.Pump;
 import com.vijay.petrosoft.dto.DashboardDTO;
+import com.vijay.petrosoft.dto.SalesComparisonDTO;
+import com.vijay.petrosoft.dto.SalesRangeTotalsDTO;
+import com.vijay.petrosoft.dto.SalesRollupDTO;
+import com.vijay.petrosoft.dto.SalesTopKEntryDTO;
 import com.vijay.petrosoft.repository.*;
 import com.vijay.petrosoft.service.DashboardService;
+import com.vijay.petrosoft.service.DashboardWidgetService;
+import com.vijay.petrosoft.service.ReferenceDataCache;
+import com.vijay.petrosoft.service.SalesComparisonService;
+import com.vijay.petrosoft.service.SalesPrefixIndexService;
+import com.vijay.petrosoft.service.SalesRollupService;
+import com.vijay.petrosoft.service.SalesTopKService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
 
+// Figures come from grouped queries over the sales rollups, customers, subscriptions or payments, or from the in-memory
+// top-K summaries and sales prefix index. getDashboard fans its widgets out to concurrent threads, each reading its own
+// snapshot, so figures from different widgets can be a few commits apart. The other queries run in one repeatable
+// read transaction per request and share its InnoDB snapshot.
 @Service
 @RequiredArgsConstructor
-@Transactional(readOnly = true)
+@Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
 public class DashboardServiceImpl implements DashboardService {
 
     private final PumpRepository pumpRepository;
@@ -24,46 +48,87 @@ public class DashboardServiceImpl implements DashboardService {
     private final SaleRepository saleRepository;
     private final SubscriptionRepository subscriptionRepository;
     private final PaymentRepository paymentRepository;
-    private final FuelTypeRepository fuelTypeRepository;
-
+    private final SalesDailyRollupRepository salesDailyRollupRepository;
+    private final SalesHourlyRollupRepository salesHourlyRollupRepository;
+    private final SalesRollupService salesRollupService;
+    private final SalesTopKService salesTopKService;
+    private final SalesPrefixIndexService salesPrefixIndexService;
+    private final SalesComparisonService salesComparisonService;
+    private final ReferenceDataCache referenceDataCache;
+    private final DashboardWidgetService dashboardWidgetService;
+
+    private static final int CHART_MONTHS = 12;
+    private static final BigDecimal ESTIMATED_PROFIT_MARGIN = new BigDecimal("0.20");
+    private static final long TOP_LIMIT = 5L;
+    private static final long RECENT_LIMIT = 10L;
+    private static final int RECENT_DAYS = 7;
+    private static final int ACTIVE_CUSTOMER_DAYS = 30;
+    private static final int ALERT_DAYS = 7;
+    private static final int DAILY_CHART_MAX_DAYS = 62;
+
+    // Widgets run concurrently on their own threads, so each reads its own snapshot rather than a shared transaction
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DashboardDTO getDashboard(Long pumpId) {
+        LocalDate today = LocalDate.now();
+        var salesWidget = dashboardWidgetService.submit("sales", pumpId, () -> loadSales(pumpId, today));
+        var customersWidget = dashboardWidgetService.submit("customers", null, () -> loadCustomers(today));
+        var subscriptionsWidget = dashboardWidgetService.submit("subscriptions", null, () -> loadSubscriptions(today));
+        var paymentsWidget = dashboardWidgetService.submit("payments", null, () -> loadPayments(today));
+        var pumpCountWidget = dashboardWidgetService.submit("pumpCount", null, pumpRepository::count);
+        var activeCustomersWidget = dashboardWidgetService.submit("activeCustomers", null,
+                () -> saleRepository.countCustomersWithSalesSince(today.minusDays(ACTIVE_CUSTOMER_DAYS).atStartOfDay()));
+        var topPumpsWidget = dashboardWidgetService.submit("topPumps", null, () -> getTopPumpsBySales(TOP_LIMIT));
+        var topCustomersWidget = dashboardWidgetService.submit("topCustomers", pumpId, () -> getTopCustomersByPurchase(pumpId, TOP_LIMIT));
+        var recentSalesWidget = dashboardWidgetService.submit("recentSales", pumpId, () -> getRecentSales(pumpId, RECENT_LIMIT));
+        var recentPaymentsWidget = dashboardWidgetService.submit("recentPayments", null, () -> getRecentPayments(RECENT_LIMIT));
+        var recentSubscriptionsWidget = dashboardWidgetService.submit("recentSubscriptions", null,
+                () -> getRecentSubscriptions(RECENT_LIMIT));
+        var salesChartWidget = dashboardWidgetService.submit("salesChart", pumpId, () -> loadChartRollup(pumpId, "monthly"));
+        var customerChartWidget = dashboardWidgetService.submit("customerChart", null, () -> getCustomerChartData(pumpId, "monthly"));
+
+        SalesSnapshot sales = salesWidget.await(SalesSnapshot.EMPTY);
+        CustomerSnapshot customers = customersWidget.await(CustomerSnapshot.EMPTY);
+        SubscriptionSnapshot subscriptions = subscriptionsWidget.await(SubscriptionSnapshot.EMPTY);
+        PaymentSnapshot payments = paymentsWidget.await(PaymentSnapshot.EMPTY);
+        List<SalesRollupDTO> chartRollup = salesChartWidget.await(List.of());
+
         return DashboardDTO.builder()
-                .totalPumps(pumpRepository.count())
-                .activePumps(pumpRepository.count()) // Assuming all pumps are active
-                .totalCustomers(customerRepository.count())
-                .activeCustomers(customerRepository.count())
-                .totalSales(saleRepository.count())
-                .totalRevenue(getTotalRevenue(pumpId))
-                .totalOutstanding(getTotalOutstanding(pumpId))
-                .activeSubscriptions(subscriptionRepository.countActiveSubscriptions())
-                .expiringSubscriptions((long) subscriptionRepository.findSubscriptionsDueForPayment(LocalDate.now()).size())
-                .monthlyRecurringRevenue(getMonthlyRecurringRevenue())
-                .totalPayments(paymentRepository.count())
-                .totalPaymentAmount(getTotalPaymentAmount())
-                .todaySales(getTodaySales(pumpId))
-                .thisWeekSales(getThisWeekSales(pumpId))
-                .thisMonthSales(getThisMonthSales(pumpId))
-                .todayTransactions(getTodayTransactions(pumpId))
-                .thisWeekTransactions(getThisWeekTransactions(pumpId))
-                .thisMonthTransactions(getThisMonthTransactions(pumpId))
-                .fuelTypeSales(getFuelTypeSales(pumpId))
-                .fuelTypeTransactions(getFuelTypeTransactions(pumpId))
-                .fuelTypeRevenue(getFuelTypeRevenue(pumpId))
-                .newCustomersThisMonth(getNewCustomersThisMonth(pumpId))
-                .customersWithOutstanding(getCustomersWithOutstanding(pumpId))
-                .averageCustomerOutstanding(getAverageCustomerOutstanding(pumpId))
-                .customerOutstandingDistribution(getCustomerOutstandingDistribution(pumpId))
-                .topPumpsBySales(getTopPumpsBySales(5L))
-                .topCustomersByPurchase(getTopCustomersByPurchase(pumpId, 5L))
-                .topFuelTypes(getTopFuelTypes(pumpId, 5L))
-                .recentSales(getRecentSales(pumpId, 10L))
-                .recentPayments(getRecentPayments(10L))
-                .recentSubscriptions(getRecentSubscriptions(10L))
-                .salesChartData(getSalesChartData(pumpId, "monthly"))
-                .revenueChartData(getRevenueChartData(pumpId, "monthly"))
-                .customerChartData(getCustomerChartData(pumpId, "monthly"))
-                .alerts(getAlerts(pumpId))
+                .totalPumps(pumpCountWidget.await(0L))
+                .activePumps(subscriptions.activePumps())
+                .totalCustomers(customers.total())
+                .activeCustomers(activeCustomersWidget.await(0L))
+                .totalSales(sales.transactions())
+                .totalRevenue(sales.amount())
+                .totalOutstanding(customers.totalOutstanding())
+                .activeSubscriptions(subscriptions.active())
+                .expiringSubscriptions(subscriptions.dueForPayment())
+                .monthlyRecurringRevenue(subscriptions.monthlyRecurringRevenue())
+                .totalPayments(payments.count())
+                .totalPaymentAmount(payments.completedAmount())
+                .todaySales(sales.todayAmount())
+                .thisWeekSales(sales.weekAmount())
+                .thisMonthSales(sales.monthAmount())
+                .todayTransactions(sales.todayTransactions())
+                .thisWeekTransactions(sales.weekTransactions())
+                .thisMonthTransactions(sales.monthTransactions())
+                .fuelTypeSales(sales.quantityByFuelType())
+                .fuelTypeTransactions(sales.transactionsByFuelType())
+                .fuelTypeRevenue(sales.revenueByFuelType())
+                .newCustomersThisMonth(customers.newThisMonth())
+                .customersWithOutstanding(customers.withOutstanding())
+                .averageCustomerOutstanding(customers.averageOutstanding())
+                .customerOutstandingDistribution(customers.outstandingDistribution())
+                .topPumpsBySales(topPumpsWidget.await(List.of()))
+                .topCustomersByPurchase(topCustomersWidget.await(List.of()))
+                .topFuelTypes(topFuelTypes(sales, TOP_LIMIT))
+                .recentSales(recentSalesWidget.await(List.of()))
+                .recentPayments(recentPaymentsWidget.await(List.of()))
+                .recentSubscriptions(recentSubscriptionsWidget.await(List.of()))
+                .salesChartData(toSalesChart(chartRollup))
+                .revenueChartData(toRevenueChart(chartRollup))
+                .customerChartData(customerChartWidget.await(List.of()))
+                .alerts(buildAlerts(customers, subscriptions, payments, today))
                 .build();
     }
 
@@ -72,277 +137,262 @@ public class DashboardServiceImpl implements DashboardService {
         return getDashboard(null);
     }
 
+    // Only the widgets that depend on the range are filled. They come from the sales prefix index, where each total
+    // or chart bucket is two in-memory lookups
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DashboardDTO getDashboardByDateRange(Long pumpId, LocalDate startDate, LocalDate endDate) {
-        // Similar to getDashboard but filtered by date range
-        return getDashboard(pumpId); // Simplified for now
+        SalesRangeTotalsDTO totals = salesPrefixIndexService.getRangeTotals(pumpId, startDate, endDate);
+        List<SalesRollupDTO> chartRollup = loadRangeRollup(pumpId, startDate, endDate);
+        return DashboardDTO.builder()
+                .totalSales(totals.getTransactionCount())
+                .totalRevenue(totals.getTotalAmount())
+                .salesChartData(toSalesChart(chartRollup))
+                .revenueChartData(toRevenueChart(chartRollup))
+                .build();
     }
 
     @Override
     public Map<String, Object> getOverviewMetrics(Long pumpId) {
+        LocalDate today = LocalDate.now();
+        SalesSnapshot sales = loadSales(pumpId, today);
         Map<String, Object> metrics = new HashMap<>();
         metrics.put("totalPumps", pumpRepository.count());
-        metrics.put("totalCustomers", customerRepository.count());
-        metrics.put("totalSales", saleRepository.count());
-        metrics.put("totalRevenue", getTotalRevenue(pumpId));
-        metrics.put("activeSubscriptions", subscriptionRepository.countActiveSubscriptions());
+        metrics.put("totalCustomers", loadCustomers(today).total());
+        metrics.put("totalSales", sales.transactions());
+        metrics.put("totalRevenue", sales.amount());
+        metrics.put("activeSubscriptions", loadSubscriptions(today).active());
         return metrics;
     }
 
     @Override
     public Map<String, Object> getOverviewMetricsForDateRange(Long pumpId, LocalDate startDate, LocalDate endDate) {
-        return getOverviewMetrics(pumpId); // Simplified for now
+        LocalDate today = LocalDate.now();
+        SalesRangeTotalsDTO totals = salesPrefixIndexService.getRangeTotals(pumpId, startDate, endDate);
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("startDate", startDate);
+        metrics.put("endDate", endDate);
+        metrics.put("totalPumps", pumpRepository.count());
+        metrics.put("totalCustomers", loadCustomers(today).total());
+        metrics.put("totalSales", totals.getTransactionCount());
+        metrics.put("totalRevenue", totals.getTotalAmount());
+        metrics.put("activeSubscriptions", loadSubscriptions(today).active());
+        return metrics;
     }
 
     @Override
     public Map<String, Object> getSalesAnalytics(Long pumpId) {
+        SalesSnapshot sales = loadSales(pumpId, LocalDate.now());
         Map<String, Object> analytics = new HashMap<>();
-        analytics.put("todaySales", getTodaySales(pumpId));
-        analytics.put("thisWeekSales", getThisWeekSales(pumpId));
-        analytics.put("thisMonthSales", getThisMonthSales(pumpId));
-        analytics.put("todayTransactions", getTodayTransactions(pumpId));
-        analytics.put("thisWeekTransactions", getThisWeekTransactions(pumpId));
-        analytics.put("thisMonthTransactions", getThisMonthTransactions(pumpId));
+        analytics.put("todaySales", sales.todayAmount());
+        analytics.put("thisWeekSales", sales.weekAmount());
+        analytics.put("thisMonthSales", sales.monthAmount());
+        analytics.put("todayTransactions", sales.todayTransactions());
+        analytics.put("thisWeekTransactions", sales.weekTransactions());
+        analytics.put("thisMonthTransactions", sales.monthTransactions());
         return analytics;
     }
 
     @Override
     public Map<String, Object> getSalesAnalyticsByDateRange(Long pumpId, LocalDate startDate, LocalDate endDate) {
-        return getSalesAnalytics(pumpId); // Simplified for now
+        SalesRangeTotalsDTO totals = salesPrefixIndexService.getRangeTotals(pumpId, startDate, endDate);
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        Map<String, Object> analytics = new HashMap<>();
+        analytics.put("startDate", startDate);
+        analytics.put("endDate", endDate);
+        analytics.put("totalSales", totals.getTotalAmount());
+        analytics.put("totalQuantity", totals.getTotalQuantity());
+        analytics.put("totalTransactions", totals.getTransactionCount());
+        analytics.put("averageDailySales", totals.getTotalAmount().divide(BigDecimal.valueOf(days), 2, RoundingMode.HALF_UP));
+        analytics.put("averageTransactionValue", totals.getTransactionCount() > 0
+                ? totals.getTotalAmount().divide(BigDecimal.valueOf(totals.getTransactionCount()), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO.setScale(2));
+        return analytics;
     }
 
     @Override
     public List<DashboardDTO.SalesChartDTO> getSalesChartData(Long pumpId, String period) {
-        List<DashboardDTO.SalesChartDTO> chartData = new ArrayList<>();
-        
-        // Generate sample data for the last 12 months
-        for (int i = 11; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusMonths(i);
-            String periodLabel = date.getYear() + "-" + String.format("%02d", date.getMonthValue());
-            
-            // Generate random sales data (in real implementation, this would come from database)
-            BigDecimal sales = BigDecimal.valueOf(Math.random() * 100000).setScale(2, BigDecimal.ROUND_HALF_UP);
-            Long transactions = (long) (Math.random() * 1000);
-            
-            chartData.add(DashboardDTO.SalesChartDTO.builder()
-                    .period(periodLabel)
-                    .sales(sales)
-                    .transactions(transactions)
-                    .build());
-        }
-        
-        return chartData;
+        return toSalesChart(loadChartRollup(pumpId, period));
     }
 
     @Override
     public Map<String, Object> getRevenueAnalytics(Long pumpId) {
+        LocalDate today = LocalDate.now();
+        PaymentSnapshot payments = loadPayments(today);
         Map<String, Object> analytics = new HashMap<>();
-        analytics.put("totalRevenue", getTotalRevenue(pumpId));
-        analytics.put("monthlyRecurringRevenue", getMonthlyRecurringRevenue());
-        analytics.put("totalPayments", paymentRepository.count());
-        analytics.put("totalPaymentAmount", getTotalPaymentAmount());
+        analytics.put("totalRevenue", loadSales(pumpId, today).amount());
+        analytics.put("monthlyRecurringRevenue", loadSubscriptions(today).monthlyRecurringRevenue());
+        analytics.put("totalPayments", payments.count());
+        analytics.put("totalPaymentAmount", payments.completedAmount());
         return analytics;
     }
 
     @Override
     public List<DashboardDTO.RevenueChartDTO> getRevenueChartData(Long pumpId, String period) {
-        List<DashboardDTO.RevenueChartDTO> chartData = new ArrayList<>();
-        
-        // Generate sample data for the last 12 months
-        for (int i = 11; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusMonths(i);
-            String periodLabel = date.getYear() + "-" + String.format("%02d", date.getMonthValue());
-            
-            // Generate random revenue data
-            BigDecimal revenue = BigDecimal.valueOf(Math.random() * 150000).setScale(2, BigDecimal.ROUND_HALF_UP);
-            BigDecimal profit = revenue.multiply(BigDecimal.valueOf(0.2)); // 20% profit margin
-            
-            chartData.add(DashboardDTO.RevenueChartDTO.builder()
-                    .period(periodLabel)
-                    .revenue(revenue)
-                    .profit(profit)
-                    .build());
-        }
-        
-        return chartData;
+        return toRevenueChart(loadChartRollup(pumpId, period));
     }
 
     @Override
     public Map<String, Object> getCustomerAnalytics(Long pumpId) {
+        CustomerSnapshot customers = loadCustomers(LocalDate.now());
         Map<String, Object> analytics = new HashMap<>();
-        analytics.put("totalCustomers", customerRepository.count());
-        analytics.put("newCustomersThisMonth", getNewCustomersThisMonth(pumpId));
-        analytics.put("customersWithOutstanding", getCustomersWithOutstanding(pumpId));
-        analytics.put("averageCustomerOutstanding", getAverageCustomerOutstanding(pumpId));
+        analytics.put("totalCustomers", customers.total());
+        analytics.put("newCustomersThisMonth", customers.newThisMonth());
+        analytics.put("customersWithOutstanding", customers.withOutstanding());
+        analytics.put("averageCustomerOutstanding", customers.averageOutstanding());
         return analytics;
     }
 
     @Override
     public List<DashboardDTO.CustomerChartDTO> getCustomerChartData(Long pumpId, String period) {
+        // Customers are not tied to a pump, so the chart covers the whole customer base month by month
+        YearMonth firstMonth = YearMonth.now().minusMonths(CHART_MONTHS - 1);
+        LocalDateTime since = firstMonth.atDay(1).atStartOfDay();
+        Map<YearMonth, Long> newCustomersByMonth = new HashMap<>();
+        for (Object[] row : customerRepository.countCreatedByMonth(since)) {
+            newCustomersByMonth.put(YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue()),
+                    ((Number) row[2]).longValue());
+        }
+
         List<DashboardDTO.CustomerChartDTO> chartData = new ArrayList<>();
-        
-        // Generate sample data for the last 12 months
-        for (int i = 11; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusMonths(i);
-            String periodLabel = date.getYear() + "-" + String.format("%02d", date.getMonthValue());
-            
-            // Generate random customer data
-            Long newCustomers = (long) (Math.random() * 50);
-            Long totalCustomers = customerRepository.count() + newCustomers;
-            
+        long totalCustomers = customerRepository.countByCreatedAtBefore(since);
+        for (YearMonth month = firstMonth; !month.isAfter(YearMonth.now()); month = month.plusMonths(1)) {
+            long newCustomers = newCustomersByMonth.getOrDefault(month, 0L);
+            totalCustomers += newCustomers;
             chartData.add(DashboardDTO.CustomerChartDTO.builder()
-                    .period(periodLabel)
+                    .period(month.toString())
                     .newCustomers(newCustomers)
                     .totalCustomers(totalCustomers)
                     .build());
         }
-        
         return chartData;
     }
 
     @Override
     public Map<String, Object> getSubscriptionAnalytics() {
+        LocalDate today = LocalDate.now();
+        SubscriptionSnapshot subscriptions = loadSubscriptions(today);
+        PaymentSnapshot payments = loadPayments(today);
         Map<String, Object> analytics = new HashMap<>();
-        analytics.put("activeSubscriptions", subscriptionRepository.countActiveSubscriptions());
-        analytics.put("expiringSubscriptions", (long) subscriptionRepository.findSubscriptionsDueForPayment(LocalDate.now()).size());
-        analytics.put("monthlyRecurringRevenue", getMonthlyRecurringRevenue());
-        analytics.put("totalPayments", paymentRepository.count());
-        analytics.put("totalPaymentAmount", getTotalPaymentAmount());
+        analytics.put("activeSubscriptions", subscriptions.active());
+        analytics.put("expiringSubscriptions", subscriptions.dueForPayment());
+        analytics.put("monthlyRecurringRevenue", subscriptions.monthlyRecurringRevenue());
+        analytics.put("totalPayments", payments.count());
+        analytics.put("totalPaymentAmount", payments.completedAmount());
         return analytics;
     }
 
+    // Subscriptions and payments are small tables, so their range figures are one grouped query each
     @Override
     public Map<String, Object> getSubscriptionAnalyticsByDateRange(LocalDate startDate, LocalDate endDate) {
-        return getSubscriptionAnalytics(); // Simplified for now
+        SubscriptionSnapshot subscriptions = loadSubscriptions(LocalDate.now());
+        Object[] started = subscriptionRepository.summarizeStartedBetween(startDate, endDate).get(0);
+        Object[] payments = paymentRepository.summarizeBetween(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay()).get(0);
+        Map<String, Object> analytics = new HashMap<>();
+        analytics.put("startDate", startDate);
+        analytics.put("endDate", endDate);
+        analytics.put("activeSubscriptions", subscriptions.active());
+        analytics.put("monthlyRecurringRevenue", subscriptions.monthlyRecurringRevenue());
+        analytics.put("newSubscriptions", count(started[0]));
+        analytics.put("newSubscriptionAmount", decimal(started[1]));
+        analytics.put("totalPayments", count(payments[0]));
+        analytics.put("successfulPayments", count(payments[1]));
+        analytics.put("totalPaymentAmount", decimal(payments[2]));
+        analytics.put("failedPayments", count(payments[3]));
+        return analytics;
     }
 
+    // Top-N lists are answered from the in-memory heavy-hitter summaries; names are looked up for the returned ids only
     @Override
     public List<DashboardDTO.TopPumpDTO> getTopPumpsBySales(Long limit) {
-        List<DashboardDTO.TopPumpDTO> topPumps = new ArrayList<>();
-        
-        // Generate sample data (in real implementation, this would come from database)
-        for (int i = 1; i <= limit; i++) {
-            topPumps.add(DashboardDTO.TopPumpDTO.builder()
-                    .pumpId((long) i)
-                    .pumpName("Pump " + i)
-                    .totalSales(BigDecimal.valueOf(Math.random() * 500000).setScale(2, BigDecimal.ROUND_HALF_UP))
-                    .totalTransactions((long) (Math.random() * 5000))
-                    .build());
-        }
-        
-        return topPumps;
+        List<SalesTopKEntryDTO> top = salesTopKService.getTop(SalesTopKService.Dimension.PUMP, null,
+                SalesTopKService.Window.MONTH, limit.intValue());
+        Map<Long, String> pumpNames = pumpRepository.findAllById(top.stream().map(SalesTopKEntryDTO::getId).toList()).stream()
+                .collect(Collectors.toMap(Pump::getId, Pump::getName));
+        return top.stream()
+                .map(entry -> DashboardDTO.TopPumpDTO.builder()
+                        .pumpId(entry.getId())
+                        .pumpName(pumpNames.getOrDefault(entry.getId(), "Pump " + entry.getId()))
+                        .totalSales(entry.getTotalAmount())
+                        .totalTransactions(entry.getTransactionCount())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     @Override
     public List<DashboardDTO.TopCustomerDTO> getTopCustomersByPurchase(Long pumpId, Long limit) {
-        List<DashboardDTO.TopCustomerDTO> topCustomers = new ArrayList<>();
-        
-        // Generate sample data
-        for (int i = 1; i <= limit; i++) {
-            topCustomers.add(DashboardDTO.TopCustomerDTO.builder()
-                    .customerId((long) i)
-                    .customerName("Customer " + i)
-                    .totalPurchase(BigDecimal.valueOf(Math.random() * 100000).setScale(2, BigDecimal.ROUND_HALF_UP))
-                    .totalTransactions((long) (Math.random() * 500))
-                    .build());
-        }
-        
-        return topCustomers;
+        List<SalesTopKEntryDTO> top = salesTopKService.getTop(SalesTopKService.Dimension.CUSTOMER, pumpId,
+                SalesTopKService.Window.MONTH, limit.intValue());
+        Map<Long, String> customerNames = customerRepository.findAllById(top.stream().map(SalesTopKEntryDTO::getId).toList()).stream()
+                .collect(Collectors.toMap(Customer::getId, Customer::getName));
+        return top.stream()
+                .map(entry -> DashboardDTO.TopCustomerDTO.builder()
+                        .customerId(entry.getId())
+                        .customerName(customerNames.getOrDefault(entry.getId(), "Customer " + entry.getId()))
+                        .totalPurchase(entry.getTotalAmount())
+                        .totalTransactions(entry.getTransactionCount())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     @Override
     public List<DashboardDTO.TopFuelTypeDTO> getTopFuelTypes(Long pumpId, Long limit) {
-        List<DashboardDTO.TopFuelTypeDTO> topFuelTypes = new ArrayList<>();
-        
-        // Generate sample data
-        String[] fuelTypes = {"Petrol", "Diesel", "CNG", "LPG"};
-        for (int i = 0; i < Math.min(limit, fuelTypes.length); i++) {
-            topFuelTypes.add(DashboardDTO.TopFuelTypeDTO.builder()
-                    .fuelTypeId((long) (i + 1))
-                    .fuelTypeName(fuelTypes[i])
-                    .totalQuantity(BigDecimal.valueOf(Math.random() * 10000).setScale(2, BigDecimal.ROUND_HALF_UP))
-                    .totalRevenue(BigDecimal.valueOf(Math.random() * 200000).setScale(2, BigDecimal.ROUND_HALF_UP))
-                    .build());
-        }
-        
-        return topFuelTypes;
+        return salesTopKService.getTop(SalesTopKService.Dimension.FUEL_TYPE, pumpId, SalesTopKService.Window.ALL_TIME,
+                        limit.intValue()).stream()
+                .map(entry -> DashboardDTO.TopFuelTypeDTO.builder()
+                        .fuelTypeId(entry.getId())
+                        .fuelTypeName(fuelTypeName(entry.getId()))
+                        .totalQuantity(entry.getTotalQuantity())
+                        .totalRevenue(entry.getTotalAmount())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     @Override
     public List<DashboardDTO.RecentSaleDTO> getRecentSales(Long pumpId, Long limit) {
-        List<DashboardDTO.RecentSaleDTO> recentSales = new ArrayList<>();
-        
-        // Generate sample data
-        for (int i = 1; i <= limit; i++) {
-            recentSales.add(DashboardDTO.RecentSaleDTO.builder()
-                    .id((long) i)
-                    .pumpId(pumpId != null ? pumpId : (long) (Math.random() * 5 + 1))
-                    .customerName("Customer " + i)
-                    .fuelType(i % 2 == 0 ? "Petrol" : "Diesel")
-                    .amount(BigDecimal.valueOf(Math.random() * 5000).setScale(2, BigDecimal.ROUND_HALF_UP))
-                    .transactionDate(LocalDate.now().minusDays(i))
-                    .build());
-        }
-        
-        return recentSales;
+        LocalDateTime since = LocalDate.now().minusDays(RECENT_DAYS).atStartOfDay();
+        return saleRepository.findRecentSales(pumpId, since, PageRequest.of(0, limit.intValue())).stream()
+                .map(row -> DashboardDTO.RecentSaleDTO.builder()
+                        .id((Long) row[0])
+                        .pumpId((Long) row[1])
+                        .customerName((String) row[2])
+                        .fuelType((String) row[3])
+                        .amount(decimal(row[4]))
+                        .transactionDate(((LocalDateTime) row[5]).toLocalDate())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     @Override
     public List<DashboardDTO.RecentPaymentDTO> getRecentPayments(Long limit) {
-        List<DashboardDTO.RecentPaymentDTO> recentPayments = new ArrayList<>();
-        
-        // Generate sample data
-        for (int i = 1; i <= limit; i++) {
-            recentPayments.add(DashboardDTO.RecentPaymentDTO.builder()
-                    .id((long) i)
-                    .subscriptionId((long) (Math.random() * 10 + 1))
-                    .amount(BigDecimal.valueOf(Math.random() * 5000).setScale(2, BigDecimal.ROUND_HALF_UP))
-                    .status("COMPLETED")
-                    .paymentDate(LocalDate.now().minusDays(i))
-                    .build());
-        }
-        
-        return recentPayments;
+        return paymentRepository.findRecent(PageRequest.of(0, limit.intValue())).stream()
+                .map(row -> DashboardDTO.RecentPaymentDTO.builder()
+                        .id((Long) row[0])
+                        .subscriptionId((Long) row[1])
+                        .amount(decimal(row[2]))
+                        .status(row[3] != null ? row[3].toString() : null)
+                        .paymentDate(row[4] != null ? ((LocalDateTime) row[4]).toLocalDate() : null)
+                        .build())
+                .collect(Collectors.toList());
     }
 
     @Override
     public List<DashboardDTO.RecentSubscriptionDTO> getRecentSubscriptions(Long limit) {
-        List<DashboardDTO.RecentSubscriptionDTO> recentSubscriptions = new ArrayList<>();
-        
-        // Generate sample data
-        for (int i = 1; i <= limit; i++) {
-            recentSubscriptions.add(DashboardDTO.RecentSubscriptionDTO.builder()
-                    .id((long) i)
-                    .pumpId((long) (Math.random() * 5 + 1))
-                    .planName(i % 3 == 0 ? "Premium Plan" : i % 2 == 0 ? "Basic Plan" : "Enterprise Plan")
-                    .status("ACTIVE")
-                    .startDate(LocalDate.now().minusDays(i * 10))
-                    .build());
-        }
-        
-        return recentSubscriptions;
+        return subscriptionRepository.findRecent(PageRequest.of(0, limit.intValue())).stream()
+                .map(row -> DashboardDTO.RecentSubscriptionDTO.builder()
+                        .id((Long) row[0])
+                        .pumpId((Long) row[1])
+                        .planName((String) row[2])
+                        .status(Boolean.TRUE.equals(row[3]) ? "ACTIVE" : "INACTIVE")
+                        .startDate((LocalDate) row[4])
+                        .build())
+                .collect(Collectors.toList());
     }
 
     @Override
     public List<DashboardDTO.AlertDTO> getAlerts(Long pumpId) {
-        List<DashboardDTO.AlertDTO> alerts = new ArrayList<>();
-        
-        // Generate sample alerts
-        alerts.add(DashboardDTO.AlertDTO.builder()
-                .type("SUBSCRIPTION")
-                .message("Subscription expires in 7 days")
-                .severity("WARNING")
-                .date(LocalDate.now())
-                .build());
-        
-        alerts.add(DashboardDTO.AlertDTO.builder()
-                .type("PAYMENT")
-                .message("Payment failed for subscription")
-                .severity("ERROR")
-                .date(LocalDate.now().minusDays(1))
-                .build());
-        
-        return alerts;
+        LocalDate today = LocalDate.now();
+        return buildAlerts(loadCustomers(today), loadSubscriptions(today), loadPayments(today), today);
     }
 
     @Override
@@ -352,125 +402,259 @@ public class DashboardServiceImpl implements DashboardService {
 
     @Override
     public Map<String, Object> getRealTimeMetrics(Long pumpId) {
+        LocalDateTime hourStart = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        List<Object[]> rows = salesHourlyRollupRepository.sumByHour(pumpId, hourStart, hourStart.plusHours(1));
         Map<String, Object> metrics = new HashMap<>();
-        metrics.put("currentHourSales", BigDecimal.valueOf(Math.random() * 10000).setScale(2, BigDecimal.ROUND_HALF_UP));
-        metrics.put("currentHourTransactions", (long) (Math.random() * 50));
-        metrics.put("onlineUsers", (long) (Math.random() * 20));
+        metrics.put("currentHourSales", rows.isEmpty() ? BigDecimal.ZERO : decimal(rows.get(0)[1]));
+        metrics.put("currentHourQuantity", rows.isEmpty() ? BigDecimal.ZERO : decimal(rows.get(0)[2]));
+        metrics.put("currentHourTransactions", rows.isEmpty() ? 0L : count(rows.get(0)[3]));
         return metrics;
     }
 
     @Override
     public Map<String, Object> getRealTimeSales(Long pumpId) {
-        Map<String, Object> sales = new HashMap<>();
-        sales.put("currentSales", BigDecimal.valueOf(Math.random() * 5000).setScale(2, BigDecimal.ROUND_HALF_UP));
-        sales.put("currentTransactions", (long) (Math.random() * 25));
-        sales.put("lastTransactionTime", LocalDateTime.now().minusMinutes((long) (Math.random() * 30)));
-        return sales;
+        LocalDate today = LocalDate.now();
+        SalesSnapshot sales = loadSales(pumpId, today);
+        Map<String, Object> realTimeSales = new HashMap<>();
+        realTimeSales.put("currentSales", sales.todayAmount());
+        realTimeSales.put("currentTransactions", sales.todayTransactions());
+        realTimeSales.put("lastTransactionTime", saleRepository.findLastTransactedAt(pumpId, today.atStartOfDay()));
+        return realTimeSales;
     }
 
     @Override
-    public Map<String, Object> comparePeriods(Long pumpId, LocalDate period1Start, LocalDate period1End, 
+    public Map<String, Object> comparePeriods(Long pumpId, LocalDate period1Start, LocalDate period1End,
                                             LocalDate period2Start, LocalDate period2End) {
+        SalesComparisonDTO result = salesComparisonService.compare(List.of(pumpId), period1Start, period1End,
+                period2Start, period2End);
         Map<String, Object> comparison = new HashMap<>();
-        comparison.put("period1Sales", BigDecimal.valueOf(Math.random() * 100000).setScale(2, BigDecimal.ROUND_HALF_UP));
-        comparison.put("period2Sales", BigDecimal.valueOf(Math.random() * 120000).setScale(2, BigDecimal.ROUND_HALF_UP));
-        comparison.put("growthPercentage", 20.0);
+        comparison.put("period1Sales", result.getPeriod1Totals().getSales());
+        comparison.put("period2Sales", result.getPeriod2Totals().getSales());
+        comparison.put("growthPercentage", result.getSalesGrowthPercentage());
+        comparison.put("period1", result.getPeriod1Totals());
+        comparison.put("period2", result.getPeriod2Totals());
         return comparison;
     }
 
+    // The requested period is compared with the equally long period immediately before it
     @Override
     public Map<String, Object> comparePumps(List<Long> pumpIds, LocalDate startDate, LocalDate endDate) {
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        SalesComparisonDTO result = salesComparisonService.compare(pumpIds, startDate.minusDays(days), startDate.minusDays(1),
+                startDate, endDate);
         Map<String, Object> comparison = new HashMap<>();
-        comparison.put("pumpComparisons", pumpIds.stream().collect(Collectors.toMap(
-                id -> "Pump " + id,
-                id -> BigDecimal.valueOf(Math.random() * 200000).setScale(2, BigDecimal.ROUND_HALF_UP)
-        )));
+        comparison.put("startDate", startDate);
+        comparison.put("endDate", endDate);
+        comparison.put("previousStartDate", result.getPeriod1Start());
+        comparison.put("previousEndDate", result.getPeriod1End());
+        comparison.put("totals", result.getPeriod2Totals());
+        comparison.put("previousTotals", result.getPeriod1Totals());
+        comparison.put("growthPercentage", result.getSalesGrowthPercentage());
+        comparison.put("pumpComparisons", result.getPumps());
         return comparison;
     }
 
     // Helper methods
-    private BigDecimal getTotalRevenue(Long pumpId) {
-        return BigDecimal.valueOf(Math.random() * 1000000).setScale(2, BigDecimal.ROUND_HALF_UP);
+    private List<SalesRollupDTO> loadChartRollup(Long pumpId, String period) {
+        LocalDate today = LocalDate.now();
+        switch (period == null ? "monthly" : period.toLowerCase()) {
+            case "hourly": {
+                LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                return salesRollupService.getHourlySales(pumpId, end.minusHours(24), end);
+            }
+            case "daily":
+                return salesRollupService.getDailySales(pumpId, today.minusDays(29), today);
+            case "weekly":
+                return salesRollupService.getWeeklySales(pumpId, today.minusWeeks(11), today);
+            default:
+                return salesRollupService.getMonthlySales(pumpId, YearMonth.now().minusMonths(CHART_MONTHS - 1), YearMonth.now());
+        }
     }
 
-    private BigDecimal getTotalOutstanding(Long pumpId) {
-        return BigDecimal.valueOf(Math.random() * 100000).setScale(2, BigDecimal.ROUND_HALF_UP);
+    private List<DashboardDTO.SalesChartDTO> toSalesChart(List<SalesRollupDTO> rollup) {
+        return rollup.stream()
+                .map(bucket -> DashboardDTO.SalesChartDTO.builder()
+                        .period(bucket.getPeriod())
+                        .sales(bucket.getTotalAmount())
+                        .transactions(bucket.getTransactionCount())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private List<DashboardDTO.RevenueChartDTO> toRevenueChart(List<SalesRollupDTO> rollup) {
+        // No cost basis is recorded against sales yet, so profit is an estimate at a flat margin
+        return rollup.stream()
+                .map(bucket -> DashboardDTO.RevenueChartDTO.builder()
+                        .period(bucket.getPeriod())
+                        .revenue(bucket.getTotalAmount())
+                        .profit(bucket.getTotalAmount().multiply(ESTIMATED_PROFIT_MARGIN).setScale(2, RoundingMode.HALF_UP))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private List<DashboardDTO.TopFuelTypeDTO> topFuelTypes(SalesSnapshot sales, Long limit) {
+        return sales.fuelTypes().stream()
+                .sorted(Comparator.comparing(FuelTypeTotals::amount).reversed())
+                .limit(limit)
+                .map(fuelType -> DashboardDTO.TopFuelTypeDTO.builder()
+                        .fuelTypeId(fuelType.fuelTypeId())
+                        .fuelTypeName(fuelType.name())
+                        .totalQuantity(fuelType.quantity())
+                        .totalRevenue(fuelType.amount())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private List<DashboardDTO.AlertDTO> buildAlerts(CustomerSnapshot customers, SubscriptionSnapshot subscriptions,
+                                                    PaymentSnapshot payments, LocalDate today) {
+        List<DashboardDTO.AlertDTO> alerts = new ArrayList<>();
+        if (subscriptions.expiringSoon() > 0) {
+            alerts.add(alert("SUBSCRIPTION", subscriptions.expiringSoon() + " subscription(s) expire within " + ALERT_DAYS + " days",
+                    "WARNING", today));
+        }
+        if (subscriptions.dueForPayment() > 0) {
+            alerts.add(alert("SUBSCRIPTION", subscriptions.dueForPayment() + " subscription(s) are due for payment", "WARNING", today));
+        }
+        if (payments.recentFailures() > 0) {
+            alerts.add(alert("PAYMENT", payments.recentFailures() + " payment(s) failed in the last " + ALERT_DAYS + " days",
+                    "ERROR", today));
+        }
+        if (customers.overLimit() > 0) {
+            alerts.add(alert("CREDIT", customers.overLimit() + " customer(s) are over their credit limit", "WARNING", today));
+        }
+        return alerts;
     }
 
-    private BigDecimal getMonthlyRecurringRevenue() {
-        return BigDecimal.valueOf(Math.random() * 50000).setScale(2, BigDecimal.ROUND_HALF_UP);
+    private DashboardDTO.AlertDTO alert(String type, String message, String severity, LocalDate date) {
+        return DashboardDTO.AlertDTO.builder().type(type).message(message).severity(severity).date(date).build();
+    }
+
+    // One grouped pass over the daily rollup yields every sales figure on the dashboard, split by fuel type
+    private SalesSnapshot loadSales(Long pumpId, LocalDate today) {
+        List<Object[]> rows = salesDailyRollupRepository.sumByFuelTypeWithPeriods(pumpId, today.withDayOfMonth(1),
+                today.with(DayOfWeek.MONDAY), today);
+        List<FuelTypeTotals> fuelTypes = new ArrayList<>();
+        BigDecimal monthAmount = BigDecimal.ZERO;
+        BigDecimal weekAmount = BigDecimal.ZERO;
+        BigDecimal todayAmount = BigDecimal.ZERO;
+        long monthTransactions = 0;
+        long weekTransactions = 0;
+        long todayTransactions = 0;
+        for (Object[] row : rows) {
+            Long fuelTypeId = (Long) row[0];
+            fuelTypes.add(new FuelTypeTotals(fuelTypeId, fuelTypeName(fuelTypeId), decimal(row[1]), decimal(row[2]), count(row[3])));
+            monthAmount = monthAmount.add(decimal(row[4]));
+            monthTransactions += count(row[5]);
+            weekAmount = weekAmount.add(decimal(row[6]));
+            weekTransactions += count(row[7]);
+            todayAmount = todayAmount.add(decimal(row[8]));
+            todayTransactions += count(row[9]);
+        }
+        BigDecimal amount = fuelTypes.stream().map(FuelTypeTotals::amount).reduce(BigDecimal.ZERO.setScale(2), BigDecimal::add);
+        long transactions = fuelTypes.stream().mapToLong(FuelTypeTotals::transactions).sum();
+        return new SalesSnapshot(amount, transactions, monthAmount.setScale(2), monthTransactions, weekAmount.setScale(2),
+                weekTransactions, todayAmount.setScale(2), todayTransactions, fuelTypes);
+    }
+
+    // Daily buckets for short ranges, calendar months otherwise; every bucket is a difference of two prefix sums
+    private List<SalesRollupDTO> loadRangeRollup(Long pumpId, LocalDate startDate, LocalDate endDate) {
+        boolean daily = ChronoUnit.DAYS.between(startDate, endDate) < DAILY_CHART_MAX_DAYS;
+        List<SalesRollupDTO> buckets = new ArrayList<>();
+        for (LocalDate from = startDate; !from.isAfter(endDate); ) {
+            LocalDate monthEnd = from.with(TemporalAdjusters.lastDayOfMonth());
+            LocalDate to = daily ? from : (monthEnd.isBefore(endDate) ? monthEnd : endDate);
+            SalesRangeTotalsDTO totals = salesPrefixIndexService.getRangeTotals(pumpId, from, to);
+            buckets.add(SalesRollupDTO.builder()
+                    .period(daily ? from.toString() : YearMonth.from(from).toString())
+                    .periodStart(from.atStartOfDay())
+                    .totalAmount(totals.getTotalAmount())
+                    .totalQuantity(totals.getTotalQuantity())
+                    .transactionCount(totals.getTransactionCount())
+                    .build());
+            from = to.plusDays(1);
+        }
+        return buckets;
     }
 
-    private BigDecimal getTotalPaymentAmount() {
-        return BigDecimal.valueOf(Math.random() * 200000).setScale(2, BigDecimal.ROUND_HALF_UP);
+    private String fuelTypeName(Long fuelTypeId) {
+        return referenceDataCache.getFuelType(fuelTypeId).map(FuelType::getName)
+                .orElse(fuelTypeId == 0 ? "Unspecified" : "Fuel type " + fuelTypeId);
     }
 
-    private BigDecimal getTodaySales(Long pumpId) {
-        return BigDecimal.valueOf(Math.random() * 10000).setScale(2, BigDecimal.ROUND_HALF_UP);
+    private CustomerSnapshot loadCustomers(LocalDate today) {
+        Object[] row = customerRepository.summarize(today.withDayOfMonth(1).atStartOfDay()).get(0);
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        distribution.put("0-1000", count(row[5]));
+        distribution.put("1000-5000", count(row[6]));
+        distribution.put("5000-10000", count(row[7]));
+        distribution.put("10000+", count(row[8]));
+        return new CustomerSnapshot(count(row[0]), count(row[1]), decimal(row[2]), count(row[3]), count(row[4]), distribution);
     }
 
-    private BigDecimal getThisWeekSales(Long pumpId) {
-        return BigDecimal.valueOf(Math.random() * 50000).setScale(2, BigDecimal.ROUND_HALF_UP);
+    private SubscriptionSnapshot loadSubscriptions(LocalDate today) {
+        Object[] row = subscriptionRepository.summarize(today, today.plusDays(ALERT_DAYS)).get(0);
+        return new SubscriptionSnapshot(count(row[0]), count(row[1]), count(row[2]), count(row[3]), decimal(row[4]));
     }
 
-    private BigDecimal getThisMonthSales(Long pumpId) {
-        return BigDecimal.valueOf(Math.random() * 200000).setScale(2, BigDecimal.ROUND_HALF_UP);
+    private PaymentSnapshot loadPayments(LocalDate today) {
+        Object[] row = paymentRepository.summarize(today.minusDays(ALERT_DAYS).atStartOfDay()).get(0);
+        return new PaymentSnapshot(count(row[0]), decimal(row[1]), count(row[2]));
     }
 
-    private Long getTodayTransactions(Long pumpId) {
-        return (long) (Math.random() * 100);
+    private static BigDecimal decimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO.setScale(2);
+        }
+        BigDecimal decimal = value instanceof BigDecimal bigDecimal ? bigDecimal : new BigDecimal(value.toString());
+        return decimal.setScale(2, RoundingMode.HALF_UP);
     }
 
-    private Long getThisWeekTransactions(Long pumpId) {
-        return (long) (Math.random() * 500);
+    private static long count(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
     }
 
-    private Long getThisMonthTransactions(Long pumpId) {
-        return (long) (Math.random() * 2000);
+    private record FuelTypeTotals(Long fuelTypeId, String name, BigDecimal amount, BigDecimal quantity, long transactions) {
     }
 
-    private Map<String, BigDecimal> getFuelTypeSales(Long pumpId) {
-        Map<String, BigDecimal> sales = new HashMap<>();
-        sales.put("Petrol", BigDecimal.valueOf(Math.random() * 50000).setScale(2, BigDecimal.ROUND_HALF_UP));
-        sales.put("Diesel", BigDecimal.valueOf(Math.random() * 80000).setScale(2, BigDecimal.ROUND_HALF_UP));
-        sales.put("CNG", BigDecimal.valueOf(Math.random() * 20000).setScale(2, BigDecimal.ROUND_HALF_UP));
-        return sales;
-    }
+    private record SalesSnapshot(BigDecimal amount, long transactions, BigDecimal monthAmount, long monthTransactions,
+                                 BigDecimal weekAmount, long weekTransactions, BigDecimal todayAmount, long todayTransactions,
+                                 List<FuelTypeTotals> fuelTypes) {
 
-    private Map<String, Long> getFuelTypeTransactions(Long pumpId) {
-        Map<String, Long> transactions = new HashMap<>();
-        transactions.put("Petrol", (long) (Math.random() * 1000));
-        transactions.put("Diesel", (long) (Math.random() * 1500));
-        transactions.put("CNG", (long) (Math.random() * 300));
-        return transactions;
-    }
+        static final SalesSnapshot EMPTY = new SalesSnapshot(BigDecimal.ZERO, 0, BigDecimal.ZERO, 0, BigDecimal.ZERO, 0,
+                BigDecimal.ZERO, 0, List.of());
 
-    private Map<String, BigDecimal> getFuelTypeRevenue(Long pumpId) {
-        Map<String, BigDecimal> revenue = new HashMap<>();
-        revenue.put("Petrol", BigDecimal.valueOf(Math.random() * 300000).setScale(2, BigDecimal.ROUND_HALF_UP));
-        revenue.put("Diesel", BigDecimal.valueOf(Math.random() * 500000).setScale(2, BigDecimal.ROUND_HALF_UP));
-        revenue.put("CNG", BigDecimal.valueOf(Math.random() * 100000).setScale(2, BigDecimal.ROUND_HALF_UP));
-        return revenue;
-    }
+        Map<String, BigDecimal> quantityByFuelType() {
+            return fuelTypes.stream().collect(Collectors.toMap(FuelTypeTotals::name, FuelTypeTotals::quantity, BigDecimal::add));
+        }
+
+        Map<String, Long> transactionsByFuelType() {
+            return fuelTypes.stream().collect(Collectors.toMap(FuelTypeTotals::name, FuelTypeTotals::transactions, Long::sum));
+        }
 
-    private Long getNewCustomersThisMonth(Long pumpId) {
-        return (long) (Math.random() * 50);
+        Map<String, BigDecimal> revenueByFuelType() {
+            return fuelTypes.stream().collect(Collectors.toMap(FuelTypeTotals::name, FuelTypeTotals::amount, BigDecimal::add));
+        }
     }
 
-    private Long getCustomersWithOutstanding(Long pumpId) {
-        return (long) (Math.random() * 100);
+    private record CustomerSnapshot(long total, long withOutstanding, BigDecimal totalOutstanding, long newThisMonth,
+                                    long overLimit, Map<String, Long> outstandingDistribution) {
+
+        static final CustomerSnapshot EMPTY = new CustomerSnapshot(0, 0, BigDecimal.ZERO, 0, 0, Map.of());
+
+        BigDecimal averageOutstanding() {
+            return withOutstanding == 0 ? BigDecimal.ZERO.setScale(2)
+                    : totalOutstanding.divide(BigDecimal.valueOf(withOutstanding), 2, RoundingMode.HALF_UP);
+        }
     }
 
-    private BigDecimal getAverageCustomerOutstanding(Long pumpId) {
-        return BigDecimal.valueOf(Math.random() * 5000).setScale(2, BigDecimal.ROUND_HALF_UP);
+    private record SubscriptionSnapshot(long active, long activePumps, long dueForPayment, long expiringSoon,
+                                        BigDecimal monthlyRecurringRevenue) {
+
+        static final SubscriptionSnapshot EMPTY = new SubscriptionSnapshot(0, 0, 0, 0, BigDecimal.ZERO);
     }
 
-    private Map<String, Long> getCustomerOutstandingDistribution(Long pumpId) {
-        Map<String, Long> distribution = new HashMap<>();
-        distribution.put("0-1000", (long) (Math.random() * 50));
-        distribution.put("1000-5000", (long) (Math.random() * 30));
-        distribution.put("5000-10000", (long) (Math.random() * 15));
-        distribution.put("10000+", (long) (Math.random() * 5));
-        return distribution;
+    private record PaymentSnapshot(long count, BigDecimal completedAmount, long recentFailures) {
+
+        static final PaymentSnapshot EMPTY = new PaymentSnapshot(0, BigDecimal.ZERO, 0);
     }
 }
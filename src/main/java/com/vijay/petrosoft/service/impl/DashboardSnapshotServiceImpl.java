@@ -0,0 +1,175 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.vijay.petrosoft.dto.DashboardDTO;
+import com.vijay.petrosoft.service.DashboardService;
+import com.vijay.petrosoft.service.DashboardSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Database load depends on the number of pumps being watched, not on the number of open screens: every viewer of a
+// pump shares one snapshot per bucket, and SSE subscribers receive only the top-level dashboard fields that changed.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardSnapshotServiceImpl implements DashboardSnapshotService {
+
+    private static final long GLOBAL = 0L;
+
+    private final DashboardService dashboardService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<Long, ReentrantLock> refreshLocks = new ConcurrentHashMap<>();
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, Snapshot> published = new ConcurrentHashMap<>();
+    // Held while a pump's published version moves and its delta goes out, so a subscriber joins between two deltas
+    private final Map<Long, ReentrantLock> publishLocks = new ConcurrentHashMap<>();
+
+    @Value("${dashboard.snapshot.bucket-ms:5000}")
+    private long bucketMs;
+
+    @Value("${dashboard.snapshot.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Override
+    public DashboardDTO getSnapshot(Long pumpId) {
+        return current(key(pumpId)).dashboard();
+    }
+
+    @Override
+    public SseEmitter subscribe(Long pumpId) {
+        Long key = key(pumpId);
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        List<SseEmitter> emitters = subscribers.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(error -> emitters.remove(emitter));
+
+        // New subscribers start from the last published version and are registered before the next delta, so the
+        // first delta they receive is based on the snapshot they were sent
+        ReentrantLock lock = publishLocks.computeIfAbsent(key, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            Snapshot base = published.computeIfAbsent(key, this::current);
+            emitter.send(SseEmitter.event().name("snapshot").id(String.valueOf(base.version())).data(base.tree()));
+            emitters.add(emitter);
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        } finally {
+            lock.unlock();
+        }
+        return emitter;
+    }
+
+    @Override
+    @Scheduled(fixedRateString = "${dashboard.snapshot.bucket-ms:5000}")
+    public void publishSnapshots() {
+        subscribers.forEach((key, emitters) -> {
+            ReentrantLock lock = publishLocks.computeIfAbsent(key, k -> new ReentrantLock());
+            lock.lock();
+            try {
+                publish(key, emitters);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    private void publish(Long key, List<SseEmitter> emitters) {
+        if (emitters.isEmpty()) {
+            published.remove(key);
+            return;
+        }
+        try {
+            Snapshot next = current(key);
+            Snapshot previous = published.put(key, next);
+            if (previous == null || previous.version() == next.version()) {
+                broadcast(emitters, SseEmitter.event().comment("keep-alive"));
+                return;
+            }
+            ObjectNode changes = diff(previous.tree(), next.tree());
+            if (changes.isEmpty()) {
+                broadcast(emitters, SseEmitter.event().comment("keep-alive"));
+                return;
+            }
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("baseVersion", previous.version());
+            event.put("version", next.version());
+            event.put("changes", changes);
+            broadcast(emitters, SseEmitter.event().name("delta").id(String.valueOf(next.version())).data(event));
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish dashboard snapshot for pump {}", key, e);
+        }
+    }
+
+    private Snapshot current(Long key) {
+        long bucket = System.currentTimeMillis() / bucketMs;
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && snapshot.bucket() == bucket) {
+            return snapshot;
+        }
+        // Single flight: concurrent viewers of a stale pump wait for one recomputation instead of each running it
+        ReentrantLock lock = refreshLocks.computeIfAbsent(key, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            snapshot = snapshots.get(key);
+            if (snapshot != null && snapshot.bucket() == bucket) {
+                return snapshot;
+            }
+            DashboardDTO dashboard = key == GLOBAL ? dashboardService.getGlobalDashboard() : dashboardService.getDashboard(key);
+            long version = snapshot != null ? snapshot.version() + 1 : 1;
+            Snapshot refreshed = new Snapshot(bucket, version, dashboard, objectMapper.valueToTree(dashboard));
+            snapshots.put(key, refreshed);
+            return refreshed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Top-level fields only: widgets are replaced whole, which keeps the client-side patch a single assignment per field
+    private ObjectNode diff(JsonNode previous, JsonNode next) {
+        ObjectNode changes = objectMapper.createObjectNode();
+        next.fieldNames().forEachRemaining(field -> {
+            if (!next.get(field).equals(previous.get(field))) {
+                changes.set(field, next.get(field));
+            }
+        });
+        previous.fieldNames().forEachRemaining(field -> {
+            if (!next.has(field)) {
+                changes.putNull(field);
+            }
+        });
+        return changes;
+    }
+
+    private void broadcast(List<SseEmitter> emitters, SseEmitter.SseEventBuilder event) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private Long key(Long pumpId) {
+        return pumpId != null ? pumpId : GLOBAL;
+    }
+
+    private record Snapshot(long bucket, long version, DashboardDTO dashboard, JsonNode tree) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.dto.DashboardWidgetMetricsDTO;
+import com.vijay.petrosoft.service.DashboardWidgetService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Dashboard widgets are independent queries, so each runs on its own virtual thread and the dashboard waits only as
+// long as its slowest widget within that widget's timeout. A semaphore keeps the fan-out below the connection pool size.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardWidgetServiceImpl implements DashboardWidgetService {
+
+    private final Environment environment;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Object> lastGoodValues = new ConcurrentHashMap<>();
+    private final Map<String, WidgetStats> widgetStats = new ConcurrentHashMap<>();
+
+    @Value("${dashboard.widgets.timeout-ms:1500}")
+    private long defaultTimeoutMs;
+
+    @Value("${dashboard.widgets.max-concurrency:8}")
+    private int maxConcurrency;
+
+    private Semaphore concurrency;
+
+    @PostConstruct
+    public void init() {
+        concurrency = new Semaphore(Math.max(maxConcurrency, 1));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public <T> Widget<T> submit(String widget, Long pumpId, Supplier<T> loader) {
+        String cacheKey = widget + ":" + (pumpId != null ? pumpId : "all");
+        long timeoutMs = environment.getProperty("dashboard.widgets.timeouts." + widget, Long.class, defaultTimeoutMs);
+        WidgetStats stats = widgetStats.computeIfAbsent(widget, WidgetStats::new);
+        stats.timeoutMs = timeoutMs;
+        long startedAt = System.nanoTime();
+
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+            concurrency.acquireUninterruptibly();
+            try {
+                return loader.get();
+            } finally {
+                concurrency.release();
+            }
+        }, executor);
+        // A widget that times out still refreshes the cache when it finishes, so the next dashboard gets its value
+        future.whenComplete((value, error) -> {
+            stats.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            if (error != null) {
+                stats.failures.incrementAndGet();
+                log.warn("Dashboard widget {} failed", cacheKey, error);
+            } else if (value != null) {
+                lastGoodValues.put(cacheKey, value);
+            }
+        });
+
+        return emptyValue -> {
+            long remainingMs = timeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            try {
+                return future.get(Math.max(remainingMs, 0), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                stats.timeouts.incrementAndGet();
+                log.debug("Dashboard widget {} exceeded {} ms", cacheKey, timeoutMs);
+            } catch (ExecutionException e) {
+                // Already counted and logged by the completion handler
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stats.fallbacks.incrementAndGet();
+            return fallback(cacheKey, emptyValue);
+        };
+    }
+
+    @Override
+    public List<DashboardWidgetMetricsDTO> getWidgetMetrics() {
+        return widgetStats.values().stream()
+                .sorted(Comparator.comparing(stats -> stats.widget))
+                .map(WidgetStats::toDTO)
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T fallback(String cacheKey, T emptyValue) {
+        Object lastGood = lastGoodValues.get(cacheKey);
+        return lastGood != null ? (T) lastGood : emptyValue;
+    }
+
+    private static class WidgetStats {
+        private final String widget;
+        private final AtomicLong invocations = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong fallbacks = new AtomicLong();
+        private final AtomicLong totalLatencyMs = new AtomicLong();
+        private final AtomicLong maxLatencyMs = new AtomicLong();
+        private volatile long lastLatencyMs;
+        private volatile long timeoutMs;
+
+        WidgetStats(String widget) {
+            this.widget = widget;
+        }
+
+        void recordLatency(long latencyMs) {
+            invocations.incrementAndGet();
+            totalLatencyMs.addAndGet(latencyMs);
+            maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+            lastLatencyMs = latencyMs;
+        }
+
+        DashboardWidgetMetricsDTO toDTO() {
+            long count = invocations.get();
+            return DashboardWidgetMetricsDTO.builder()
+                    .widget(widget)
+                    .timeoutMs(timeoutMs)
+                    .invocations(count)
+                    .failures(failures.get())
+                    .timeouts(timeouts.get())
+                    .fallbacks(fallbacks.get())
+                    .lastLatencyMs(lastLatencyMs)
+                    .averageLatencyMs(count > 0 ? totalLatencyMs.get() / count : 0L)
+                    .maxLatencyMs(maxLatencyMs.get())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.FinancialYear;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.exception.ResourceNotFoundException;
+import com.vijay.petrosoft.repository.FinancialYearRepository;
+import com.vijay.petrosoft.service.DataArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Not @Transactional at class level: DDL commits implicitly in MySQL, so each archive chunk runs in its own TransactionTemplate
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DataArchiveServiceImpl implements DataArchiveService {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String MAX_PARTITION = "pmax";
+
+    private static final List<PartitionedTable> PARTITIONED_TABLES = List.of(
+            new PartitionedTable("sales", "transacted_at"),
+            new PartitionedTable("ledger_entries", "transaction_date"));
+
+    private static final Map<String, String> ARCHIVE_TABLES = Map.of(
+            "sales", "sales_archive",
+            "sale_items", "sale_items_archive",
+            "ledger_entries", "ledger_entries_archive");
+
+    private static final String PARTITION_SQL = "SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS " +
+            "FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? " +
+            "AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION";
+
+    private static final String COLUMNS_SQL = "SELECT COLUMN_NAME, COLUMN_TYPE FROM information_schema.COLUMNS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FinancialYearRepository financialYearRepository;
+
+    private final AtomicBoolean archiveRunning = new AtomicBoolean(false);
+
+    @Value("${archive.partitioning.enabled:true}")
+    private boolean partitioningEnabled;
+
+    @Value("${archive.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${archive.chunk-size:5000}")
+    private int chunkSize;
+
+    @Override
+    @Scheduled(cron = "${archive.partitioning.cron:0 30 1 * * *}")
+    public void ensureMonthlyPartitions() {
+        if (!partitioningEnabled) {
+            return;
+        }
+        YearMonth lastRequired = YearMonth.now().plusMonths(monthsAhead);
+        for (PartitionedTable table : PARTITIONED_TABLES) {
+            try {
+                addMissingPartitions(table, lastRequired);
+            } catch (Exception e) {
+                log.error("Failed to maintain partitions for {}: {}", table.name(), e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> getPartitionStatus() {
+        List<Map<String, Object>> status = new ArrayList<>();
+        for (PartitionedTable table : PARTITIONED_TABLES) {
+            List<Map<String, Object>> partitions = jdbcTemplate.query(PARTITION_SQL, (rs, rowNum) -> {
+                Map<String, Object> partition = new LinkedHashMap<>();
+                partition.put("name", rs.getString("PARTITION_NAME"));
+                partition.put("lessThan", rs.getString("PARTITION_DESCRIPTION"));
+                partition.put("estimatedRows", rs.getLong("TABLE_ROWS"));
+                return partition;
+            }, table.name());
+
+            Map<String, Object> tableStatus = new LinkedHashMap<>();
+            tableStatus.put("table", table.name());
+            tableStatus.put("partitionColumn", table.column());
+            tableStatus.put("partitioned", !partitions.isEmpty());
+            tableStatus.put("partitions", partitions);
+            status.add(tableStatus);
+        }
+        return status;
+    }
+
+    @Override
+    public Map<String, Object> archiveFinancialYear(Long financialYearId) {
+        FinancialYear financialYear = financialYearRepository.findById(financialYearId)
+                .orElseThrow(() -> new ResourceNotFoundException("Financial year not found with id: " + financialYearId));
+        if (financialYear.isArchived()) {
+            throw new BusinessLogicException("Financial year " + financialYear.getName() + " is already archived");
+        }
+        if (financialYear.isActive() || !financialYear.isPastYear()) {
+            throw new BusinessLogicException("Only closed, inactive financial years can be archived");
+        }
+        if (financialYearRepository.existsUnarchivedBefore(financialYear.getPumpId(), financialYear.getStartDate())) {
+            throw new BusinessLogicException("Earlier financial years covering " + financialYear.getName()
+                    + "'s rows must be archived first");
+        }
+        if (!archiveRunning.compareAndSet(false, true)) {
+            throw new BusinessLogicException("Another archive run is already in progress");
+        }
+
+        try {
+            Map<String, String> columns = ensureArchiveTables();
+
+            Long pumpId = financialYear.getPumpId();
+            LocalDateTime start = financialYear.getStartDate().atStartOfDay();
+            LocalDateTime end = financialYear.getEndDate().plusDays(1).atStartOfDay();
+
+            long[] saleCounts = archiveSales(pumpId, start, end, columns);
+            long ledgerCount = archiveLedgerEntries(pumpId, financialYear, columns.get("ledger_entries"));
+
+            LocalDateTime archivedAt = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status -> {
+                FinancialYear year = financialYearRepository.findById(financialYearId).orElseThrow();
+                year.setArchived(true);
+                year.setArchivedAt(archivedAt);
+                financialYearRepository.save(year);
+            });
+            log.info("Archived financial year {} (pump {}): {} sales, {} sale items, {} ledger entries",
+                    financialYear.getName(), pumpId, saleCounts[0], saleCounts[1], ledgerCount);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("financialYearId", financialYearId);
+            result.put("financialYear", financialYear.getName());
+            result.put("pumpId", pumpId);
+            result.put("salesArchived", saleCounts[0]);
+            result.put("saleItemsArchived", saleCounts[1]);
+            result.put("ledgerEntriesArchived", ledgerCount);
+            result.put("archivedAt", archivedAt);
+            return result;
+        } finally {
+            archiveRunning.set(false);
+        }
+    }
+
+    private void addMissingPartitions(PartitionedTable table, YearMonth lastRequired) {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() " +
+                        "AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL", String.class, table.name());
+        if (names.isEmpty()) {
+            log.debug("Table {} is not partitioned, skipping partition maintenance", table.name());
+            return;
+        }
+        if (!names.contains(MAX_PARTITION)) {
+            log.warn("Table {} has no {} partition, skipping partition maintenance", table.name(), MAX_PARTITION);
+            return;
+        }
+
+        YearMonth latest = names.stream()
+                .filter(name -> name.matches("p\\d{6}"))
+                .map(name -> YearMonth.parse(name.substring(1), PARTITION_SUFFIX))
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        YearMonth next = latest != null ? latest.plusMonths(1) : YearMonth.now();
+        if (next.isAfter(lastRequired)) {
+            return;
+        }
+
+        // Each pYYYYMM holds that month's rows; pmax stays last and is normally empty, so the split is cheap
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = next; !month.isAfter(lastRequired); month = month.plusMonths(1)) {
+            definitions.add("PARTITION p" + month.format(PARTITION_SUFFIX) +
+                    " VALUES LESS THAN (TO_DAYS('" + month.plusMonths(1).atDay(1) + "'))");
+        }
+        definitions.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE");
+        jdbcTemplate.execute("ALTER TABLE " + table.name() + " REORGANIZE PARTITION " + MAX_PARTITION +
+                " INTO (" + String.join(", ", definitions) + ")");
+        log.info("Added {} monthly partitions to {} through {}", definitions.size() - 1, table.name(), lastRequired);
+    }
+
+    // Returns each source table's column list; rows are copied by name so the two tables' column order can differ
+    private Map<String, String> ensureArchiveTables() {
+        Map<String, String> columns = new HashMap<>();
+        ARCHIVE_TABLES.forEach((source, archive) -> {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + archive + " LIKE " + source);
+            // LIKE copies the partition layout; archive tables are append-only and do not need it
+            Integer partitions = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() " +
+                            "AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL", Integer.class, archive);
+            if (partitions != null && partitions > 0) {
+                jdbcTemplate.execute("ALTER TABLE " + archive + " REMOVE PARTITIONING");
+            }
+            columns.put(source, String.join(", ", addMissingColumns(source, archive)));
+        });
+        return columns;
+    }
+
+    // Columns added to a hot table after its archive table was created are added to the archive as nullable
+    private List<String> addMissingColumns(String source, String archive) {
+        Map<String, String> sourceColumns = new LinkedHashMap<>();
+        jdbcTemplate.query(COLUMNS_SQL, (RowCallbackHandler) rs ->
+                sourceColumns.put(rs.getString("COLUMN_NAME"), rs.getString("COLUMN_TYPE")), source);
+        Set<String> archiveColumns = new HashSet<>(jdbcTemplate.query(COLUMNS_SQL,
+                (rs, rowNum) -> rs.getString("COLUMN_NAME"), archive));
+        sourceColumns.forEach((column, type) -> {
+            if (!archiveColumns.contains(column)) {
+                jdbcTemplate.execute("ALTER TABLE " + archive + " ADD COLUMN " + column + " " + type + " NULL");
+                log.info("Added column {} to {}", column, archive);
+            }
+        });
+        return new ArrayList<>(sourceColumns.keySet());
+    }
+
+    private long[] archiveSales(Long pumpId, LocalDateTime start, LocalDateTime end, Map<String, String> columns) {
+        String selectIds = "SELECT id FROM sales WHERE transacted_at >= ? AND transacted_at < ?" +
+                (pumpId != null ? " AND pump_id = ?" : "") + " ORDER BY id LIMIT ?";
+        Object[] args = pumpId != null
+                ? new Object[]{start, end, pumpId, chunkSize}
+                : new Object[]{start, end, chunkSize};
+
+        String copyItems = "INSERT INTO sale_items_archive (" + columns.get("sale_items") + ") SELECT " + columns.get("sale_items")
+                + " FROM sale_items WHERE sale_transaction_id ";
+        String copySales = "INSERT INTO sales_archive (" + columns.get("sales") + ") SELECT " + columns.get("sales")
+                + " FROM sales WHERE id ";
+
+        long sales = 0;
+        long items = 0;
+        List<Long> ids;
+        while (!(ids = jdbcTemplate.queryForList(selectIds, Long.class, args)).isEmpty()) {
+            List<Long> chunk = ids;
+            String in = inClause(chunk.size());
+            Object[] idArgs = chunk.toArray();
+            Integer movedItems = transactionTemplate.execute(status -> {
+                int copied = jdbcTemplate.update(copyItems + in, idArgs);
+                jdbcTemplate.update("DELETE FROM sale_items WHERE sale_transaction_id " + in, idArgs);
+                jdbcTemplate.update(copySales + in, idArgs);
+                jdbcTemplate.update("DELETE FROM sales WHERE id " + in, idArgs);
+                jdbcTemplate.update("DELETE FROM sale_keys WHERE sale_id " + in, idArgs);
+                return copied;
+            });
+            sales += chunk.size();
+            items += movedItems != null ? movedItems : 0;
+        }
+        return new long[]{sales, items};
+    }
+
+    private long archiveLedgerEntries(Long pumpId, FinancialYear financialYear, String columns) {
+        String selectIds = "SELECT id FROM ledger_entries WHERE transaction_date BETWEEN ? AND ?" +
+                (pumpId != null ? " AND pump_id = ?" : "") + " ORDER BY id LIMIT ?";
+        Date start = Date.valueOf(financialYear.getStartDate());
+        Date end = Date.valueOf(financialYear.getEndDate());
+        Object[] args = pumpId != null
+                ? new Object[]{start, end, pumpId, chunkSize}
+                : new Object[]{start, end, chunkSize};
+
+        String copyEntries = "INSERT INTO ledger_entries_archive (" + columns + ") SELECT " + columns + " FROM ledger_entries WHERE id ";
+
+        long entries = 0;
+        List<Long> ids;
+        while (!(ids = jdbcTemplate.queryForList(selectIds, Long.class, args)).isEmpty()) {
+            String in = inClause(ids.size());
+            Object[] idArgs = ids.toArray();
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(copyEntries + in, idArgs);
+                jdbcTemplate.update("DELETE FROM ledger_entries WHERE id " + in, idArgs);
+            });
+            entries += ids.size();
+        }
+        return entries;
+    }
+
+    private static String inClause(int size) {
+        return "IN (" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+    }
+
+    private record PartitionedTable(String name, String column) {
+    }
+}
@@ -273,6 +273,8 @@ public class FinancialYearServiceImpl implements FinancialYearService {
                 .active(financialYear.isActive())
                 .description(financialYear.getDescription())
                 .pumpId(financialYear.getPumpId())
+                .archived(financialYear.isArchived())
+                .archivedAt(financialYear.getArchivedAt())
                 .isCurrentYear(financialYear.isCurrentYear())
                 .isPastYear(financialYear.isPastYear())
                 .isFutureYear(financialYear.isFutureYear())
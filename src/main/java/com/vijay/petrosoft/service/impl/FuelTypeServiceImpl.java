@@ -1,9 +1,12 @@
 package com.vijay.petrosoft.service.impl;
 
 import com.vijay.petrosoft.domain.FuelType;
+import com.vijay.petrosoft.domain.MasterDataChange;
 import com.vijay.petrosoft.dto.FuelTypeDTO;
 import com.vijay.petrosoft.repository.FuelTypeRepository;
 import com.vijay.petrosoft.service.FuelTypeService;
+import com.vijay.petrosoft.service.MasterDataSyncService;
+import com.vijay.petrosoft.service.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +21,8 @@ import java.util.stream.Collectors;
 public class FuelTypeServiceImpl implements FuelTypeService {
 
     private final FuelTypeRepository fuelTypeRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final MasterDataSyncService masterDataSyncService;
 
     @Override
     public FuelTypeDTO createFuelType(FuelTypeDTO fuelTypeDTO) {
@@ -28,9 +33,12 @@ public class FuelTypeServiceImpl implements FuelTypeService {
         FuelType fuelType = FuelType.builder()
                 .name(fuelTypeDTO.getName())
                 .uom(fuelTypeDTO.getUom())
+                .currentRate(fuelTypeDTO.getCurrentRate())
                 .build();
 
         FuelType savedFuelType = fuelTypeRepository.save(fuelType);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.FUEL_TYPE, savedFuelType.getId());
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.FUEL_TYPE, savedFuelType.getId(), MasterDataChange.Operation.UPSERT);
         return convertToDTO(savedFuelType);
     }
 
@@ -41,8 +49,16 @@ public class FuelTypeServiceImpl implements FuelTypeService {
 
         fuelType.setName(fuelTypeDTO.getName());
         fuelType.setUom(fuelTypeDTO.getUom());
+        fuelType.setCurrentRate(fuelTypeDTO.getCurrentRate());
 
         FuelType updatedFuelType = fuelTypeRepository.save(fuelType);
+        // Nozzles and tanks embed their fuel type, so the ones using it are reloaded as well
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.FUEL_TYPE, id);
+        referenceDataCache.getNozzlesByFuelType(id)
+                .forEach(nozzle -> referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.NOZZLE, nozzle.getId()));
+        referenceDataCache.getTanksByFuelType(id)
+                .forEach(tank -> referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.TANK, tank.getId()));
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.FUEL_TYPE, id, MasterDataChange.Operation.UPSERT);
         return convertToDTO(updatedFuelType);
     }
 
@@ -66,6 +82,8 @@ public class FuelTypeServiceImpl implements FuelTypeService {
             throw new RuntimeException("Fuel type not found with id: " + id);
         }
         fuelTypeRepository.deleteById(id);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.FUEL_TYPE, id);
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.FUEL_TYPE, id, MasterDataChange.Operation.DELETE);
     }
 
     @Override
@@ -87,6 +105,7 @@ public class FuelTypeServiceImpl implements FuelTypeService {
                 .id(fuelType.getId())
                 .name(fuelType.getName())
                 .uom(fuelType.getUom())
+                .currentRate(fuelType.getCurrentRate())
                 .build();
     }
 }
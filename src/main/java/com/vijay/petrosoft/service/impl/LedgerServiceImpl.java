@@ -129,7 +129,7 @@ public class LedgerServiceImpl implements LedgerService {
     @Override
     @Transactional(readOnly = true)
     public List<LedgerEntryDTO> getLedgerEntriesByAccountAndDateRange(Long accountId, LocalDate startDate, LocalDate endDate) {
-        return ledgerEntryRepository.findByAccountIdAndTransactionDateBetween(accountId, startDate, endDate).stream()
+        return ledgerEntryRepository.findHistoricalByAccountAndDateRange(accountId, startDate, endDate).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -145,7 +145,7 @@ public class LedgerServiceImpl implements LedgerService {
     @Override
     @Transactional(readOnly = true)
     public List<LedgerEntryDTO> getLedgerEntriesByDateRange(Long pumpId, LocalDate startDate, LocalDate endDate) {
-        return ledgerEntryRepository.findByPumpIdAndTransactionDateBetween(pumpId, startDate, endDate).stream()
+        return ledgerEntryRepository.findHistoricalByPumpAndDateRange(pumpId, startDate, endDate).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
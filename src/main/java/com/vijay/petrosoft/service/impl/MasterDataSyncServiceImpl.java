@@ -0,0 +1,228 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.Customer;
+import com.vijay.petrosoft.domain.FuelType;
+import com.vijay.petrosoft.domain.MasterDataChange;
+import com.vijay.petrosoft.domain.Nozzle;
+import com.vijay.petrosoft.dto.*;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.repository.CustomerRepository;
+import com.vijay.petrosoft.repository.FuelTypeRepository;
+import com.vijay.petrosoft.repository.MasterDataChangeRepository;
+import com.vijay.petrosoft.repository.NozzleRepository;
+import com.vijay.petrosoft.service.MasterDataSyncService;
+import com.vijay.petrosoft.service.SalesService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class MasterDataSyncServiceImpl implements MasterDataSyncService {
+
+    private static final int SALES_PUSH_CHUNK_SIZE = 500;
+
+    private final MasterDataChangeRepository masterDataChangeRepository;
+    private final FuelTypeRepository fuelTypeRepository;
+    private final NozzleRepository nozzleRepository;
+    private final CustomerRepository customerRepository;
+    private final SalesService salesService;
+
+    @Value("${sync.master-data.page-size:2000}")
+    private int pageSize;
+
+    // Change rows committed out of id order become visible late; the token only advances past rows older than this
+    @Value("${sync.master-data.visibility-lag-ms:5000}")
+    private long visibilityLagMs;
+
+    @Override
+    public void recordChange(MasterDataChange.EntityType entityType, Long entityId, MasterDataChange.Operation operation) {
+        masterDataChangeRepository.save(MasterDataChange.builder()
+                .entityType(entityType)
+                .entityId(entityId)
+                .operation(operation)
+                .changedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MasterDataSyncDTO pullChanges(Long sinceToken, Long pumpId) {
+        LocalDateTime serverTime = LocalDateTime.now();
+        LocalDateTime visibleBefore = serverTime.minusNanos(visibilityLagMs * 1_000_000);
+        Long oldestToken = masterDataChangeRepository.findOldestToken();
+
+        // Terminals that never synced, or whose token predates the retained log, start from a full snapshot
+        if (sinceToken == null || sinceToken <= 0 || (oldestToken != null && sinceToken < oldestToken - 1)) {
+            Long token = masterDataChangeRepository.findLatestTokenBefore(visibleBefore);
+            return MasterDataSyncDTO.builder()
+                    .changeToken(token != null ? token : 0L)
+                    .fullSnapshot(true)
+                    .serverTime(serverTime)
+                    .fuelTypes(fuelTypeRepository.findAll().stream().map(this::toFuelTypeDTO).collect(Collectors.toList()))
+                    .nozzles(filterByPump(nozzleRepository.findAll(), pumpId).stream().map(this::toNozzleDTO).collect(Collectors.toList()))
+                    .customers(customerRepository.findAll().stream().map(this::toCustomerDTO).collect(Collectors.toList()))
+                    .deletedFuelTypeIds(List.of())
+                    .deletedNozzleIds(List.of())
+                    .deletedCustomerIds(List.of())
+                    .build();
+        }
+
+        List<MasterDataChange> changes = masterDataChangeRepository.findChangesAfter(sinceToken, PageRequest.of(0, pageSize));
+
+        // Only the latest operation per row matters. The token stops before the first row inside the visibility lag on
+        // every page, full or not; rows after it are sent now and again on the next pull
+        Map<MasterDataChange.EntityType, Map<Long, MasterDataChange.Operation>> latest = new EnumMap<>(MasterDataChange.EntityType.class);
+        long nextToken = sinceToken;
+        boolean settled = true;
+        for (MasterDataChange change : changes) {
+            latest.computeIfAbsent(change.getEntityType(), type -> new HashMap<>()).put(change.getEntityId(), change.getOperation());
+            settled = settled && !change.getChangedAt().isAfter(visibleBefore);
+            if (settled) {
+                nextToken = change.getId();
+            }
+        }
+        // A page cut short by the lag has nothing more to offer until the lag passes
+        boolean hasMore = changes.size() == pageSize && settled;
+
+        List<Long> deletedFuelTypeIds = new ArrayList<>();
+        List<Long> deletedNozzleIds = new ArrayList<>();
+        List<Long> deletedCustomerIds = new ArrayList<>();
+
+        List<FuelType> fuelTypes = loadUpserts(latest.get(MasterDataChange.EntityType.FUEL_TYPE), deletedFuelTypeIds,
+                fuelTypeRepository::findAllById, FuelType::getId);
+        List<Nozzle> nozzles = loadUpserts(latest.get(MasterDataChange.EntityType.NOZZLE), deletedNozzleIds,
+                nozzleRepository::findAllById, Nozzle::getId);
+        List<Customer> customers = loadUpserts(latest.get(MasterDataChange.EntityType.CUSTOMER), deletedCustomerIds,
+                customerRepository::findAllById, Customer::getId);
+        // A nozzle moved to another pump leaves this terminal's set, so it is reported as deleted here
+        List<Nozzle> pumpNozzles = new ArrayList<>();
+        for (Nozzle nozzle : nozzles) {
+            if (pumpId == null || pumpId.equals(nozzle.getPumpId())) {
+                pumpNozzles.add(nozzle);
+            } else {
+                deletedNozzleIds.add(nozzle.getId());
+            }
+        }
+
+        return MasterDataSyncDTO.builder()
+                .changeToken(nextToken)
+                .fullSnapshot(false)
+                .hasMore(hasMore)
+                .serverTime(serverTime)
+                .fuelTypes(fuelTypes.stream().map(this::toFuelTypeDTO).collect(Collectors.toList()))
+                .nozzles(pumpNozzles.stream().map(this::toNozzleDTO).collect(Collectors.toList()))
+                .customers(customers.stream().map(this::toCustomerDTO).collect(Collectors.toList()))
+                .deletedFuelTypeIds(deletedFuelTypeIds)
+                .deletedNozzleIds(deletedNozzleIds)
+                .deletedCustomerIds(deletedCustomerIds)
+                .build();
+    }
+
+    @Override
+    public SaleBatchResultDTO pushSales(SalesSyncPushDTO salesSyncPushDTO) {
+        if (salesSyncPushDTO.getTerminalId() == null || salesSyncPushDTO.getTerminalId().isBlank()) {
+            throw new BusinessLogicException("Terminal id is required for sales sync");
+        }
+        List<SaleTransactionDTO> sales = salesSyncPushDTO.getSales() != null ? salesSyncPushDTO.getSales() : List.of();
+        for (SaleTransactionDTO sale : sales) {
+            if (sale == null || sale.getTransactionReference() == null || sale.getTransactionReference().isBlank()) {
+                throw new BusinessLogicException("Every synced sale needs a client-generated id in transactionReference");
+            }
+            sale.setTerminalId(salesSyncPushDTO.getTerminalId());
+        }
+        log.info("Terminal {} pushing {} offline sales", salesSyncPushDTO.getTerminalId(), sales.size());
+
+        // Chunks go through the idempotent batch path, so a push retried after a dropped connection is safe
+        List<SaleBatchResultDTO.ItemResultDTO> results = new ArrayList<>(sales.size());
+        for (int offset = 0; offset < sales.size(); offset += SALES_PUSH_CHUNK_SIZE) {
+            List<SaleTransactionDTO> chunk = sales.subList(offset, Math.min(offset + SALES_PUSH_CHUNK_SIZE, sales.size()));
+            for (SaleBatchResultDTO.ItemResultDTO itemResult : salesService.createSaleTransactionsBatch(chunk).getResults()) {
+                itemResult.setIndex(itemResult.getIndex() + offset);
+                results.add(itemResult);
+            }
+        }
+
+        int successCount = (int) results.stream().filter(SaleBatchResultDTO.ItemResultDTO::isSuccess).count();
+        return SaleBatchResultDTO.builder()
+                .totalCount(results.size())
+                .successCount(successCount)
+                .failureCount(results.size() - successCount)
+                .results(results)
+                .build();
+    }
+
+    private <T> List<T> loadUpserts(Map<Long, MasterDataChange.Operation> operations, List<Long> deletedIds,
+                                    Function<Set<Long>, List<T>> loader,
+                                    Function<T, Long> idOf) {
+        if (operations == null || operations.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> upsertIds = new HashSet<>();
+        operations.forEach((id, operation) -> {
+            if (operation == MasterDataChange.Operation.DELETE) {
+                deletedIds.add(id);
+            } else {
+                upsertIds.add(id);
+            }
+        });
+        if (upsertIds.isEmpty()) {
+            return List.of();
+        }
+        List<T> rows = loader.apply(upsertIds);
+        // A row changed and then removed without a logged delete is still reported as deleted
+        Set<Long> found = rows.stream().map(idOf).collect(Collectors.toSet());
+        upsertIds.stream().filter(id -> !found.contains(id)).forEach(deletedIds::add);
+        return rows;
+    }
+
+    private List<Nozzle> filterByPump(List<Nozzle> nozzles, Long pumpId) {
+        if (pumpId == null) {
+            return nozzles;
+        }
+        return nozzles.stream().filter(nozzle -> pumpId.equals(nozzle.getPumpId())).collect(Collectors.toList());
+    }
+
+    private FuelTypeDTO toFuelTypeDTO(FuelType fuelType) {
+        return FuelTypeDTO.builder()
+                .id(fuelType.getId())
+                .name(fuelType.getName())
+                .uom(fuelType.getUom())
+                .currentRate(fuelType.getCurrentRate())
+                .build();
+    }
+
+    private NozzleDTO toNozzleDTO(Nozzle nozzle) {
+        return NozzleDTO.builder()
+                .id(nozzle.getId())
+                .pumpId(nozzle.getPumpId())
+                .fuelTypeId(nozzle.getFuelType() != null ? nozzle.getFuelType().getId() : null)
+                .name(nozzle.getName())
+                .dispenserCode(nozzle.getDispenserCode())
+                .build();
+    }
+
+    // Outstanding is left out: it moves with every credit sale without a logged change, so a terminal's copy would
+    // go stale. Credit sales are checked against the limit on the server when they are pushed
+    private CustomerDTO toCustomerDTO(Customer customer) {
+        return CustomerDTO.builder()
+                .id(customer.getId())
+                .name(customer.getName())
+                .code(customer.getCode())
+                .phone(customer.getPhone())
+                .email(customer.getEmail())
+                .address(customer.getAddress())
+                .creditLimit(customer.getCreditLimit())
+                .build();
+    }
+}
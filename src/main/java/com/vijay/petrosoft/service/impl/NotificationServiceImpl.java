@@ -41,6 +41,7 @@ public class NotificationServiceImpl implements NotificationService {
                 .templateName(notificationDTO.getTemplateName())
                 .templateData(notificationDTO.getTemplateData() != null ? 
                     notificationDTO.getTemplateData().toString() : null)
+                .attachmentPath(notificationDTO.getAttachmentPath())
                 .scheduledAt(notificationDTO.getScheduledAt())
                 .retryCount(0)
                 .maxRetries(notificationDTO.getMaxRetries() != null ? 
@@ -275,7 +276,8 @@ public class NotificationServiceImpl implements NotificationService {
         try {
             switch (notification.getType()) {
                 case EMAIL:
-                    emailService.sendEmail(notification.getRecipientEmail(), notification.getTitle(), notification.getMessage());
+                    sendEmail(notification.getRecipientEmail(), notification.getTitle(), notification.getMessage(),
+                            notification.getAttachmentPath());
                     break;
                 case SMS:
                     smsService.sendSMS(notification.getRecipientPhone(), notification.getMessage());
@@ -294,7 +296,8 @@ public class NotificationServiceImpl implements NotificationService {
             try {
                 switch (notification.getType()) {
                     case "EMAIL":
-                        emailService.sendEmail(notification.getRecipientEmail(), notification.getTitle(), notification.getMessage());
+                        sendEmail(notification.getRecipientEmail(), notification.getTitle(), notification.getMessage(),
+                                notification.getAttachmentPath());
                         markAsSent(notification.getId());
                         break;
                     case "SMS":
@@ -400,6 +403,14 @@ public class NotificationServiceImpl implements NotificationService {
         return createNotification(notificationDTO);
     }
 
+    private void sendEmail(String recipientEmail, String subject, String message, String attachmentPath) {
+        if (attachmentPath != null) {
+            emailService.sendEmailWithAttachment(recipientEmail, subject, message, attachmentPath);
+        } else {
+            emailService.sendEmail(recipientEmail, subject, message);
+        }
+    }
+
     private String getTemplate(String templateName) {
         // Simple template storage - in production, use database or file system
         Map<String, String> templates = new HashMap<>();
@@ -430,6 +441,7 @@ public class NotificationServiceImpl implements NotificationService {
                 .pumpId(notification.getPumpId())
                 .userId(notification.getUserId())
                 .templateName(notification.getTemplateName())
+                .attachmentPath(notification.getAttachmentPath())
                 .scheduledAt(notification.getScheduledAt())
                 .sentAt(notification.getSentAt())
                 .errorMessage(notification.getErrorMessage())
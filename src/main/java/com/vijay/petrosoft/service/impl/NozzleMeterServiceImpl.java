@@ -0,0 +1,386 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.Nozzle;
+import com.vijay.petrosoft.domain.NozzleMeterBlock;
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.domain.Shift;
+import com.vijay.petrosoft.dto.NozzleMeterReconciliationDTO;
+import com.vijay.petrosoft.dto.NozzleReadingDTO;
+import com.vijay.petrosoft.dto.NozzleReadingIngestResultDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.exception.ResourceNotFoundException;
+import com.vijay.petrosoft.repository.NozzleMeterBlockRepository;
+import com.vijay.petrosoft.repository.SaleRepository;
+import com.vijay.petrosoft.repository.ShiftRepository;
+import com.vijay.petrosoft.service.NozzleMeterService;
+import com.vijay.petrosoft.service.ReferenceDataCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Totalizer readings are stored one row per nozzle per day. Each row holds the day's readings as varint time and
+// volume deltas, a few bytes per reading instead of a row each. Readings that arrive in order are appended to the
+// encoded data; a late reading makes the day's block be decoded, merged and re-encoded. Shift reconciliation
+// compares the volume the meter moved across the shift with the volume billed on that nozzle.
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class NozzleMeterServiceImpl implements NozzleMeterService {
+
+    private static final Set<SaleTransaction.Status> COUNTED_SALE_STATUSES =
+            EnumSet.of(SaleTransaction.Status.COMPLETED, SaleTransaction.Status.PARTIALLY_REFUNDED);
+
+    // Blocks are locked in a fixed order so concurrent uploads covering the same nozzles cannot deadlock
+    private static final Comparator<BlockKey> KEY_ORDER = Comparator.comparing(BlockKey::nozzleId)
+            .thenComparing(BlockKey::day);
+
+    private final NozzleMeterBlockRepository nozzleMeterBlockRepository;
+    private final SaleRepository saleRepository;
+    private final ShiftRepository shiftRepository;
+    private final ReferenceDataCache referenceDataCache;
+
+    @Value("${nozzle-meter.max-batch-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${nozzle-meter.max-range-days:31}")
+    private int maxRangeDays;
+
+    @Value("${nozzle-meter.max-clock-skew-seconds:300}")
+    private long maxClockSkewSeconds;
+
+    @Override
+    public NozzleReadingIngestResultDTO recordReadings(List<NozzleReadingDTO> readings) {
+        if (readings.size() > maxBatchSize) {
+            throw new BusinessLogicException("At most " + maxBatchSize + " readings can be recorded per request");
+        }
+        LocalDateTime latestAccepted = LocalDateTime.now().plusSeconds(maxClockSkewSeconds);
+        Map<BlockKey, TreeMap<LocalDateTime, Long>> byBlock = new TreeMap<>(KEY_ORDER);
+        List<String> errors = new ArrayList<>();
+        int accepted = 0;
+        for (int i = 0; i < readings.size(); i++) {
+            NozzleReadingDTO reading = readings.get(i);
+            String error = validate(reading, latestAccepted);
+            if (error != null) {
+                errors.add("Reading " + i + ": " + error);
+                continue;
+            }
+            LocalDateTime readAt = reading.getReadAt().truncatedTo(ChronoUnit.SECONDS);
+            byBlock.computeIfAbsent(new BlockKey(reading.getNozzleId(), readAt.toLocalDate()), key -> new TreeMap<>())
+                    .put(readAt, toMillilitres(reading.getReading()));
+            accepted++;
+        }
+
+        int stored = 0;
+        for (Map.Entry<BlockKey, TreeMap<LocalDateTime, Long>> entry : byBlock.entrySet()) {
+            stored += store(entry.getKey(), entry.getValue());
+        }
+        log.info("Recorded {} of {} nozzle readings across {} blocks", stored, readings.size(), byBlock.size());
+        return NozzleReadingIngestResultDTO.builder()
+                .received(readings.size())
+                .stored(stored)
+                .duplicates(accepted - stored)
+                .rejected(errors.size())
+                .errors(errors)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<NozzleReadingDTO> getReadings(Long nozzleId, LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new BusinessLogicException("Reading range starts after it ends");
+        }
+        if (ChronoUnit.DAYS.between(from.toLocalDate(), to.toLocalDate()) >= maxRangeDays) {
+            throw new BusinessLogicException("Reading range cannot exceed " + maxRangeDays + " days");
+        }
+        List<NozzleReadingDTO> results = new ArrayList<>();
+        for (NozzleMeterBlock block : nozzleMeterBlockRepository
+                .findByNozzleIdAndBlockDateBetweenOrderByBlockDateAsc(nozzleId, from.toLocalDate(), to.toLocalDate())) {
+            for (Reading reading : decode(block)) {
+                if (!reading.at().isBefore(from) && !reading.at().isAfter(to)) {
+                    results.add(NozzleReadingDTO.builder()
+                            .nozzleId(nozzleId)
+                            .readAt(reading.at())
+                            .reading(toLitres(reading.millilitres()))
+                            .build());
+                }
+            }
+        }
+        return results;
+    }
+
+    // Nozzles are listed with the largest shortfall of billed against dispensed volume first; a nozzle without
+    // readings during the shift carries its sold volume and no variance
+    @Override
+    @Transactional(readOnly = true)
+    public NozzleMeterReconciliationDTO reconcileShift(Long shiftId) {
+        Shift shift = shiftRepository.findById(shiftId)
+                .orElseThrow(() -> new ResourceNotFoundException("Shift not found with id: " + shiftId));
+        if (shift.getOpenedAt() == null) {
+            throw new BusinessLogicException("Shift " + shiftId + " has no opening time");
+        }
+        LocalDateTime from = shift.getOpenedAt();
+        LocalDateTime to = shift.getClosedAt() != null ? shift.getClosedAt() : LocalDateTime.now();
+
+        Map<Long, Object[]> sold = new HashMap<>();
+        BigDecimal unattributed = BigDecimal.ZERO;
+        for (Object[] row : saleRepository.sumQuantityByNozzleForShift(shiftId, COUNTED_SALE_STATUSES)) {
+            if (row[0] == null) {
+                unattributed = quantity(row[1]);
+            } else {
+                sold.put((Long) row[0], row);
+            }
+        }
+        Set<Long> nozzleIds = new TreeSet<>(sold.keySet());
+        if (shift.getPumpId() != null) {
+            referenceDataCache.getNozzlesByPump(shift.getPumpId()).forEach(nozzle -> nozzleIds.add(nozzle.getId()));
+        }
+
+        Map<Long, List<NozzleMeterBlock>> blocks = nozzleIds.isEmpty() ? Map.of() : nozzleMeterBlockRepository
+                .findByNozzleIdInAndBlockDateBetweenOrderByBlockDateAsc(nozzleIds, from.toLocalDate(), to.toLocalDate()).stream()
+                .collect(Collectors.groupingBy(NozzleMeterBlock::getNozzleId));
+
+        List<NozzleMeterReconciliationDTO.NozzleVarianceDTO> nozzles = new ArrayList<>();
+        BigDecimal totalDispensed = BigDecimal.ZERO;
+        BigDecimal totalSold = BigDecimal.ZERO;
+        BigDecimal totalVariance = BigDecimal.ZERO;
+        for (Long nozzleId : nozzleIds) {
+            Window window = measure(nozzleId, blocks.getOrDefault(nozzleId, List.of()), from, to);
+            Object[] row = sold.get(nozzleId);
+            BigDecimal soldQuantity = row != null ? quantity(row[1]) : BigDecimal.ZERO;
+            BigDecimal dispensed = window.readingCount() > 0 ? toLitres(window.dispensed()) : null;
+            BigDecimal variance = dispensed != null ? dispensed.subtract(soldQuantity) : null;
+            Nozzle nozzle = referenceDataCache.getNozzle(nozzleId).orElse(null);
+
+            nozzles.add(NozzleMeterReconciliationDTO.NozzleVarianceDTO.builder()
+                    .nozzleId(nozzleId)
+                    .nozzleName(nozzle != null ? nozzle.getName() : null)
+                    .fuelTypeId(nozzle != null && nozzle.getFuelType() != null ? nozzle.getFuelType().getId() : null)
+                    .openingReading(window.opening() != null ? toLitres(window.opening().millilitres()) : null)
+                    .openingReadingAt(window.opening() != null ? window.opening().at() : null)
+                    .closingReading(window.closing() != null ? toLitres(window.closing().millilitres()) : null)
+                    .closingReadingAt(window.closing() != null ? window.closing().at() : null)
+                    .readingCount(window.readingCount())
+                    .meterResets(window.resets())
+                    .dispensedQuantity(dispensed)
+                    .soldQuantity(soldQuantity)
+                    .transactionCount(row != null ? ((Number) row[2]).longValue() : 0L)
+                    .variance(variance)
+                    .variancePercentage(variance != null ? percentage(variance, soldQuantity) : null)
+                    .build());
+            totalSold = totalSold.add(soldQuantity);
+            if (dispensed != null) {
+                totalDispensed = totalDispensed.add(dispensed);
+                totalVariance = totalVariance.add(variance);
+            }
+        }
+        nozzles.sort(Comparator.comparing(NozzleMeterReconciliationDTO.NozzleVarianceDTO::getVariance,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+
+        return NozzleMeterReconciliationDTO.builder()
+                .shiftId(shiftId)
+                .pumpId(shift.getPumpId())
+                .from(from)
+                .to(to)
+                .totalDispensed(totalDispensed)
+                .totalSold(totalSold)
+                .totalVariance(totalVariance)
+                .unattributedSalesQuantity(unattributed)
+                .nozzles(nozzles)
+                .build();
+    }
+
+    private String validate(NozzleReadingDTO reading, LocalDateTime latestAccepted) {
+        if (reading.getNozzleId() == null || reading.getReadAt() == null || reading.getReading() == null) {
+            return "nozzleId, readAt and reading are required";
+        }
+        if (reading.getReading().signum() < 0) {
+            return "reading cannot be negative";
+        }
+        if (reading.getReadAt().isAfter(latestAccepted)) {
+            return "readAt " + reading.getReadAt() + " is in the future";
+        }
+        if (referenceDataCache.getNozzle(reading.getNozzleId()).isEmpty()) {
+            return "Nozzle not found with id: " + reading.getNozzleId();
+        }
+        return null;
+    }
+
+    // Returns how many readings were new or changed the value already stored for their second
+    private int store(BlockKey key, TreeMap<LocalDateTime, Long> incoming) {
+        Long pumpId = referenceDataCache.getNozzle(key.nozzleId()).map(Nozzle::getPumpId).orElse(null);
+        nozzleMeterBlockRepository.insertIfAbsent(key.nozzleId(), pumpId, key.day());
+        NozzleMeterBlock block = nozzleMeterBlockRepository.findForUpdate(key.nozzleId(), key.day())
+                .orElseThrow(() -> new BusinessLogicException("Meter block for nozzle " + key.nozzleId() + " on " + key.day() + " is missing"));
+
+        int stored;
+        int readingCount;
+        TreeMap<LocalDateTime, Long> readings;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(block.getData().length + incoming.size() * 4);
+        if (block.getLastReadingAt() == null || incoming.firstKey().isAfter(block.getLastReadingAt())) {
+            readings = incoming;
+            stored = incoming.size();
+            readingCount = block.getReadingCount() + incoming.size();
+            out.writeBytes(block.getData());
+            encode(out, incoming, block.getLastReadingAt() != null ? block.getLastReadingAt() : key.day().atStartOfDay(),
+                    block.getLastReading() != null ? toMillilitres(block.getLastReading()) : 0L);
+        } else {
+            readings = new TreeMap<>();
+            decode(block).forEach(reading -> readings.put(reading.at(), reading.millilitres()));
+            stored = 0;
+            for (Map.Entry<LocalDateTime, Long> reading : incoming.entrySet()) {
+                Long previous = readings.put(reading.getKey(), reading.getValue());
+                if (previous == null || !previous.equals(reading.getValue())) {
+                    stored++;
+                }
+            }
+            if (stored == 0) {
+                return 0;
+            }
+            readingCount = readings.size();
+            encode(out, readings, key.day().atStartOfDay(), 0L);
+        }
+
+        block.setLastReadingAt(readings.lastKey());
+        block.setLastReading(toLitres(readings.lastEntry().getValue()));
+        block.setReadingCount(readingCount);
+        block.setData(out.toByteArray());
+        block.setUpdatedAt(LocalDateTime.now());
+        nozzleMeterBlockRepository.save(block);
+        return stored;
+    }
+
+    // Opening is the last reading at or before the shift opened, looking back into earlier days when the shift's
+    // first day has none; failing that, the first reading inside the shift. A reading lower than the one before it is
+    // counted as a meter reset and adds no volume, so a reset or a bad reading never inflates the dispensed total.
+    private Window measure(Long nozzleId, List<NozzleMeterBlock> blocks, LocalDateTime from, LocalDateTime to) {
+        Reading opening = null;
+        Reading previous = null;
+        long dispensed = 0L;
+        int count = 0;
+        int resets = 0;
+        for (NozzleMeterBlock block : blocks) {
+            for (Reading reading : decode(block)) {
+                if (reading.at().isAfter(to)) {
+                    break;
+                }
+                if (!reading.at().isAfter(from)) {
+                    opening = reading;
+                    previous = reading;
+                    continue;
+                }
+                if (previous == null) {
+                    previous = nozzleMeterBlockRepository
+                            .findFirstByNozzleIdAndBlockDateLessThanAndReadingCountGreaterThanOrderByBlockDateDesc(nozzleId, from.toLocalDate(), 0)
+                            .map(prior -> new Reading(prior.getLastReadingAt(), toMillilitres(prior.getLastReading())))
+                            .orElse(reading);
+                    opening = previous;
+                }
+                long delta = reading.millilitres() - previous.millilitres();
+                if (delta >= 0) {
+                    dispensed += delta;
+                } else {
+                    resets++;
+                }
+                previous = reading;
+                count++;
+            }
+        }
+        return new Window(opening, previous, dispensed, count, resets);
+    }
+
+    private static void encode(ByteArrayOutputStream out, NavigableMap<LocalDateTime, Long> readings, LocalDateTime previousAt, long previousMillilitres) {
+        for (Map.Entry<LocalDateTime, Long> reading : readings.entrySet()) {
+            writeVarLong(out, Duration.between(previousAt, reading.getKey()).getSeconds());
+            long delta = reading.getValue() - previousMillilitres;
+            writeVarLong(out, (delta << 1) ^ (delta >> 63));
+            previousAt = reading.getKey();
+            previousMillilitres = reading.getValue();
+        }
+    }
+
+    private static List<Reading> decode(NozzleMeterBlock block) {
+        List<Reading> readings = new ArrayList<>(block.getReadingCount());
+        Cursor cursor = new Cursor(block.getData());
+        LocalDateTime at = block.getBlockDate().atStartOfDay();
+        long millilitres = 0L;
+        for (int i = 0; i < block.getReadingCount(); i++) {
+            at = at.plusSeconds(cursor.nextVarLong());
+            long zigzag = cursor.nextVarLong();
+            millilitres += (zigzag >>> 1) ^ -(zigzag & 1);
+            readings.add(new Reading(at, millilitres));
+        }
+        return readings;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long toMillilitres(BigDecimal litres) {
+        return litres.setScale(3, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal toLitres(long millilitres) {
+        return BigDecimal.valueOf(millilitres, 3);
+    }
+
+    private static BigDecimal quantity(Object value) {
+        return value != null ? ((BigDecimal) value).setScale(3, RoundingMode.HALF_UP) : BigDecimal.ZERO.setScale(3);
+    }
+
+    // Variance as a share of the volume sold; null when nothing was sold
+    private static BigDecimal percentage(BigDecimal variance, BigDecimal sales) {
+        if (sales.signum() == 0) {
+            return null;
+        }
+        return variance.multiply(BigDecimal.valueOf(100)).divide(sales, 2, RoundingMode.HALF_UP);
+    }
+
+    private static final class Cursor {
+        private final byte[] data;
+        private int position;
+
+        private Cursor(byte[] data) {
+            this.data = data;
+        }
+
+        private long nextVarLong() {
+            long value = 0L;
+            int shift = 0;
+            byte current;
+            do {
+                current = data[position++];
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+    }
+
+    private record BlockKey(Long nozzleId, LocalDate day) {
+    }
+
+    private record Reading(LocalDateTime at, long millilitres) {
+    }
+
+    private record Window(Reading opening, Reading closing, long dispensed, int readingCount, int resets) {
+    }
+}
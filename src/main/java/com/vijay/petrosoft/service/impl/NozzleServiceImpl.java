@@ -1,9 +1,12 @@
 package com.vijay.petrosoft.service.impl;
 
 import com.vijay.petrosoft.domain.Nozzle;
+import com.vijay.petrosoft.domain.MasterDataChange;
 import com.vijay.petrosoft.dto.NozzleDTO;
 import com.vijay.petrosoft.repository.NozzleRepository;
+import com.vijay.petrosoft.service.MasterDataSyncService;
 import com.vijay.petrosoft.service.NozzleService;
+import com.vijay.petrosoft.service.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +21,8 @@ import java.util.stream.Collectors;
 public class NozzleServiceImpl implements NozzleService {
 
     private final NozzleRepository nozzleRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final MasterDataSyncService masterDataSyncService;
 
     @Override
     public NozzleDTO createNozzle(NozzleDTO nozzleDTO) {
@@ -32,6 +37,8 @@ public class NozzleServiceImpl implements NozzleService {
                 .build();
 
         Nozzle savedNozzle = nozzleRepository.save(nozzle);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.NOZZLE, savedNozzle.getId());
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.NOZZLE, savedNozzle.getId(), MasterDataChange.Operation.UPSERT);
         return convertToDTO(savedNozzle);
     }
 
@@ -45,6 +52,8 @@ public class NozzleServiceImpl implements NozzleService {
         nozzle.setDispenserCode(nozzleDTO.getDispenserCode());
 
         Nozzle updatedNozzle = nozzleRepository.save(nozzle);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.NOZZLE, id);
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.NOZZLE, id, MasterDataChange.Operation.UPSERT);
         return convertToDTO(updatedNozzle);
     }
 
@@ -68,6 +77,8 @@ public class NozzleServiceImpl implements NozzleService {
             throw new RuntimeException("Nozzle not found with id: " + id);
         }
         nozzleRepository.deleteById(id);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.NOZZLE, id);
+        masterDataSyncService.recordChange(MasterDataChange.EntityType.NOZZLE, id, MasterDataChange.Operation.DELETE);
     }
 
     @Override
@@ -81,8 +92,7 @@ public class NozzleServiceImpl implements NozzleService {
     @Override
     @Transactional(readOnly = true)
     public List<NozzleDTO> getNozzlesByFuelType(Long fuelTypeId) {
-        return nozzleRepository.findAll().stream()
-                .filter(nozzle -> nozzle.getFuelType() != null && nozzle.getFuelType().getId().equals(fuelTypeId))
+        return referenceDataCache.getNozzlesByFuelType(fuelTypeId).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -90,7 +100,7 @@ public class NozzleServiceImpl implements NozzleService {
     @Override
     @Transactional(readOnly = true)
     public NozzleDTO getNozzleByPumpAndDispenserCode(Long pumpId, String dispenserCode) {
-        return nozzleRepository.findByPumpId(pumpId).stream()
+        return referenceDataCache.getNozzlesByPump(pumpId).stream()
                 .filter(nozzle -> dispenserCode.equals(nozzle.getDispenserCode()))
                 .findFirst()
                 .map(this::convertToDTO)
@@ -4,6 +4,7 @@ import com.vijay.petrosoft.domain.Pump;
 import com.vijay.petrosoft.dto.PumpDTO;
 import com.vijay.petrosoft.repository.PumpRepository;
 import com.vijay.petrosoft.service.PumpService;
+import com.vijay.petrosoft.service.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +19,7 @@ import java.util.stream.Collectors;
 public class PumpServiceImpl implements PumpService {
 
     private final PumpRepository pumpRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     @Override
     public PumpDTO createPump(PumpDTO pumpDTO) {
@@ -36,6 +38,7 @@ public class PumpServiceImpl implements PumpService {
                 .build();
 
         Pump savedPump = pumpRepository.save(pump);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.PUMP, savedPump.getId());
         return convertToDTO(savedPump);
     }
 
@@ -53,6 +56,7 @@ public class PumpServiceImpl implements PumpService {
         pump.setContactPhone(pumpDTO.getContactPhone());
 
         Pump updatedPump = pumpRepository.save(pump);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.PUMP, updatedPump.getId());
         return convertToDTO(updatedPump);
     }
 
@@ -76,6 +80,7 @@ public class PumpServiceImpl implements PumpService {
             throw new RuntimeException("Pump not found with id: " + id);
         }
         pumpRepository.deleteById(id);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.PUMP, id);
     }
 
     @Override
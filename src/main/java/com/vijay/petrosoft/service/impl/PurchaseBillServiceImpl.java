@@ -11,6 +11,7 @@ import com.vijay.petrosoft.repository.PurchaseBillRepository;
 import com.vijay.petrosoft.repository.PurchaseBillItemRepository;
 import com.vijay.petrosoft.repository.SupplierRepository;
 import com.vijay.petrosoft.service.PurchaseBillService;
+import com.vijay.petrosoft.service.TankStockService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -36,6 +37,7 @@ public class PurchaseBillServiceImpl implements PurchaseBillService {
     private final PurchaseBillRepository purchaseBillRepository;
     private final PurchaseBillItemRepository purchaseBillItemRepository;
     private final SupplierRepository supplierRepository;
+    private final TankStockService tankStockService;
     
     @Override
     public PurchaseBillDTO createPurchaseBill(PurchaseBillDTO purchaseBillDTO) {
@@ -217,6 +219,7 @@ public class PurchaseBillServiceImpl implements PurchaseBillService {
         purchaseBill.setUpdatedAt(LocalDateTime.now());
         
         PurchaseBill updatedBill = purchaseBillRepository.save(purchaseBill);
+        tankStockService.recordReceipt(updatedBill);
         log.info("Purchase bill received successfully with ID: {}", updatedBill.getId());
         
         return convertToDTO(updatedBill);
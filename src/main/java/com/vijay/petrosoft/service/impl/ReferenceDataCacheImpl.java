@@ -0,0 +1,224 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.FuelType;
+import com.vijay.petrosoft.domain.Nozzle;
+import com.vijay.petrosoft.domain.Pump;
+import com.vijay.petrosoft.domain.Shift;
+import com.vijay.petrosoft.domain.Tank;
+import com.vijay.petrosoft.repository.FuelTypeRepository;
+import com.vijay.petrosoft.repository.NozzleRepository;
+import com.vijay.petrosoft.repository.PumpRepository;
+import com.vijay.petrosoft.repository.ShiftRepository;
+import com.vijay.petrosoft.repository.TankRepository;
+import com.vijay.petrosoft.service.ReferenceDataCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceDataCacheImpl implements ReferenceDataCache {
+
+    private final FuelTypeRepository fuelTypeRepository;
+    private final NozzleRepository nozzleRepository;
+    private final TankRepository tankRepository;
+    private final PumpRepository pumpRepository;
+    private final ShiftRepository shiftRepository;
+
+    // Each map is an immutable snapshot swapped in whole, so readers never lock and never see a partial reload
+    private volatile Map<Long, FuelType> fuelTypes = Map.of();
+    private volatile Map<Long, Nozzle> nozzles = Map.of();
+    private volatile Map<Long, Tank> tanks = Map.of();
+    private volatile Map<Long, Pump> pumps = Map.of();
+    private volatile Map<Long, Shift> openShifts = Map.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refreshAll();
+    }
+
+    // Refresh-ahead: reload on a timer so entries are replaced before callers ever see them expire
+    @Override
+    @Scheduled(fixedDelayString = "${reference-data.refresh-interval-ms:60000}", initialDelayString = "${reference-data.refresh-interval-ms:60000}")
+    public void refreshAll() {
+        for (ReferenceType type : ReferenceType.values()) {
+            refresh(type);
+        }
+    }
+
+    @Override
+    public void invalidate(ReferenceType type) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(type);
+                }
+            });
+        } else {
+            refresh(type);
+        }
+    }
+
+    @Override
+    public void invalidate(ReferenceType type, Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(type, id);
+                }
+            });
+        } else {
+            refresh(type, id);
+        }
+    }
+
+    @Override
+    public Optional<FuelType> getFuelType(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        FuelType fuelType = fuelTypes.get(id);
+        return fuelType != null ? Optional.of(fuelType) : fuelTypeRepository.findById(id);
+    }
+
+    @Override
+    public Optional<Nozzle> getNozzle(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Nozzle nozzle = nozzles.get(id);
+        return nozzle != null ? Optional.of(nozzle) : nozzleRepository.findById(id);
+    }
+
+    @Override
+    public List<Nozzle> getNozzlesByPump(Long pumpId) {
+        return nozzles.values().stream()
+                .filter(nozzle -> Objects.equals(nozzle.getPumpId(), pumpId))
+                .sorted(Comparator.comparing(Nozzle::getId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Nozzle> getNozzlesByFuelType(Long fuelTypeId) {
+        return nozzles.values().stream()
+                .filter(nozzle -> nozzle.getFuelType() != null && Objects.equals(nozzle.getFuelType().getId(), fuelTypeId))
+                .sorted(Comparator.comparing(Nozzle::getId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Tank> getTank(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Tank tank = tanks.get(id);
+        return tank != null ? Optional.of(tank) : tankRepository.findById(id);
+    }
+
+    @Override
+    public List<Tank> getTanksByPump(Long pumpId) {
+        return tanks.values().stream()
+                .filter(tank -> Objects.equals(tank.getPumpId(), pumpId))
+                .sorted(Comparator.comparing(Tank::getId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Tank> getTanksByFuelType(Long fuelTypeId) {
+        return tanks.values().stream()
+                .filter(tank -> tank.getFuelType() != null && Objects.equals(tank.getFuelType().getId(), fuelTypeId))
+                .sorted(Comparator.comparing(Tank::getId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Pump> getPump(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Pump pump = pumps.get(id);
+        return pump != null ? Optional.of(pump) : pumpRepository.findById(id);
+    }
+
+    @Override
+    public Optional<Shift> getShift(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        // Only open shifts are cached; closed shifts are rarely referenced and fall through to the database
+        Shift shift = openShifts.get(id);
+        return shift != null ? Optional.of(shift) : shiftRepository.findById(id);
+    }
+
+    @Override
+    public Optional<Shift> getOpenShiftByPump(Long pumpId) {
+        return openShifts.values().stream()
+                .filter(shift -> Objects.equals(shift.getPumpId(), pumpId))
+                .max(Comparator.comparing(Shift::getOpenedAt));
+    }
+
+    // Synchronized with the single-row reload, so a full reload that read the table before a row changed cannot
+    // swap in its snapshot after that row's reload
+    private synchronized void refresh(ReferenceType type) {
+        try {
+            switch (type) {
+                case FUEL_TYPE -> fuelTypes = toSnapshot(fuelTypeRepository.findAll(), FuelType::getId);
+                case NOZZLE -> nozzles = toSnapshot(nozzleRepository.findAll(), Nozzle::getId);
+                case TANK -> tanks = toSnapshot(tankRepository.findAll(), Tank::getId);
+                case PUMP -> pumps = toSnapshot(pumpRepository.findAll(), Pump::getId);
+                case SHIFT -> openShifts = toSnapshot(shiftRepository.findAllByStatus(Shift.Status.OPEN), Shift::getId);
+            }
+            log.debug("Reference data refreshed: {}", type);
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; the next scheduled refresh will try again
+            log.warn("Failed to refresh reference data {}", type, e);
+        }
+    }
+
+    // One primary-key read instead of reloading the type; the snapshot is copied with that entry replaced or removed
+    private synchronized void refresh(ReferenceType type, Long id) {
+        try {
+            switch (type) {
+                case FUEL_TYPE -> fuelTypes = withEntry(fuelTypes, id, fuelTypeRepository.findById(id));
+                case NOZZLE -> nozzles = withEntry(nozzles, id, nozzleRepository.findById(id));
+                case TANK -> tanks = withEntry(tanks, id, tankRepository.findById(id));
+                case PUMP -> pumps = withEntry(pumps, id, pumpRepository.findById(id));
+                case SHIFT -> openShifts = withEntry(openShifts, id,
+                        shiftRepository.findById(id).filter(shift -> shift.getStatus() == Shift.Status.OPEN));
+            }
+            log.debug("Reference data refreshed: {} {}", type, id);
+        } catch (Exception e) {
+            // Fall back to reloading the whole type, which also retries on its schedule
+            log.warn("Failed to refresh reference data {} {}", type, id, e);
+            refresh(type);
+        }
+    }
+
+    private <T> Map<Long, T> withEntry(Map<Long, T> snapshot, Long id, Optional<T> entity) {
+        Map<Long, T> updated = new HashMap<>(snapshot);
+        entity.ifPresentOrElse(value -> updated.put(id, value), () -> updated.remove(id));
+        return Collections.unmodifiableMap(updated);
+    }
+
+    private <T> Map<Long, T> toSnapshot(List<T> entities, Function<T, Long> idExtractor) {
+        return entities.stream().collect(Collectors.toUnmodifiableMap(idExtractor, Function.identity()));
+    }
+}
@@ -0,0 +1,255 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+import com.vijay.petrosoft.repository.SaleRepository;
+import com.vijay.petrosoft.service.SaleIdempotencyService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SaleIdempotencyServiceImpl implements SaleIdempotencyService {
+
+    private final SaleRepository saleRepository;
+
+    @Value("${sales.idempotency.expected-keys:1000000}")
+    private int expectedKeys;
+
+    @Value("${sales.idempotency.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${sales.idempotency.recent-cache-size:50000}")
+    private int recentCacheSize;
+
+    @Value("${sales.idempotency.seed-days:30}")
+    private int seedDays;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong recentHits = new AtomicLong();
+    private final AtomicLong probableHits = new AtomicLong();
+    private final AtomicLong confirmedReplays = new AtomicLong();
+
+    // Two generations of seen keys: puts go to the current one, lookups check both. Every seed-days the current
+    // generation becomes the previous one and the old previous one is dropped, so memory stays bounded by the
+    // keys of two windows and every key is remembered for at least one window.
+    private volatile Generations seenKeys;
+    private Map<String, SaleTransactionDTO> recentResponses;
+
+    @PostConstruct
+    public void initRecentCache() {
+        int cacheSize = recentCacheSize;
+        recentResponses = new LinkedHashMap<>(cacheSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SaleTransactionDTO> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    // Terminals retry within minutes, so only keys from the seed window are loaded; anything older is still
+    // rejected by the unique (terminal_id, transaction_reference) index rather than counted twice
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        BloomFilter filter = new BloomFilter(expectedKeys, falsePositiveRate);
+        List<Object[]> keys = saleRepository.findIdempotencyKeysSince(LocalDateTime.now().minusDays(seedDays));
+        for (Object[] key : keys) {
+            filter.put(keyOf((String) key[0], (String) key[1]));
+        }
+        seenKeys = new Generations(filter, null, LocalDateTime.now());
+        log.info("Sale idempotency filter seeded with {} keys from the last {} days", keys.size(), seedDays);
+    }
+
+    @Scheduled(fixedDelayString = "${sales.idempotency.rotation-check-ms:3600000}")
+    public void rotateIfDue() {
+        Generations generations = seenKeys;
+        if (generations != null && !LocalDateTime.now().isBefore(generations.startedAt().plusDays(seedDays))) {
+            rotate();
+        }
+    }
+
+    // Keys older than two windows may be forgotten; a retry that late is still stopped by the unique index
+    void rotate() {
+        Generations generations = seenKeys;
+        if (generations == null) {
+            return;
+        }
+        seenKeys = new Generations(new BloomFilter(expectedKeys, falsePositiveRate), generations.current(), LocalDateTime.now());
+        log.info("Sale idempotency filter rotated; previous generation held {} keys", generations.current().insertions.get());
+    }
+
+    @Override
+    public Optional<SaleTransactionDTO> findOriginal(String terminalId, String transactionReference) {
+        if (transactionReference == null || transactionReference.isBlank() || seenKeys == null) {
+            return Optional.empty();
+        }
+        lookups.incrementAndGet();
+        String key = keyOf(terminalId, transactionReference);
+
+        SaleTransactionDTO recent;
+        synchronized (recentResponses) {
+            recent = recentResponses.get(key);
+        }
+        if (recent != null) {
+            recentHits.incrementAndGet();
+            return Optional.of(recent);
+        }
+        if (!seenKeys.mightContain(key)) {
+            return Optional.empty();
+        }
+
+        probableHits.incrementAndGet();
+        Optional<SaleTransactionDTO> original = saleRepository.findListingsByTerminalAndReference(terminalId, transactionReference)
+                .stream()
+                .findFirst();
+        original.ifPresent(sale -> {
+            confirmedReplays.incrementAndGet();
+            cacheResponse(key, sale);
+        });
+        return original;
+    }
+
+    @Override
+    public void remember(SaleTransactionDTO saleTransactionDTO) {
+        if (saleTransactionDTO.getTransactionReference() == null || saleTransactionDTO.getTransactionReference().isBlank()
+                || seenKeys == null) {
+            return;
+        }
+        String key = keyOf(saleTransactionDTO.getTerminalId(), saleTransactionDTO.getTransactionReference());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    seenKeys.put(key);
+                    cacheResponse(key, saleTransactionDTO);
+                }
+            });
+        } else {
+            seenKeys.put(key);
+            cacheResponse(key, saleTransactionDTO);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getIdempotencyStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("lookups", lookups.get());
+        status.put("recentHits", recentHits.get());
+        status.put("probableHits", probableHits.get());
+        status.put("confirmedReplays", confirmedReplays.get());
+        status.put("falsePositives", probableHits.get() - confirmedReplays.get());
+        Generations generations = seenKeys;
+        status.put("filterKeys", generations != null ? generations.current().insertions.get() : 0L);
+        status.put("previousFilterKeys", generations != null && generations.previous() != null
+                ? generations.previous().insertions.get() : 0L);
+        status.put("expectedKeys", expectedKeys);
+        synchronized (recentResponses) {
+            status.put("recentCacheSize", recentResponses.size());
+        }
+        return status;
+    }
+
+    private void cacheResponse(String key, SaleTransactionDTO saleTransactionDTO) {
+        synchronized (recentResponses) {
+            recentResponses.put(key, saleTransactionDTO);
+        }
+    }
+
+    private String keyOf(String terminalId, String transactionReference) {
+        return (terminalId != null ? terminalId : "") + '\u0000' + transactionReference;
+    }
+
+    // Replaced as a whole on rotation; a put racing a rotation lands in what becomes the previous generation, which is still read
+    private record Generations(BloomFilter current, BloomFilter previous, LocalDateTime startedAt) {
+
+        void put(String key) {
+            current.put(key);
+        }
+
+        boolean mightContain(String key) {
+            return current.mightContain(key) || (previous != null && previous.mightContain(key));
+        }
+    }
+
+    // Fixed-size bloom filter over the idempotency keys; bits are only ever set, so lock-free CAS updates suffice
+    private static class BloomFilter {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLong insertions = new AtomicLong();
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.max(1, (bits + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = (long) wordCount * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / Math.max(1, expectedInsertions) * Math.log(2)));
+        }
+
+        void put(String key) {
+            long[] hashes = hash(key);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = index(hashes, i);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << (bit & 63);
+                long current;
+                do {
+                    current = words.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, current, current | mask));
+            }
+            insertions.incrementAndGet();
+        }
+
+        boolean mightContain(String key) {
+            long[] hashes = hash(key);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = index(hashes, i);
+                if ((words.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Kirsch-Mitzenmacher double hashing: the i-th probe is h1 + i * h2
+        private long index(long[] hashes, int i) {
+            return Math.floorMod(hashes[0] + i * hashes[1], bitCount);
+        }
+
+        private long[] hash(String key) {
+            long h1 = 0xcbf29ce484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                h1 ^= b;
+                h1 *= 0x100000001b3L;
+            }
+            return new long[]{mix(h1), mix(h1 ^ 0x9e3779b97f4a7c15L) | 1L};
+        }
+
+        private long mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return z ^ (z >>> 33);
+        }
+    }
+}
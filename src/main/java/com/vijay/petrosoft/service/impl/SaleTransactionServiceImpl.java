@@ -2,17 +2,26 @@ package com.vijay.petrosoft.service.impl;
 
 import com.vijay.petrosoft.domain.SaleTransaction;
 import com.vijay.petrosoft.dto.SaleTransactionDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
 import com.vijay.petrosoft.repository.SaleRepository;
+import com.vijay.petrosoft.repository.SaleRepositoryCustom.KeyConflict;
+import com.vijay.petrosoft.service.SaleIdempotencyService;
 import com.vijay.petrosoft.service.SaleTransactionService;
+import com.vijay.petrosoft.service.SalesRollupService;
+import com.vijay.petrosoft.service.TankStockService;
+import com.vijay.petrosoft.service.VehicleService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,10 +29,25 @@ import java.util.stream.Collectors;
 @Transactional
 public class SaleTransactionServiceImpl implements SaleTransactionService {
 
+    private static final Set<SaleTransaction.Status> COUNTED_SALE_STATUSES =
+            EnumSet.of(SaleTransaction.Status.COMPLETED, SaleTransaction.Status.PARTIALLY_REFUNDED);
+
     private final SaleRepository saleRepository;
+    private final SalesRollupService salesRollupService;
+    private final SaleIdempotencyService saleIdempotencyService;
+    private final VehicleService vehicleService;
+    private final TankStockService tankStockService;
+
+    @Value("${sales.listing.pump-days:31}")
+    private int pumpListingDays;
 
     @Override
     public SaleTransactionDTO createSale(SaleTransactionDTO saleDTO) {
+        Optional<SaleTransactionDTO> original = saleIdempotencyService.findOriginal(saleDTO.getTerminalId(), saleDTO.getTransactionReference());
+        if (original.isPresent()) {
+            return original.get();
+        }
+
         SaleTransaction sale = SaleTransaction.builder()
                 .pumpId(saleDTO.getPumpId())
                 .saleNumber(saleDTO.getSaleNumber())
@@ -45,16 +69,33 @@ public class SaleTransactionServiceImpl implements SaleTransactionService {
                 .cardLastFour(saleDTO.getCardLastFour())
                 .cardType(saleDTO.getCardType())
                 .transactionReference(saleDTO.getTransactionReference())
+                .terminalId(saleDTO.getTerminalId())
                 .build();
+        sale.setVehicle(vehicleService.resolveVehicle(saleDTO.getVehicleNumber(), null));
 
         SaleTransaction savedSale = saleRepository.save(sale);
-        return convertToDTO(savedSale);
+        // A concurrent first attempt may hold the reference already; this sale is removed again and answered with it
+        KeyConflict conflict = saleRepository.claimKeys(List.of(savedSale)).get(0);
+        if (conflict != null) {
+            saleRepository.delete(savedSale);
+            Optional<SaleTransaction> stored = conflict.sameReference()
+                    ? saleRepository.findStoredById(conflict.holderId())
+                    : Optional.empty();
+            return stored.map(this::convertToDTO)
+                    .orElseThrow(() -> new BusinessLogicException("Sale number " + savedSale.getSaleNumber() + " is already in use"));
+        }
+        recordRollup(savedSale, 1);
+        SaleTransactionDTO createdSale = convertToDTO(savedSale);
+        saleIdempotencyService.remember(createdSale);
+        return createdSale;
     }
 
     @Override
     public SaleTransactionDTO updateSale(Long id, SaleTransactionDTO saleDTO) {
         SaleTransaction sale = saleRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Sale transaction not found with id: " + id));
+        // Any rollup key field may change, so back the old values out before applying the new ones
+        recordRollup(sale, -1);
 
         sale.setPumpId(saleDTO.getPumpId());
         sale.setSaleNumber(saleDTO.getSaleNumber());
@@ -71,13 +112,17 @@ public class SaleTransactionServiceImpl implements SaleTransactionService {
         sale.setOperatorId(saleDTO.getOperatorId());
         sale.setCashierId(saleDTO.getCashierId());
         sale.setVehicleNumber(saleDTO.getVehicleNumber());
+        sale.setVehicle(vehicleService.resolveVehicle(saleDTO.getVehicleNumber(), sale.getCustomer()));
         sale.setDriverName(saleDTO.getDriverName());
         sale.setNotes(saleDTO.getNotes());
         sale.setCardLastFour(saleDTO.getCardLastFour());
         sale.setCardType(saleDTO.getCardType());
         sale.setTransactionReference(saleDTO.getTransactionReference());
+        sale.setTerminalId(saleDTO.getTerminalId());
 
         SaleTransaction updatedSale = saleRepository.save(sale);
+        saleRepository.saveKeys(updatedSale);
+        recordRollup(updatedSale, 1);
         return convertToDTO(updatedSale);
     }
 
@@ -97,27 +142,23 @@ public class SaleTransactionServiceImpl implements SaleTransactionService {
 
     @Override
     public void deleteSale(Long id) {
-        if (!saleRepository.existsById(id)) {
-            throw new RuntimeException("Sale transaction not found with id: " + id);
-        }
-        saleRepository.deleteById(id);
+        SaleTransaction sale = saleRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Sale transaction not found with id: " + id));
+        recordRollup(sale, -1);
+        saleRepository.deleteKeys(id);
+        saleRepository.delete(sale);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getSalesByPumpId(Long pumpId) {
-        return saleRepository.findByPumpIdOrderByTransactedAtDesc(pumpId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findListingsByPumpSince(pumpId, LocalDateTime.now().minusDays(pumpListingDays));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getSalesByShiftId(Long shiftId) {
-        return saleRepository.findAll().stream()
-                .filter(sale -> sale.getShift() != null && sale.getShift().getId().equals(shiftId))
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findListingsByShift(shiftId);
     }
 
     @Override
@@ -125,35 +166,25 @@ public class SaleTransactionServiceImpl implements SaleTransactionService {
     public List<SaleTransactionDTO> getSalesByDateRange(LocalDate startDate, LocalDate endDate) {
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        return saleRepository.findByTransactedAtBetweenOrderByTransactedAtDesc(startDateTime, endDateTime).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findListingsByDateRange(startDateTime, endDateTime);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getSalesByCustomerId(Long customerId) {
-        return saleRepository.findByCustomerIdOrderByTransactedAtDesc(customerId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findListingsByCustomer(customerId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getCreditSales() {
-        return saleRepository.findAll().stream()
-                .filter(sale -> SaleTransaction.PaymentMethod.CREDIT.equals(sale.getPaymentMethod()))
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findListingsByPaymentMethod(SaleTransaction.PaymentMethod.CREDIT);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getCashSales() {
-        return saleRepository.findAll().stream()
-                .filter(sale -> SaleTransaction.PaymentMethod.CASH.equals(sale.getPaymentMethod()))
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findListingsByPaymentMethod(SaleTransaction.PaymentMethod.CASH);
     }
 
     @Override
@@ -161,18 +192,13 @@ public class SaleTransactionServiceImpl implements SaleTransactionService {
     public BigDecimal getTotalSalesByDate(LocalDate date) {
         LocalDateTime startDateTime = date.atStartOfDay();
         LocalDateTime endDateTime = date.atTime(23, 59, 59);
-        return saleRepository.findByTransactedAtBetweenOrderByTransactedAtDesc(startDateTime, endDateTime).stream()
-                .map(SaleTransaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return saleRepository.sumAmountByTransactedAtBetween(startDateTime, endDateTime);
     }
 
     @Override
     @Transactional(readOnly = true)
     public BigDecimal getTotalSalesByShift(Long shiftId) {
-        return saleRepository.findAll().stream()
-                .filter(sale -> sale.getShift() != null && sale.getShift().getId().equals(shiftId))
-                .map(SaleTransaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return saleRepository.sumAmountByShiftId(shiftId);
     }
 
     @Override
@@ -190,6 +216,18 @@ public class SaleTransactionServiceImpl implements SaleTransactionService {
         return createSale(saleDTO);
     }
 
+    // Completed and partially refunded sales count, the latter at their total less the refund
+    private void recordRollup(SaleTransaction sale, int direction) {
+        if (!COUNTED_SALE_STATUSES.contains(sale.getStatus()) || sale.getTotalAmount() == null || sale.getQuantity() == null) {
+            return;
+        }
+        BigDecimal sign = BigDecimal.valueOf(direction);
+        BigDecimal netAmount = sale.getRefundedAmount() != null ? sale.getTotalAmount().subtract(sale.getRefundedAmount()) : sale.getTotalAmount();
+        salesRollupService.recordSale(sale, netAmount.multiply(sign), sale.getQuantity().multiply(sign), direction);
+        vehicleService.recordSale(sale, netAmount.multiply(sign), sale.getQuantity().multiply(sign), direction);
+        tankStockService.recordSale(sale, sale.getQuantity().multiply(sign));
+    }
+
     private SaleTransactionDTO convertToDTO(SaleTransaction sale) {
         return SaleTransactionDTO.builder()
                 .id(sale.getId())
@@ -217,6 +255,8 @@ public class SaleTransactionServiceImpl implements SaleTransactionService {
                 .cardLastFour(sale.getCardLastFour())
                 .cardType(sale.getCardType())
                 .transactionReference(sale.getTransactionReference())
+                .terminalId(sale.getTerminalId())
+                .vehicleId(sale.getVehicle() != null ? sale.getVehicle().getId() : null)
                 .build();
     }
 }
@@ -0,0 +1,566 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.petrosoft.domain.SaleDeadLetter;
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.SaleBatchResultDTO;
+import com.vijay.petrosoft.dto.SaleDeadLetterDTO;
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.repository.SaleDeadLetterRepository;
+import com.vijay.petrosoft.service.SaleIdempotencyService;
+import com.vijay.petrosoft.service.SaleWriteBehindService;
+import com.vijay.petrosoft.service.SalesService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SaleWriteBehindServiceImpl implements SaleWriteBehindService {
+
+    private static final String SEGMENT_PREFIX = "sales-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    // Single-file journal written before segments; replayed like any other segment and then deleted
+    private static final String LEGACY_JOURNAL_FILE_NAME = "sales.journal";
+    private static final DateTimeFormatter SALE_NUMBER_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    private final SalesService salesService;
+    private final ObjectMapper objectMapper;
+    private final SaleIdempotencyService saleIdempotencyService;
+    private final SaleDeadLetterRepository saleDeadLetterRepository;
+
+    @Value("${sales.write-behind.journal-dir:data/sales-journal}")
+    private String journalDir;
+
+    @Value("${sales.write-behind.max-group-size:500}")
+    private int maxGroupSize;
+
+    @Value("${sales.write-behind.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${sales.write-behind.flush-interval-ms:20}")
+    private long flushIntervalMs;
+
+    @Value("${sales.write-behind.segment-bytes:16777216}")
+    private long segmentBytes;
+
+    private final LinkedBlockingDeque<JournalEntry> pendingEntries = new LinkedBlockingDeque<>();
+    // Journaled sales not yet committed, by terminal and reference, so a retry gets the same acknowledgement
+    private final Map<String, SaleTransactionDTO> pendingByReference = new ConcurrentHashMap<>();
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private final Object syncMonitor = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong uncommittedEntries = new AtomicLong();
+    private final AtomicLong committedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    // Journal segments by id, oldest first. Appends go to the active segment, which rolls over once it reaches
+    // segment-bytes; an older segment is deleted as soon as every entry in it is committed or dead-lettered
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile Segment activeSegment;
+    private volatile FileChannel journalChannel;
+    private ScheduledExecutorService flushExecutor;
+    // Bytes appended across all segments and the part of them known to be on disk; only ever grow
+    private volatile long writtenBytes;
+    private volatile long syncedBytes;
+
+    // Consecutive failed commits of the group headed by failingSequence; only touched under flushLock
+    private long failingSequence = -1;
+    private int failedAttempts;
+
+    @PostConstruct
+    public void openJournal() throws IOException {
+        Path directory = Paths.get(journalDir);
+        Files.createDirectories(directory);
+
+        // Anything still in the journal was acknowledged but possibly never committed, so queue it again
+        Path legacyJournal = directory.resolve(LEGACY_JOURNAL_FILE_NAME);
+        if (Files.exists(legacyJournal)) {
+            replaySegment(new Segment(0, legacyJournal));
+        }
+        List<Path> segmentPaths;
+        try (Stream<Path> files = Files.list(directory)) {
+            segmentPaths = files.filter(SaleWriteBehindServiceImpl::isSegment).sorted().toList();
+        }
+        for (Path segmentPath : segmentPaths) {
+            replaySegment(new Segment(segmentId(segmentPath), segmentPath));
+        }
+
+        journalLock.lock();
+        try {
+            openSegment(segments.isEmpty() ? 1 : segments.lastKey() + 1);
+        } finally {
+            journalLock.unlock();
+        }
+        releaseCommittedSegments();
+        log.info("Sale journal opened in {} with {} entries pending replay from {} segments", directory,
+                pendingEntries.size(), segments.size() - 1);
+    }
+
+    // The flusher runs on its own thread: on the shared scheduler it would queue behind every other @Scheduled job, and
+    // acknowledged sales could sit unflushed for as long as the slowest of them runs
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFlusher() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sale-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flushPendingSales();
+            } catch (RuntimeException e) {
+                // An exception would cancel the schedule; the entries stay queued for the next run
+                log.error("Sale write-behind flush failed", e);
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void closeJournal() throws IOException {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            try {
+                flushExecutor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushPendingSales();
+        if (journalChannel != null) {
+            journalChannel.close();
+        }
+    }
+
+    @Override
+    public SaleTransactionDTO acceptSale(SaleTransactionDTO saleTransactionDTO) {
+        // The idempotency service only learns of a sale once it commits, so the pending journal is asked first
+        String referenceKey = referenceKeyOf(saleTransactionDTO);
+        SaleTransactionDTO pending = referenceKey != null ? pendingByReference.get(referenceKey) : null;
+        if (pending != null) {
+            return pending;
+        }
+        Optional<SaleTransactionDTO> original = saleIdempotencyService.findOriginal(
+                saleTransactionDTO.getTerminalId(), saleTransactionDTO.getTransactionReference());
+        if (original.isPresent()) {
+            return original.get();
+        }
+        // Everything the commit would reject is checked here, so an acknowledged sale is not refused later
+        salesService.validateJournaledSale(saleTransactionDTO);
+
+        long entrySequence = sequence.incrementAndGet();
+        LocalDateTime acceptedAt = LocalDateTime.now();
+        saleTransactionDTO.setSaleNumber("S" + String.format("%03d", saleTransactionDTO.getPumpId())
+                + acceptedAt.format(SALE_NUMBER_FORMAT) + "W" + String.format("%04d", entrySequence % 10000));
+        if (saleTransactionDTO.getStatus() == null) {
+            saleTransactionDTO.setStatus(SaleTransaction.Status.COMPLETED);
+        }
+
+        // Concurrent first attempts with the same reference journal only once
+        if (referenceKey != null) {
+            pending = pendingByReference.putIfAbsent(referenceKey, saleTransactionDTO);
+            if (pending != null) {
+                return pending;
+            }
+        }
+
+        JournalEntry entry = new JournalEntry(entrySequence, acceptedAt, saleTransactionDTO, 0L);
+        try {
+            appendDurably(entry);
+        } catch (IOException e) {
+            if (referenceKey != null) {
+                pendingByReference.remove(referenceKey, saleTransactionDTO);
+            }
+            log.error("Failed to journal sale {}", saleTransactionDTO.getSaleNumber(), e);
+            throw new BusinessLogicException("Sale could not be journaled: " + e.getMessage(), e);
+        }
+
+        pendingEntries.offerLast(entry);
+        return saleTransactionDTO;
+    }
+
+    @Override
+    public void flushPendingSales() {
+        if (pendingEntries.isEmpty() || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            while (!pendingEntries.isEmpty()) {
+                List<JournalEntry> group = new ArrayList<>(Math.min(maxGroupSize, pendingEntries.size()));
+                pendingEntries.drainTo(group, maxGroupSize);
+                if (!commitGroup(group)) {
+                    break;
+                }
+            }
+            releaseCommittedSegments();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getWriteBehindStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("pendingSales", pendingEntries.size());
+        status.put("uncommittedSales", uncommittedEntries.get());
+        status.put("committedSales", committedCount.get());
+        status.put("rejectedSales", rejectedCount.get());
+        status.put("journalBytes", segments.values().stream().mapToLong(segment -> segment.bytes).sum());
+        status.put("journalSegments", segments.size());
+        return status;
+    }
+
+    @Override
+    public List<SaleDeadLetterDTO> getDeadLetters(Long pumpId, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, 1000)));
+        List<SaleDeadLetter> deadLetters = pumpId != null
+                ? saleDeadLetterRepository.findByPumpIdOrderByFailedAtDesc(pumpId, page)
+                : saleDeadLetterRepository.findAllByOrderByFailedAtDesc(page);
+        return deadLetters.stream().map(this::toDeadLetterDTO).collect(Collectors.toList());
+    }
+
+    // A group that keeps failing is split after max-attempts tries so one bad sale cannot hold back the queue:
+    // each sale is committed on its own and the ones that still fail are moved to the dead-letter table
+    private boolean commitGroup(List<JournalEntry> group) {
+        SaleBatchResultDTO result;
+        try {
+            result = salesService.commitJournaledSales(group.stream().map(JournalEntry::getSale).toList());
+        } catch (Exception e) {
+            long headSequence = group.get(0).getSequence();
+            failedAttempts = headSequence == failingSequence ? failedAttempts + 1 : 1;
+            failingSequence = headSequence;
+            if (failedAttempts < maxAttempts) {
+                log.error("Failed to commit {} journaled sales (attempt {} of {}), will retry",
+                        group.size(), failedAttempts, maxAttempts, e);
+                requeue(group);
+                return false;
+            }
+            int attempts = failedAttempts;
+            failingSequence = -1;
+            failedAttempts = 0;
+            if (group.size() == 1) {
+                return settle(group, List.of(), Map.of(0, errorOf(e)), attempts);
+            }
+            log.error("Failed to commit {} journaled sales {} times, committing them one by one", group.size(), attempts, e);
+            return commitSeparately(group, attempts + 1);
+        }
+        failingSequence = -1;
+        failedAttempts = 0;
+
+        Map<Integer, String> rejected = new HashMap<>();
+        for (SaleBatchResultDTO.ItemResultDTO itemResult : result.getResults()) {
+            if (!itemResult.isSuccess()) {
+                rejected.put(itemResult.getIndex(), itemResult.getError());
+            }
+        }
+        return settle(group, List.of(), rejected, 1);
+    }
+
+    private boolean commitSeparately(List<JournalEntry> group, int attempts) {
+        for (int i = 0; i < group.size(); i++) {
+            JournalEntry entry = group.get(i);
+            String error;
+            try {
+                SaleBatchResultDTO.ItemResultDTO itemResult = salesService.commitJournaledSales(List.of(entry.getSale()))
+                        .getResults().get(0);
+                error = itemResult.isSuccess() ? null : itemResult.getError();
+            } catch (Exception e) {
+                error = errorOf(e);
+            }
+            List<JournalEntry> remaining = group.subList(i + 1, group.size());
+            if (!settle(List.of(entry), remaining, error != null ? Map.of(0, error) : Map.of(), attempts)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Committed and dead-lettered entries leave the journal's count and the pending references; committed sales were
+    // remembered by the idempotency service as their transaction committed, so retries never fall into a gap. An entry
+    // that could not be dead-lettered is put back at the head of the queue, followed by the untried remainder, and
+    // flushing stops until the next tick
+    private boolean settle(List<JournalEntry> group, List<JournalEntry> remaining, Map<Integer, String> rejected, int attempts) {
+        List<JournalEntry> unsettled = new ArrayList<>();
+        for (int i = 0; i < group.size(); i++) {
+            String error = rejected.get(i);
+            if (error == null) {
+                committedCount.incrementAndGet();
+            } else if (!deadLetter(group.get(i), error, attempts)) {
+                unsettled.add(group.get(i));
+                continue;
+            }
+            forgetPending(group.get(i));
+            segments.get(group.get(i).getSegmentId()).uncommitted.decrementAndGet();
+        }
+        uncommittedEntries.addAndGet(unsettled.size() - group.size());
+        if (unsettled.isEmpty()) {
+            return true;
+        }
+        List<JournalEntry> retry = new ArrayList<>(unsettled);
+        retry.addAll(remaining);
+        requeue(retry);
+        return false;
+    }
+
+    private boolean deadLetter(JournalEntry entry, String error, int attempts) {
+        SaleTransactionDTO sale = entry.getSale();
+        try {
+            saleDeadLetterRepository.save(SaleDeadLetter.builder()
+                    .saleNumber(sale.getSaleNumber())
+                    .pumpId(sale.getPumpId())
+                    .terminalId(sale.getTerminalId())
+                    .transactionReference(sale.getTransactionReference())
+                    .journalSequence(entry.getSequence())
+                    .attempts(attempts)
+                    .error(error != null && error.length() > 1000 ? error.substring(0, 1000) : error)
+                    .payload(objectMapper.writeValueAsString(sale))
+                    .acceptedAt(entry.getAcceptedAt())
+                    .failedAt(LocalDateTime.now())
+                    .build());
+        } catch (Exception e) {
+            log.error("Failed to dead-letter journaled sale {}, keeping it in the journal", sale.getSaleNumber(), e);
+            return false;
+        }
+        rejectedCount.incrementAndGet();
+        log.error("Journaled sale {} moved to dead letters after {} attempts: {}", sale.getSaleNumber(), attempts, error);
+        return true;
+    }
+
+    private void forgetPending(JournalEntry entry) {
+        String referenceKey = referenceKeyOf(entry.getSale());
+        if (referenceKey != null) {
+            pendingByReference.remove(referenceKey, entry.getSale());
+        }
+    }
+
+    private String referenceKeyOf(SaleTransactionDTO sale) {
+        if (sale.getTransactionReference() == null || sale.getTransactionReference().isBlank()) {
+            return null;
+        }
+        return (sale.getTerminalId() != null ? sale.getTerminalId() : "") + '\u0000' + sale.getTransactionReference();
+    }
+
+    // Keeps the entries at the head of the queue in their original order
+    private void requeue(List<JournalEntry> entries) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            pendingEntries.offerFirst(entries.get(i));
+        }
+    }
+
+    private String errorOf(Exception e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private SaleDeadLetterDTO toDeadLetterDTO(SaleDeadLetter deadLetter) {
+        SaleTransactionDTO sale = null;
+        try {
+            sale = objectMapper.readValue(deadLetter.getPayload(), SaleTransactionDTO.class);
+        } catch (IOException e) {
+            log.warn("Unreadable payload on sale dead letter {}: {}", deadLetter.getId(), e.getMessage());
+        }
+        return SaleDeadLetterDTO.builder()
+                .id(deadLetter.getId())
+                .saleNumber(deadLetter.getSaleNumber())
+                .pumpId(deadLetter.getPumpId())
+                .terminalId(deadLetter.getTerminalId())
+                .transactionReference(deadLetter.getTransactionReference())
+                .journalSequence(deadLetter.getJournalSequence())
+                .attempts(deadLetter.getAttempts())
+                .error(deadLetter.getError())
+                .acceptedAt(deadLetter.getAcceptedAt())
+                .failedAt(deadLetter.getFailedAt())
+                .sale(sale)
+                .build();
+    }
+
+    private void appendDurably(JournalEntry entry) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+        long endOffset;
+
+        journalLock.lock();
+        try {
+            if (activeSegment.bytes >= segmentBytes) {
+                rollSegment();
+            }
+            while (line.hasRemaining()) {
+                journalChannel.write(line);
+            }
+            activeSegment.bytes += line.capacity();
+            writtenBytes += line.capacity();
+            endOffset = writtenBytes;
+            entry.setSegmentId(activeSegment.id);
+            activeSegment.uncommitted.incrementAndGet();
+            uncommittedEntries.incrementAndGet();
+        } finally {
+            journalLock.unlock();
+        }
+
+        // Group fsync: one force covers every append written before it, so concurrent writers share the cost
+        synchronized (syncMonitor) {
+            if (syncedBytes < endOffset) {
+                long target = writtenBytes;
+                journalChannel.force(false);
+                syncedBytes = target;
+            }
+        }
+    }
+
+    // Called under journalLock. The outgoing segment is forced before it is closed, which covers every append still
+    // waiting for its group fsync
+    private void rollSegment() throws IOException {
+        synchronized (syncMonitor) {
+            journalChannel.force(false);
+            syncedBytes = writtenBytes;
+        }
+        journalChannel.close();
+        openSegment(activeSegment.id + 1);
+    }
+
+    // Called under journalLock
+    private void openSegment(long id) throws IOException {
+        Segment segment = new Segment(id, Paths.get(journalDir).resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX)));
+        FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment.bytes = channel.size();
+        segments.put(id, segment);
+        journalChannel = channel;
+        activeSegment = segment;
+    }
+
+    // Deletes segments whose entries have all been committed or dead-lettered, so the journal stays bounded by the
+    // uncommitted backlog under sustained traffic; the active segment is truncated instead
+    private void releaseCommittedSegments() {
+        journalLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                if (segment.uncommitted.get() > 0) {
+                    continue;
+                }
+                if (segment == activeSegment) {
+                    if (segment.bytes > 0) {
+                        synchronized (syncMonitor) {
+                            journalChannel.truncate(0);
+                            journalChannel.force(false);
+                        }
+                        segment.bytes = 0;
+                    }
+                } else {
+                    Files.deleteIfExists(segment.path);
+                    segments.remove(segment.id);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to release committed sale journal segments", e);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void replaySegment(Segment segment) throws IOException {
+        segments.put(segment.id, segment);
+        try (BufferedReader reader = Files.newBufferedReader(segment.path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JournalEntry entry = objectMapper.readValue(line, JournalEntry.class);
+                    entry.setSegmentId(segment.id);
+                    pendingEntries.offerLast(entry);
+                    String referenceKey = referenceKeyOf(entry.getSale());
+                    if (referenceKey != null) {
+                        pendingByReference.putIfAbsent(referenceKey, entry.getSale());
+                    }
+                    segment.uncommitted.incrementAndGet();
+                    uncommittedEntries.incrementAndGet();
+                    sequence.accumulateAndGet(entry.getSequence(), Math::max);
+                } catch (IOException e) {
+                    // A torn final line means the sale was never acknowledged
+                    log.warn("Skipping unreadable sale journal entry in {}: {}", segment.path.getFileName(), e.getMessage());
+                }
+            }
+        }
+        segment.bytes = Files.size(segment.path);
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)
+                && name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()).chars().allMatch(Character::isDigit);
+    }
+
+    private static long segmentId(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        // Entries written to this segment that are neither committed nor dead-lettered
+        private final AtomicLong uncommitted = new AtomicLong();
+        // Written under journalLock
+        private volatile long bytes;
+
+        private Segment(long id, Path path) {
+            this.id = id;
+            this.path = path;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class JournalEntry {
+        private long sequence;
+        private LocalDateTime acceptedAt;
+        private SaleTransactionDTO sale;
+        // Segment the entry was written to; assigned when it is appended or replayed, not part of the journal line
+        @JsonIgnore
+        private long segmentId;
+    }
+}
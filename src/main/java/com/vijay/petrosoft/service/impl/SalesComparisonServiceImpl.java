@@ -0,0 +1,155 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.Pump;
+import com.vijay.petrosoft.dto.SalesComparisonDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.repository.PurchaseBillItemRepository;
+import com.vijay.petrosoft.repository.SalesDailyRollupRepository;
+import com.vijay.petrosoft.service.ReferenceDataCache;
+import com.vijay.petrosoft.service.SalesComparisonService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+
+// Two grouped queries whatever the number of pumps: one over the daily rollup for both periods at once, split by pump
+// and fuel type, and one for the average purchase cost of each pump's fuels. Margin is sales less volume at that cost.
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+@Slf4j
+public class SalesComparisonServiceImpl implements SalesComparisonService {
+
+    private final SalesDailyRollupRepository salesDailyRollupRepository;
+    private final PurchaseBillItemRepository purchaseBillItemRepository;
+    private final ReferenceDataCache referenceDataCache;
+
+    @Value("${dashboard.compare.max-pumps:1000}")
+    private int maxPumps;
+
+    @Value("${dashboard.compare.estimated-margin:0.20}")
+    private BigDecimal estimatedMargin;
+
+    @Override
+    public SalesComparisonDTO compare(Collection<Long> pumpIds, LocalDate period1Start, LocalDate period1End,
+                                      LocalDate period2Start, LocalDate period2End) {
+        Set<Long> pumps = new LinkedHashSet<>(pumpIds);
+        if (pumps.isEmpty()) {
+            throw new BusinessLogicException("At least one pump is required for a comparison");
+        }
+        if (pumps.size() > maxPumps) {
+            throw new BusinessLogicException("At most " + maxPumps + " pumps can be compared in one call");
+        }
+        if (period1End.isBefore(period1Start) || period2End.isBefore(period2Start)) {
+            throw new BusinessLogicException("Period end dates must not be before their start dates");
+        }
+
+        Map<CostKey, BigDecimal> unitCosts = new HashMap<>();
+        LocalDate costAsOf = period1End.isAfter(period2End) ? period1End : period2End;
+        for (Object[] row : purchaseBillItemRepository.sumPurchaseCostByPumpAndFuelType(pumps, costAsOf)) {
+            BigDecimal quantity = toDecimal(row[2]);
+            if (quantity.signum() > 0) {
+                unitCosts.put(new CostKey((Long) row[0], (Long) row[1]), toDecimal(row[3]).divide(quantity, 4, RoundingMode.HALF_UP));
+            }
+        }
+
+        Map<Long, PeriodTotals[]> totalsByPump = new LinkedHashMap<>();
+        pumps.forEach(pumpId -> totalsByPump.put(pumpId, new PeriodTotals[]{new PeriodTotals(), new PeriodTotals()}));
+        for (Object[] row : salesDailyRollupRepository.sumByPumpAndFuelTypeForPeriods(pumps, period1Start, period1End,
+                period2Start, period2End)) {
+            PeriodTotals[] totals = totalsByPump.get((Long) row[0]);
+            BigDecimal unitCost = unitCosts.get(new CostKey((Long) row[0], (Long) row[1]));
+            totals[0].add(toDecimal(row[2]), toDecimal(row[3]), ((Number) row[4]).longValue(), unitCost);
+            totals[1].add(toDecimal(row[5]), toDecimal(row[6]), ((Number) row[7]).longValue(), unitCost);
+        }
+
+        PeriodTotals overall1 = new PeriodTotals();
+        PeriodTotals overall2 = new PeriodTotals();
+        List<SalesComparisonDTO.PumpComparisonDTO> comparisons = new ArrayList<>();
+        totalsByPump.forEach((pumpId, totals) -> {
+            overall1.merge(totals[0]);
+            overall2.merge(totals[1]);
+            comparisons.add(SalesComparisonDTO.PumpComparisonDTO.builder()
+                    .pumpId(pumpId)
+                    .pumpName(referenceDataCache.getPump(pumpId).map(Pump::getName).orElse("Pump " + pumpId))
+                    .period1(totals[0].toDTO())
+                    .period2(totals[1].toDTO())
+                    .salesGrowthPercentage(growth(totals[0].sales, totals[1].sales))
+                    .build());
+        });
+
+        return SalesComparisonDTO.builder()
+                .period1Start(period1Start)
+                .period1End(period1End)
+                .period2Start(period2Start)
+                .period2End(period2End)
+                .period1Totals(overall1.toDTO())
+                .period2Totals(overall2.toDTO())
+                .salesGrowthPercentage(growth(overall1.sales, overall2.sales))
+                .pumps(comparisons)
+                .build();
+    }
+
+    // Null when there is nothing to grow from
+    private static BigDecimal growth(BigDecimal before, BigDecimal after) {
+        if (before.signum() == 0) {
+            return null;
+        }
+        return after.subtract(before).multiply(BigDecimal.valueOf(100)).divide(before, 2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    private record CostKey(Long pumpId, Long fuelTypeId) {
+    }
+
+    private final class PeriodTotals {
+        private BigDecimal sales = BigDecimal.ZERO;
+        private BigDecimal volume = BigDecimal.ZERO;
+        private BigDecimal margin = BigDecimal.ZERO;
+        private long transactions;
+        private boolean marginEstimated;
+
+        void add(BigDecimal amount, BigDecimal quantity, long count, BigDecimal unitCost) {
+            sales = sales.add(amount);
+            volume = volume.add(quantity);
+            transactions += count;
+            if (unitCost != null) {
+                margin = margin.add(amount.subtract(quantity.multiply(unitCost)));
+            } else if (amount.signum() != 0) {
+                margin = margin.add(amount.multiply(estimatedMargin));
+                marginEstimated = true;
+            }
+        }
+
+        void merge(PeriodTotals other) {
+            sales = sales.add(other.sales);
+            volume = volume.add(other.volume);
+            margin = margin.add(other.margin);
+            transactions += other.transactions;
+            marginEstimated |= other.marginEstimated;
+        }
+
+        SalesComparisonDTO.PeriodMetricsDTO toDTO() {
+            return SalesComparisonDTO.PeriodMetricsDTO.builder()
+                    .sales(sales.setScale(2, RoundingMode.HALF_UP))
+                    .volume(volume.setScale(3, RoundingMode.HALF_UP))
+                    .margin(margin.setScale(2, RoundingMode.HALF_UP))
+                    .transactions(transactions)
+                    .marginEstimated(marginEstimated)
+                    .build();
+        }
+    }
+}
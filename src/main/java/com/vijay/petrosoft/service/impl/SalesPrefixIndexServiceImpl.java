@@ -0,0 +1,254 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.dto.SalesRangeTotalsDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.repository.SalesDailyRollupRepository;
+import com.vijay.petrosoft.service.SalesPrefixIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Per-pump cumulative daily sales built from the persisted daily rollup and kept current by the rollup write path, so a
+// range total over any span is two array lookups. A periodic rebuild from the rollup corrects any drift.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesPrefixIndexServiceImpl implements SalesPrefixIndexService {
+
+    private static final long GLOBAL = 0L;
+    private static final int AMOUNT = 0;
+    private static final int QUANTITY = 1;
+    private static final int TRANSACTIONS = 2;
+    private static final int AMOUNT_SCALE = 2;
+    private static final int QUANTITY_SCALE = 3;
+
+    private final SalesDailyRollupRepository salesDailyRollupRepository;
+
+    private final AtomicBoolean rebuildInProgress = new AtomicBoolean();
+    // Deltas take the read lock and run concurrently; the rebuild's swap takes the write lock
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Map<Long, DailyPrefix> index = new ConcurrentHashMap<>();
+    private volatile Queue<PendingDelta> pendingDeltas;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Override
+    public void recordDelta(Long pumpId, LocalDate day, BigDecimal amount, BigDecimal quantity, long transactionCount) {
+        long[] delta = {toUnits(amount, AMOUNT_SCALE), toUnits(quantity, QUANTITY_SCALE), transactionCount};
+        afterCommit(() -> {
+            swapLock.readLock().lock();
+            try {
+                Queue<PendingDelta> pending = pendingDeltas;
+                if (pending != null) {
+                    pending.add(new PendingDelta(pumpId, day, delta));
+                }
+                apply(index, pumpId, day, delta);
+            } finally {
+                swapLock.readLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public SalesRangeTotalsDTO getRangeTotals(Long pumpId, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new BusinessLogicException("End date must not be before start date");
+        }
+        long[] totals;
+        if (ready) {
+            DailyPrefix prefix = index.get(pumpId != null ? pumpId : GLOBAL);
+            totals = prefix != null ? prefix.range(startDate, endDate) : new long[3];
+        } else {
+            // Until the first build completes, answer from the rollup directly
+            totals = new long[3];
+            for (Object[] row : salesDailyRollupRepository.sumByDay(pumpId, startDate, endDate)) {
+                addRow(totals, row, 1);
+            }
+        }
+        return SalesRangeTotalsDTO.builder()
+                .pumpId(pumpId)
+                .startDate(startDate)
+                .endDate(endDate)
+                .totalAmount(BigDecimal.valueOf(totals[AMOUNT], AMOUNT_SCALE))
+                .totalQuantity(BigDecimal.valueOf(totals[QUANTITY], QUANTITY_SCALE))
+                .transactionCount(totals[TRANSACTIONS])
+                .build();
+    }
+
+    // Deltas committed while the rollup is read keep going to the live index and are also queued; the queue is replayed
+    // onto the new index under the write lock just before the swap, so none of them is lost. A delta whose commit lands
+    // between the start of queueing and the start of the read is counted twice until the next rebuild.
+    @Override
+    @Scheduled(cron = "${dashboard.prefix-index.rebuild-cron:0 15 3 * * *}")
+    public void rebuild() {
+        if (!rebuildInProgress.compareAndSet(false, true)) {
+            log.info("Sales prefix index rebuild already in progress, skipping");
+            return;
+        }
+        try {
+            long startedAt = System.currentTimeMillis();
+            pendingDeltas = new ConcurrentLinkedQueue<>();
+            Map<Long, DailyPrefix> rebuilt = new ConcurrentHashMap<>();
+            // The global totals are summed from the same rows, so they agree with the pumps', and added in date order
+            Map<LocalDate, long[]> globalByDay = new TreeMap<>();
+            for (Object[] row : salesDailyRollupRepository.sumByPumpAndDay()) {
+                long[] delta = new long[3];
+                addRow(delta, row, 2);
+                // Rows arrive in date order per pump, so every add lands on the last slot
+                rebuilt.computeIfAbsent((Long) row[0], key -> new DailyPrefix()).add((LocalDate) row[1], delta);
+                long[] day = globalByDay.computeIfAbsent((LocalDate) row[1], key -> new long[3]);
+                for (int measure = 0; measure < day.length; measure++) {
+                    day[measure] += delta[measure];
+                }
+            }
+            DailyPrefix global = new DailyPrefix();
+            globalByDay.forEach(global::add);
+            rebuilt.put(GLOBAL, global);
+
+            int replayed;
+            swapLock.writeLock().lock();
+            try {
+                Queue<PendingDelta> pending = pendingDeltas;
+                replayed = pending.size();
+                pending.forEach(delta -> apply(rebuilt, delta.pumpId(), delta.day(), delta.totals()));
+                pendingDeltas = null;
+                index = rebuilt;
+                ready = true;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            log.info("Rebuilt sales prefix index for {} pumps in {} ms, {} concurrent deltas replayed",
+                    rebuilt.size() - 1, System.currentTimeMillis() - startedAt, replayed);
+        } finally {
+            pendingDeltas = null;
+            rebuildInProgress.set(false);
+        }
+    }
+
+    @Override
+    public void rebuildAfterCommit() {
+        afterCommit(this::rebuild);
+    }
+
+    private static void apply(Map<Long, DailyPrefix> target, Long pumpId, LocalDate day, long[] delta) {
+        target.computeIfAbsent(pumpId, key -> new DailyPrefix()).add(day, delta);
+        target.computeIfAbsent(GLOBAL, key -> new DailyPrefix()).add(day, delta);
+    }
+
+    // offset is the index of the amount column in the aggregate row
+    private static void addRow(long[] totals, Object[] row, int offset) {
+        totals[AMOUNT] += toUnits((BigDecimal) row[offset], AMOUNT_SCALE);
+        totals[QUANTITY] += toUnits((BigDecimal) row[offset + 1], QUANTITY_SCALE);
+        totals[TRANSACTIONS] += row[offset + 2] != null ? ((Number) row[offset + 2]).longValue() : 0L;
+    }
+
+    private static long toUnits(BigDecimal value, int scale) {
+        return value != null ? value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0L;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record PendingDelta(Long pumpId, LocalDate day, long[] totals) {
+    }
+
+    // Slot i holds the totals from base through base + i. Sales nearly always land on the last day, so the usual update
+    // touches one slot; a back-dated correction carries forward through the later slots.
+    private static final class DailyPrefix {
+        private LocalDate base;
+        private int size;
+        private long[][] sums = {new long[16], new long[16], new long[16]};
+
+        synchronized void add(LocalDate day, long[] delta) {
+            if (base == null) {
+                base = day;
+            } else if (day.isBefore(base)) {
+                prepend((int) ChronoUnit.DAYS.between(day, base));
+            }
+            int slot = (int) ChronoUnit.DAYS.between(base, day);
+            extendTo(slot);
+            for (int measure = 0; measure < sums.length; measure++) {
+                for (int i = slot; i < size; i++) {
+                    sums[measure][i] += delta[measure];
+                }
+            }
+        }
+
+        synchronized long[] range(LocalDate startDate, LocalDate endDate) {
+            long[] totals = new long[sums.length];
+            int last = slotAtOrBefore(endDate);
+            int beforeStart = slotAtOrBefore(startDate.minusDays(1));
+            for (int measure = 0; measure < sums.length; measure++) {
+                totals[measure] = (last >= 0 ? sums[measure][last] : 0L) - (beforeStart >= 0 ? sums[measure][beforeStart] : 0L);
+            }
+            return totals;
+        }
+
+        // -1 when the day precedes the first recorded sale; days after the last slot read the running total
+        private int slotAtOrBefore(LocalDate day) {
+            if (base == null || day.isBefore(base)) {
+                return -1;
+            }
+            return (int) Math.min(ChronoUnit.DAYS.between(base, day), size - 1);
+        }
+
+        private void extendTo(int slot) {
+            if (slot < size) {
+                return;
+            }
+            if (slot >= sums[0].length) {
+                int capacity = Math.max(slot + 1, sums[0].length * 2);
+                for (int measure = 0; measure < sums.length; measure++) {
+                    sums[measure] = Arrays.copyOf(sums[measure], capacity);
+                }
+            }
+            for (int measure = 0; measure < sums.length; measure++) {
+                long carried = size > 0 ? sums[measure][size - 1] : 0L;
+                Arrays.fill(sums[measure], size, slot + 1, carried);
+            }
+            size = slot + 1;
+        }
+
+        private void prepend(int days) {
+            for (int measure = 0; measure < sums.length; measure++) {
+                long[] shifted = new long[sums[measure].length + days];
+                System.arraycopy(sums[measure], 0, shifted, days, size);
+                sums[measure] = shifted;
+            }
+            base = base.minusDays(days);
+            size += days;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.SalesRollupDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.repository.SalesDailyRollupRepository;
+import com.vijay.petrosoft.repository.SalesHourlyRollupRepository;
+import com.vijay.petrosoft.service.SalesPrefixIndexService;
+import com.vijay.petrosoft.service.SalesRollupService;
+import com.vijay.petrosoft.service.SalesTopKService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class SalesRollupServiceImpl implements SalesRollupService {
+
+    private static final DateTimeFormatter HOUR_LABEL = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00");
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final long NO_FUEL_TYPE = 0L;
+    private static final long MAX_HOURLY_BUCKETS = 24L * 31;
+
+    // Keys are applied in a fixed order so concurrent batches lock rollup rows in the same sequence
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparing(RollupKey::bucketStart)
+            .thenComparing(RollupKey::pumpId)
+            .thenComparing(RollupKey::fuelTypeId)
+            .thenComparing(RollupKey::paymentMethod);
+
+    private final SalesHourlyRollupRepository hourlyRollupRepository;
+    private final SalesDailyRollupRepository dailyRollupRepository;
+    private final SalesTopKService salesTopKService;
+    private final SalesPrefixIndexService salesPrefixIndexService;
+
+    @Override
+    public void recordSale(SaleTransaction saleTransaction, BigDecimal amount, BigDecimal quantity, long transactionCount) {
+        if (saleTransaction.getTransactedAt() == null) {
+            return;
+        }
+        applyDelta(keyOf(saleTransaction), new RollupDelta().add(amount, quantity, transactionCount));
+        salesTopKService.recordSale(saleTransaction, amount, quantity, transactionCount);
+    }
+
+    @Override
+    public void recordSales(Collection<SaleTransaction> saleTransactions) {
+        Map<RollupKey, RollupDelta> deltas = new TreeMap<>(KEY_ORDER);
+        for (SaleTransaction saleTransaction : saleTransactions) {
+            if (saleTransaction.getTransactedAt() != null) {
+                deltas.computeIfAbsent(keyOf(saleTransaction), key -> new RollupDelta())
+                        .add(saleTransaction.getTotalAmount(), saleTransaction.getQuantity(), 1);
+            }
+        }
+        deltas.forEach(this::applyDelta);
+        salesTopKService.recordSales(saleTransactions);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SalesRollupDTO> getHourlySales(Long pumpId, LocalDateTime start, LocalDateTime end) {
+        LocalDateTime from = start.truncatedTo(ChronoUnit.HOURS);
+        if (ChronoUnit.HOURS.between(from, end) > MAX_HOURLY_BUCKETS) {
+            throw new BusinessLogicException("Hourly sales can be requested for at most " + MAX_HOURLY_BUCKETS + " hours");
+        }
+        Map<LocalDateTime, Object[]> rows = new HashMap<>();
+        for (Object[] row : hourlyRollupRepository.sumByHour(pumpId, from, end)) {
+            rows.put((LocalDateTime) row[0], row);
+        }
+        List<SalesRollupDTO> buckets = new ArrayList<>();
+        for (LocalDateTime hour = from; hour.isBefore(end); hour = hour.plusHours(1)) {
+            buckets.add(toRollupDTO(hour.format(HOUR_LABEL), hour, rows.get(hour), 1));
+        }
+        return buckets;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SalesRollupDTO> getDailySales(Long pumpId, LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, Object[]> rows = new HashMap<>();
+        for (Object[] row : dailyRollupRepository.sumByDay(pumpId, startDate, endDate)) {
+            rows.put((LocalDate) row[0], row);
+        }
+        List<SalesRollupDTO> buckets = new ArrayList<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            buckets.add(toRollupDTO(day.toString(), day.atStartOfDay(), rows.get(day), 1));
+        }
+        return buckets;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SalesRollupDTO> getWeeklySales(Long pumpId, LocalDate startDate, LocalDate endDate) {
+        LocalDate firstWeek = startDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        Map<LocalDate, SalesRollupDTO> weeks = new LinkedHashMap<>();
+        for (LocalDate week = firstWeek; !week.isAfter(endDate); week = week.plusWeeks(1)) {
+            weeks.put(week, toRollupDTO(week.toString(), week.atStartOfDay(), null, 0));
+        }
+        for (SalesRollupDTO day : getDailySales(pumpId, firstWeek, endDate)) {
+            SalesRollupDTO week = weeks.get(day.getPeriodStart().toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+            week.setTotalAmount(week.getTotalAmount().add(day.getTotalAmount()));
+            week.setTotalQuantity(week.getTotalQuantity().add(day.getTotalQuantity()));
+            week.setTransactionCount(week.getTransactionCount() + day.getTransactionCount());
+        }
+        return new ArrayList<>(weeks.values());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SalesRollupDTO> getMonthlySales(Long pumpId, YearMonth startMonth, YearMonth endMonth) {
+        Map<YearMonth, Object[]> rows = new HashMap<>();
+        for (Object[] row : dailyRollupRepository.sumByMonth(pumpId, startMonth.atDay(1), endMonth.atEndOfMonth())) {
+            rows.put(YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue()), row);
+        }
+        List<SalesRollupDTO> buckets = new ArrayList<>();
+        for (YearMonth month = startMonth; !month.isAfter(endMonth); month = month.plusMonths(1)) {
+            buckets.add(toRollupDTO(month.format(MONTH_LABEL), month.atDay(1).atStartOfDay(), rows.get(month), 2));
+        }
+        return buckets;
+    }
+
+    @Override
+    public void rebuildRollups(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new BusinessLogicException("End date must not be before start date");
+        }
+        LocalDateTime start = startDate.atStartOfDay();
+        LocalDateTime end = endDate.plusDays(1).atStartOfDay();
+
+        hourlyRollupRepository.deleteRange(start, end);
+        int hourlyRows = hourlyRollupRepository.rebuildFromSales(start, end);
+        dailyRollupRepository.deleteRange(startDate, endDate);
+        int dailyRows = dailyRollupRepository.rebuildFromHourly(start, end);
+        log.info("Rebuilt sales rollups for {} to {}: {} hourly rows, {} daily rows", startDate, endDate, hourlyRows, dailyRows);
+        salesPrefixIndexService.rebuildAfterCommit();
+    }
+
+    private void applyDelta(RollupKey key, RollupDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        String paymentMethod = key.paymentMethod().name();
+        hourlyRollupRepository.upsert(key.pumpId(), key.fuelTypeId(), paymentMethod, key.bucketStart(),
+                delta.amount, delta.quantity, delta.transactions);
+        dailyRollupRepository.upsert(key.pumpId(), key.fuelTypeId(), paymentMethod, key.bucketStart().toLocalDate(),
+                delta.amount, delta.quantity, delta.transactions);
+        salesPrefixIndexService.recordDelta(key.pumpId(), key.bucketStart().toLocalDate(), delta.amount, delta.quantity,
+                delta.transactions);
+    }
+
+    private RollupKey keyOf(SaleTransaction saleTransaction) {
+        Long fuelTypeId = saleTransaction.getFuelType() != null ? saleTransaction.getFuelType().getId() : NO_FUEL_TYPE;
+        return new RollupKey(saleTransaction.getPumpId(), fuelTypeId, saleTransaction.getPaymentMethod(),
+                saleTransaction.getTransactedAt().truncatedTo(ChronoUnit.HOURS));
+    }
+
+    // offset is the index of the first measure column in the aggregate row
+    private SalesRollupDTO toRollupDTO(String label, LocalDateTime periodStart, Object[] row, int offset) {
+        return SalesRollupDTO.builder()
+                .period(label)
+                .periodStart(periodStart)
+                .totalAmount(row != null && row[offset] != null ? (BigDecimal) row[offset] : BigDecimal.ZERO)
+                .totalQuantity(row != null && row[offset + 1] != null ? (BigDecimal) row[offset + 1] : BigDecimal.ZERO)
+                .transactionCount(row != null && row[offset + 2] != null ? ((Number) row[offset + 2]).longValue() : 0L)
+                .build();
+    }
+
+    private record RollupKey(Long pumpId, Long fuelTypeId, SaleTransaction.PaymentMethod paymentMethod, LocalDateTime bucketStart) {
+    }
+
+    private static class RollupDelta {
+        private BigDecimal amount = BigDecimal.ZERO;
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private long transactions;
+
+        RollupDelta add(BigDecimal saleAmount, BigDecimal saleQuantity, long transactionCount) {
+            amount = amount.add(saleAmount != null ? saleAmount : BigDecimal.ZERO);
+            quantity = quantity.add(saleQuantity != null ? saleQuantity : BigDecimal.ZERO);
+            transactions += transactionCount;
+            return this;
+        }
+
+        boolean isEmpty() {
+            return amount.signum() == 0 && quantity.signum() == 0 && transactions == 0;
+        }
+    }
+}
@@ -3,18 +3,30 @@ package com.vijay.petrosoft.service.impl;
 import com.vijay.petrosoft.dto.*;
 import com.vijay.petrosoft.domain.*;
 import com.vijay.petrosoft.repository.*;
+import com.vijay.petrosoft.service.CreditExposureService;
+import com.vijay.petrosoft.service.CustomerAgeingService;
+import com.vijay.petrosoft.service.ReferenceDataCache;
+import com.vijay.petrosoft.service.SaleIdempotencyService;
+import com.vijay.petrosoft.service.SalesRollupService;
+import com.vijay.petrosoft.service.TankStockService;
 import com.vijay.petrosoft.service.SalesService;
+import com.vijay.petrosoft.service.VehicleService;
 import com.vijay.petrosoft.exception.ResourceNotFoundException;
 import com.vijay.petrosoft.exception.BusinessLogicException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,25 +35,50 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SalesServiceImpl implements SalesService {
 
+    private static final int MAX_SALE_BATCH_SIZE = 1000;
+    private static final DateTimeFormatter SALE_NUMBER_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+    // Suffix for sale numbers generated in the same millisecond; seeded randomly so instances started together diverge
+    private static final AtomicLong SALE_NUMBER_SEQUENCE = new AtomicLong(ThreadLocalRandom.current().nextInt(10000));
+    private static final Set<SaleTransaction.Status> COUNTED_SALE_STATUSES =
+            EnumSet.of(SaleTransaction.Status.COMPLETED, SaleTransaction.Status.PARTIALLY_REFUNDED);
+
     private final SaleRepository saleRepository;
     private final SaleItemRepository saleItemRepository;
     private final ShiftSalesSummaryRepository shiftSalesSummaryRepository;
     private final ShiftRepository shiftRepository;
     private final CustomerRepository customerRepository;
-    private final FuelTypeRepository fuelTypeRepository;
-    private final NozzleRepository nozzleRepository;
+    private final UserRepository userRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final SalesRollupService salesRollupService;
+    private final SaleIdempotencyService saleIdempotencyService;
+    private final VehicleService vehicleService;
+    private final CreditExposureService creditExposureService;
+    private final CustomerAgeingService customerAgeingService;
+    private final TankStockService tankStockService;
+
+    @Value("${sales.listing.pump-days:31}")
+    private int pumpListingDays;
 
     // Sale Transaction Operations
     @Override
     public SaleTransactionDTO createSaleTransaction(SaleTransactionDTO saleTransactionDTO) {
         log.info("Creating sale transaction for pump: {}", saleTransactionDTO.getPumpId());
+
+        // Terminal retries after a timeout get the original response instead of a second sale
+        Optional<SaleTransactionDTO> original = saleIdempotencyService.findOriginal(
+                saleTransactionDTO.getTerminalId(), saleTransactionDTO.getTransactionReference());
+        if (original.isPresent()) {
+            log.info("Replayed sale {} for terminal {} reference {}", original.get().getSaleNumber(),
+                    saleTransactionDTO.getTerminalId(), saleTransactionDTO.getTransactionReference());
+            return original.get();
+        }
         
         SaleTransaction saleTransaction = SaleTransaction.builder()
                 .pumpId(saleTransactionDTO.getPumpId())
-                .shift(shiftRepository.findById(saleTransactionDTO.getShiftId())
+                .shift(referenceDataCache.getShift(saleTransactionDTO.getShiftId())
                         .orElseThrow(() -> new ResourceNotFoundException("Shift not found with id: " + saleTransactionDTO.getShiftId())))
-                .nozzle(nozzleRepository.findById(saleTransactionDTO.getNozzleId()).orElse(null))
-                .fuelType(fuelTypeRepository.findById(saleTransactionDTO.getFuelTypeId())
+                .nozzle(referenceDataCache.getNozzle(saleTransactionDTO.getNozzleId()).orElse(null))
+                .fuelType(referenceDataCache.getFuelType(saleTransactionDTO.getFuelTypeId())
                         .orElseThrow(() -> new ResourceNotFoundException("Fuel type not found with id: " + saleTransactionDTO.getFuelTypeId())))
                 .customer(customerRepository.findById(saleTransactionDTO.getCustomerId()).orElse(null))
                 .saleNumber(generateSaleNumber(saleTransactionDTO.getPumpId()))
@@ -53,7 +90,7 @@ public class SalesServiceImpl implements SalesService {
                 .totalAmount(saleTransactionDTO.getTotalAmount())
                 .paymentMethod(saleTransactionDTO.getPaymentMethod())
                 .saleType(saleTransactionDTO.getSaleType())
-                .status(saleTransactionDTO.getStatus())
+                .status(saleTransactionDTO.getStatus() != null ? saleTransactionDTO.getStatus() : SaleTransaction.Status.COMPLETED)
                 .transactedAt(saleTransactionDTO.getTransactedAt())
                 .operatorId(saleTransactionDTO.getOperatorId())
                 .cashierId(saleTransactionDTO.getCashierId())
@@ -63,10 +100,309 @@ public class SalesServiceImpl implements SalesService {
                 .cardLastFour(saleTransactionDTO.getCardLastFour())
                 .cardType(saleTransactionDTO.getCardType())
                 .transactionReference(saleTransactionDTO.getTransactionReference())
+                .terminalId(saleTransactionDTO.getTerminalId())
                 .build();
+        saleTransaction.setVehicle(vehicleService.resolveVehicle(saleTransaction.getVehicleNumber(), saleTransaction.getCustomer()));
+        // Checked before the insert so an over-limit credit sale costs only the in-memory compare-and-add
+        if (saleTransaction.getStatus() == SaleTransaction.Status.COMPLETED) {
+            applyCreditExposure(saleTransaction, saleTransaction.getTotalAmount());
+        }
+
+        // Inserted through the key claim so a concurrent first attempt that won the terminal reference can be answered
+        Optional<SaleTransaction> stored = insertUnlessStored(saleTransaction);
+        if (stored.isPresent()) {
+            if (saleTransaction.getStatus() == SaleTransaction.Status.COMPLETED) {
+                applyCreditExposure(saleTransaction, saleTransaction.getTotalAmount().negate());
+            }
+            log.info("Sale for terminal {} reference {} was stored by a concurrent attempt as {}", saleTransaction.getTerminalId(),
+                    saleTransaction.getTransactionReference(), stored.get().getSaleNumber());
+            return convertToSaleTransactionDTO(stored.get());
+        }
+        SaleTransaction savedTransaction = saleTransaction;
+        if (savedTransaction.getStatus() == SaleTransaction.Status.COMPLETED) {
+            applySaleTotals(savedTransaction, 1);
+            customerAgeingService.recordCreditSale(savedTransaction, savedTransaction.getTotalAmount());
+        }
+        SaleTransactionDTO createdTransaction = convertToSaleTransactionDTO(savedTransaction);
+        saleIdempotencyService.remember(createdTransaction);
+        return createdTransaction;
+    }
 
-        SaleTransaction savedTransaction = saleRepository.save(saleTransaction);
-        return convertToSaleTransactionDTO(savedTransaction);
+    @Override
+    public SaleBatchResultDTO createSaleTransactionsBatch(List<SaleTransactionDTO> saleTransactionDTOs) {
+        return insertSaleBatch(saleTransactionDTOs, false);
+    }
+
+    @Override
+    public SaleBatchResultDTO commitJournaledSales(List<SaleTransactionDTO> saleTransactionDTOs) {
+        return insertSaleBatch(saleTransactionDTOs, true);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void validateJournaledSale(SaleTransactionDTO saleTransactionDTO) {
+        Map<Long, Shift> shifts = resolveReferences(collectIds(List.of(saleTransactionDTO), SaleTransactionDTO::getShiftId), referenceDataCache::getShift);
+        Map<Long, Nozzle> nozzles = resolveReferences(collectIds(List.of(saleTransactionDTO), SaleTransactionDTO::getNozzleId), referenceDataCache::getNozzle);
+        Map<Long, FuelType> fuelTypes = resolveReferences(collectIds(List.of(saleTransactionDTO), SaleTransactionDTO::getFuelTypeId), referenceDataCache::getFuelType);
+        Map<Long, Customer> customers = resolveReferences(collectIds(List.of(saleTransactionDTO), SaleTransactionDTO::getCustomerId), customerRepository::findById);
+        String error = validateBatchSale(saleTransactionDTO, shifts, nozzles, fuelTypes, customers);
+        if (error != null) {
+            throw new BusinessLogicException(error);
+        }
+    }
+
+    // Journaled sales arrive with a sale number assigned at acknowledgement time; rows whose number already
+    // exists were committed before a restart and are reported as successful instead of being inserted again
+    private SaleBatchResultDTO insertSaleBatch(List<SaleTransactionDTO> saleTransactionDTOs, boolean assignedSaleNumbers) {
+        if (saleTransactionDTOs == null || saleTransactionDTOs.isEmpty()) {
+            throw new BusinessLogicException("Sale batch must contain at least one transaction");
+        }
+        if (saleTransactionDTOs.size() > MAX_SALE_BATCH_SIZE) {
+            throw new BusinessLogicException("Sale batch cannot exceed " + MAX_SALE_BATCH_SIZE + " transactions");
+        }
+        log.info("Creating batch of {} sale transactions", saleTransactionDTOs.size());
+
+        // Reference data comes from the in-process cache; customers are resolved with a single query
+        Map<Long, Shift> shifts = resolveReferences(collectIds(saleTransactionDTOs, SaleTransactionDTO::getShiftId), referenceDataCache::getShift);
+        Map<Long, Nozzle> nozzles = resolveReferences(collectIds(saleTransactionDTOs, SaleTransactionDTO::getNozzleId), referenceDataCache::getNozzle);
+        Map<Long, FuelType> fuelTypes = resolveReferences(collectIds(saleTransactionDTOs, SaleTransactionDTO::getFuelTypeId), referenceDataCache::getFuelType);
+        Map<Long, Customer> customers = customerRepository.findAllById(collectIds(saleTransactionDTOs, SaleTransactionDTO::getCustomerId)).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        Map<String, Customer> vehicleOwners = new HashMap<>();
+        for (SaleTransactionDTO dto : saleTransactionDTOs) {
+            if (dto != null && dto.getVehicleNumber() != null) {
+                vehicleOwners.putIfAbsent(dto.getVehicleNumber(), dto.getCustomerId() != null ? customers.get(dto.getCustomerId()) : null);
+            }
+        }
+        Map<String, Vehicle> vehicles = vehicleService.resolveVehicles(vehicleOwners);
+
+        Map<String, Long> committedSaleNumbers = new HashMap<>();
+        if (assignedSaleNumbers) {
+            Set<String> saleNumbers = saleTransactionDTOs.stream()
+                    .filter(Objects::nonNull)
+                    .map(SaleTransactionDTO::getSaleNumber)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            for (Object[] row : saleRepository.findIdsBySaleNumbers(saleNumbers)) {
+                committedSaleNumbers.put((String) row[0], (Long) row[1]);
+            }
+        }
+
+        LocalDateTime batchTime = LocalDateTime.now();
+        List<SaleTransactionDTO> dtosToInsert = new ArrayList<>();
+        List<SaleBatchResultDTO.ItemResultDTO> results = new ArrayList<>(saleTransactionDTOs.size());
+        List<SaleTransaction> salesToInsert = new ArrayList<>();
+        List<SaleBatchResultDTO.ItemResultDTO> insertedResults = new ArrayList<>();
+        Map<String, SaleBatchResultDTO.ItemResultDTO> firstByIdempotencyKey = new HashMap<>();
+        Map<Integer, SaleBatchResultDTO.ItemResultDTO> repeatedInBatch = new HashMap<>();
+        Map<Long, BigDecimal> creditByCustomer = new HashMap<>();
+
+        for (int i = 0; i < saleTransactionDTOs.size(); i++) {
+            SaleTransactionDTO dto = saleTransactionDTOs.get(i);
+            SaleBatchResultDTO.ItemResultDTO itemResult = SaleBatchResultDTO.ItemResultDTO.builder()
+                    .index(i)
+                    .transactionReference(dto != null ? dto.getTransactionReference() : null)
+                    .build();
+            results.add(itemResult);
+
+            if (assignedSaleNumbers && dto != null && committedSaleNumbers.containsKey(dto.getSaleNumber())) {
+                itemResult.setSuccess(true);
+                itemResult.setSaleId(committedSaleNumbers.get(dto.getSaleNumber()));
+                itemResult.setSaleNumber(dto.getSaleNumber());
+                continue;
+            }
+
+            // A journaled sale finds its own acknowledgement under its key; only a different sale number is a replay
+            Optional<SaleTransactionDTO> original = dto != null
+                    ? saleIdempotencyService.findOriginal(dto.getTerminalId(), dto.getTransactionReference())
+                    : Optional.empty();
+            if (original.isPresent() && !Objects.equals(original.get().getSaleNumber(), dto.getSaleNumber())) {
+                itemResult.setSuccess(true);
+                itemResult.setSaleId(original.get().getId());
+                itemResult.setSaleNumber(original.get().getSaleNumber());
+                continue;
+            }
+
+            String error = validateBatchSale(dto, shifts, nozzles, fuelTypes, customers);
+            if (error == null && assignedSaleNumbers && (dto.getSaleNumber() == null || dto.getSaleNumber().isBlank())) {
+                error = "Sale number is required";
+            }
+            if (error != null) {
+                itemResult.setError(error);
+                continue;
+            }
+
+            String idempotencyKey = null;
+            if (dto.getTransactionReference() != null && !dto.getTransactionReference().isBlank()) {
+                idempotencyKey = dto.getTerminalId() + "|" + dto.getTransactionReference();
+                SaleBatchResultDTO.ItemResultDTO first = firstByIdempotencyKey.putIfAbsent(idempotencyKey, itemResult);
+                if (first != null) {
+                    repeatedInBatch.put(i, first);
+                    continue;
+                }
+            }
+
+            // Journaled sales were dispensed and acknowledged already, so they are charged without a limit check
+            if (isCreditSale(dto) && (dto.getStatus() == null || dto.getStatus() == SaleTransaction.Status.COMPLETED)) {
+                if (!assignedSaleNumbers && !creditExposureService.tryReserve(dto.getCustomerId(), dto.getTotalAmount())) {
+                    itemResult.setError("Credit limit exceeded for customer " + dto.getCustomerId());
+                    if (idempotencyKey != null) {
+                        firstByIdempotencyKey.remove(idempotencyKey);
+                    }
+                    continue;
+                }
+                creditByCustomer.merge(dto.getCustomerId(), dto.getTotalAmount(), BigDecimal::add);
+            }
+
+            SaleTransaction saleTransaction = SaleTransaction.builder()
+                    .pumpId(dto.getPumpId())
+                    .shift(shifts.get(dto.getShiftId()))
+                    .nozzle(dto.getNozzleId() != null ? nozzles.get(dto.getNozzleId()) : null)
+                    .fuelType(fuelTypes.get(dto.getFuelTypeId()))
+                    .customer(dto.getCustomerId() != null ? customers.get(dto.getCustomerId()) : null)
+                    .saleNumber(assignedSaleNumbers
+                            ? dto.getSaleNumber()
+                            : generateSaleNumber(dto.getPumpId()))
+                    .quantity(dto.getQuantity())
+                    .rate(dto.getRate())
+                    .amount(dto.getAmount())
+                    .discountAmount(dto.getDiscountAmount() != null ? dto.getDiscountAmount() : BigDecimal.ZERO)
+                    .taxAmount(dto.getTaxAmount() != null ? dto.getTaxAmount() : BigDecimal.ZERO)
+                    .totalAmount(dto.getTotalAmount())
+                    .paymentMethod(dto.getPaymentMethod())
+                    .saleType(dto.getSaleType())
+                    .status(dto.getStatus() != null ? dto.getStatus() : SaleTransaction.Status.COMPLETED)
+                    .transactedAt(dto.getTransactedAt())
+                    .operatorId(dto.getOperatorId())
+                    .cashierId(dto.getCashierId())
+                    .vehicleNumber(dto.getVehicleNumber())
+                    .driverName(dto.getDriverName())
+                    .notes(dto.getNotes())
+                    .cardLastFour(dto.getCardLastFour())
+                    .cardType(dto.getCardType())
+                    .transactionReference(dto.getTransactionReference())
+                    .terminalId(dto.getTerminalId())
+                    .vehicle(vehicles.get(vehicleService.normalizeRegistration(dto.getVehicleNumber())))
+                    .build();
+            saleTransaction.setCreatedAt(batchTime);
+
+            salesToInsert.add(saleTransaction);
+            dtosToInsert.add(dto);
+            insertedResults.add(itemResult);
+        }
+
+        Map<Integer, String> insertErrors = new HashMap<>();
+        Map<Integer, SaleTransaction> storedReplays = new HashMap<>();
+        insertClaimingKeys(salesToInsert, insertErrors, storedReplays);
+        if (!insertErrors.isEmpty() || !storedReplays.isEmpty()) {
+            List<SaleTransaction> insertedSales = new ArrayList<>();
+            List<SaleBatchResultDTO.ItemResultDTO> succeeded = new ArrayList<>();
+            for (int i = 0; i < salesToInsert.size(); i++) {
+                String insertError = insertErrors.get(i);
+                SaleTransaction stored = storedReplays.get(i);
+                if (insertError == null && stored == null) {
+                    insertedSales.add(salesToInsert.get(i));
+                    succeeded.add(insertedResults.get(i));
+                    continue;
+                }
+                // A sale stored by a concurrent attempt is answered like any other replay
+                if (stored != null) {
+                    insertedResults.get(i).setSuccess(true);
+                    insertedResults.get(i).setSaleId(stored.getId());
+                    insertedResults.get(i).setSaleNumber(stored.getSaleNumber());
+                } else {
+                    insertedResults.get(i).setError(insertError);
+                }
+                SaleTransactionDTO dto = dtosToInsert.get(i);
+                if (isCreditSale(dto) && creditByCustomer.containsKey(dto.getCustomerId())) {
+                    creditByCustomer.merge(dto.getCustomerId(), dto.getTotalAmount().negate(), BigDecimal::add);
+                    if (!assignedSaleNumbers) {
+                        creditExposureService.release(dto.getCustomerId(), dto.getTotalAmount());
+                    }
+                }
+            }
+            salesToInsert = insertedSales;
+            insertedResults = succeeded;
+        }
+        if (assignedSaleNumbers) {
+            new TreeMap<>(creditByCustomer).forEach(creditExposureService::charge);
+        } else {
+            creditExposureService.persistReservations(creditByCustomer);
+        }
+
+        Map<Long, ShiftTotalsDelta> shiftDeltas = new HashMap<>();
+        List<SaleTransaction> completedSales = new ArrayList<>();
+        for (SaleTransaction sale : salesToInsert) {
+            if (sale.getStatus() == SaleTransaction.Status.COMPLETED) {
+                shiftDeltas.computeIfAbsent(sale.getShift().getId(), shiftId -> new ShiftTotalsDelta())
+                        .add(sale.getPaymentMethod(), sale.getTotalAmount(), sale.getQuantity(), 1);
+                completedSales.add(sale);
+            }
+        }
+        shiftDeltas.forEach(this::applyShiftTotals);
+        salesRollupService.recordSales(completedSales);
+        vehicleService.recordSales(completedSales);
+        tankStockService.recordSales(completedSales);
+        customerAgeingService.recordCreditSales(completedSales);
+
+        for (int i = 0; i < salesToInsert.size(); i++) {
+            SaleBatchResultDTO.ItemResultDTO itemResult = insertedResults.get(i);
+            itemResult.setSuccess(true);
+            itemResult.setSaleId(salesToInsert.get(i).getId());
+            itemResult.setSaleNumber(salesToInsert.get(i).getSaleNumber());
+            if (salesToInsert.get(i).getTransactionReference() != null) {
+                saleIdempotencyService.remember(convertToSaleTransactionDTO(salesToInsert.get(i)));
+            }
+        }
+        repeatedInBatch.forEach((index, first) -> {
+            SaleBatchResultDTO.ItemResultDTO repeat = results.get(index);
+            repeat.setSuccess(first.isSuccess());
+            repeat.setSaleId(first.getSaleId());
+            repeat.setSaleNumber(first.getSaleNumber());
+            repeat.setError(first.getError());
+        });
+
+        int successCount = (int) results.stream().filter(SaleBatchResultDTO.ItemResultDTO::isSuccess).count();
+        log.info("Sale batch completed: {} created, {} rejected", salesToInsert.size(), results.size() - successCount);
+        return SaleBatchResultDTO.builder()
+                .totalCount(results.size())
+                .successCount(successCount)
+                .failureCount(results.size() - successCount)
+                .results(results)
+                .build();
+    }
+
+    // Each sale claims its number and terminal reference in sale_keys as part of the insert, so no savepoint is needed.
+    // A sale whose reference a concurrent first attempt already claimed gets that attempt's stored sale back; one whose
+    // number is taken is reported as failed. Any other database error fails the whole batch
+    private void insertClaimingKeys(List<SaleTransaction> sales, Map<Integer, String> errors,
+                                    Map<Integer, SaleTransaction> storedReplays) {
+        if (sales.isEmpty()) {
+            return;
+        }
+        saleRepository.batchInsert(sales).forEach((index, conflict) -> {
+            SaleTransaction sale = sales.get(index);
+            Optional<SaleTransaction> stored = conflict.sameReference()
+                    ? saleRepository.findStoredById(conflict.holderId())
+                    : Optional.empty();
+            if (stored.isPresent()) {
+                storedReplays.put(index, stored.get());
+            } else {
+                log.warn("Sale {} lost its keys to sale {}", sale.getSaleNumber(), conflict.holderId());
+                errors.put(index, "Sale number " + sale.getSaleNumber() + " is already in use");
+            }
+            sale.setId(null);
+        });
+    }
+
+    private Optional<SaleTransaction> insertUnlessStored(SaleTransaction sale) {
+        Map<Integer, String> errors = new HashMap<>();
+        Map<Integer, SaleTransaction> storedReplays = new HashMap<>();
+        insertClaimingKeys(List.of(sale), errors, storedReplays);
+        if (errors.containsKey(0)) {
+            throw new BusinessLogicException(errors.get(0));
+        }
+        return Optional.ofNullable(storedReplays.get(0));
     }
 
     @Override
@@ -76,18 +412,56 @@ public class SalesServiceImpl implements SalesService {
         SaleTransaction saleTransaction = saleRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Sale transaction not found with id: " + id));
 
+        // Amounts the request leaves out keep their stored values
+        BigDecimal quantity = saleTransactionDTO.getQuantity() != null ? saleTransactionDTO.getQuantity() : saleTransaction.getQuantity();
+        BigDecimal totalAmount = saleTransactionDTO.getTotalAmount() != null ? saleTransactionDTO.getTotalAmount() : saleTransaction.getTotalAmount();
+        if (quantity.signum() <= 0) {
+            throw new BusinessLogicException("Quantity must be greater than 0");
+        }
+        if (totalAmount.signum() <= 0) {
+            throw new BusinessLogicException("Total amount must be greater than 0");
+        }
+        if (saleTransaction.getRefundedAmount() != null && totalAmount.compareTo(saleTransaction.getRefundedAmount()) < 0) {
+            throw new BusinessLogicException("Total amount cannot be less than the " + saleTransaction.getRefundedAmount() + " already refunded");
+        }
+
+        // Completed and partially refunded sales count at their net amount. The vehicle may change, so its monthly
+        // summary and the tank book are backed out in full and re-applied after the update
+        boolean counted = COUNTED_SALE_STATUSES.contains(saleTransaction.getStatus());
+        BigDecimal previousNet = netAmount(saleTransaction);
+        BigDecimal previousQuantity = saleTransaction.getQuantity();
+        if (counted) {
+            vehicleService.recordSale(saleTransaction, previousNet.negate(), previousQuantity.negate(), -1);
+            tankStockService.recordSale(saleTransaction, previousQuantity.negate());
+        }
+
         // Update fields
-        saleTransaction.setQuantity(saleTransactionDTO.getQuantity());
-        saleTransaction.setRate(saleTransactionDTO.getRate());
-        saleTransaction.setAmount(saleTransactionDTO.getAmount());
-        saleTransaction.setDiscountAmount(saleTransactionDTO.getDiscountAmount());
-        saleTransaction.setTaxAmount(saleTransactionDTO.getTaxAmount());
-        saleTransaction.setTotalAmount(saleTransactionDTO.getTotalAmount());
+        saleTransaction.setQuantity(quantity);
+        saleTransaction.setRate(saleTransactionDTO.getRate() != null ? saleTransactionDTO.getRate() : saleTransaction.getRate());
+        saleTransaction.setAmount(saleTransactionDTO.getAmount() != null ? saleTransactionDTO.getAmount() : saleTransaction.getAmount());
+        saleTransaction.setDiscountAmount(saleTransactionDTO.getDiscountAmount() != null ? saleTransactionDTO.getDiscountAmount() : saleTransaction.getDiscountAmount());
+        saleTransaction.setTaxAmount(saleTransactionDTO.getTaxAmount() != null ? saleTransactionDTO.getTaxAmount() : saleTransaction.getTaxAmount());
+        saleTransaction.setTotalAmount(totalAmount);
         saleTransaction.setVehicleNumber(saleTransactionDTO.getVehicleNumber());
+        saleTransaction.setVehicle(vehicleService.resolveVehicle(saleTransactionDTO.getVehicleNumber(), saleTransaction.getCustomer()));
         saleTransaction.setDriverName(saleTransactionDTO.getDriverName());
         saleTransaction.setNotes(saleTransactionDTO.getNotes());
 
         SaleTransaction updatedTransaction = saleRepository.save(saleTransaction);
+        if (counted) {
+            BigDecimal net = netAmount(updatedTransaction);
+            vehicleService.recordSale(updatedTransaction, net, updatedTransaction.getQuantity(), 1);
+            tankStockService.recordSale(updatedTransaction, updatedTransaction.getQuantity());
+            applyCreditExposure(updatedTransaction, net.subtract(previousNet));
+            customerAgeingService.recordCreditSale(updatedTransaction, net.subtract(previousNet));
+            ShiftTotalsDelta shiftDelta = new ShiftTotalsDelta();
+            shiftDelta.add(updatedTransaction.getPaymentMethod(), net.subtract(previousNet),
+                    updatedTransaction.getQuantity().subtract(previousQuantity), 0);
+            salesRollupService.recordSale(updatedTransaction, shiftDelta.totalAmount, shiftDelta.quantity, 0);
+            if (updatedTransaction.getShift() != null) {
+                applyShiftTotals(updatedTransaction.getShift().getId(), shiftDelta);
+            }
+        }
         return convertToSaleTransactionDTO(updatedTransaction);
     }
 
@@ -106,61 +480,54 @@ public class SalesServiceImpl implements SalesService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getSalesByPump(Long pumpId) {
-        List<SaleTransaction> sales = saleRepository.findByPumpIdOrderByTransactedAtDesc(pumpId);
-        return sales.stream()
-                .map(this::convertToSaleTransactionDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findListingsByPumpSince(pumpId, LocalDateTime.now().minusDays(pumpListingDays));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getSalesByShift(Long shiftId) {
-        List<SaleTransaction> sales = saleRepository.findByShiftIdOrderByTransactedAtDesc(shiftId);
-        return sales.stream()
-                .map(this::convertToSaleTransactionDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findListingsByShift(shiftId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getSalesByDateRange(Long pumpId, LocalDateTime startDate, LocalDateTime endDate) {
-        List<SaleTransaction> sales = saleRepository.findByPumpIdAndTransactedAtBetween(pumpId, startDate, endDate);
-        return sales.stream()
-                .map(this::convertToSaleTransactionDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findHistoricalListingsByPumpAndDateRange(pumpId, startDate, endDate);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getSalesByOperator(Long operatorId, LocalDateTime startDate, LocalDateTime endDate) {
-        List<SaleTransaction> sales = saleRepository.findByOperatorIdAndTransactedAtBetween(operatorId, startDate, endDate);
-        return sales.stream()
-                .map(this::convertToSaleTransactionDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findListingsByOperatorAndDateRange(operatorId, startDate, endDate);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getSalesByCashier(Long cashierId, LocalDateTime startDate, LocalDateTime endDate) {
-        List<SaleTransaction> sales = saleRepository.findByCashierIdAndTransactedAtBetween(cashierId, startDate, endDate);
-        return sales.stream()
-                .map(this::convertToSaleTransactionDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findListingsByCashierAndDateRange(cashierId, startDate, endDate);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getSalesByPaymentMethod(Long pumpId, SaleTransaction.PaymentMethod paymentMethod) {
-        List<SaleTransaction> sales = saleRepository.findByPumpIdAndPaymentMethod(pumpId, paymentMethod);
-        return sales.stream()
-                .map(this::convertToSaleTransactionDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findListingsByPumpAndPaymentMethod(pumpId, paymentMethod);
     }
 
 
     @Override
     public void deleteSaleTransaction(Long id) {
         log.info("Deleting sale transaction: {}", id);
-        if (!saleRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Sale transaction not found with id: " + id);
+        SaleTransaction saleTransaction = saleRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Sale transaction not found with id: " + id));
+        if (COUNTED_SALE_STATUSES.contains(saleTransaction.getStatus())) {
+            applySaleTotals(saleTransaction, -1);
+            applyCreditExposure(saleTransaction, netAmount(saleTransaction).negate());
+            customerAgeingService.recordCreditSale(saleTransaction, netAmount(saleTransaction).negate());
         }
-        saleRepository.deleteById(id);
+        saleRepository.deleteKeys(id);
+        saleRepository.delete(saleTransaction);
     }
 
     @Override
@@ -178,6 +545,9 @@ public class SalesServiceImpl implements SalesService {
         saleTransaction.setNotes(saleTransaction.getNotes() + " [CANCELLED: " + reason + "]");
 
         SaleTransaction cancelledTransaction = saleRepository.save(saleTransaction);
+        applySaleTotals(cancelledTransaction, -1);
+        applyCreditExposure(cancelledTransaction, cancelledTransaction.getTotalAmount().negate());
+        customerAgeingService.recordCreditSale(cancelledTransaction, cancelledTransaction.getTotalAmount().negate());
         return convertToSaleTransactionDTO(cancelledTransaction);
     }
 
@@ -201,19 +571,31 @@ public class SalesServiceImpl implements SalesService {
                 : SaleTransaction.Status.PARTIALLY_REFUNDED;
         
         saleTransaction.setStatus(newStatus);
+        saleTransaction.setRefundedAmount(refundAmount);
         saleTransaction.setNotes(saleTransaction.getNotes() + " [REFUNDED: " + refundAmount + " - " + reason + "]");
 
         SaleTransaction refundedTransaction = saleRepository.save(saleTransaction);
+        // A full refund also reverses the dispensed volume and the transaction count; a partial one only the money
+        boolean fullRefund = newStatus == SaleTransaction.Status.REFUNDED;
+        ShiftTotalsDelta shiftDelta = new ShiftTotalsDelta();
+        shiftDelta.add(refundedTransaction.getPaymentMethod(), refundAmount.negate(),
+                fullRefund ? refundedTransaction.getQuantity().negate() : BigDecimal.ZERO, fullRefund ? -1 : 0);
+        salesRollupService.recordSale(refundedTransaction, shiftDelta.totalAmount, shiftDelta.quantity, shiftDelta.transactions);
+        vehicleService.recordSale(refundedTransaction, shiftDelta.totalAmount, shiftDelta.quantity, shiftDelta.transactions);
+        tankStockService.recordSale(refundedTransaction, shiftDelta.quantity);
+        applyCreditExposure(refundedTransaction, refundAmount.negate());
+        customerAgeingService.recordCreditSale(refundedTransaction, refundAmount.negate());
+        if (refundedTransaction.getShift() != null) {
+            applyShiftTotals(refundedTransaction.getShift().getId(), shiftDelta);
+        }
         return convertToSaleTransactionDTO(refundedTransaction);
     }
 
     // Helper Methods
     @Override
     public String generateSaleNumber(Long pumpId) {
-        String dateStr = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String pumpStr = String.format("%03d", pumpId);
-        String timeStr = LocalDateTime.now().format(DateTimeFormatter.ofPattern("HHmmss"));
-        return "S" + pumpStr + dateStr + timeStr;
+        return "S" + String.format("%03d", pumpId) + LocalDateTime.now().format(SALE_NUMBER_FORMAT)
+                + String.format("%04d", SALE_NUMBER_SEQUENCE.getAndIncrement() % 10000);
     }
 
     @Override
@@ -224,37 +606,154 @@ public class SalesServiceImpl implements SalesService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, BigDecimal> getSalesTotalsByPaymentMethod(Long shiftId) {
         Map<String, BigDecimal> totals = new HashMap<>();
-        
         for (SaleTransaction.PaymentMethod method : SaleTransaction.PaymentMethod.values()) {
-            Double amount = saleRepository.sumTotalAmountByShiftIdAndPaymentMethod(shiftId, method);
-            totals.put(method.name(), BigDecimal.valueOf(amount != null ? amount : 0.0));
+            totals.put(method.name(), BigDecimal.ZERO);
+        }
+        for (ShiftSalesBreakdownDTO row : saleRepository.summarizeShiftSales(shiftId, COUNTED_SALE_STATUSES)) {
+            totals.merge(row.getPaymentMethod().name(), row.getTotalAmount(), BigDecimal::add);
         }
-        
         return totals;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, BigDecimal> getSalesTotalsByFuelType(Long shiftId) {
-        // Implementation would require a custom query
-        // For now, return empty map
-        return new HashMap<>();
+        Map<String, BigDecimal> totals = new HashMap<>();
+        for (ShiftSalesBreakdownDTO row : saleRepository.summarizeShiftSales(shiftId, COUNTED_SALE_STATUSES)) {
+            String fuelTypeName = row.getFuelTypeName() != null ? row.getFuelTypeName() : "UNKNOWN";
+            totals.merge(fuelTypeName, row.getTotalAmount(), BigDecimal::add);
+        }
+        return totals;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<SaleTransactionDTO> getCreditSalesByCustomer(Long customerId) {
-        List<SaleTransaction> sales = saleRepository.findCreditSalesByCustomer(customerId);
-        return sales.stream()
-                .map(this::convertToSaleTransactionDTO)
-                .collect(Collectors.toList());
+        return saleRepository.findCreditSaleListingsByCustomer(customerId);
     }
 
     @Override
     public BigDecimal getCustomerOutstandingBalance(Long customerId) {
-        // Implementation would require calculating outstanding credit sales
-        // For now, return zero
-        return BigDecimal.ZERO;
+        return creditExposureService.getExposure(customerId).getOutstanding();
+    }
+
+    private Set<Long> collectIds(List<SaleTransactionDTO> saleTransactionDTOs, Function<SaleTransactionDTO, Long> idExtractor) {
+        return saleTransactionDTOs.stream()
+                .filter(Objects::nonNull)
+                .map(idExtractor)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private void applySaleTotals(SaleTransaction saleTransaction, int direction) {
+        BigDecimal sign = BigDecimal.valueOf(direction);
+        BigDecimal amount = netAmount(saleTransaction).multiply(sign);
+        BigDecimal quantity = saleTransaction.getQuantity().multiply(sign);
+        salesRollupService.recordSale(saleTransaction, amount, quantity, direction);
+        vehicleService.recordSale(saleTransaction, amount, quantity, direction);
+        tankStockService.recordSale(saleTransaction, quantity);
+        if (saleTransaction.getShift() == null) {
+            return;
+        }
+        ShiftTotalsDelta shiftDelta = new ShiftTotalsDelta();
+        shiftDelta.add(saleTransaction.getPaymentMethod(), amount, quantity, direction);
+        applyShiftTotals(saleTransaction.getShift().getId(), shiftDelta);
+    }
+
+    // What a sale counts for in totals: a partially refunded sale counts at its total less the refund
+    private static BigDecimal netAmount(SaleTransaction saleTransaction) {
+        return saleTransaction.getRefundedAmount() != null
+                ? saleTransaction.getTotalAmount().subtract(saleTransaction.getRefundedAmount())
+                : saleTransaction.getTotalAmount();
+    }
+
+    // Positive amounts reserve credit against the customer's limit; negative amounts release it
+    private void applyCreditExposure(SaleTransaction saleTransaction, BigDecimal amount) {
+        if (saleTransaction.getPaymentMethod() != SaleTransaction.PaymentMethod.CREDIT || saleTransaction.getCustomer() == null) {
+            return;
+        }
+        if (amount.signum() > 0) {
+            creditExposureService.reserve(saleTransaction.getCustomer().getId(), amount);
+        } else if (amount.signum() < 0) {
+            creditExposureService.release(saleTransaction.getCustomer().getId(), amount.negate());
+        }
+    }
+
+    private boolean isCreditSale(SaleTransactionDTO dto) {
+        return dto.getPaymentMethod() == SaleTransaction.PaymentMethod.CREDIT && dto.getCustomerId() != null && dto.getTotalAmount() != null;
+    }
+
+    private void applyShiftTotals(Long shiftId, ShiftTotalsDelta shiftDelta) {
+        shiftRepository.incrementSalesTotals(shiftId, shiftDelta.totalAmount, shiftDelta.cashAmount, shiftDelta.cardAmount,
+                shiftDelta.creditAmount, shiftDelta.quantity, shiftDelta.transactions);
+    }
+
+    private <T> Map<Long, T> resolveReferences(Set<Long> ids, Function<Long, Optional<T>> lookup) {
+        Map<Long, T> resolved = new HashMap<>();
+        for (Long id : ids) {
+            lookup.apply(id).ifPresent(entity -> resolved.put(id, entity));
+        }
+        return resolved;
+    }
+
+    private String validateBatchSale(SaleTransactionDTO dto, Map<Long, Shift> shifts, Map<Long, Nozzle> nozzles,
+                                     Map<Long, FuelType> fuelTypes, Map<Long, Customer> customers) {
+        if (dto == null) {
+            return "Sale transaction is required";
+        }
+        if (dto.getPumpId() == null) {
+            return "Pump ID is required";
+        }
+        if (dto.getQuantity() == null || dto.getQuantity().signum() <= 0) {
+            return "Quantity must be greater than 0";
+        }
+        if (dto.getRate() == null || dto.getRate().signum() <= 0) {
+            return "Rate must be greater than 0";
+        }
+        if (dto.getAmount() == null || dto.getAmount().signum() <= 0) {
+            return "Amount must be greater than 0";
+        }
+        if (dto.getTotalAmount() == null || dto.getTotalAmount().signum() <= 0) {
+            return "Total amount must be greater than 0";
+        }
+        if (dto.getPaymentMethod() == null) {
+            return "Payment method is required";
+        }
+        if (dto.getSaleType() == null) {
+            return "Sale type is required";
+        }
+        if (dto.getTransactedAt() == null) {
+            return "Transaction date is required";
+        }
+        if (dto.getShiftId() == null || !shifts.containsKey(dto.getShiftId())) {
+            return "Shift not found with id: " + dto.getShiftId();
+        }
+        if (!dto.getPumpId().equals(shifts.get(dto.getShiftId()).getPumpId())) {
+            return "Shift " + dto.getShiftId() + " does not belong to pump: " + dto.getPumpId();
+        }
+        if (dto.getFuelTypeId() == null || !fuelTypes.containsKey(dto.getFuelTypeId())) {
+            return "Fuel type not found with id: " + dto.getFuelTypeId();
+        }
+        if (dto.getNozzleId() != null && !nozzles.containsKey(dto.getNozzleId())) {
+            return "Nozzle not found with id: " + dto.getNozzleId();
+        }
+        if (dto.getCustomerId() != null && !customers.containsKey(dto.getCustomerId())) {
+            return "Customer not found with id: " + dto.getCustomerId();
+        }
+        if (exceedsLength(dto.getVehicleNumber(), 20) || exceedsLength(dto.getDriverName(), 100)
+                || exceedsLength(dto.getNotes(), 500) || exceedsLength(dto.getCardLastFour(), 4)
+                || exceedsLength(dto.getCardType(), 20) || exceedsLength(dto.getTransactionReference(), 100)
+                || exceedsLength(dto.getTerminalId(), 50)) {
+            return "One or more text fields exceed the maximum length";
+        }
+        return null;
+    }
+
+    private boolean exceedsLength(String value, int maxLength) {
+        return value != null && value.length() > maxLength;
     }
 
     // Conversion methods
@@ -285,6 +784,36 @@ public class SalesServiceImpl implements SalesService {
                 .cardLastFour(saleTransaction.getCardLastFour())
                 .cardType(saleTransaction.getCardType())
                 .transactionReference(saleTransaction.getTransactionReference())
+                .terminalId(saleTransaction.getTerminalId())
+                .vehicleId(saleTransaction.getVehicle() != null ? saleTransaction.getVehicle().getId() : null)
+                .build();
+    }
+
+    private ShiftSalesSummaryDTO convertToShiftSalesSummaryDTO(ShiftSalesSummary summary) {
+        return ShiftSalesSummaryDTO.builder()
+                .id(summary.getId())
+                .shiftId(summary.getShift() != null ? summary.getShift().getId() : null)
+                .pumpId(summary.getPumpId())
+                .cashierId(summary.getCashier() != null ? summary.getCashier().getId() : null)
+                .totalSales(summary.getTotalSales())
+                .cashSales(summary.getCashSales())
+                .cardSales(summary.getCardSales())
+                .creditSales(summary.getCreditSales())
+                .upiSales(summary.getUpiSales())
+                .walletSales(summary.getWalletSales())
+                .totalQuantity(summary.getTotalQuantity())
+                .totalTransactions(summary.getTotalTransactions())
+                .cashTransactions(summary.getCashTransactions())
+                .cardTransactions(summary.getCardTransactions())
+                .creditTransactions(summary.getCreditTransactions())
+                .openingReading(summary.getOpeningReading())
+                .closingReading(summary.getClosingReading())
+                .salesDate(summary.getSalesDate())
+                .status(summary.getStatus())
+                .notes(summary.getNotes())
+                .generatedBy(summary.getGeneratedBy())
+                .approvedBy(summary.getApprovedBy())
+                .approvedAt(summary.getApprovedAt())
                 .build();
     }
 
@@ -343,9 +872,12 @@ public class SalesServiceImpl implements SalesService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ShiftSalesSummaryDTO getShiftSalesSummaryByShift(Long shiftId) {
-        // Implementation needed
-        return null;
+        return shiftSalesSummaryRepository.findByShiftIdOrderBySalesDateDesc(shiftId).stream()
+                .findFirst()
+                .map(this::convertToShiftSalesSummaryDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("Shift sales summary not found for shift: " + shiftId));
     }
 
     @Override
@@ -367,8 +899,72 @@ public class SalesServiceImpl implements SalesService {
 
     @Override
     public ShiftSalesSummaryDTO generateShiftSalesSummary(Long shiftId) {
-        // Implementation needed
-        return null;
+        log.info("Generating sales summary for shift: {}", shiftId);
+        Shift shift = shiftRepository.findById(shiftId)
+                .orElseThrow(() -> new ResourceNotFoundException("Shift not found with id: " + shiftId));
+
+        // Regenerate the latest draft in place; an approved summary is final
+        ShiftSalesSummary summary = shiftSalesSummaryRepository.findByShiftIdOrderBySalesDateDesc(shiftId).stream()
+                .findFirst()
+                .orElseGet(() -> ShiftSalesSummary.builder().shift(shift).build());
+        if (summary.getStatus() == ShiftSalesSummary.Status.APPROVED) {
+            throw new BusinessLogicException("Sales summary for shift " + shiftId + " is already approved");
+        }
+
+        BigDecimal cashSales = BigDecimal.ZERO;
+        BigDecimal cardSales = BigDecimal.ZERO;
+        BigDecimal creditSales = BigDecimal.ZERO;
+        BigDecimal upiSales = BigDecimal.ZERO;
+        BigDecimal walletSales = BigDecimal.ZERO;
+        BigDecimal totalSales = BigDecimal.ZERO;
+        BigDecimal totalQuantity = BigDecimal.ZERO;
+        long cashTransactions = 0;
+        long cardTransactions = 0;
+        long creditTransactions = 0;
+        long totalTransactions = 0;
+
+        // Every field comes from one grouped scan of the shift's sales
+        for (ShiftSalesBreakdownDTO row : saleRepository.summarizeShiftSales(shiftId, COUNTED_SALE_STATUSES)) {
+            totalSales = totalSales.add(row.getTotalAmount());
+            totalQuantity = totalQuantity.add(row.getTotalQuantity());
+            totalTransactions += row.getTransactionCount();
+            switch (row.getPaymentMethod()) {
+                case CASH -> {
+                    cashSales = cashSales.add(row.getTotalAmount());
+                    cashTransactions += row.getTransactionCount();
+                }
+                case CARD -> {
+                    cardSales = cardSales.add(row.getTotalAmount());
+                    cardTransactions += row.getTransactionCount();
+                }
+                case CREDIT -> {
+                    creditSales = creditSales.add(row.getTotalAmount());
+                    creditTransactions += row.getTransactionCount();
+                }
+                case UPI -> upiSales = upiSales.add(row.getTotalAmount());
+                case WALLET -> walletSales = walletSales.add(row.getTotalAmount());
+                default -> { }
+            }
+        }
+
+        summary.setPumpId(shift.getPumpId());
+        summary.setCashier(shift.getCashierId() != null ? userRepository.getReferenceById(shift.getCashierId()) : null);
+        summary.setSalesDate(shift.getOpenedAt());
+        summary.setTotalSales(totalSales);
+        summary.setCashSales(cashSales);
+        summary.setCardSales(cardSales);
+        summary.setCreditSales(creditSales);
+        summary.setUpiSales(upiSales);
+        summary.setWalletSales(walletSales);
+        summary.setTotalQuantity(totalQuantity);
+        summary.setTotalTransactions((int) totalTransactions);
+        summary.setCashTransactions((int) cashTransactions);
+        summary.setCardTransactions((int) cardTransactions);
+        summary.setCreditTransactions((int) creditTransactions);
+        summary.setStatus(ShiftSalesSummary.Status.GENERATED);
+
+        ShiftSalesSummary savedSummary = shiftSalesSummaryRepository.save(summary);
+        return convertToShiftSalesSummaryDTO(savedSummary);
     }
 
     @Override
@@ -390,49 +986,82 @@ public class SalesServiceImpl implements SalesService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getShiftSalesAnalytics(Long shiftId) {
-        // Implementation needed
-        return null;
+        // Totals are maintained on the shift row as sales post, so this is a single primary-key read
+        Shift shift = shiftRepository.findById(shiftId)
+                .orElseThrow(() -> new ResourceNotFoundException("Shift not found with id: " + shiftId));
+
+        Map<String, Object> analytics = new HashMap<>();
+        analytics.put("shiftId", shift.getId());
+        analytics.put("pumpId", shift.getPumpId());
+        analytics.put("status", shift.getStatus());
+        analytics.put("openedAt", shift.getOpenedAt());
+        analytics.put("closedAt", shift.getClosedAt());
+        analytics.put("totalSales", shift.getTotalSales());
+        analytics.put("cashSales", shift.getCashSales());
+        analytics.put("cardSales", shift.getCardSales());
+        analytics.put("creditSales", shift.getCreditSales());
+        analytics.put("totalQuantity", shift.getTotalQuantity());
+        analytics.put("totalTransactions", shift.getTotalTransactions());
+        return analytics;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getSalesSummaryByDateRange(Long pumpId, LocalDateTime startDate, LocalDateTime endDate) {
-        // Implementation needed
-        return null;
+        // The payment method breakdown has at most one row per method, so the overall totals are folded from it
+        List<SalesGroupTotalDTO> rows = saleRepository.sumSalesByPaymentMethod(pumpId, startDate, endDate, COUNTED_SALE_STATUSES);
+        Map<String, Object> summary = buildGroupedReport(pumpId, startDate, endDate, rows);
+        BigDecimal totalQuantity = rows.stream()
+                .map(SalesGroupTotalDTO::getTotalQuantity)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long totalCount = (long) summary.get("totalCount");
+        summary.put("totalQuantity", totalQuantity);
+        summary.put("averageSaleAmount", totalCount > 0
+                ? ((BigDecimal) summary.get("totalAmount")).divide(BigDecimal.valueOf(totalCount), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
+        return summary;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getSalesByPaymentMethod(Long pumpId, LocalDateTime startDate, LocalDateTime endDate) {
-        // Implementation needed
-        return null;
+        return buildGroupedReport(pumpId, startDate, endDate,
+                saleRepository.sumSalesByPaymentMethod(pumpId, startDate, endDate, COUNTED_SALE_STATUSES));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getSalesByFuelType(Long pumpId, LocalDateTime startDate, LocalDateTime endDate) {
-        // Implementation needed
-        return null;
+        return buildGroupedReport(pumpId, startDate, endDate,
+                saleRepository.sumSalesByFuelType(pumpId, startDate, endDate, COUNTED_SALE_STATUSES));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getSalesByOperatorReport(Long pumpId, LocalDateTime startDate, LocalDateTime endDate) {
-        List<SaleTransactionDTO> sales = getSalesByOperator(pumpId, startDate, endDate);
-        Map<String, Object> report = new HashMap<>();
-        report.put("sales", sales);
-        report.put("totalCount", sales.size());
-        report.put("totalAmount", sales.stream()
-                .map(SaleTransactionDTO::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-        return report;
+        return buildGroupedReport(pumpId, startDate, endDate,
+                saleRepository.sumSalesByOperator(pumpId, startDate, endDate, COUNTED_SALE_STATUSES));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getSalesByCashierReport(Long pumpId, LocalDateTime startDate, LocalDateTime endDate) {
-        List<SaleTransactionDTO> sales = getSalesByCashier(pumpId, startDate, endDate);
+        return buildGroupedReport(pumpId, startDate, endDate,
+                saleRepository.sumSalesByCashier(pumpId, startDate, endDate, COUNTED_SALE_STATUSES));
+    }
+
+    private Map<String, Object> buildGroupedReport(Long pumpId, LocalDateTime startDate, LocalDateTime endDate,
+                                                   List<SalesGroupTotalDTO> rows) {
         Map<String, Object> report = new HashMap<>();
-        report.put("sales", sales);
-        report.put("totalCount", sales.size());
-        report.put("totalAmount", sales.stream()
-                .map(SaleTransactionDTO::getTotalAmount)
+        report.put("pumpId", pumpId);
+        report.put("startDate", startDate);
+        report.put("endDate", endDate);
+        report.put("groups", rows);
+        report.put("totalCount", rows.stream().mapToLong(SalesGroupTotalDTO::getTransactionCount).sum());
+        report.put("totalAmount", rows.stream()
+                .map(SalesGroupTotalDTO::getTotalAmount)
                 .reduce(BigDecimal.ZERO, BigDecimal::add));
         return report;
     }
@@ -460,4 +1089,26 @@ public class SalesServiceImpl implements SalesService {
         // Implementation needed
         return null;
     }
+
+    // Accumulates shift total adjustments so one or many sales can be applied with a single UPDATE
+    private static class ShiftTotalsDelta {
+        private BigDecimal totalAmount = BigDecimal.ZERO;
+        private BigDecimal cashAmount = BigDecimal.ZERO;
+        private BigDecimal cardAmount = BigDecimal.ZERO;
+        private BigDecimal creditAmount = BigDecimal.ZERO;
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private long transactions;
+
+        void add(SaleTransaction.PaymentMethod paymentMethod, BigDecimal amount, BigDecimal saleQuantity, long transactionCount) {
+            totalAmount = totalAmount.add(amount);
+            switch (paymentMethod) {
+                case CASH -> cashAmount = cashAmount.add(amount);
+                case CARD -> cardAmount = cardAmount.add(amount);
+                case CREDIT -> creditAmount = creditAmount.add(amount);
+                default -> { }
+            }
+            quantity = quantity.add(saleQuantity);
+            transactions += transactionCount;
+        }
+    }
 }
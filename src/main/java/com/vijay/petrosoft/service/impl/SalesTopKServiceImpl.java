@@ -0,0 +1,305 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.SalesTopKEntryDTO;
+import com.vijay.petrosoft.repository.SaleRepository;
+import com.vijay.petrosoft.repository.SalesDailyRollupRepository;
+import com.vijay.petrosoft.service.SalesTopKService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// One space-saving summary per (dimension, pump, window), created on first read and seeded from exact SQL. Sale writes
+// update the summaries in memory after commit; the reconcile pass reseeds summaries that were read since the last pass
+// and drops the rest, so SQL cost is bounded by what dashboards actually look at.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesTopKServiceImpl implements SalesTopKService {
+
+    private static final long GLOBAL = 0L;
+    private static final long NO_FUEL_TYPE = 0L;
+    private static final int DRIFT_CHECK_SIZE = 10;
+
+    private final SalesDailyRollupRepository salesDailyRollupRepository;
+    private final SaleRepository saleRepository;
+
+    private final Map<SketchKey, SpaceSaving> sketches = new ConcurrentHashMap<>();
+
+    @Value("${dashboard.topk.capacity:64}")
+    private int capacity;
+
+    @Override
+    public void recordSale(SaleTransaction saleTransaction, BigDecimal amount, BigDecimal quantity, long transactionCount) {
+        if (sketches.isEmpty() || saleTransaction.getTransactedAt() == null || saleTransaction.getPumpId() == null) {
+            return;
+        }
+        SaleDelta delta = deltaOf(saleTransaction, amount, quantity, transactionCount);
+        afterCommit(() -> apply(delta));
+    }
+
+    @Override
+    public void recordSales(Collection<SaleTransaction> saleTransactions) {
+        if (sketches.isEmpty()) {
+            return;
+        }
+        List<SaleDelta> deltas = saleTransactions.stream()
+                .filter(sale -> sale.getTransactedAt() != null && sale.getPumpId() != null)
+                .map(sale -> deltaOf(sale, sale.getTotalAmount(), sale.getQuantity(), 1))
+                .collect(Collectors.toList());
+        if (!deltas.isEmpty()) {
+            afterCommit(() -> deltas.forEach(this::apply));
+        }
+    }
+
+    @Override
+    public List<SalesTopKEntryDTO> getTop(Dimension dimension, Long pumpId, Window window, int limit) {
+        if (limit > capacity) {
+            return getExactTop(dimension, pumpId, window, limit);
+        }
+        SketchKey key = new SketchKey(dimension, scope(dimension, pumpId), window);
+        LocalDate windowStart = window.startOf(LocalDate.now());
+        SpaceSaving sketch = sketches.computeIfAbsent(key, k -> new SpaceSaving(capacity));
+        sketch.read.set(true);
+        if (!sketch.isCurrent(windowStart)) {
+            // Concurrent readers of a cold or rolled-over summary wait for one seeding query
+            sketch.seedLock.lock();
+            try {
+                if (!sketch.isCurrent(windowStart)) {
+                    sketch.seed(windowStart, exact(dimension, pumpId, windowStart, capacity));
+                }
+            } finally {
+                sketch.seedLock.unlock();
+            }
+        }
+        return sketch.top(limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SalesTopKEntryDTO> getExactTop(Dimension dimension, Long pumpId, Window window, int limit) {
+        return exact(dimension, pumpId, window.startOf(LocalDate.now()), limit);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${dashboard.topk.reconcile-ms:900000}", initialDelayString = "${dashboard.topk.reconcile-ms:900000}")
+    public void reconcile() {
+        LocalDate today = LocalDate.now();
+        int reseeded = 0;
+        for (Map.Entry<SketchKey, SpaceSaving> entry : sketches.entrySet()) {
+            SketchKey key = entry.getKey();
+            SpaceSaving sketch = entry.getValue();
+            if (!sketch.read.getAndSet(false)) {
+                sketches.remove(key, sketch);
+                continue;
+            }
+            try {
+                LocalDate windowStart = key.window().startOf(today);
+                Long pumpId = key.scope() == GLOBAL ? null : key.scope();
+                List<SalesTopKEntryDTO> exact = exact(key.dimension(), pumpId, windowStart, capacity);
+                sketch.seedLock.lock();
+                try {
+                    if (sketch.isCurrent(windowStart)) {
+                        logDrift(key, sketch.top(DRIFT_CHECK_SIZE), exact);
+                    }
+                    sketch.seed(windowStart, exact);
+                } finally {
+                    sketch.seedLock.unlock();
+                }
+                reseeded++;
+            } catch (RuntimeException e) {
+                log.warn("Failed to reconcile top-K summary {}", key, e);
+            }
+        }
+        log.debug("Reconciled {} top-K summaries, {} retained", reseeded, sketches.size());
+    }
+
+    private void apply(SaleDelta delta) {
+        for (Window window : Window.values()) {
+            LocalDate windowStart = window.startOf(delta.day());
+            offer(new SketchKey(Dimension.PUMP, GLOBAL, window), windowStart, delta.pumpId(), delta);
+            offer(new SketchKey(Dimension.FUEL_TYPE, GLOBAL, window), windowStart, delta.fuelTypeId(), delta);
+            offer(new SketchKey(Dimension.FUEL_TYPE, delta.pumpId(), window), windowStart, delta.fuelTypeId(), delta);
+            if (delta.customerId() != null) {
+                offer(new SketchKey(Dimension.CUSTOMER, GLOBAL, window), windowStart, delta.customerId(), delta);
+                offer(new SketchKey(Dimension.CUSTOMER, delta.pumpId(), window), windowStart, delta.customerId(), delta);
+            }
+        }
+    }
+
+    private void offer(SketchKey key, LocalDate windowStart, Long item, SaleDelta delta) {
+        SpaceSaving sketch = sketches.get(key);
+        if (sketch != null) {
+            sketch.offer(windowStart, item, delta.paise(), delta.quantity(), delta.transactions());
+        }
+    }
+
+    private List<SalesTopKEntryDTO> exact(Dimension dimension, Long pumpId, LocalDate since, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        List<Object[]> rows = switch (dimension) {
+            case PUMP -> salesDailyRollupRepository.sumByPumpSince(since, page);
+            case CUSTOMER -> saleRepository.sumByCustomerSince(pumpId, since.atStartOfDay(), page);
+            case FUEL_TYPE -> salesDailyRollupRepository.sumByFuelTypeSince(pumpId, since, page);
+        };
+        return rows.stream()
+                .map(row -> SalesTopKEntryDTO.builder()
+                        .id((Long) row[0])
+                        .totalAmount(decimal(row[1]))
+                        .totalQuantity(decimal(row[2]))
+                        .transactionCount(row[3] != null ? ((Number) row[3]).longValue() : 0L)
+                        .maxOverestimate(BigDecimal.ZERO.setScale(2))
+                        .exact(true)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private void logDrift(SketchKey key, List<SalesTopKEntryDTO> inMemory, List<SalesTopKEntryDTO> exact) {
+        List<Long> inMemoryIds = inMemory.stream().map(SalesTopKEntryDTO::getId).toList();
+        List<Long> exactIds = exact.stream().limit(DRIFT_CHECK_SIZE).map(SalesTopKEntryDTO::getId).toList();
+        if (!inMemoryIds.equals(exactIds)) {
+            log.info("Top-K drift for {}: in-memory {} vs exact {}", key, inMemoryIds, exactIds);
+        }
+    }
+
+    private SaleDelta deltaOf(SaleTransaction sale, BigDecimal amount, BigDecimal quantity, long transactionCount) {
+        // Ids are read inside the transaction; the delta is applied after commit when the session is gone
+        Long customerId = sale.getCustomer() != null ? sale.getCustomer().getId() : null;
+        Long fuelTypeId = sale.getFuelType() != null ? sale.getFuelType().getId() : NO_FUEL_TYPE;
+        return new SaleDelta(sale.getTransactedAt().toLocalDate(), sale.getPumpId(), customerId, fuelTypeId,
+                toPaise(amount), quantity != null ? quantity : BigDecimal.ZERO, transactionCount);
+    }
+
+    private static Long scope(Dimension dimension, Long pumpId) {
+        return dimension == Dimension.PUMP || pumpId == null ? GLOBAL : pumpId;
+    }
+
+    private static BigDecimal decimal(Object value) {
+        return value != null ? ((BigDecimal) value).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO.setScale(2);
+    }
+
+    private static long toPaise(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0L;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record SketchKey(Dimension dimension, Long scope, Window window) {
+    }
+
+    private record SaleDelta(LocalDate day, Long pumpId, Long customerId, Long fuelTypeId, long paise,
+                             BigDecimal quantity, long transactions) {
+    }
+
+    // Space-saving summary weighted by amount in paise. Negative deltas (cancellations, refunds) only touch monitored
+    // items: an unmonitored item's true total can only fall, so the smallest counter remains an upper bound for it.
+    private static final class SpaceSaving {
+        private final int capacity;
+        private final Map<Long, Counter> counters = new HashMap<>();
+        private final ReentrantLock seedLock = new ReentrantLock();
+        private final AtomicBoolean read = new AtomicBoolean();
+        private LocalDate windowStart;
+        private boolean current;
+
+        SpaceSaving(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized boolean isCurrent(LocalDate start) {
+            return current && start.equals(windowStart);
+        }
+
+        synchronized void seed(LocalDate start, List<SalesTopKEntryDTO> rows) {
+            counters.clear();
+            for (SalesTopKEntryDTO row : rows) {
+                Counter counter = new Counter(toPaise(row.getTotalAmount()), 0L);
+                counter.quantity = row.getTotalQuantity();
+                counter.transactions = row.getTransactionCount();
+                counters.put(row.getId(), counter);
+            }
+            windowStart = start;
+            current = true;
+        }
+
+        synchronized void offer(LocalDate start, Long item, long paise, BigDecimal quantity, long transactions) {
+            if (!current || !start.equals(windowStart)) {
+                // A sale in a newer window means this one has rolled over; the next read reseeds it
+                if (current && start.isAfter(windowStart)) {
+                    current = false;
+                }
+                return;
+            }
+            Counter counter = counters.get(item);
+            if (counter == null) {
+                if (paise <= 0) {
+                    return;
+                }
+                if (counters.size() < capacity) {
+                    counter = new Counter(0L, 0L);
+                } else {
+                    Map.Entry<Long, Counter> smallest = Collections.min(counters.entrySet(),
+                            Comparator.comparingLong(entry -> entry.getValue().amount));
+                    counters.remove(smallest.getKey());
+                    counter = new Counter(smallest.getValue().amount, smallest.getValue().amount);
+                }
+                counters.put(item, counter);
+            }
+            counter.amount += paise;
+            counter.quantity = counter.quantity.add(quantity);
+            counter.transactions += transactions;
+        }
+
+        synchronized List<SalesTopKEntryDTO> top(int limit) {
+            return counters.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<Long, Counter> entry) -> entry.getValue().amount).reversed())
+                    .limit(limit)
+                    .map(entry -> SalesTopKEntryDTO.builder()
+                            .id(entry.getKey())
+                            .totalAmount(BigDecimal.valueOf(entry.getValue().amount, 2))
+                            .totalQuantity(entry.getValue().quantity)
+                            .transactionCount(entry.getValue().transactions)
+                            .maxOverestimate(BigDecimal.valueOf(entry.getValue().error, 2))
+                            .exact(false)
+                            .build())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // Quantity and transactions cover only the time the item has been monitored; error bounds the amount alone
+    private static final class Counter {
+        private long amount;
+        private final long error;
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private long transactions;
+
+        Counter(long amount, long error) {
+            this.amount = amount;
+            this.error = error;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.vijay.petrosoft.service.impl;
 import com.vijay.petrosoft.domain.Shift;
 import com.vijay.petrosoft.dto.ShiftDTO;
 import com.vijay.petrosoft.repository.ShiftRepository;
+import com.vijay.petrosoft.service.ReferenceDataCache;
+import com.vijay.petrosoft.service.SalesService;
 import com.vijay.petrosoft.service.ShiftService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -19,6 +21,8 @@ import java.util.stream.Collectors;
 public class ShiftServiceImpl implements ShiftService {
 
     private final ShiftRepository shiftRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final SalesService salesService;
 
     @Override
     public ShiftDTO createShift(ShiftDTO shiftDTO) {
@@ -31,6 +35,7 @@ public class ShiftServiceImpl implements ShiftService {
                 .build();
 
         Shift savedShift = shiftRepository.save(shift);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.SHIFT, savedShift.getId());
         return convertToDTO(savedShift);
     }
 
@@ -46,6 +51,7 @@ public class ShiftServiceImpl implements ShiftService {
         shift.setStatus(shiftDTO.getStatus());
 
         Shift updatedShift = shiftRepository.save(shift);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.SHIFT, updatedShift.getId());
         return convertToDTO(updatedShift);
     }
 
@@ -69,6 +75,7 @@ public class ShiftServiceImpl implements ShiftService {
             throw new RuntimeException("Shift not found with id: " + id);
         }
         shiftRepository.deleteById(id);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.SHIFT, id);
     }
 
     @Override
@@ -87,6 +94,7 @@ public class ShiftServiceImpl implements ShiftService {
                 .build();
 
         Shift savedShift = shiftRepository.save(shift);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.SHIFT, savedShift.getId());
         return convertToDTO(savedShift);
     }
 
@@ -103,6 +111,8 @@ public class ShiftServiceImpl implements ShiftService {
         shift.setStatus(Shift.Status.CLOSED);
 
         Shift updatedShift = shiftRepository.save(shift);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.SHIFT, updatedShift.getId());
+        salesService.generateShiftSalesSummary(shiftId);
         return convertToDTO(updatedShift);
     }
 
@@ -164,6 +174,12 @@ public class ShiftServiceImpl implements ShiftService {
                 .openedAt(shift.getOpenedAt())
                 .closedAt(shift.getClosedAt())
                 .status(shift.getStatus())
+                .totalSales(shift.getTotalSales())
+                .cashSales(shift.getCashSales())
+                .cardSales(shift.getCardSales())
+                .creditSales(shift.getCreditSales())
+                .totalQuantity(shift.getTotalQuantity())
+                .totalTransactions(shift.getTotalTransactions())
                 .build();
     }
 }
@@ -0,0 +1,278 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.TankCalibrationPoint;
+import com.vijay.petrosoft.dto.DipConversionDTO;
+import com.vijay.petrosoft.dto.TankCalibrationChartDTO;
+import com.vijay.petrosoft.dto.TankCalibrationPointDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.exception.ResourceNotFoundException;
+import com.vijay.petrosoft.repository.TankCalibrationPointRepository;
+import com.vijay.petrosoft.repository.TankRepository;
+import com.vijay.petrosoft.service.TankCalibrationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Calibration charts are stored as the certificate's (depth, volume) points and expanded in memory into one volume
+// per millimetre of depth, so a dip converts with an array read plus interpolation inside a single millimetre.
+// Between chart points the volume is linear; below the first point it runs linearly from an empty tank at 0 mm.
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class TankCalibrationServiceImpl implements TankCalibrationService {
+
+    private final TankCalibrationPointRepository tankCalibrationPointRepository;
+    private final TankRepository tankRepository;
+
+    private volatile Map<Long, Lookup> lookups = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @Value("${tank-calibration.max-depth-mm:6000}")
+    private int maxDepthMm;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    @Override
+    public TankCalibrationChartDTO saveChart(Long tankId, List<TankCalibrationPointDTO> points) {
+        if (!tankRepository.existsById(tankId)) {
+            throw new ResourceNotFoundException("Tank not found with id: " + tankId);
+        }
+        List<TankCalibrationPoint> chart = validate(tankId, points);
+        Lookup lookup = expand(chart);
+
+        tankCalibrationPointRepository.deleteByTankId(tankId);
+        tankCalibrationPointRepository.saveAll(chart);
+        afterCommit(() -> lookups.put(tankId, lookup));
+        log.info("Calibration chart for tank {} saved: {} points up to {} mm", tankId, chart.size(), lookup.maxDepthMm());
+        return toChartDTO(tankId, chart, lookup);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TankCalibrationChartDTO getChart(Long tankId) {
+        List<TankCalibrationPoint> chart = tankCalibrationPointRepository.findByTankIdOrderByDepthMmAsc(tankId);
+        if (chart.isEmpty()) {
+            throw new ResourceNotFoundException("Calibration chart not found for tank: " + tankId);
+        }
+        return toChartDTO(tankId, chart, expand(chart));
+    }
+
+    @Override
+    public void deleteChart(Long tankId) {
+        if (tankCalibrationPointRepository.deleteByTankId(tankId) == 0) {
+            throw new ResourceNotFoundException("Calibration chart not found for tank: " + tankId);
+        }
+        afterCommit(() -> lookups.remove(tankId));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public BigDecimal toVolume(Long tankId, BigDecimal dipMm) {
+        Lookup lookup = lookupOf(tankId);
+        if (lookup == null) {
+            throw new BusinessLogicException("Tank " + tankId + " has no calibration chart");
+        }
+        return lookup.volumeAt(tankId, dipMm);
+    }
+
+    // Readings are converted independently; a reading that cannot be converted carries its error instead of a volume
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<DipConversionDTO> convertDips(List<DipConversionDTO> readings) {
+        List<DipConversionDTO> results = new ArrayList<>(readings.size());
+        for (DipConversionDTO reading : readings) {
+            DipConversionDTO result = DipConversionDTO.builder()
+                    .tankId(reading.getTankId())
+                    .dipMm(reading.getDipMm())
+                    .build();
+            try {
+                Lookup lookup = reading.getTankId() != null ? lookupOf(reading.getTankId()) : null;
+                if (lookup == null) {
+                    throw new BusinessLogicException("Tank " + reading.getTankId() + " has no calibration chart");
+                }
+                BigDecimal volume = lookup.volumeAt(reading.getTankId(), reading.getDipMm());
+                result.setVolume(volume);
+                result.setUllage(lookup.capacity().subtract(volume));
+            } catch (BusinessLogicException e) {
+                result.setError(e.getMessage());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<BigDecimal> getCalibratedCapacity(Long tankId) {
+        return Optional.ofNullable(lookupOf(tankId)).map(Lookup::capacity);
+    }
+
+    // Picks up charts written by other instances; saves on this instance are applied as they commit
+    @Override
+    @Scheduled(fixedDelayString = "${tank-calibration.reload-ms:900000}", initialDelayString = "${tank-calibration.reload-ms:900000}")
+    @Transactional(readOnly = true)
+    public void reload() {
+        Map<Long, List<TankCalibrationPoint>> charts = tankCalibrationPointRepository.findAllByOrderByTankIdAscDepthMmAsc().stream()
+                .collect(Collectors.groupingBy(TankCalibrationPoint::getTankId, LinkedHashMap::new, Collectors.toList()));
+        Map<Long, Lookup> rebuilt = new ConcurrentHashMap<>();
+        charts.forEach((tankId, chart) -> {
+            try {
+                rebuilt.put(tankId, expand(chart));
+            } catch (BusinessLogicException e) {
+                log.warn("Calibration chart for tank {} skipped: {}", tankId, e.getMessage());
+            }
+        });
+        lookups = rebuilt;
+        loaded = true;
+        log.info("Calibration lookups built for {} tanks", rebuilt.size());
+    }
+
+    // Before the first load a tank's chart is read on demand
+    private Lookup lookupOf(Long tankId) {
+        Lookup lookup = lookups.get(tankId);
+        if (lookup != null || loaded) {
+            return lookup;
+        }
+        List<TankCalibrationPoint> chart = tankCalibrationPointRepository.findByTankIdOrderByDepthMmAsc(tankId);
+        return chart.isEmpty() ? null : expand(chart);
+    }
+
+    private List<TankCalibrationPoint> validate(Long tankId, List<TankCalibrationPointDTO> points) {
+        if (points == null || points.isEmpty()) {
+            throw new BusinessLogicException("Calibration chart needs at least one point");
+        }
+        if (points.stream().anyMatch(point -> point.getDepthMm() == null || point.getVolume() == null)) {
+            throw new BusinessLogicException("Calibration points need a depth and a volume");
+        }
+        List<TankCalibrationPointDTO> sorted = points.stream()
+                .sorted(Comparator.comparing(TankCalibrationPointDTO::getDepthMm))
+                .toList();
+        List<TankCalibrationPoint> chart = new ArrayList<>(sorted.size());
+        TankCalibrationPointDTO previous = null;
+        for (TankCalibrationPointDTO point : sorted) {
+            if (point.getDepthMm() < 0 || point.getDepthMm() > maxDepthMm) {
+                throw new BusinessLogicException("Calibration depth " + point.getDepthMm() + " mm is outside 0-" + maxDepthMm + " mm");
+            }
+            if (point.getVolume().signum() < 0) {
+                throw new BusinessLogicException("Calibration volume at " + point.getDepthMm() + " mm is negative");
+            }
+            if (previous != null) {
+                if (previous.getDepthMm().equals(point.getDepthMm())) {
+                    throw new BusinessLogicException("Calibration depth " + point.getDepthMm() + " mm appears more than once");
+                }
+                if (point.getVolume().compareTo(previous.getVolume()) < 0) {
+                    throw new BusinessLogicException("Calibration volume falls between " + previous.getDepthMm()
+                            + " mm and " + point.getDepthMm() + " mm");
+                }
+            }
+            chart.add(TankCalibrationPoint.builder()
+                    .tankId(tankId)
+                    .depthMm(point.getDepthMm())
+                    .volume(point.getVolume().setScale(3, RoundingMode.HALF_UP))
+                    .build());
+            previous = point;
+        }
+        return chart;
+    }
+
+    private Lookup expand(List<TankCalibrationPoint> chart) {
+        int top = chart.get(chart.size() - 1).getDepthMm();
+        if (top <= 0 || top > maxDepthMm) {
+            throw new BusinessLogicException("Calibration chart must reach above 0 mm and stay within " + maxDepthMm + " mm");
+        }
+        long[] millilitres = new long[top + 1];
+        int fromDepth = 0;
+        long fromVolume = 0L;
+        for (TankCalibrationPoint point : chart) {
+            int toDepth = point.getDepthMm();
+            long toVolume = toMillilitres(point.getVolume());
+            if (toDepth == fromDepth) {
+                // A point at 0 mm is the volume left below the dip stick
+                millilitres[toDepth] = toVolume;
+            } else {
+                for (int depth = fromDepth; depth <= toDepth; depth++) {
+                    millilitres[depth] = fromVolume
+                            + Math.round((double) (toVolume - fromVolume) * (depth - fromDepth) / (toDepth - fromDepth));
+                }
+            }
+            fromDepth = toDepth;
+            fromVolume = toVolume;
+        }
+        return new Lookup(top, millilitres);
+    }
+
+    private TankCalibrationChartDTO toChartDTO(Long tankId, List<TankCalibrationPoint> chart, Lookup lookup) {
+        return TankCalibrationChartDTO.builder()
+                .tankId(tankId)
+                .maxDepthMm(lookup.maxDepthMm())
+                .calibratedCapacity(lookup.capacity())
+                .points(chart.stream()
+                        .map(point -> TankCalibrationPointDTO.builder()
+                                .depthMm(point.getDepthMm())
+                                .volume(point.getVolume())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private static long toMillilitres(BigDecimal litres) {
+        return litres.setScale(3, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // millilitres[mm] is the volume at a whole-millimetre dip; fractional dips interpolate within one millimetre
+    private record Lookup(int maxDepthMm, long[] millilitres) {
+
+        BigDecimal capacity() {
+            return BigDecimal.valueOf(millilitres[maxDepthMm], 3);
+        }
+
+        BigDecimal volumeAt(Long tankId, BigDecimal dipMm) {
+            if (dipMm == null || dipMm.signum() < 0) {
+                throw new BusinessLogicException("Dip reading for tank " + tankId + " must be zero or more");
+            }
+            if (dipMm.compareTo(BigDecimal.valueOf(maxDepthMm)) > 0) {
+                throw new BusinessLogicException("Dip of " + dipMm + " mm on tank " + tankId
+                        + " is above its calibrated height of " + maxDepthMm + " mm");
+            }
+            int depth = dipMm.intValue();
+            BigDecimal fraction = dipMm.subtract(BigDecimal.valueOf(depth));
+            long volume = millilitres[depth];
+            if (fraction.signum() > 0) {
+                volume += fraction.multiply(BigDecimal.valueOf(millilitres[depth + 1] - volume))
+                        .setScale(0, RoundingMode.HALF_UP).longValue();
+            }
+            return BigDecimal.valueOf(volume, 3);
+        }
+    }
+}
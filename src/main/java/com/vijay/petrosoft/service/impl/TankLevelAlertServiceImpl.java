@@ -0,0 +1,258 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.FuelType;
+import com.vijay.petrosoft.domain.Tank;
+import com.vijay.petrosoft.domain.TankStockBook;
+import com.vijay.petrosoft.dto.TankLevelDTO;
+import com.vijay.petrosoft.repository.TankStockBookRepository;
+import com.vijay.petrosoft.service.NotificationService;
+import com.vijay.petrosoft.service.ReferenceDataCache;
+import com.vijay.petrosoft.service.TankLevelAlertService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Projected level per tank, kept in millilitres and moved by the same committed deltas that adjust the stock book.
+// A tank fires one alert when it falls to the alert level and stays quiet until it climbs back past the re-arm level,
+// so sales hovering around the threshold do not repeat the alert. Tank details come from the reference cache, and the
+// only database reads are the warm-up and the periodic resync against tank_stock_book.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TankLevelAlertServiceImpl implements TankLevelAlertService {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final TankStockBookRepository tankStockBookRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final NotificationService notificationService;
+
+    private final ExecutorService alertExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Long, TankLevel> levels = new ConcurrentHashMap<>();
+
+    @Value("${tank-alerts.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tank-alerts.low-percent:20}")
+    private BigDecimal lowPercent;
+
+    @Value("${tank-alerts.rearm-percent:25}")
+    private BigDecimal rearmPercent;
+
+    @PreDestroy
+    public void shutdown() {
+        alertExecutor.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        resync();
+        log.info("Tank level alerts tracking {} tanks", levels.size());
+    }
+
+    @Override
+    public void recordMovement(Long tankId, BigDecimal netChange) {
+        if (!enabled || tankId == null || netChange == null || netChange.signum() == 0) {
+            return;
+        }
+        long change = toMillilitres(netChange);
+        afterCommit(() -> {
+            TankLevel level = levelOf(tankId);
+            if (level != null) {
+                evaluate(tankId, level, level.millilitres.addAndGet(change));
+            }
+        });
+    }
+
+    @Override
+    public void recordDip(Long tankId, BigDecimal dip) {
+        if (!enabled || tankId == null || dip == null) {
+            return;
+        }
+        long measured = toMillilitres(dip);
+        afterCommit(() -> {
+            TankLevel level = levelOf(tankId);
+            if (level != null) {
+                level.millilitres.set(measured);
+                evaluate(tankId, level, measured);
+            }
+        });
+    }
+
+    @Override
+    public List<TankLevelDTO> getLevels(Long pumpId) {
+        return levels.entrySet().stream()
+                .map(entry -> toDTO(entry.getKey(), entry.getValue()))
+                .filter(dto -> pumpId == null || pumpId.equals(dto.getPumpId()))
+                .sorted(Comparator.comparing(TankLevelDTO::getTankId))
+                .collect(Collectors.toList());
+    }
+
+    // Realigns projected levels with the book to absorb movements lost between a commit and its callback. A tank
+    // seen for the first time takes its state from the book silently, so a restart does not repeat earlier alerts.
+    @Override
+    @Scheduled(fixedDelayString = "${tank-alerts.resync-ms:600000}", initialDelayString = "${tank-alerts.resync-ms:600000}")
+    public void resync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (TankStockBook book : tankStockBookRepository.findAll()) {
+                long stock = toMillilitres(book.getBookStock());
+                TankLevel existing = levels.get(book.getTankId());
+                if (existing == null) {
+                    referenceDataCache.getTank(book.getTankId())
+                            .ifPresent(tank -> levels.putIfAbsent(tank.getId(), seed(tank, stock)));
+                    continue;
+                }
+                // A tank moved to another pump starts over under that pump, as if seen for the first time
+                Optional<Tank> moved = referenceDataCache.getTank(book.getTankId())
+                        .filter(tank -> !Objects.equals(tank.getPumpId(), existing.pumpId));
+                if (moved.isPresent()) {
+                    levels.put(book.getTankId(), seed(moved.get(), stock));
+                    continue;
+                }
+                referenceDataCache.getTank(book.getTankId()).ifPresent(tank -> applyThresholds(existing, tank));
+                existing.millilitres.set(stock);
+                evaluate(book.getTankId(), existing, stock);
+            }
+        } catch (RuntimeException e) {
+            log.error("Tank level resync failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Tanks created after the warm-up start from the cached tank's last dip until the next resync
+    private TankLevel levelOf(Long tankId) {
+        return levels.computeIfAbsent(tankId, id -> referenceDataCache.getTank(id)
+                .map(tank -> seed(tank, toMillilitres(tank.getCurrentDip())))
+                .orElse(null));
+    }
+
+    private TankLevel seed(Tank tank, long stock) {
+        TankLevel level = new TankLevel(tank.getPumpId(), tank.getFuelType() != null ? tank.getFuelType().getId() : null);
+        applyThresholds(level, tank);
+        level.millilitres.set(stock);
+        level.low.set(level.alertAt >= 0 && stock <= level.alertAt);
+        return level;
+    }
+
+    // Thresholds are shares of capacity; a tank without a capacity never alerts
+    private void applyThresholds(TankLevel level, Tank tank) {
+        if (tank.getCapacity() == null || tank.getCapacity().signum() <= 0) {
+            level.alertAt = -1;
+            level.rearmAt = -1;
+            return;
+        }
+        long capacity = toMillilitres(tank.getCapacity());
+        level.capacity = capacity;
+        level.alertAt = share(capacity, lowPercent);
+        level.rearmAt = Math.max(share(capacity, rearmPercent), level.alertAt + 1);
+    }
+
+    // The compare-and-set decides which of several concurrent crossings fires the alert
+    private void evaluate(Long tankId, TankLevel level, long stock) {
+        if (level.alertAt < 0) {
+            return;
+        }
+        if (stock <= level.alertAt) {
+            if (level.low.compareAndSet(false, true)) {
+                level.alertsFired.incrementAndGet();
+                dispatch(tankId, level, stock);
+            }
+        } else if (stock >= level.rearmAt && level.low.compareAndSet(true, false)) {
+            log.info("Tank {} back above {} L; low stock alert re-armed", tankId, toLitres(level.rearmAt));
+        }
+    }
+
+    private void dispatch(Long tankId, TankLevel level, long stock) {
+        String fuelType = level.fuelTypeId != null
+                ? referenceDataCache.getFuelType(level.fuelTypeId).map(FuelType::getName).orElse("Tank " + tankId)
+                : "Tank " + tankId;
+        double litres = toLitres(stock).doubleValue();
+        log.info("Tank {} at pump {} fell to {} L; sending low stock alert", tankId, level.pumpId, litres);
+        alertExecutor.execute(() -> {
+            try {
+                notificationService.sendLowStockAlert(level.pumpId, fuelType, litres);
+            } catch (RuntimeException e) {
+                log.error("Low stock alert for tank {} failed: {}", tankId, e.getMessage(), e);
+            }
+        });
+    }
+
+    private TankLevelDTO toDTO(Long tankId, TankLevel level) {
+        boolean tracked = level.alertAt >= 0;
+        return TankLevelDTO.builder()
+                .tankId(tankId)
+                .pumpId(level.pumpId)
+                .fuelTypeId(level.fuelTypeId)
+                .capacity(tracked ? toLitres(level.capacity) : null)
+                .projectedLevel(toLitres(level.millilitres.get()))
+                .alertLevel(tracked ? toLitres(level.alertAt) : null)
+                .rearmLevel(tracked ? toLitres(level.rearmAt) : null)
+                .low(level.low.get())
+                .alertsFired(level.alertsFired.get())
+                .build();
+    }
+
+    private static long share(long capacity, BigDecimal percent) {
+        return BigDecimal.valueOf(capacity).multiply(percent).divide(HUNDRED, 0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static long toMillilitres(BigDecimal litres) {
+        return litres != null ? litres.setScale(3, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0L;
+    }
+
+    private static BigDecimal toLitres(long millilitres) {
+        return BigDecimal.valueOf(millilitres, 3);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class TankLevel {
+        private final Long pumpId;
+        private final Long fuelTypeId;
+        private final AtomicLong millilitres = new AtomicLong();
+        private final AtomicBoolean low = new AtomicBoolean();
+        private final AtomicLong alertsFired = new AtomicLong();
+        private volatile long capacity;
+        private volatile long alertAt = -1;
+        private volatile long rearmAt = -1;
+
+        private TankLevel(Long pumpId, Long fuelTypeId) {
+            this.pumpId = pumpId;
+            this.fuelTypeId = fuelTypeId;
+        }
+    }
+}
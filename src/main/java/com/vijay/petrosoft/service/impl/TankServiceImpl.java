@@ -2,8 +2,12 @@ package com.vijay.petrosoft.service.impl;
 
 import com.vijay.petrosoft.domain.Tank;
 import com.vijay.petrosoft.dto.TankDTO;
+import com.vijay.petrosoft.dto.TankStockBookDTO;
 import com.vijay.petrosoft.repository.TankRepository;
+import com.vijay.petrosoft.service.ReferenceDataCache;
+import com.vijay.petrosoft.service.TankCalibrationService;
 import com.vijay.petrosoft.service.TankService;
+import com.vijay.petrosoft.service.TankStockService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,6 +23,9 @@ import java.util.stream.Collectors;
 public class TankServiceImpl implements TankService {
 
     private final TankRepository tankRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final TankStockService tankStockService;
+    private final TankCalibrationService tankCalibrationService;
 
     @Override
     public TankDTO createTank(TankDTO tankDTO) {
@@ -30,6 +37,7 @@ public class TankServiceImpl implements TankService {
                 .build();
 
         Tank savedTank = tankRepository.save(tank);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.TANK, savedTank.getId());
         return convertToDTO(savedTank);
     }
 
@@ -38,12 +46,20 @@ public class TankServiceImpl implements TankService {
         Tank tank = tankRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Tank not found with id: " + id));
 
+        // A changed dip is booked like a dip reading, so the stock book and level alerts follow it
+        BigDecimal newDip = tankDTO.getCurrentDip();
+        if (newDip != null && (tank.getCurrentDip() == null || newDip.compareTo(tank.getCurrentDip()) != 0)) {
+            bookDip(tank, newDip, null);
+        }
+        if (tankDTO.getPumpId() != null && !tankDTO.getPumpId().equals(tank.getPumpId())) {
+            tankStockService.moveTank(id, tankDTO.getPumpId());
+        }
         tank.setPumpId(tankDTO.getPumpId());
         tank.setName(tankDTO.getName());
         tank.setCapacity(tankDTO.getCapacity());
-        tank.setCurrentDip(tankDTO.getCurrentDip());
 
         Tank updatedTank = tankRepository.save(tank);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.TANK, id);
         return convertToDTO(updatedTank);
     }
 
@@ -67,6 +83,7 @@ public class TankServiceImpl implements TankService {
             throw new RuntimeException("Tank not found with id: " + id);
         }
         tankRepository.deleteById(id);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.TANK, id);
     }
 
     @Override
@@ -80,26 +97,42 @@ public class TankServiceImpl implements TankService {
     @Override
     @Transactional(readOnly = true)
     public List<TankDTO> getTanksByFuelType(Long fuelTypeId) {
-        return tankRepository.findAll().stream()
-                .filter(tank -> tank.getFuelType() != null && tank.getFuelType().getId().equals(fuelTypeId))
+        return referenceDataCache.getTanksByFuelType(fuelTypeId).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
     @Override
     public TankDTO updateTankDip(Long tankId, BigDecimal newDip) {
+        return applyDip(tankId, newDip, null);
+    }
+
+    @Override
+    public TankDTO recordDipReading(Long tankId, BigDecimal dipMm) {
+        return applyDip(tankId, tankCalibrationService.toVolume(tankId, dipMm), dipMm);
+    }
+
+    private TankDTO applyDip(Long tankId, BigDecimal newDip, BigDecimal dipMm) {
         Tank tank = tankRepository.findById(tankId)
                 .orElseThrow(() -> new RuntimeException("Tank not found with id: " + tankId));
 
-        tank.setCurrentDip(newDip);
+        bookDip(tank, newDip, dipMm);
         Tank updatedTank = tankRepository.save(tank);
+        referenceDataCache.invalidate(ReferenceDataCache.ReferenceType.TANK, tankId);
         return convertToDTO(updatedTank);
     }
 
+    private void bookDip(Tank tank, BigDecimal newDip, BigDecimal dipMm) {
+        // Booked before the tank row changes: a tank's first stock book opens at its previous dip
+        tankStockService.recordDip(tank.getId(), newDip);
+        tank.setCurrentDip(newDip);
+        tank.setCurrentDipMm(dipMm);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public TankDTO getTankByPumpAndFuelType(Long pumpId, Long fuelTypeId) {
-        return tankRepository.findByPumpId(pumpId).stream()
+        return referenceDataCache.getTanksByPump(pumpId).stream()
                 .filter(tank -> tank.getFuelType() != null && tank.getFuelType().getId().equals(fuelTypeId))
                 .findFirst()
                 .map(this::convertToDTO)
@@ -109,13 +142,14 @@ public class TankServiceImpl implements TankService {
     @Override
     @Transactional(readOnly = true)
     public boolean isTankCapacityExceeded(Long tankId, BigDecimal additionalQuantity) {
-        Tank tank = tankRepository.findById(tankId)
-                .orElseThrow(() -> new RuntimeException("Tank not found with id: " + tankId));
-
-        BigDecimal currentLevel = tank.getCurrentDip() != null ? tank.getCurrentDip() : BigDecimal.ZERO;
-        BigDecimal newLevel = currentLevel.add(additionalQuantity);
-        
-        return newLevel.compareTo(tank.getCapacity()) > 0;
+        // Checked against book stock and the chart's calibrated volume; the nameplate capacity only covers uncharted tanks
+        TankStockBookDTO book = tankStockService.getStockBook(tankId);
+        BigDecimal capacity = tankCalibrationService.getCalibratedCapacity(tankId).orElse(book.getCapacity());
+        if (capacity == null) {
+            return false;
+        }
+        BigDecimal currentLevel = book.getBookStock() != null ? book.getBookStock() : BigDecimal.ZERO;
+        return currentLevel.add(additionalQuantity).compareTo(capacity) > 0;
     }
 
     private TankDTO convertToDTO(Tank tank) {
@@ -126,6 +160,7 @@ public class TankServiceImpl implements TankService {
                 .name(tank.getName())
                 .capacity(tank.getCapacity())
                 .currentDip(tank.getCurrentDip())
+                .currentDipMm(tank.getCurrentDipMm())
                 .build();
     }
 }
@@ -0,0 +1,288 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.*;
+import com.vijay.petrosoft.dto.TankStockBookDTO;
+import com.vijay.petrosoft.dto.TankStockPeriodDTO;
+import com.vijay.petrosoft.dto.TankVarianceDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.exception.ResourceNotFoundException;
+import com.vijay.petrosoft.repository.TankRepository;
+import com.vijay.petrosoft.repository.TankStockBookRepository;
+import com.vijay.petrosoft.repository.TankStockPeriodRepository;
+import com.vijay.petrosoft.service.ReferenceDataCache;
+import com.vijay.petrosoft.service.TankLevelAlertService;
+import com.vijay.petrosoft.service.TankStockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Book stock per tank is adjusted in place on every sale, receipt and dip, and each movement is also added to the
+// tank's DAY row and SHIFT row. A dip resets the book to the measured stock and records the difference as variance, so
+// variance for any day, shift or range is a sum over those rows rather than a replay of sales and receipts.
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class TankStockServiceImpl implements TankStockService {
+
+    private static final long NO_SHIFT = 0L;
+
+    // Movements are applied in a fixed order so concurrent batches lock tank books in the same sequence
+    private static final Comparator<MovementKey> KEY_ORDER = Comparator.comparing(MovementKey::tankId)
+            .thenComparing(MovementKey::day)
+            .thenComparing(MovementKey::shiftId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final TankStockBookRepository tankStockBookRepository;
+    private final TankStockPeriodRepository tankStockPeriodRepository;
+    private final TankRepository tankRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final TankLevelAlertService tankLevelAlertService;
+
+    @Override
+    public void recordSale(SaleTransaction saleTransaction, BigDecimal quantity) {
+        if (quantity == null || quantity.signum() == 0 || saleTransaction.getTransactedAt() == null) {
+            return;
+        }
+        resolveTank(saleTransaction.getPumpId(), saleTransaction.getFuelType())
+                .ifPresent(tankId -> apply(keyOf(tankId, saleTransaction.getTransactedAt().toLocalDate(), saleTransaction.getShift()),
+                        quantity, BigDecimal.ZERO, BigDecimal.ZERO, 0));
+    }
+
+    @Override
+    public void recordSales(Collection<SaleTransaction> saleTransactions) {
+        Map<MovementKey, BigDecimal> quantities = new TreeMap<>(KEY_ORDER);
+        for (SaleTransaction saleTransaction : saleTransactions) {
+            if (saleTransaction.getQuantity() == null || saleTransaction.getTransactedAt() == null) {
+                continue;
+            }
+            resolveTank(saleTransaction.getPumpId(), saleTransaction.getFuelType())
+                    .ifPresent(tankId -> quantities.merge(keyOf(tankId, saleTransaction.getTransactedAt().toLocalDate(),
+                            saleTransaction.getShift()), saleTransaction.getQuantity(), BigDecimal::add));
+        }
+        quantities.forEach((key, quantity) -> apply(key, quantity, BigDecimal.ZERO, BigDecimal.ZERO, 0));
+    }
+
+    @Override
+    public void recordReceipt(PurchaseBill purchaseBill) {
+        if (purchaseBill.getItems() == null) {
+            return;
+        }
+        Shift openShift = referenceDataCache.getOpenShiftByPump(purchaseBill.getPumpId()).orElse(null);
+        LocalDate today = LocalDate.now();
+        Map<MovementKey, BigDecimal> quantities = new TreeMap<>(KEY_ORDER);
+        for (PurchaseBillItem item : purchaseBill.getItems()) {
+            BigDecimal received = item.getReceivedQuantity() != null && item.getReceivedQuantity().signum() > 0
+                    ? item.getReceivedQuantity() : item.getQuantity();
+            if (received == null || received.signum() == 0) {
+                continue;
+            }
+            Optional<Long> tankId = resolveTank(purchaseBill.getPumpId(), item.getFuelType());
+            if (tankId.isEmpty()) {
+                log.warn("No tank for fuel type {} at pump {}; receipt on purchase bill {} not booked",
+                        item.getFuelType() != null ? item.getFuelType().getId() : null, purchaseBill.getPumpId(), purchaseBill.getId());
+                continue;
+            }
+            quantities.merge(keyOf(tankId.get(), today, openShift), received, BigDecimal::add);
+        }
+        quantities.forEach((key, quantity) -> apply(key, BigDecimal.ZERO, quantity, BigDecimal.ZERO, 0));
+    }
+
+    @Override
+    public BigDecimal recordDip(Long tankId, BigDecimal dip) {
+        Tank tank = tankRepository.findById(tankId)
+                .orElseThrow(() -> new ResourceNotFoundException("Tank not found with id: " + tankId));
+        BigDecimal bookStock = tankStockBookRepository.lockBookStock(tankId).orElseGet(() -> {
+            tankStockBookRepository.insertIfAbsent(tankId);
+            return tankStockBookRepository.lockBookStock(tankId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Stock book not found for tank: " + tankId));
+        });
+        BigDecimal variance = dip.subtract(bookStock);
+        Shift openShift = referenceDataCache.getOpenShiftByPump(tank.getPumpId()).orElse(null);
+        apply(keyOf(tankId, LocalDate.now(), openShift), BigDecimal.ZERO, BigDecimal.ZERO, variance, 1);
+        tankStockBookRepository.markDip(tankId, dip, LocalDateTime.now());
+        tankLevelAlertService.recordDip(tankId, dip);
+        log.info("Dip of {} on tank {} against book stock {}: variance {}", dip, tankId, bookStock, variance);
+        return variance;
+    }
+
+    // Periods already booked stay under the pump they were recorded at
+    @Override
+    public void moveTank(Long tankId, Long pumpId) {
+        tankStockBookRepository.updatePumpId(tankId, pumpId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TankStockBookDTO getStockBook(Long tankId) {
+        Tank tank = tankRepository.findById(tankId)
+                .orElseThrow(() -> new ResourceNotFoundException("Tank not found with id: " + tankId));
+        return toBookDTO(tank, tankStockBookRepository.findById(tankId).orElse(null));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TankStockBookDTO> getStockBooksByPump(Long pumpId) {
+        Map<Long, TankStockBook> books = tankStockBookRepository.findByPumpId(pumpId).stream()
+                .collect(Collectors.toMap(TankStockBook::getTankId, Function.identity()));
+        return tankRepository.findByPumpId(pumpId).stream()
+                .map(tank -> toBookDTO(tank, books.get(tank.getId())))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TankStockPeriodDTO> getPeriods(Long tankId, String periodType, LocalDate startDate, LocalDate endDate) {
+        TankStockPeriod.PeriodType type;
+        try {
+            type = TankStockPeriod.PeriodType.valueOf(periodType.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessLogicException("Unknown stock period type: " + periodType);
+        }
+        return tankStockPeriodRepository
+                .findByTankIdAndPeriodTypeAndPeriodDateBetweenOrderByPeriodDateAscShiftIdAsc(tankId, type, startDate, endDate).stream()
+                .map(this::toPeriodDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TankStockPeriodDTO> getShiftPeriods(Long shiftId) {
+        return tankStockPeriodRepository.findByPeriodTypeAndShiftIdOrderByTankId(TankStockPeriod.PeriodType.SHIFT, shiftId).stream()
+                .map(this::toPeriodDTO)
+                .collect(Collectors.toList());
+    }
+
+    // Largest losses first; tanks without movements in the range are listed with zero totals
+    @Override
+    @Transactional(readOnly = true)
+    public List<TankVarianceDTO> getVariance(Long pumpId, LocalDate startDate, LocalDate endDate) {
+        Map<Long, Object[]> totals = new HashMap<>();
+        for (Object[] row : tankStockPeriodRepository.sumDailyByTank(pumpId, startDate, endDate)) {
+            totals.put((Long) row[0], row);
+        }
+        List<Tank> tanks = pumpId != null ? tankRepository.findByPumpId(pumpId) : tankRepository.findAll();
+        Map<Long, TankStockBook> books = tankStockBookRepository.findAllById(tanks.stream().map(Tank::getId).toList()).stream()
+                .collect(Collectors.toMap(TankStockBook::getTankId, Function.identity()));
+        return tanks.stream()
+                .map(tank -> {
+                    Object[] row = totals.get(tank.getId());
+                    TankStockBook book = books.get(tank.getId());
+                    BigDecimal sales = row != null ? quantity(row[1]) : BigDecimal.ZERO;
+                    BigDecimal variance = row != null ? quantity(row[3]) : BigDecimal.ZERO;
+                    return TankVarianceDTO.builder()
+                            .tankId(tank.getId())
+                            .tankName(tank.getName())
+                            .pumpId(tank.getPumpId())
+                            .fuelTypeId(tank.getFuelType() != null ? tank.getFuelType().getId() : null)
+                            .startDate(startDate)
+                            .endDate(endDate)
+                            .salesQuantity(sales)
+                            .receiptsQuantity(row != null ? quantity(row[2]) : BigDecimal.ZERO)
+                            .variance(variance)
+                            .variancePercentage(percentage(variance, sales))
+                            .dipCount(row != null && row[4] != null ? ((Number) row[4]).longValue() : 0L)
+                            .bookStock(book != null ? book.getBookStock() : tank.getCurrentDip())
+                            .lastDip(book != null ? book.getLastDip() : tank.getCurrentDip())
+                            .lastDipAt(book != null ? book.getLastDipAt() : null)
+                            .build();
+                })
+                .sorted(Comparator.comparing(TankVarianceDTO::getVariance))
+                .collect(Collectors.toList());
+    }
+
+    private void apply(MovementKey key, BigDecimal sales, BigDecimal receipts, BigDecimal variance, int dips) {
+        BigDecimal netChange = receipts.subtract(sales).add(variance);
+        if (tankStockBookRepository.adjust(key.tankId(), netChange) == 0) {
+            tankStockBookRepository.insertIfAbsent(key.tankId());
+            if (tankStockBookRepository.adjust(key.tankId(), netChange) == 0) {
+                log.warn("Tank {} no longer exists; stock movement of {} not booked", key.tankId(), netChange);
+                return;
+            }
+        }
+        // A dip sets the projected level outright in recordDip rather than moving it by the variance
+        if (dips == 0) {
+            tankLevelAlertService.recordMovement(key.tankId(), netChange);
+        }
+        tankStockPeriodRepository.upsert(key.tankId(), TankStockPeriod.PeriodType.DAY.name(), key.day(), NO_SHIFT,
+                netChange, sales, receipts, variance, dips);
+        if (key.shiftId() != null) {
+            tankStockPeriodRepository.upsert(key.tankId(), TankStockPeriod.PeriodType.SHIFT.name(), key.shiftDate(), key.shiftId(),
+                    netChange, sales, receipts, variance, dips);
+        }
+    }
+
+    // Nozzles are not linked to tanks, so a pump's fuel is booked against its lowest-numbered tank holding that fuel
+    private Optional<Long> resolveTank(Long pumpId, FuelType fuelType) {
+        if (pumpId == null || fuelType == null) {
+            return Optional.empty();
+        }
+        return referenceDataCache.getTanksByPump(pumpId).stream()
+                .filter(tank -> tank.getFuelType() != null && tank.getFuelType().getId().equals(fuelType.getId()))
+                .map(Tank::getId)
+                .min(Comparator.naturalOrder());
+    }
+
+    private MovementKey keyOf(Long tankId, LocalDate day, Shift shift) {
+        if (shift == null) {
+            return new MovementKey(tankId, day, null, null);
+        }
+        LocalDate shiftDate = shift.getOpenedAt() != null ? shift.getOpenedAt().toLocalDate() : day;
+        return new MovementKey(tankId, day, shift.getId(), shiftDate);
+    }
+
+    private TankStockBookDTO toBookDTO(Tank tank, TankStockBook book) {
+        BigDecimal bookStock = book != null ? book.getBookStock() : tank.getCurrentDip();
+        return TankStockBookDTO.builder()
+                .tankId(tank.getId())
+                .tankName(tank.getName())
+                .pumpId(tank.getPumpId())
+                .fuelTypeId(tank.getFuelType() != null ? tank.getFuelType().getId() : null)
+                .capacity(tank.getCapacity())
+                .bookStock(bookStock)
+                .ullage(tank.getCapacity() != null && bookStock != null ? tank.getCapacity().subtract(bookStock) : null)
+                .lastDip(book != null ? book.getLastDip() : tank.getCurrentDip())
+                .lastDipAt(book != null ? book.getLastDipAt() : null)
+                .updatedAt(book != null ? book.getUpdatedAt() : null)
+                .build();
+    }
+
+    private TankStockPeriodDTO toPeriodDTO(TankStockPeriod period) {
+        return TankStockPeriodDTO.builder()
+                .tankId(period.getTankId())
+                .periodType(period.getPeriodType().name())
+                .periodDate(period.getPeriodDate())
+                .shiftId(period.getShiftId() == NO_SHIFT ? null : period.getShiftId())
+                .openingStock(period.getOpeningStock())
+                .salesQuantity(period.getSalesQuantity())
+                .receiptsQuantity(period.getReceiptsQuantity())
+                .dipVariance(period.getDipVariance())
+                .variancePercentage(percentage(period.getDipVariance(), period.getSalesQuantity()))
+                .dipCount(period.getDipCount())
+                .closingStock(period.getClosingStock())
+                .build();
+    }
+
+    private static BigDecimal quantity(Object value) {
+        return value != null ? ((BigDecimal) value).setScale(3, RoundingMode.HALF_UP) : BigDecimal.ZERO.setScale(3);
+    }
+
+    // Variance as a share of the volume sold; null when nothing was sold
+    private static BigDecimal percentage(BigDecimal variance, BigDecimal sales) {
+        if (sales == null || sales.signum() == 0) {
+            return null;
+        }
+        return variance.multiply(BigDecimal.valueOf(100)).divide(sales, 2, RoundingMode.HALF_UP);
+    }
+
+    private record MovementKey(Long tankId, LocalDate day, Long shiftId, LocalDate shiftDate) {
+    }
+}
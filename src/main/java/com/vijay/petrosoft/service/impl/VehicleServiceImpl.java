@@ -0,0 +1,295 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.Customer;
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.domain.Vehicle;
+import com.vijay.petrosoft.dto.FleetStatementDTO;
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+import com.vijay.petrosoft.dto.VehicleDTO;
+import com.vijay.petrosoft.dto.VehicleMonthlySummaryDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.exception.ResourceNotFoundException;
+import com.vijay.petrosoft.repository.CustomerRepository;
+import com.vijay.petrosoft.repository.SaleRepository;
+import com.vijay.petrosoft.repository.VehicleMonthlySummaryRepository;
+import com.vijay.petrosoft.repository.VehicleRepository;
+import com.vijay.petrosoft.service.VehicleService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class VehicleServiceImpl implements VehicleService {
+
+    // Keep in sync with the normalization expression in VehicleRepository
+    private static final Pattern REGISTRATION_SEPARATORS = Pattern.compile("[ .\\-/]");
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final long NONE = 0L;
+    private static final long MAX_SUMMARY_MONTHS = 120;
+    private static final int MAX_REGISTRATION_LENGTH = 20;
+
+    // Keys are applied in a fixed order so concurrent batches lock summary rows in the same sequence
+    private static final Comparator<SummaryKey> KEY_ORDER = Comparator.comparing(SummaryKey::periodMonth)
+            .thenComparing(SummaryKey::vehicleId)
+            .thenComparing(SummaryKey::customerId)
+            .thenComparing(SummaryKey::fuelTypeId);
+
+    private final VehicleRepository vehicleRepository;
+    private final VehicleMonthlySummaryRepository summaryRepository;
+    private final CustomerRepository customerRepository;
+    private final SaleRepository saleRepository;
+
+    @Override
+    public String normalizeRegistration(String vehicleNumber) {
+        if (vehicleNumber == null) {
+            return null;
+        }
+        String registration = REGISTRATION_SEPARATORS.matcher(vehicleNumber).replaceAll("").toUpperCase(Locale.ROOT);
+        return registration.isEmpty() ? null : registration;
+    }
+
+    @Override
+    public Vehicle resolveVehicle(String vehicleNumber, Customer customer) {
+        String registration = normalizeRegistration(vehicleNumber);
+        if (registration == null) {
+            return null;
+        }
+        if (registration.length() > MAX_REGISTRATION_LENGTH) {
+            throw new BusinessLogicException("Vehicle number must not exceed " + MAX_REGISTRATION_LENGTH + " characters");
+        }
+        Vehicle vehicle = vehicleRepository.findByRegistrationNumber(registration).orElseGet(() -> {
+            vehicleRepository.insertIfAbsent(registration, customer != null ? customer.getId() : null);
+            return vehicleRepository.findByRegistrationNumber(registration)
+                    .orElseThrow(() -> new BusinessLogicException("Vehicle could not be registered: " + registration));
+        });
+        claimOwner(vehicle, customer);
+        return vehicle;
+    }
+
+    @Override
+    public Map<String, Vehicle> resolveVehicles(Map<String, Customer> ownersByVehicleNumber) {
+        // Sorted so concurrent batches insert new registrations in the same order
+        Map<String, Customer> owners = new TreeMap<>();
+        ownersByVehicleNumber.forEach((vehicleNumber, customer) -> {
+            String registration = normalizeRegistration(vehicleNumber);
+            // Over-long numbers are rejected by batch validation, so they are not registered
+            if (registration != null && registration.length() <= MAX_REGISTRATION_LENGTH && owners.get(registration) == null) {
+                owners.put(registration, customer);
+            }
+        });
+        if (owners.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Vehicle> vehicles = vehicleRepository.findByRegistrationNumberIn(owners.keySet()).stream()
+                .collect(Collectors.toMap(Vehicle::getRegistrationNumber, vehicle -> vehicle));
+        List<String> missing = owners.keySet().stream()
+                .filter(registration -> !vehicles.containsKey(registration))
+                .toList();
+        if (!missing.isEmpty()) {
+            for (String registration : missing) {
+                Customer customer = owners.get(registration);
+                vehicleRepository.insertIfAbsent(registration, customer != null ? customer.getId() : null);
+            }
+            vehicleRepository.findByRegistrationNumberIn(missing)
+                    .forEach(vehicle -> vehicles.put(vehicle.getRegistrationNumber(), vehicle));
+        }
+        vehicles.forEach((registration, vehicle) -> claimOwner(vehicle, owners.get(registration)));
+        return vehicles;
+    }
+
+    @Override
+    public void recordSale(SaleTransaction saleTransaction, BigDecimal amount, BigDecimal quantity, long transactionCount) {
+        if (saleTransaction.getVehicle() == null || saleTransaction.getTransactedAt() == null) {
+            return;
+        }
+        applyDelta(keyOf(saleTransaction), new SummaryDelta().add(amount, quantity, transactionCount));
+    }
+
+    @Override
+    public void recordSales(Collection<SaleTransaction> saleTransactions) {
+        Map<SummaryKey, SummaryDelta> deltas = new TreeMap<>(KEY_ORDER);
+        for (SaleTransaction saleTransaction : saleTransactions) {
+            if (saleTransaction.getVehicle() != null && saleTransaction.getTransactedAt() != null) {
+                deltas.computeIfAbsent(keyOf(saleTransaction), key -> new SummaryDelta())
+                        .add(saleTransaction.getTotalAmount(), saleTransaction.getQuantity(), 1);
+            }
+        }
+        deltas.forEach(this::applyDelta);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public VehicleDTO getVehicleByRegistration(String vehicleNumber) {
+        String registration = normalizeRegistration(vehicleNumber);
+        return vehicleRepository.findByRegistrationNumber(registration != null ? registration : "")
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("Vehicle not found with registration: " + vehicleNumber));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<VehicleDTO> getVehiclesByCustomer(Long customerId) {
+        return vehicleRepository.findByCustomerIdOrderByRegistrationNumber(customerId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public VehicleDTO assignToCustomer(Long vehicleId, Long customerId) {
+        Vehicle vehicle = findVehicle(vehicleId);
+        Customer customer = customerRepository.findById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + customerId));
+        vehicle.setCustomer(customer);
+        return convertToDTO(vehicleRepository.save(vehicle));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SaleTransactionDTO> getVehicleSales(Long vehicleId, LocalDateTime startDate, LocalDateTime endDate) {
+        findVehicle(vehicleId);
+        return saleRepository.findListingsByVehicleAndDateRange(vehicleId, startDate, endDate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<VehicleMonthlySummaryDTO> getVehicleMonthlySummary(Long vehicleId, YearMonth startMonth, YearMonth endMonth) {
+        if (endMonth.isBefore(startMonth) || startMonth.plusMonths(MAX_SUMMARY_MONTHS).isBefore(endMonth)) {
+            throw new BusinessLogicException("Month range must be ascending and at most " + MAX_SUMMARY_MONTHS + " months");
+        }
+        Vehicle vehicle = findVehicle(vehicleId);
+        Map<LocalDate, Object[]> rows = new HashMap<>();
+        for (Object[] row : summaryRepository.sumByVehicleAndMonth(vehicleId, startMonth.atDay(1), endMonth.atDay(1))) {
+            rows.put((LocalDate) row[0], row);
+        }
+        List<VehicleMonthlySummaryDTO> months = new ArrayList<>();
+        for (YearMonth month = startMonth; !month.isAfter(endMonth); month = month.plusMonths(1)) {
+            months.add(toSummaryDTO(vehicleId, vehicle.getRegistrationNumber(), month, rows.get(month.atDay(1)), 1));
+        }
+        return months;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FleetStatementDTO getFleetStatement(Long customerId, YearMonth month) {
+        Customer customer = customerRepository.findById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + customerId));
+
+        List<VehicleMonthlySummaryDTO> vehicles = summaryRepository.sumByCustomerAndMonth(customerId, month.atDay(1)).stream()
+                .map(row -> toSummaryDTO((Long) row[0], (String) row[1], month, row, 2))
+                .collect(Collectors.toList());
+        return FleetStatementDTO.builder()
+                .customerId(customerId)
+                .customerName(customer.getName())
+                .month(month.format(MONTH_LABEL))
+                .vehicleCount(vehicles.size())
+                .totalAmount(vehicles.stream().map(VehicleMonthlySummaryDTO::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .totalQuantity(vehicles.stream().map(VehicleMonthlySummaryDTO::getTotalQuantity).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .transactionCount(vehicles.stream().mapToLong(VehicleMonthlySummaryDTO::getTransactionCount).sum())
+                .vehicles(vehicles)
+                .build();
+    }
+
+    @Override
+    public Map<String, Integer> backfillVehicles() {
+        int vehiclesCreated = vehicleRepository.insertMissingFromSales();
+        int salesLinked = vehicleRepository.linkSales();
+        log.info("Vehicle backfill created {} vehicles and linked {} sales", vehiclesCreated, salesLinked);
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        result.put("vehiclesCreated", vehiclesCreated);
+        result.put("salesLinked", salesLinked);
+        return result;
+    }
+
+    @Override
+    public void rebuildMonthlySummaries(YearMonth startMonth, YearMonth endMonth) {
+        if (endMonth.isBefore(startMonth)) {
+            throw new BusinessLogicException("End month must not be before start month");
+        }
+        summaryRepository.deleteRange(startMonth.atDay(1), endMonth.atDay(1));
+        int rows = summaryRepository.rebuildFromSales(startMonth.atDay(1).atStartOfDay(), endMonth.plusMonths(1).atDay(1).atStartOfDay());
+        log.info("Rebuilt vehicle monthly summaries for {} to {}: {} rows", startMonth, endMonth, rows);
+    }
+
+    private void claimOwner(Vehicle vehicle, Customer customer) {
+        if (vehicle.getCustomer() == null && customer != null) {
+            vehicle.setCustomer(customer);
+        }
+    }
+
+    private Vehicle findVehicle(Long vehicleId) {
+        return vehicleRepository.findById(vehicleId)
+                .orElseThrow(() -> new ResourceNotFoundException("Vehicle not found with id: " + vehicleId));
+    }
+
+    private void applyDelta(SummaryKey key, SummaryDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        summaryRepository.upsert(key.vehicleId(), key.customerId(), key.fuelTypeId(), key.periodMonth(),
+                delta.amount, delta.quantity, delta.transactions);
+    }
+
+    private SummaryKey keyOf(SaleTransaction saleTransaction) {
+        return new SummaryKey(saleTransaction.getVehicle().getId(),
+                saleTransaction.getCustomer() != null ? saleTransaction.getCustomer().getId() : NONE,
+                saleTransaction.getFuelType() != null ? saleTransaction.getFuelType().getId() : NONE,
+                saleTransaction.getTransactedAt().toLocalDate().withDayOfMonth(1));
+    }
+
+    // offset is the index of the first measure column in the aggregate row
+    private VehicleMonthlySummaryDTO toSummaryDTO(Long vehicleId, String registrationNumber, YearMonth month, Object[] row, int offset) {
+        return VehicleMonthlySummaryDTO.builder()
+                .vehicleId(vehicleId)
+                .registrationNumber(registrationNumber)
+                .month(month.format(MONTH_LABEL))
+                .totalAmount(row != null && row[offset] != null ? (BigDecimal) row[offset] : BigDecimal.ZERO)
+                .totalQuantity(row != null && row[offset + 1] != null ? (BigDecimal) row[offset + 1] : BigDecimal.ZERO)
+                .transactionCount(row != null && row[offset + 2] != null ? ((Number) row[offset + 2]).longValue() : 0L)
+                .build();
+    }
+
+    private VehicleDTO convertToDTO(Vehicle vehicle) {
+        return VehicleDTO.builder()
+                .id(vehicle.getId())
+                .registrationNumber(vehicle.getRegistrationNumber())
+                .customerId(vehicle.getCustomer() != null ? vehicle.getCustomer().getId() : null)
+                .customerName(vehicle.getCustomer() != null ? vehicle.getCustomer().getName() : null)
+                .active(vehicle.isActive())
+                .build();
+    }
+
+    private record SummaryKey(Long vehicleId, Long customerId, Long fuelTypeId, LocalDate periodMonth) {
+    }
+
+    private static class SummaryDelta {
+        private BigDecimal amount = BigDecimal.ZERO;
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private long transactions;
+
+        SummaryDelta add(BigDecimal saleAmount, BigDecimal saleQuantity, long transactionCount) {
+            amount = amount.add(saleAmount != null ? saleAmount : BigDecimal.ZERO);
+            quantity = quantity.add(saleQuantity != null ? saleQuantity : BigDecimal.ZERO);
+            transactions += transactionCount;
+            return this;
+        }
+
+        boolean isEmpty() {
+            return amount.signum() == 0 && quantity.signum() == 0 && transactions == 0;
+        }
+    }
+}
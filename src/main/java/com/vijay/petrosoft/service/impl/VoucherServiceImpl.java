@@ -1,6 +1,7 @@
 package com.vijay.petrosoft.service.impl;
 
 import com.vijay.petrosoft.domain.Account;
+import com.vijay.petrosoft.domain.Customer;
 import com.vijay.petrosoft.domain.Voucher;
 import com.vijay.petrosoft.domain.VoucherEntry;
 import com.vijay.petrosoft.dto.VoucherDTO;
@@ -8,8 +9,11 @@ import com.vijay.petrosoft.dto.VoucherEntryDTO;
 import com.vijay.petrosoft.exception.GlobalExceptionHandler.ResourceNotFoundException;
 import com.vijay.petrosoft.exception.GlobalExceptionHandler.DuplicateResourceException;
 import com.vijay.petrosoft.repository.AccountRepository;
+import com.vijay.petrosoft.repository.CustomerRepository;
 import com.vijay.petrosoft.repository.VoucherRepository;
 import com.vijay.petrosoft.repository.VoucherEntryRepository;
+import com.vijay.petrosoft.service.CreditExposureService;
+import com.vijay.petrosoft.service.CustomerAgeingService;
 import com.vijay.petrosoft.service.VoucherService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -31,6 +35,9 @@ public class VoucherServiceImpl implements VoucherService {
     private final VoucherRepository voucherRepository;
     private final VoucherEntryRepository voucherEntryRepository;
     private final AccountRepository accountRepository;
+    private final CustomerRepository customerRepository;
+    private final CreditExposureService creditExposureService;
+    private final CustomerAgeingService customerAgeingService;
 
     @Override
     public VoucherDTO createVoucher(VoucherDTO voucherDTO) {
@@ -64,6 +71,7 @@ public class VoucherServiceImpl implements VoucherService {
                 .isCancelled(voucherDTO.isCancelled())
                 .partyName(voucherDTO.getPartyName())
                 .partyAccountCode(voucherDTO.getPartyAccountCode())
+                .customerId(voucherDTO.getCustomerId())
                 .chequeNumber(voucherDTO.getChequeNumber())
                 .chequeDate(voucherDTO.getChequeDate())
                 .bankName(voucherDTO.getBankName())
@@ -99,6 +107,9 @@ public class VoucherServiceImpl implements VoucherService {
         }
 
         savedVoucher.setVoucherEntries(voucherEntries);
+        if (savedVoucher.isPosted()) {
+            applyReceiptSettlement(savedVoucher, false);
+        }
         log.info("Voucher created with number: {}", voucherDTO.getVoucherNumber());
         
         return convertToDTO(savedVoucher);
@@ -130,6 +141,7 @@ public class VoucherServiceImpl implements VoucherService {
         voucher.setTotalAmount(voucherDTO.getTotalAmount());
         voucher.setPartyName(voucherDTO.getPartyName());
         voucher.setPartyAccountCode(voucherDTO.getPartyAccountCode());
+        voucher.setCustomerId(voucherDTO.getCustomerId());
         voucher.setChequeNumber(voucherDTO.getChequeNumber());
         voucher.setChequeDate(voucherDTO.getChequeDate());
         voucher.setBankName(voucherDTO.getBankName());
@@ -284,6 +296,7 @@ public class VoucherServiceImpl implements VoucherService {
         voucher.setPostedBy(postedBy);
 
         Voucher updatedVoucher = voucherRepository.save(voucher);
+        applyReceiptSettlement(updatedVoucher, false);
         log.info("Voucher posted for ID: {}", id);
         
         return convertToDTO(updatedVoucher);
@@ -305,6 +318,9 @@ public class VoucherServiceImpl implements VoucherService {
         voucher.setCancellationReason(reason);
 
         Voucher updatedVoucher = voucherRepository.save(voucher);
+        if (updatedVoucher.isPosted()) {
+            applyReceiptSettlement(updatedVoucher, true);
+        }
         log.info("Voucher cancelled for ID: {}", id);
         
         return convertToDTO(updatedVoucher);
@@ -375,6 +391,9 @@ public class VoucherServiceImpl implements VoucherService {
         voucher.setCancellationReason(null);
 
         Voucher updatedVoucher = voucherRepository.save(voucher);
+        if (updatedVoucher.isPosted()) {
+            applyReceiptSettlement(updatedVoucher, false);
+        }
         log.info("Voucher uncancelled for ID: {}", id);
         
         return convertToDTO(updatedVoucher);
@@ -669,6 +688,28 @@ public class VoucherServiceImpl implements VoucherService {
         throw new UnsupportedOperationException("Voucher templates not implemented yet");
     }
 
+    // A posted customer receipt settles the customer's outstanding; cancelling it restores the debt
+    private void applyReceiptSettlement(Voucher voucher, boolean reverse) {
+        if (voucher.getVoucherType() != Voucher.VoucherType.CUSTOMER_RECEIPT || voucher.getTotalAmount() == null) {
+            return;
+        }
+        Long customerId = voucher.getCustomerId();
+        if (customerId == null && voucher.getPartyAccountCode() != null) {
+            customerId = customerRepository.findByCode(voucher.getPartyAccountCode()).map(Customer::getId).orElse(null);
+        }
+        if (customerId == null) {
+            log.warn("Customer receipt {} has no customer; outstanding not updated", voucher.getVoucherNumber());
+            return;
+        }
+        if (reverse) {
+            creditExposureService.reverseSettlement(customerId, voucher.getTotalAmount());
+            customerAgeingService.reverseReceipt(customerId, voucher.getTotalAmount());
+        } else {
+            creditExposureService.settle(customerId, voucher.getTotalAmount());
+            customerAgeingService.applyReceipt(customerId, voucher.getTotalAmount());
+        }
+    }
+
     private VoucherDTO convertToDTO(Voucher voucher) {
         return VoucherDTO.builder()
                 .id(voucher.getId())
@@ -690,6 +731,7 @@ public class VoucherServiceImpl implements VoucherService {
                 .cancellationReason(voucher.getCancellationReason())
                 .partyName(voucher.getPartyName())
                 .partyAccountCode(voucher.getPartyAccountCode())
+                .customerId(voucher.getCustomerId())
                 .chequeNumber(voucher.getChequeNumber())
                 .chequeDate(voucher.getChequeDate())
                 .bankName(voucher.getBankName())
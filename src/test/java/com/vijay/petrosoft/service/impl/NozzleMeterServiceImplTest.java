@@ -0,0 +1,213 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.Nozzle;
+import com.vijay.petrosoft.domain.NozzleMeterBlock;
+import com.vijay.petrosoft.domain.Shift;
+import com.vijay.petrosoft.dto.NozzleMeterReconciliationDTO;
+import com.vijay.petrosoft.dto.NozzleReadingDTO;
+import com.vijay.petrosoft.dto.NozzleReadingIngestResultDTO;
+import com.vijay.petrosoft.repository.NozzleMeterBlockRepository;
+import com.vijay.petrosoft.repository.SaleRepository;
+import com.vijay.petrosoft.repository.ShiftRepository;
+import com.vijay.petrosoft.service.ReferenceDataCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NozzleMeterServiceImplTest {
+
+    private static final Long NOZZLE = 5L;
+    private static final Long PUMP = 1L;
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+
+    private final List<NozzleMeterBlock> blocks = new ArrayList<>();
+    private SaleRepository saleRepository;
+    private ShiftRepository shiftRepository;
+    private NozzleMeterServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        NozzleMeterBlockRepository blockRepository = mock(NozzleMeterBlockRepository.class);
+        saleRepository = mock(SaleRepository.class);
+        shiftRepository = mock(ShiftRepository.class);
+        ReferenceDataCache referenceDataCache = mock(ReferenceDataCache.class);
+        Nozzle nozzle = Nozzle.builder().id(NOZZLE).pumpId(PUMP).name("N5").build();
+        when(referenceDataCache.getNozzle(NOZZLE)).thenReturn(Optional.of(nozzle));
+        when(referenceDataCache.getNozzlesByPump(PUMP)).thenReturn(List.of(nozzle));
+
+        // In-memory stand-in for the block table
+        doAnswer(invocation -> {
+            if (find(invocation.getArgument(0), invocation.getArgument(2)) == null) {
+                blocks.add(NozzleMeterBlock.builder()
+                        .nozzleId(invocation.getArgument(0))
+                        .pumpId(invocation.getArgument(1))
+                        .blockDate(invocation.getArgument(2))
+                        .build());
+            }
+            return null;
+        }).when(blockRepository).insertIfAbsent(any(), any(), any());
+        when(blockRepository.findForUpdate(any(), any())).thenAnswer(invocation ->
+                Optional.ofNullable(find(invocation.getArgument(0), invocation.getArgument(1))));
+        when(blockRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(blockRepository.findByNozzleIdAndBlockDateBetweenOrderByBlockDateAsc(any(), any(), any())).thenAnswer(invocation ->
+                between(List.of((Long) invocation.getArgument(0)), invocation.getArgument(1), invocation.getArgument(2)));
+        when(blockRepository.findByNozzleIdInAndBlockDateBetweenOrderByBlockDateAsc(anyCollection(), any(), any())).thenAnswer(invocation ->
+                between(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+        when(blockRepository.findFirstByNozzleIdAndBlockDateLessThanAndReadingCountGreaterThanOrderByBlockDateDesc(any(), any(), any()))
+                .thenAnswer(invocation -> blocks.stream()
+                        .filter(block -> block.getNozzleId().equals(invocation.getArgument(0))
+                                && block.getBlockDate().isBefore(invocation.getArgument(1))
+                                && block.getReadingCount() > (Integer) invocation.getArgument(2))
+                        .max(Comparator.comparing(NozzleMeterBlock::getBlockDate)));
+
+        service = new NozzleMeterServiceImpl(blockRepository, saleRepository, shiftRepository, referenceDataCache);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 5000);
+        ReflectionTestUtils.setField(service, "maxRangeDays", 31);
+        ReflectionTestUtils.setField(service, "maxClockSkewSeconds", 300L);
+    }
+
+    @Test
+    void readingsRoundTripThroughVarintAndZigzagEncoding() {
+        List<NozzleReadingDTO> readings = List.of(
+                reading(DAY.atStartOfDay(), "0.000"),              // no time or volume moved since midnight
+                reading(DAY.atTime(0, 0, 1), "0.001"),
+                reading(DAY.atTime(0, 2, 8), "127.999"),           // 127 seconds, the largest one-byte varint
+                reading(DAY.atTime(6, 30), "9999999.999"),         // multi-byte volume delta
+                reading(DAY.atTime(6, 31), "0.500"),               // large drop, a negative zigzag delta
+                reading(DAY.atTime(23, 59, 59), "0.499"));         // last second of the day, minus one millilitre
+
+        NozzleReadingIngestResultDTO result = service.recordReadings(readings);
+
+        assertThat(result.getStored()).isEqualTo(6);
+        assertThat(service.getReadings(NOZZLE, DAY.atStartOfDay(), DAY.atTime(23, 59, 59)))
+                .containsExactlyElementsOf(readings);
+    }
+
+    @Test
+    void inOrderBatchesAppendAndLateReadingsMergeInTimeOrder() {
+        service.recordReadings(List.of(reading(DAY.atTime(10, 0), "100.000"), reading(DAY.atTime(12, 0), "120.000")));
+        service.recordReadings(List.of(reading(DAY.atTime(14, 0), "140.000")));
+        assertThat(blocks).hasSize(1);
+        assertThat(blocks.get(0).getReadingCount()).isEqualTo(3);
+
+        NozzleReadingIngestResultDTO late = service.recordReadings(List.of(
+                reading(DAY.atTime(11, 0), "110.000"),
+                reading(DAY.atTime(12, 0), "120.000"),          // already stored with the same value
+                reading(DAY.atTime(13, 0), "130.000")));
+
+        assertThat(late.getStored()).isEqualTo(2);
+        assertThat(late.getDuplicates()).isEqualTo(1);
+        assertThat(blocks.get(0).getReadingCount()).isEqualTo(5);
+        assertThat(blocks.get(0).getLastReadingAt()).isEqualTo(DAY.atTime(14, 0));
+        assertThat(service.getReadings(NOZZLE, DAY.atStartOfDay(), DAY.atTime(23, 59)))
+                .extracting(NozzleReadingDTO::getReading)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("100"), new BigDecimal("110"), new BigDecimal("120"),
+                        new BigDecimal("130"), new BigDecimal("140"));
+
+        // A late batch that only repeats stored readings leaves the block alone
+        assertThat(service.recordReadings(List.of(reading(DAY.atTime(11, 0), "110.000"))).getStored()).isZero();
+        // A changed value for a stored second replaces it
+        assertThat(service.recordReadings(List.of(reading(DAY.atTime(11, 0), "111.000"))).getStored()).isEqualTo(1);
+        assertThat(service.getReadings(NOZZLE, DAY.atTime(11, 0), DAY.atTime(11, 0)))
+                .extracting(NozzleReadingDTO::getReading)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("111"));
+    }
+
+    @Test
+    void meterResetIsCountedAndAddsNoVolume() {
+        service.recordReadings(List.of(
+                reading(DAY.atTime(7, 59), "1000.000"),
+                reading(DAY.atTime(9, 0), "1010.000"),
+                reading(DAY.atTime(10, 0), "1025.000"),
+                reading(DAY.atTime(11, 0), "5.000"),            // meter reset
+                reading(DAY.atTime(12, 0), "20.000"),
+                reading(DAY.atTime(17, 0), "50.000")));         // after the shift closed
+        shift(DAY.atTime(8, 0), DAY.atTime(16, 0));
+        when(saleRepository.sumQuantityByNozzleForShift(eq(9L), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{NOZZLE, new BigDecimal("38.000"), 3L}));
+
+        NozzleMeterReconciliationDTO.NozzleVarianceDTO nozzle = service.reconcileShift(9L).getNozzles().get(0);
+
+        assertThat(nozzle.getOpeningReading()).isEqualByComparingTo("1000.000");
+        assertThat(nozzle.getClosingReading()).isEqualByComparingTo("20.000");
+        assertThat(nozzle.getReadingCount()).isEqualTo(4);
+        assertThat(nozzle.getMeterResets()).isEqualTo(1);
+        assertThat(nozzle.getDispensedQuantity()).isEqualByComparingTo("40.000");
+        assertThat(nozzle.getVariance()).isEqualByComparingTo("2.000");
+        assertThat(nozzle.getVariancePercentage()).isEqualByComparingTo("5.26");
+    }
+
+    @Test
+    void openingReadingComesFromAnEarlierDayWhenTheShiftDayHasNone() {
+        service.recordReadings(List.of(reading(DAY.atTime(23, 0), "100.000")));
+        service.recordReadings(List.of(reading(DAY.plusDays(1).atTime(1, 0), "112.500")));
+        shift(DAY.plusDays(1).atTime(0, 30), DAY.plusDays(1).atTime(8, 0));
+        when(saleRepository.sumQuantityByNozzleForShift(eq(9L), any())).thenReturn(List.of());
+
+        NozzleMeterReconciliationDTO.NozzleVarianceDTO nozzle = service.reconcileShift(9L).getNozzles().get(0);
+
+        assertThat(nozzle.getOpeningReadingAt()).isEqualTo(DAY.atTime(23, 0));
+        assertThat(nozzle.getDispensedQuantity()).isEqualByComparingTo("12.500");
+        assertThat(nozzle.getVariancePercentage()).isNull();
+    }
+
+    @Test
+    void invalidReadingsAreRejectedWithoutTouchingBlocks() {
+        NozzleReadingIngestResultDTO result = service.recordReadings(List.of(
+                reading(DAY.atTime(9, 0), "-1.000"),
+                reading(LocalDateTime.now().plusHours(1), "10.000"),
+                NozzleReadingDTO.builder().nozzleId(6L).readAt(DAY.atTime(9, 0)).reading(BigDecimal.TEN).build(),
+                reading(DAY.atTime(9, 0), "10.000")));
+
+        assertThat(result.getStored()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getErrors()).hasSize(3);
+        assertThat(result.getErrors().get(0)).contains("cannot be negative");
+        assertThat(result.getErrors().get(1)).contains("in the future");
+        assertThat(result.getErrors().get(2)).contains("Nozzle not found with id: 6");
+        assertThat(blocks).hasSize(1);
+    }
+
+    private void shift(LocalDateTime openedAt, LocalDateTime closedAt) {
+        when(shiftRepository.findById(9L)).thenReturn(Optional.of(Shift.builder()
+                .id(9L).pumpId(PUMP).openedAt(openedAt).closedAt(closedAt).build()));
+    }
+
+    private NozzleMeterBlock find(Long nozzleId, LocalDate day) {
+        return blocks.stream()
+                .filter(block -> block.getNozzleId().equals(nozzleId) && block.getBlockDate().equals(day))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private List<NozzleMeterBlock> between(Collection<Long> nozzleIds, LocalDate from, LocalDate to) {
+        return blocks.stream()
+                .filter(block -> nozzleIds.contains(block.getNozzleId())
+                        && !block.getBlockDate().isBefore(from) && !block.getBlockDate().isAfter(to))
+                .sorted(Comparator.comparing(NozzleMeterBlock::getBlockDate))
+                .toList();
+    }
+
+    private static NozzleReadingDTO reading(LocalDateTime readAt, String litres) {
+        return NozzleReadingDTO.builder().nozzleId(NOZZLE).readAt(readAt).reading(new BigDecimal(litres)).build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+import com.vijay.petrosoft.repository.SaleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SaleIdempotencyServiceImplTest {
+
+    private SaleRepository saleRepository;
+    private SaleIdempotencyServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        saleRepository = mock(SaleRepository.class);
+        service = new SaleIdempotencyServiceImpl(saleRepository);
+        ReflectionTestUtils.setField(service, "expectedKeys", 1000);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.0001);
+        ReflectionTestUtils.setField(service, "recentCacheSize", 100);
+        ReflectionTestUtils.setField(service, "seedDays", 30);
+        service.initRecentCache();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void seededKeyIsConfirmedAgainstTheDatabaseAndUnknownKeysAreNot() {
+        seed(new Object[]{"T1", "R1"});
+        when(saleRepository.findListingsByTerminalAndReference("T1", "R1")).thenReturn(List.of(stored("R1", "S001")));
+
+        assertThat(service.findOriginal("T1", "R1")).map(SaleTransactionDTO::getSaleNumber).contains("S001");
+        for (int i = 0; i < 200; i++) {
+            assertThat(service.findOriginal("T1", "UNSEEN-" + i)).isEmpty();
+        }
+
+        // Only the seeded key got past the filter to the database
+        verify(saleRepository, times(1)).findListingsByTerminalAndReference(any(), any());
+        assertThat(service.getIdempotencyStatus()).containsEntry("probableHits", 1L).containsEntry("confirmedReplays", 1L);
+    }
+
+    @Test
+    void confirmedReplayIsServedFromTheRecentCacheAfterwards() {
+        seed(new Object[]{"T1", "R1"});
+        when(saleRepository.findListingsByTerminalAndReference("T1", "R1")).thenReturn(List.of(stored("R1", "S001")));
+
+        service.findOriginal("T1", "R1");
+        service.findOriginal("T1", "R1");
+
+        verify(saleRepository, times(1)).findListingsByTerminalAndReference("T1", "R1");
+        assertThat(service.getIdempotencyStatus()).containsEntry("recentHits", 1L);
+    }
+
+    @Test
+    void rememberInsideATransactionOnlyTakesEffectAfterCommit() {
+        seed();
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.remember(stored("R1", "S001"));
+        assertThat(service.findOriginal("T1", "R1")).isEmpty();
+
+        List<TransactionSynchronization> synchronizations = new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(service.findOriginal("T1", "R1")).map(SaleTransactionDTO::getSaleNumber).contains("S001");
+    }
+
+    @Test
+    void rememberedSaleIsForgottenWhenItsTransactionRollsBack() {
+        seed();
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.remember(stored("R1", "S001"));
+        List<TransactionSynchronization> synchronizations = new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(service.findOriginal("T1", "R1")).isEmpty();
+        assertThat(service.getIdempotencyStatus()).containsEntry("filterKeys", 0L);
+    }
+
+    @Test
+    void keysSurviveOneRotationAndAreDroppedByTheSecond() {
+        seed(new Object[]{"T1", "R1"});
+        when(saleRepository.findListingsByTerminalAndReference("T1", "R1")).thenReturn(List.of());
+
+        service.rotate();
+        service.findOriginal("T1", "R1");
+        verify(saleRepository, times(1)).findListingsByTerminalAndReference("T1", "R1");
+        assertThat(service.getIdempotencyStatus()).containsEntry("filterKeys", 0L).containsEntry("previousFilterKeys", 1L);
+
+        service.rotate();
+        service.findOriginal("T1", "R1");
+        verify(saleRepository, times(1)).findListingsByTerminalAndReference("T1", "R1");
+        assertThat(service.getIdempotencyStatus()).containsEntry("previousFilterKeys", 0L);
+    }
+
+    @Test
+    void saleWithoutReferenceIsNeitherLookedUpNorRemembered() {
+        seed();
+
+        service.remember(stored(null, "S001"));
+
+        assertThat(service.findOriginal("T1", null)).isEmpty();
+        assertThat(service.getIdempotencyStatus()).containsEntry("lookups", 0L).containsEntry("filterKeys", 0L);
+    }
+
+    private void seed(Object[]... keys) {
+        when(saleRepository.findIdempotencyKeysSince(any())).thenReturn(List.of(keys));
+        service.seed();
+    }
+
+    private static SaleTransactionDTO stored(String reference, String saleNumber) {
+        return SaleTransactionDTO.builder()
+                .id(1L)
+                .pumpId(1L)
+                .terminalId("T1")
+                .transactionReference(reference)
+                .saleNumber(saleNumber)
+                .build();
+    }
+}
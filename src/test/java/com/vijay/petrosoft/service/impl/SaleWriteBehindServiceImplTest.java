@@ -0,0 +1,326 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.petrosoft.domain.SaleDeadLetter;
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.SaleBatchResultDTO;
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.repository.SaleDeadLetterRepository;
+import com.vijay.petrosoft.service.SaleIdempotencyService;
+import com.vijay.petrosoft.service.SalesService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SaleWriteBehindServiceImplTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private SalesService salesService;
+    private SaleIdempotencyService saleIdempotencyService;
+    private SaleDeadLetterRepository saleDeadLetterRepository;
+    private SaleWriteBehindServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        salesService = mock(SalesService.class);
+        saleIdempotencyService = mock(SaleIdempotencyService.class);
+        saleDeadLetterRepository = mock(SaleDeadLetterRepository.class);
+        when(saleIdempotencyService.findOriginal(any(), any())).thenReturn(Optional.empty());
+        commitEverything();
+        service = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        service.closeJournal();
+    }
+
+    @Test
+    void acceptedSaleIsJournaledAndJournalIsTruncatedOnceCommitted() throws IOException {
+        service.acceptSale(sale("R1"));
+        assertThat(journalBytes()).isPositive();
+
+        service.flushPendingSales();
+
+        verify(salesService).commitJournaledSales(anyList());
+        assertThat(journalBytes()).isZero();
+        assertThat(service.getWriteBehindStatus()).containsEntry("committedSales", 1L).containsEntry("uncommittedSales", 0L);
+    }
+
+    @Test
+    void uncommittedEntriesAreReplayedAfterRestart() throws IOException {
+        service.acceptSale(sale("R1"));
+        service.acceptSale(sale("R2"));
+        String firstSaleNumber = objectMapper.readTree(journalLines().get(0)).get("sale").get("saleNumber").asText();
+        restart();
+
+        assertThat(service.getWriteBehindStatus()).containsEntry("pendingSales", 2).containsEntry("uncommittedSales", 2L);
+
+        List<List<SaleTransactionDTO>> committed = commitEverything();
+        service.flushPendingSales();
+
+        assertThat(committed).hasSize(1);
+        assertThat(committed.get(0)).extracting(SaleTransactionDTO::getTransactionReference).containsExactly("R1", "R2");
+        assertThat(committed.get(0).get(0).getSaleNumber()).isEqualTo(firstSaleNumber);
+        assertThat(journalBytes()).isZero();
+    }
+
+    @Test
+    void tornFinalLineIsSkippedOnReplay() throws IOException {
+        service.acceptSale(sale("R1"));
+        doThrow(new IllegalStateException("database down")).when(salesService).commitJournaledSales(anyList());
+        service.closeJournal();
+        Files.writeString(segmentFiles().getLast(), "{\"sequence\":2,\"sale\":{", StandardOpenOption.APPEND);
+
+        service = open();
+
+        assertThat(service.getWriteBehindStatus()).containsEntry("pendingSales", 1);
+    }
+
+    @Test
+    void saleRejectedAtCommitIsDeadLetteredAndLeavesTheJournal() throws IOException {
+        doAnswer(invocation -> result(invocation.getArgument(0), 1)).when(salesService).commitJournaledSales(anyList());
+
+        service.acceptSale(sale("R1"));
+        service.acceptSale(sale("R2"));
+        service.flushPendingSales();
+
+        verify(saleDeadLetterRepository).save(any(SaleDeadLetter.class));
+        assertThat(service.getWriteBehindStatus()).containsEntry("committedSales", 1L).containsEntry("rejectedSales", 1L);
+        assertThat(journalBytes()).isZero();
+    }
+
+    @Test
+    void failingGroupIsSplitAfterMaxAttemptsSoOnlyThePoisonEntryIsDeadLettered() throws IOException {
+        List<List<SaleTransactionDTO>> calls = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<SaleTransactionDTO> sales = new ArrayList<>(invocation.getArgument(0));
+            calls.add(sales);
+            if (sales.stream().anyMatch(sale -> "POISON".equals(sale.getTransactionReference()))) {
+                throw new IllegalStateException("constraint violated");
+            }
+            return result(sales, -1);
+        }).when(salesService).commitJournaledSales(anyList());
+
+        service.acceptSale(sale("R1"));
+        service.acceptSale(sale("POISON"));
+        service.acceptSale(sale("R3"));
+        for (int tick = 0; tick < 3; tick++) {
+            service.flushPendingSales();
+        }
+
+        // Three group attempts, then one commit per sale
+        assertThat(calls).hasSize(6);
+        assertThat(calls.subList(3, 6)).allSatisfy(call -> assertThat(call).hasSize(1));
+        verify(saleDeadLetterRepository).save(any(SaleDeadLetter.class));
+        assertThat(service.getWriteBehindStatus())
+                .containsEntry("committedSales", 2L)
+                .containsEntry("rejectedSales", 1L)
+                .containsEntry("pendingSales", 0);
+        assertThat(journalBytes()).isZero();
+    }
+
+    @Test
+    void entryStaysInTheJournalWhenItCannotBeDeadLettered() throws IOException {
+        doThrow(new IllegalStateException("database down")).when(salesService).commitJournaledSales(anyList());
+        when(saleDeadLetterRepository.save(any(SaleDeadLetter.class))).thenThrow(new IllegalStateException("database down"));
+
+        service.acceptSale(sale("R1"));
+        for (int tick = 0; tick < 3; tick++) {
+            service.flushPendingSales();
+        }
+
+        assertThat(service.getWriteBehindStatus()).containsEntry("pendingSales", 1).containsEntry("uncommittedSales", 1L);
+        assertThat(journalBytes()).isPositive();
+    }
+
+    @Test
+    void segmentIsDeletedOnceEveryEntryInItIsCommitted() throws IOException {
+        // One entry per segment and per group, so each sale settles on its own
+        ReflectionTestUtils.setField(service, "segmentBytes", 1L);
+        ReflectionTestUtils.setField(service, "maxGroupSize", 1);
+        doAnswer(invocation -> {
+            List<SaleTransactionDTO> sales = invocation.getArgument(0);
+            if (sales.get(0).getTransactionReference().equals("R2")) {
+                throw new IllegalStateException("database down");
+            }
+            return result(sales, -1);
+        }).when(salesService).commitJournaledSales(anyList());
+
+        service.acceptSale(sale("R1"));
+        service.acceptSale(sale("R2"));
+        service.acceptSale(sale("R3"));
+        List<Path> written = segmentFiles();
+        assertThat(written).hasSize(3);
+
+        service.flushPendingSales();
+
+        assertThat(segmentFiles()).containsExactly(written.get(1), written.get(2));
+        assertThat(service.getWriteBehindStatus()).containsEntry("journalSegments", 2).containsEntry("uncommittedSales", 2L);
+
+        commitEverything();
+        service.flushPendingSales();
+
+        assertThat(segmentFiles()).containsExactly(written.get(2));
+        assertThat(journalBytes()).isZero();
+        assertThat(service.getWriteBehindStatus()).containsEntry("journalSegments", 1).containsEntry("uncommittedSales", 0L);
+    }
+
+    @Test
+    void retryBeforeCommitIsAnsweredFromThePendingJournal() throws IOException {
+        SaleTransactionDTO accepted = service.acceptSale(sale("R1"));
+        long journalBytes = journalBytes();
+
+        SaleTransactionDTO retried = service.acceptSale(sale("R1"));
+
+        assertThat(retried.getSaleNumber()).isEqualTo(accepted.getSaleNumber());
+        assertThat(journalBytes()).isEqualTo(journalBytes);
+        assertThat(service.getWriteBehindStatus()).containsEntry("pendingSales", 1);
+    }
+
+    @Test
+    void saleIsOnlyRememberedByTheCommitNotAtAcknowledgement() throws IOException {
+        service.acceptSale(sale("R1"));
+
+        verify(saleIdempotencyService, never()).remember(any());
+
+        service.flushPendingSales();
+        SaleTransactionDTO committed = sale("R1");
+        committed.setSaleNumber("S001-committed");
+        when(saleIdempotencyService.findOriginal("T1", "R1")).thenReturn(Optional.of(committed));
+
+        assertThat(service.acceptSale(sale("R1")).getSaleNumber()).isEqualTo("S001-committed");
+        assertThat(service.getWriteBehindStatus()).containsEntry("pendingSales", 0);
+    }
+
+    @Test
+    void retryOfADeadLetteredSaleIsJournaledAgain() throws IOException {
+        doAnswer(invocation -> result(invocation.getArgument(0), 0)).when(salesService).commitJournaledSales(anyList());
+        service.acceptSale(sale("R1"));
+        service.flushPendingSales();
+
+        service.acceptSale(sale("R1"));
+
+        assertThat(service.getWriteBehindStatus()).containsEntry("pendingSales", 1);
+    }
+
+    @Test
+    void invalidSaleIsRefusedBeforeItIsJournaled() throws IOException {
+        doThrow(new BusinessLogicException("Fuel type not found with id: 9")).when(salesService).validateJournaledSale(any());
+
+        assertThatThrownBy(() -> service.acceptSale(sale("R1"))).isInstanceOf(BusinessLogicException.class);
+
+        assertThat(journalBytes()).isZero();
+        verify(salesService, never()).commitJournaledSales(anyList());
+    }
+
+    private SaleWriteBehindServiceImpl open() throws IOException {
+        SaleWriteBehindServiceImpl opened = new SaleWriteBehindServiceImpl(salesService, objectMapper, saleIdempotencyService,
+                saleDeadLetterRepository);
+        ReflectionTestUtils.setField(opened, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(opened, "maxGroupSize", 500);
+        ReflectionTestUtils.setField(opened, "maxAttempts", 3);
+        ReflectionTestUtils.setField(opened, "segmentBytes", 16L * 1024 * 1024);
+        opened.openJournal();
+        return opened;
+    }
+
+    // Stops with the database unreachable, so the shutdown flush leaves the journal in place
+    private void restart() throws IOException {
+        doThrow(new IllegalStateException("database down")).when(salesService).commitJournaledSales(anyList());
+        service.closeJournal();
+        service = open();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private long journalBytes() throws IOException {
+        long bytes = 0;
+        for (Path segment : segmentFiles()) {
+            bytes += Files.size(segment);
+        }
+        return bytes;
+    }
+
+    private List<String> journalLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Path segment : segmentFiles()) {
+            lines.addAll(Files.readAllLines(segment));
+        }
+        return lines;
+    }
+
+    private List<List<SaleTransactionDTO>> commitEverything() {
+        List<List<SaleTransactionDTO>> calls = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<SaleTransactionDTO> sales = new ArrayList<>(invocation.getArgument(0));
+            calls.add(sales);
+            return result(sales, -1);
+        }).when(salesService).commitJournaledSales(anyList());
+        return calls;
+    }
+
+    // Every sale succeeds except the one at rejectedIndex
+    private static SaleBatchResultDTO result(List<SaleTransactionDTO> sales, int rejectedIndex) {
+        List<SaleBatchResultDTO.ItemResultDTO> items = IntStream.range(0, sales.size())
+                .mapToObj(i -> SaleBatchResultDTO.ItemResultDTO.builder()
+                        .index(i)
+                        .success(i != rejectedIndex)
+                        .saleId(i != rejectedIndex ? 100L + i : null)
+                        .saleNumber(sales.get(i).getSaleNumber())
+                        .error(i != rejectedIndex ? null : "Shift not found with id: 1")
+                        .build())
+                .toList();
+        return SaleBatchResultDTO.builder().results(items).build();
+    }
+
+    private static SaleTransactionDTO sale(String reference) {
+        return SaleTransactionDTO.builder()
+                .pumpId(1L)
+                .shiftId(1L)
+                .fuelTypeId(1L)
+                .quantity(new BigDecimal("10.000"))
+                .rate(new BigDecimal("100.00"))
+                .amount(new BigDecimal("1000.00"))
+                .totalAmount(new BigDecimal("1000.00"))
+                .paymentMethod(SaleTransaction.PaymentMethod.CASH)
+                .saleType(SaleTransaction.SaleType.values()[0])
+                .transactedAt(LocalDateTime.of(2026, 10, 1, 9, 30))
+                .terminalId("T1")
+                .transactionReference(reference)
+                .build();
+    }
+}
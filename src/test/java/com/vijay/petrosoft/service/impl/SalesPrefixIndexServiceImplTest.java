@@ -0,0 +1,118 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.dto.SalesRangeTotalsDTO;
+import com.vijay.petrosoft.repository.SalesDailyRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SalesPrefixIndexServiceImplTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    private SalesDailyRollupRepository salesDailyRollupRepository;
+    private SalesPrefixIndexServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        salesDailyRollupRepository = mock(SalesDailyRollupRepository.class);
+        service = new SalesPrefixIndexServiceImpl(salesDailyRollupRepository);
+    }
+
+    @Test
+    void rangesStayExactAcrossExtendsAndPrepends() {
+        rebuildFrom();
+
+        record(1L, DAY, "10.00");
+        record(1L, DAY.plusDays(40), "5.00");      // past the initial 16 slots
+        record(1L, DAY.minusDays(5), "2.00");      // moves the base back
+        record(1L, DAY.minusDays(100), "1.00");    // prepends more days than the arrays hold
+        record(1L, DAY.plusDays(3), "4.00");       // back-dated into the middle, carried forward
+
+        assertAmount(1L, DAY.minusDays(100), DAY.plusDays(40), "22.00");
+        assertAmount(1L, DAY.minusDays(100), DAY.minusDays(100), "1.00");
+        assertAmount(1L, DAY.minusDays(99), DAY.minusDays(6), "0.00");
+        assertAmount(1L, DAY.minusDays(5), DAY, "12.00");
+        assertAmount(1L, DAY.plusDays(1), DAY.plusDays(3), "4.00");
+        assertAmount(1L, DAY.plusDays(4), DAY.plusDays(39), "0.00");
+        // Before the first recorded day and after the last one
+        assertAmount(1L, DAY.minusDays(200), DAY.minusDays(101), "0.00");
+        assertAmount(1L, DAY.plusDays(41), DAY.plusDays(400), "0.00");
+        assertAmount(1L, DAY.minusDays(200), DAY.plusDays(400), "22.00");
+        assertThat(service.getRangeTotals(1L, DAY.minusDays(5), DAY.plusDays(3)).getTransactionCount()).isEqualTo(3L);
+    }
+
+    @Test
+    void globalTotalsCoverEveryPump() {
+        rebuildFrom(row(1L, DAY, "10.00"), row(1L, DAY.plusDays(2), "3.00"), row(2L, DAY.minusDays(1), "7.00"));
+
+        record(2L, DAY.plusDays(1), "1.00");
+
+        assertAmount(null, DAY.minusDays(1), DAY.plusDays(2), "21.00");
+        assertAmount(null, DAY.minusDays(1), DAY.minusDays(1), "7.00");
+        assertAmount(null, DAY, DAY.plusDays(1), "11.00");
+        assertAmount(2L, DAY.minusDays(1), DAY.plusDays(2), "8.00");
+        assertAmount(3L, DAY.minusDays(1), DAY.plusDays(2), "0.00");
+    }
+
+    @Test
+    void deltasCommittedDuringARebuildSurviveTheSwap() {
+        rebuildFrom();
+        when(salesDailyRollupRepository.sumByPumpAndDay()).thenAnswer(invocation -> {
+            // A sale commits while the rollup is being read and is not part of the rows returned
+            record(1L, DAY, "3.00");
+            return rows(row(1L, DAY, "7.00"));
+        });
+
+        service.rebuild();
+
+        assertAmount(1L, DAY, DAY, "10.00");
+        assertAmount(null, DAY, DAY, "10.00");
+        record(1L, DAY, "1.00");
+        assertAmount(1L, DAY, DAY, "11.00");
+    }
+
+    @Test
+    void answersFromTheRollupUntilTheFirstBuild() {
+        when(salesDailyRollupRepository.sumByDay(1L, DAY, DAY.plusDays(1))).thenReturn(rows(
+                new Object[]{DAY, new BigDecimal("4.00"), BigDecimal.ONE, 1L},
+                new Object[]{DAY.plusDays(1), new BigDecimal("6.00"), BigDecimal.ONE, 2L}));
+
+        SalesRangeTotalsDTO totals = service.getRangeTotals(1L, DAY, DAY.plusDays(1));
+
+        assertThat(totals.getTotalAmount()).isEqualByComparingTo("10.00");
+        assertThat(totals.getTransactionCount()).isEqualTo(3L);
+        verify(salesDailyRollupRepository, never()).sumByPumpAndDay();
+    }
+
+    private void rebuildFrom(Object[]... rows) {
+        when(salesDailyRollupRepository.sumByPumpAndDay()).thenReturn(rows(rows));
+        service.rebuild();
+    }
+
+    private void record(Long pumpId, LocalDate day, String amount) {
+        service.recordDelta(pumpId, day, new BigDecimal(amount), BigDecimal.ONE, 1);
+    }
+
+    private void assertAmount(Long pumpId, LocalDate startDate, LocalDate endDate, String expected) {
+        assertThat(service.getRangeTotals(pumpId, startDate, endDate).getTotalAmount()).isEqualByComparingTo(expected);
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return Arrays.asList(rows);
+    }
+
+    private static Object[] row(Long pumpId, LocalDate day, String amount) {
+        return new Object[]{pumpId, day, new BigDecimal(amount), BigDecimal.ONE, 1L};
+    }
+}
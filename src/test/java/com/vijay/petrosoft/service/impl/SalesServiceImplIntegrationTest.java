@@ -0,0 +1,189 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.Customer;
+import com.vijay.petrosoft.domain.FuelType;
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.domain.Shift;
+import com.vijay.petrosoft.dto.SaleBatchResultDTO;
+import com.vijay.petrosoft.dto.SaleTransactionDTO;
+import com.vijay.petrosoft.repository.CustomerRepository;
+import com.vijay.petrosoft.repository.FuelTypeRepository;
+import com.vijay.petrosoft.repository.SaleRepository;
+import com.vijay.petrosoft.repository.SaleRepositoryCustom.KeyConflict;
+import com.vijay.petrosoft.repository.ShiftRepository;
+import com.vijay.petrosoft.service.SaleIdempotencyService;
+import com.vijay.petrosoft.service.SaleTransactionService;
+import com.vijay.petrosoft.service.SalesService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against the configured database like PetrosoftApplicationTests. The idempotency service is mocked out so every
+// attempt reaches the insert, the way two racing first attempts both pass its check
+@SpringBootTest
+@Transactional
+class SalesServiceImplIntegrationTest {
+
+    private static final Long PUMP = 1L;
+
+    @Autowired
+    private SalesService salesService;
+
+    @Autowired
+    private SaleTransactionService saleTransactionService;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private ShiftRepository shiftRepository;
+
+    @Autowired
+    private FuelTypeRepository fuelTypeRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private SaleIdempotencyService saleIdempotencyService;
+
+    private Shift shift;
+    private FuelType fuelType;
+    private Customer customer;
+    private String terminalId;
+
+    @BeforeEach
+    void setUp() {
+        shift = shiftRepository.save(Shift.builder()
+                .pumpId(PUMP)
+                .operatorId(1L)
+                .shiftName("I")
+                .openedAt(LocalDateTime.now().minusHours(1))
+                .build());
+        fuelType = fuelTypeRepository.save(FuelType.builder().name("Petrol").uom("L").currentRate(new BigDecimal("100.00")).build());
+        customer = customerRepository.save(Customer.builder().name("Walk-in").outstanding(BigDecimal.ZERO).build());
+        terminalId = "T-" + UUID.randomUUID();
+    }
+
+    @Test
+    void duplicateReferenceIsAnsweredWithTheStoredSale() {
+        SaleTransactionDTO first = salesService.createSaleTransaction(sale("REF-1"));
+        SaleTransactionDTO replay = salesService.createSaleTransaction(sale("REF-1"));
+
+        assertThat(replay.getId()).isEqualTo(first.getId());
+        assertThat(replay.getSaleNumber()).isEqualTo(first.getSaleNumber());
+        assertThat(countSales("REF-1")).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sale_keys WHERE terminal_id = ? AND transaction_reference = ?",
+                Integer.class, terminalId, "REF-1")).isEqualTo(1);
+    }
+
+    @Test
+    void referenceWithoutATerminalIsStillDeduplicated() {
+        terminalId = null;
+        String reference = "REF-" + UUID.randomUUID();
+
+        SaleTransactionDTO first = salesService.createSaleTransaction(sale(reference));
+        SaleTransactionDTO replay = salesService.createSaleTransaction(sale(reference));
+
+        assertThat(replay.getId()).isEqualTo(first.getId());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sales WHERE terminal_id IS NULL AND transaction_reference = ?",
+                Integer.class, reference)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT terminal_id FROM sale_keys WHERE sale_id = ?", String.class, first.getId()))
+                .isEmpty();
+    }
+
+    @Test
+    void saleTransactionServiceAnswersATakenReferenceWithTheStoredSale() {
+        SaleTransactionDTO first = saleTransactionService.createSale(numberedSale("REF-1"));
+        SaleTransactionDTO replay = saleTransactionService.createSale(numberedSale("REF-1"));
+
+        assertThat(replay.getId()).isEqualTo(first.getId());
+        assertThat(replay.getSaleNumber()).isEqualTo(first.getSaleNumber());
+        assertThat(countSales("REF-1")).isEqualTo(1);
+    }
+
+    @Test
+    void batchAnswersStoredReferencesAndInsertsTheRest() {
+        SaleTransactionDTO stored = salesService.createSaleTransaction(sale("REF-1"));
+
+        SaleBatchResultDTO result = salesService.createSaleTransactionsBatch(List.of(sale("REF-1"), sale("REF-2")));
+
+        assertThat(result.getSuccessCount()).isEqualTo(2);
+        assertThat(result.getResults().get(0).getSaleId()).isEqualTo(stored.getId());
+        assertThat(result.getResults().get(1).getSaleId()).isNotEqualTo(stored.getId());
+        assertThat(countSales("REF-1")).isEqualTo(1);
+        assertThat(countSales("REF-2")).isEqualTo(1);
+    }
+
+    @Test
+    void saleWhoseNumberIsTakenIsRemovedAgain() {
+        SaleTransactionDTO stored = salesService.createSaleTransaction(sale("REF-1"));
+        SaleTransaction loser = SaleTransaction.builder()
+                .pumpId(PUMP)
+                .shift(shift)
+                .fuelType(fuelType)
+                .saleNumber(stored.getSaleNumber())
+                .quantity(BigDecimal.ONE)
+                .rate(new BigDecimal("100.00"))
+                .amount(new BigDecimal("100.00"))
+                .totalAmount(new BigDecimal("100.00"))
+                .paymentMethod(SaleTransaction.PaymentMethod.CASH)
+                .saleType(SaleTransaction.SaleType.RETAIL)
+                .status(SaleTransaction.Status.COMPLETED)
+                .transactedAt(LocalDateTime.now())
+                .terminalId(terminalId)
+                .transactionReference("REF-2")
+                .build();
+
+        Map<Integer, KeyConflict> conflicts = saleRepository.batchInsert(List.of(loser));
+
+        assertThat(conflicts).containsEntry(0, new KeyConflict(stored.getId(), false));
+        assertThat(countSales("REF-2")).isZero();
+    }
+
+    private int countSales(String reference) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sales WHERE terminal_id = ? AND transaction_reference = ?",
+                Integer.class, terminalId, reference);
+    }
+
+    // The plain sale service takes the sale number from the request
+    private SaleTransactionDTO numberedSale(String reference) {
+        SaleTransactionDTO sale = sale(reference);
+        sale.setSaleNumber("S-" + UUID.randomUUID().toString().substring(0, 8));
+        sale.setStatus(SaleTransaction.Status.COMPLETED);
+        return sale;
+    }
+
+    private SaleTransactionDTO sale(String reference) {
+        return SaleTransactionDTO.builder()
+                .pumpId(PUMP)
+                .shiftId(shift.getId())
+                .fuelTypeId(fuelType.getId())
+                .customerId(customer.getId())
+                .quantity(new BigDecimal("2.000"))
+                .rate(new BigDecimal("100.00"))
+                .amount(new BigDecimal("200.00"))
+                .totalAmount(new BigDecimal("200.00"))
+                .paymentMethod(SaleTransaction.PaymentMethod.CASH)
+                .saleType(SaleTransaction.SaleType.RETAIL)
+                .transactedAt(LocalDateTime.now())
+                .terminalId(terminalId)
+                .transactionReference(reference)
+                .build();
+    }
+}
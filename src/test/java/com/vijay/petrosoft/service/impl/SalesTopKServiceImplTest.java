@@ -0,0 +1,136 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.domain.Customer;
+import com.vijay.petrosoft.domain.SaleTransaction;
+import com.vijay.petrosoft.dto.SalesTopKEntryDTO;
+import com.vijay.petrosoft.repository.SaleRepository;
+import com.vijay.petrosoft.repository.SalesDailyRollupRepository;
+import com.vijay.petrosoft.service.SalesTopKService.Dimension;
+import com.vijay.petrosoft.service.SalesTopKService.Window;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SalesTopKServiceImplTest {
+
+    private static final int CAPACITY = 3;
+
+    private SaleRepository saleRepository;
+    private SalesTopKServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        saleRepository = mock(SaleRepository.class);
+        service = new SalesTopKServiceImpl(mock(SalesDailyRollupRepository.class), saleRepository);
+        ReflectionTestUtils.setField(service, "capacity", CAPACITY);
+    }
+
+    @Test
+    void newItemEvictsTheSmallestCounterAndInheritsItAsError() {
+        seed(row(1L, "1000.00"), row(2L, "500.00"), row(3L, "200.00"));
+
+        service.recordSale(sale(4L), new BigDecimal("50.00"), BigDecimal.ONE, 1);
+
+        List<SalesTopKEntryDTO> top = top(CAPACITY);
+        assertThat(top).extracting(SalesTopKEntryDTO::getId).containsExactly(1L, 2L, 4L);
+        SalesTopKEntryDTO newcomer = top.get(2);
+        assertThat(newcomer.getTotalAmount()).isEqualByComparingTo("250.00");
+        assertThat(newcomer.getMaxOverestimate()).isEqualByComparingTo("200.00");
+        // The true total (50) lies within [amount - error, amount]
+        assertThat(newcomer.getTotalAmount().subtract(newcomer.getMaxOverestimate())).isEqualByComparingTo("50.00");
+        assertThat(newcomer.isExact()).isFalse();
+    }
+
+    @Test
+    void negativeDeltasOnlyMoveMonitoredItems() {
+        seed(row(1L, "1000.00"), row(2L, "500.00"), row(3L, "200.00"));
+
+        service.recordSale(sale(1L), new BigDecimal("-100.00"), BigDecimal.ONE.negate(), -1);
+        service.recordSale(sale(9L), new BigDecimal("-40.00"), BigDecimal.ONE.negate(), -1);
+
+        List<SalesTopKEntryDTO> top = top(CAPACITY);
+        assertThat(top).extracting(SalesTopKEntryDTO::getId).containsExactly(1L, 2L, 3L);
+        assertThat(top.get(0).getTotalAmount()).isEqualByComparingTo("900.00");
+        assertThat(top.get(2).getTotalAmount()).isEqualByComparingTo("200.00");
+    }
+
+    @Test
+    void streamStaysWithinTheSpaceSavingBounds() {
+        seed();
+        Map<Long, Long> truePaise = new HashMap<>();
+        Random random = new Random(42);
+        long streamPaise = 0;
+        for (int i = 0; i < 2000; i++) {
+            // Customer 1 takes about half the volume; the rest is spread thinly over 50 customers
+            long customerId = random.nextBoolean() ? 1L : 2L + random.nextInt(50);
+            long paise = 100 + random.nextInt(900);
+            service.recordSale(sale(customerId), BigDecimal.valueOf(paise, 2), BigDecimal.ONE, 1);
+            truePaise.merge(customerId, paise, Long::sum);
+            streamPaise += paise;
+        }
+
+        List<SalesTopKEntryDTO> top = top(CAPACITY);
+        assertThat(top).hasSize(CAPACITY);
+        assertThat(top.get(0).getId()).isEqualTo(1L);
+        for (SalesTopKEntryDTO entry : top) {
+            long amount = entry.getTotalAmount().movePointRight(2).longValueExact();
+            long error = entry.getMaxOverestimate().movePointRight(2).longValueExact();
+            long actual = truePaise.get(entry.getId());
+            assertThat(actual).isBetween(amount - error, amount);
+            // Every counter's error is at most the stream total divided by the capacity
+            assertThat(error).isLessThanOrEqualTo(streamPaise / CAPACITY);
+        }
+    }
+
+    @Test
+    void limitsAboveTheCapacityAreAnsweredExactly() {
+        when(saleRepository.sumByCustomerSince(isNull(), any(), any())).thenReturn(List.<Object[]>of(row(1L, "10.00")));
+
+        List<SalesTopKEntryDTO> top = top(CAPACITY + 1);
+        top(CAPACITY + 1);
+
+        assertThat(top).extracting(SalesTopKEntryDTO::isExact).containsExactly(true);
+        verify(saleRepository, times(2)).sumByCustomerSince(isNull(), any(), any());
+        // No summary was created, so writes are skipped altogether
+        service.recordSale(sale(1L), BigDecimal.TEN, BigDecimal.ONE, 1);
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(service, "sketches")).isEmpty();
+    }
+
+    private void seed(Object[]... rows) {
+        List<Object[]> seedRows = Arrays.asList(rows);
+        when(saleRepository.sumByCustomerSince(isNull(), any(), any())).thenReturn(seedRows);
+        top(CAPACITY);
+    }
+
+    private List<SalesTopKEntryDTO> top(int limit) {
+        return service.getTop(Dimension.CUSTOMER, null, Window.ALL_TIME, limit);
+    }
+
+    private static Object[] row(Long customerId, String amount) {
+        return new Object[]{customerId, new BigDecimal(amount), BigDecimal.ONE, 1L};
+    }
+
+    private static SaleTransaction sale(Long customerId) {
+        return SaleTransaction.builder()
+                .pumpId(7L)
+                .customer(Customer.builder().id(customerId).build())
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+}
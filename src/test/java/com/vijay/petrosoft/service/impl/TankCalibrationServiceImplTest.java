@@ -0,0 +1,142 @@
+package com.vijay.petrosoft.service.impl;
+
+import com.vijay.petrosoft.dto.DipConversionDTO;
+import com.vijay.petrosoft.dto.TankCalibrationPointDTO;
+import com.vijay.petrosoft.exception.BusinessLogicException;
+import com.vijay.petrosoft.repository.TankCalibrationPointRepository;
+import com.vijay.petrosoft.repository.TankRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TankCalibrationServiceImplTest {
+
+    private static final Long TANK = 1L;
+
+    private TankCalibrationPointRepository tankCalibrationPointRepository;
+    private TankCalibrationServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        tankCalibrationPointRepository = mock(TankCalibrationPointRepository.class);
+        TankRepository tankRepository = mock(TankRepository.class);
+        when(tankRepository.existsById(TANK)).thenReturn(true);
+        service = new TankCalibrationServiceImpl(tankCalibrationPointRepository, tankRepository);
+        ReflectionTestUtils.setField(service, "maxDepthMm", 6000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void chartPointsConvertToTheirCertifiedVolumes() {
+        service.saveChart(TANK, List.of(point(0, "100"), point(1000, "10100"), point(2000, "30100")));
+
+        assertVolume("0", "100.000");
+        assertVolume("1000", "10100.000");
+        assertVolume("2000", "30100.000");
+        assertThat(service.getCalibratedCapacity(TANK)).hasValueSatisfying(capacity ->
+                assertThat(capacity).isEqualByComparingTo("30100.000"));
+    }
+
+    @Test
+    void depthsBetweenPointsInterpolateLinearly() {
+        service.saveChart(TANK, List.of(point(0, "100"), point(1000, "10100"), point(2000, "30100")));
+
+        assertVolume("500", "5100.000");
+        assertVolume("1500", "20100.000");
+        assertVolume("1999", "30080.000");
+    }
+
+    @Test
+    void fractionalMillimetresInterpolateWithinTheMillimetre() {
+        service.saveChart(TANK, List.of(point(0, "100"), point(1000, "10100")));
+
+        assertVolume("500.5", "5105.000");
+        assertVolume("999.25", "10092.500");
+        // Whole-millimetre volumes are rounded to the millilitre; the half-way dip still lands on the straight line
+        service.saveChart(TANK, List.of(point(0, "0"), point(3, "10")));
+        assertVolume("1", "3.333");
+        assertVolume("2", "6.667");
+        assertVolume("1.5", "5.000");
+    }
+
+    @Test
+    void depthsBelowTheFirstPointRunFromAnEmptyTank() {
+        service.saveChart(TANK, List.of(point(100, "1000"), point(200, "2500")));
+
+        assertVolume("0", "0.000");
+        assertVolume("50", "500.000");
+        assertVolume("150", "1750.000");
+    }
+
+    @Test
+    void dipsOutsideTheChartAreRejected() {
+        service.saveChart(TANK, List.of(point(0, "0"), point(1000, "10000")));
+
+        assertThatThrownBy(() -> service.toVolume(TANK, new BigDecimal("1000.1")))
+                .isInstanceOf(BusinessLogicException.class).hasMessageContaining("above its calibrated height");
+        assertThatThrownBy(() -> service.toVolume(TANK, new BigDecimal("-1")))
+                .isInstanceOf(BusinessLogicException.class);
+        assertThatThrownBy(() -> service.toVolume(2L, BigDecimal.TEN))
+                .isInstanceOf(BusinessLogicException.class).hasMessageContaining("has no calibration chart");
+    }
+
+    @Test
+    void chartsThatAreNotMonotonicAreRefused() {
+        assertThatThrownBy(() -> service.saveChart(TANK, List.of(point(0, "0"), point(100, "500"), point(200, "400"))))
+                .isInstanceOf(BusinessLogicException.class).hasMessageContaining("falls between");
+        assertThatThrownBy(() -> service.saveChart(TANK, List.of(point(100, "500"), point(100, "600"))))
+                .isInstanceOf(BusinessLogicException.class).hasMessageContaining("more than once");
+    }
+
+    @Test
+    void batchConversionCarriesUllageAndPerReadingErrors() {
+        service.saveChart(TANK, List.of(point(0, "0"), point(1000, "10000")));
+
+        List<DipConversionDTO> results = service.convertDips(List.of(
+                DipConversionDTO.builder().tankId(TANK).dipMm(new BigDecimal("250.5")).build(),
+                DipConversionDTO.builder().tankId(TANK).dipMm(new BigDecimal("2000")).build()));
+
+        assertThat(results.get(0).getVolume()).isEqualByComparingTo("2505.000");
+        assertThat(results.get(0).getUllage()).isEqualByComparingTo("7495.000");
+        assertThat(results.get(0).getError()).isNull();
+        assertThat(results.get(1).getVolume()).isNull();
+        assertThat(results.get(1).getError()).contains("above its calibrated height");
+    }
+
+    @Test
+    void savedChartIsUsedOnlyAfterCommit() {
+        service.saveChart(TANK, List.of(point(0, "0"), point(1000, "10000")));
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.saveChart(TANK, List.of(point(0, "0"), point(1000, "20000")));
+        assertVolume("500", "5000.000");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertVolume("500", "10000.000");
+    }
+
+    private void assertVolume(String dipMm, String expected) {
+        assertThat(service.toVolume(TANK, new BigDecimal(dipMm))).isEqualByComparingTo(expected);
+    }
+
+    private static TankCalibrationPointDTO point(int depthMm, String volume) {
+        return TankCalibrationPointDTO.builder().depthMm(depthMm).volume(new BigDecimal(volume)).build();
+    }
+}